@@ -0,0 +1,361 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+/**
+ * Formats and parses the DateTime values of SpreadsheetML, like
+ * <code>2004-09-08T12:30:00.000</code>. The values are local times in the
+ * time zone of the codec.
+ * <P>
+ * Unlike a SimpleDateFormat, a DateTimeCodec can be used by several threads 
+ * at once. The digits are calculated directly from the epoch milliseconds,
+ * without a Calendar. Values can be formatted into a char array, so 
+ * formatting does not have to allocate anything.
+ * <P>
+ * Parsing accepts <code>yyyy-MM-ddTHH:mm</code>, optionally followed by 
+ * <code>:ss</code> and a fraction of a second. Anything that follows, like 
+ * a time zone designator, is ignored. A space may be used instead of 
+ * the <code>T</code>. The fields are checked against the gregorian 
+ * calendar: a value like <code>2005-02-29T00:00:00</code> is not accepted. 
+ * Values that do not exist in the time zone, because 
+ * clocks were set forward, are resolved in the same way as by 
+ * {@link java.util.GregorianCalendar}. 
+ * <P>
+ * Values of the java.time package are formatted and parsed by a 
+ * {@link JavaTimeCodec}.
+ * 
+ * @see XLUtil#format(Date)
+ * @see XLUtil#parse(String)
+ */
+public class DateTimeCodec {
+    
+    /**
+     * The number of characters of a formatted value.
+     */
+    public static final int LENGTH = 23;
+    
+    private static final long MILLIS_PER_DAY = 86400000L;
+    // 1582-10-15, before that a GregorianCalendar uses the julian calendar
+    private static final long GREGORIAN_START = -12219292800000L;
+    // 10000-01-01
+    private static final long YEAR_10000 = 253402300800000L;
+    static final long INVALID = Long.MIN_VALUE;
+    private static final int[] DAYS_IN_MONTH = {31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+    
+    private static DateTimeCodec defaultCodec;
+    
+    private final TimeZone zone;
+    
+    /**
+     * Creates a new DateTimeCodec for the given time zone.
+     * 
+     * @param zone	the time zone of the values
+     */
+    public DateTimeCodec(TimeZone zone) {
+        this.zone = (TimeZone) zone.clone();
+    }
+    
+    /**
+     * Gets a DateTimeCodec for the default time zone, as it was when this
+     * method was first called.
+     * 
+     * @return a DateTimeCodec for the default time zone
+     */
+    public static DateTimeCodec getDefault() {
+        DateTimeCodec codec = defaultCodec;
+        if (codec == null) {
+            codec = new DateTimeCodec(TimeZone.getDefault());
+            defaultCodec = codec;
+        }
+        return codec;
+    }
+    
+    /**
+     * Gets the ID of the time zone of this codec.
+     * 
+     * @return the ID of the time zone
+     */
+    public String getTimeZoneID() {
+        return zone.getID();
+    }
+    
+    /**
+     * Formats the given date.
+     * 
+     * @param date	the date to format
+     * @return a string of format <code>yyyy-MM-ddTHH:mm:ss.SSS</code>
+     */
+    public String format(Date date) {
+        return format(date.getTime());
+    }
+    
+    /**
+     * Formats the given time.
+     * 
+     * @param epochMillis	milliseconds since 1970-01-01T00:00:00 UTC
+     * @return a string of format <code>yyyy-MM-ddTHH:mm:ss.SSS</code>
+     */
+    public String format(long epochMillis) {
+        long local = epochMillis + zone.getOffset(epochMillis);
+        if (local < GREGORIAN_START || local >= YEAR_10000) {
+            return formatByCalendar(epochMillis);
+        }
+        char[] buffer = new char[LENGTH];
+        int end = format(epochMillis, buffer, 0);
+        return new String(buffer, 0, end);
+    }
+    
+    /**
+     * Formats the given time into the given buffer. Values of a year 
+     * before 1583 or after 9999 may take more than {@link #LENGTH} characters; 
+     * the buffer should have room for 32.
+     * 
+     * @param epochMillis	milliseconds since 1970-01-01T00:00:00 UTC
+     * @param buffer		the buffer to write to
+     * @param offset		the position in the buffer to start
+     * @return the position in the buffer after the value
+     */
+    public int format(long epochMillis, char[] buffer, int offset) {
+        long local = epochMillis + zone.getOffset(epochMillis);
+        if (local < GREGORIAN_START || local >= YEAR_10000) {
+            String s = formatByCalendar(epochMillis);
+            s.getChars(0, s.length(), buffer, offset);
+            return offset + s.length();
+        }
+        long days = floorDiv(local, MILLIS_PER_DAY);
+        int millisOfDay = (int) (local - days * MILLIS_PER_DAY);
+        int date = civil(days);
+        int p = offset;
+        p = digits(date >> 9, 4, buffer, p);
+        buffer[p++] = '-';
+        p = digits((date >> 5) & 15, 2, buffer, p);
+        buffer[p++] = '-';
+        p = digits(date & 31, 2, buffer, p);
+        buffer[p++] = 'T';
+        p = digits(millisOfDay / 3600000, 2, buffer, p);
+        buffer[p++] = ':';
+        p = digits(millisOfDay / 60000 % 60, 2, buffer, p);
+        buffer[p++] = ':';
+        p = digits(millisOfDay / 1000 % 60, 2, buffer, p);
+        buffer[p++] = '.';
+        return digits(millisOfDay % 1000, 3, buffer, p);
+    }
+    
+    // formats the fields of a local date and time
+    static String format(int year, int month, int day, int hour, int minute, 
+            int second, int millis) {
+        if (year < 0 || year > 9999) {
+            throw new IllegalArgumentException("Year out of range: " + year);
+        }
+        char[] buffer = new char[LENGTH];
+        int p = digits(year, 4, buffer, 0);
+        buffer[p++] = '-';
+        p = digits(month, 2, buffer, p);
+        buffer[p++] = '-';
+        p = digits(day, 2, buffer, p);
+        buffer[p++] = 'T';
+        p = digits(hour, 2, buffer, p);
+        buffer[p++] = ':';
+        p = digits(minute, 2, buffer, p);
+        buffer[p++] = ':';
+        p = digits(second, 2, buffer, p);
+        buffer[p++] = '.';
+        digits(millis, 3, buffer, p);
+        return new String(buffer);
+    }
+    
+    /**
+     * Parses the given DateTime value.
+     * 
+     * @param text	the value to parse
+     * @return milliseconds since 1970-01-01T00:00:00 UTC
+     * @throws IllegalArgumentException if the text is not a DateTime value
+     */
+    public long parse(CharSequence text) {
+        long millis = parse(text, Long.MIN_VALUE);
+        if (millis == Long.MIN_VALUE) {
+            throw new IllegalArgumentException("Not a DateTime value: '" + text + "'.");
+        }
+        return millis;
+    }
+    
+    /**
+     * Parses the given DateTime value.
+     * 
+     * @param text		the value to parse
+     * @param invalid	the value to return if the text is not a DateTime value
+     * @return milliseconds since 1970-01-01T00:00:00 UTC, or <code>invalid</code>
+     */
+    public long parse(CharSequence text, long invalid) {
+        long local = parseLocal(text);
+        if (local == INVALID) return invalid;
+        if (local < GREGORIAN_START) {
+            return parseByCalendar(local);
+        }
+        // the offset at the local time, taken as standard time
+        int offset = zone.getOffset(local - zone.getRawOffset());
+        long millis = local - offset;
+        int actual = zone.getOffset(millis);
+        if (actual != offset) {
+            millis = local - actual;
+        }
+        if (millis + zone.getOffset(millis) != local) {
+            // clocks were set forward
+            return parseByCalendar(local);
+        }
+        return millis;
+    }
+    
+    /**
+     * Parses the given DateTime value to a Date.
+     * 
+     * @param text	the value to parse
+     * @return the corresponding Date, or <code>null</code> if the text is 
+     * 		not a DateTime value
+     */
+    public Date parseDate(CharSequence text) {
+        long millis = parse(text, Long.MIN_VALUE);
+        return millis == Long.MIN_VALUE ? null : new Date(millis);
+    }
+    
+    /*
+     * The milliseconds since 1970-01-01T00:00:00 of the local time of the 
+     * text, in the proleptic gregorian calendar, INVALID if the text is not 
+     * a DateTime value.
+     */
+    static long parseLocal(CharSequence text) {
+        int len = text.length();
+        if (len < 16 || text.charAt(4) != '-' || text.charAt(7) != '-'
+                || (text.charAt(10) != 'T' && text.charAt(10) != ' ') 
+                || text.charAt(13) != ':') {
+            return INVALID;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        int second = 0;
+        int millis = 0;
+        if (len >= 19 && text.charAt(16) == ':') {
+            second = digits(text, 17, 2);
+            if (len > 20 && text.charAt(19) == '.') {
+                int scale = 100;
+                for (int i = 20; i < len && scale > 0; i++) {
+                    char c = text.charAt(i);
+                    if (c < '0' || c > '9') break;
+                    millis += (c - '0') * scale;
+                    scale /= 10;
+                }
+            }
+        }
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > DAYS_IN_MONTH[month - 1]
+                || (month == 2 && day == 29 && !isLeapYear(year))
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 
+                || second < 0 || second > 59) {
+            return INVALID;
+        }
+        return daysFromCivil(year, month, day) * MILLIS_PER_DAY 
+        		+ hour * 3600000L + minute * 60000L + second * 1000L + millis;
+    }
+    
+    private static boolean isLeapYear(int year) {
+        return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+    }
+    
+    // days since 1970-01-01 of a date of the proleptic gregorian calendar
+    private static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+    
+    /*
+     * The date of the given day since 1970-01-01 in the proleptic gregorian
+     * calendar as year << 9 | month << 5 | day, after Howard Hinnant's 
+     * civil_from_days.
+     */
+    private static int civil(long days) {
+        long z = days + 719468;
+        long era = floorDiv(z, 146097);
+        int dayOfEra = (int) (z - era * 146097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = (int) (era * 400) + yearOfEra + (month <= 2 ? 1 : 0);
+        return year << 9 | month << 5 | day;
+    }
+    
+    private static long floorDiv(long x, long y) {
+        long q = x / y;
+        return (x % y != 0 && (x < 0) != (y < 0)) ? q - 1 : q;
+    }
+    
+    private static int digits(CharSequence text, int start, int count) {
+        int n = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            n = n * 10 + (c - '0');
+        }
+        return n;
+    }
+    
+    private static int digits(int value, int count, char[] buffer, int offset) {
+        for (int i = offset + count - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return offset + count;
+    }
+    
+    // dates out of the range of the arithmetic
+    private String formatByCalendar(long epochMillis) {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS");
+        sdf.setTimeZone(zone);
+        return sdf.format(new Date(epochMillis));
+    }
+    
+    private long parseByCalendar(long local) {
+        long days = floorDiv(local, MILLIS_PER_DAY);
+        int millisOfDay = (int) (local - days * MILLIS_PER_DAY);
+        int date = civil(days);
+        GregorianCalendar calendar = new GregorianCalendar(zone);
+        calendar.clear();
+        calendar.set(date >> 9, ((date >> 5) & 15) - 1, date & 31, millisOfDay / 3600000, 
+                millisOfDay / 60000 % 60, millisOfDay / 1000 % 60);
+        calendar.set(Calendar.MILLISECOND, millisOfDay % 1000);
+        return calendar.getTimeInMillis();
+    }
+
+}
@@ -81,6 +81,17 @@ public class GIO {
         return selectedSheetsCount;
     }
     
+    /**
+     * Adds the styleID's and the number of selected sheets of the
+     * given GIO to this GIO.
+     * 
+     * @param 	other	the GIO to merge with this GIO.
+     */
+    public void merge(GIO other) {
+        getStyleIDSet().addAll(other.getStyleIDSet());
+        selectedSheetsCount += other.getSelectedSheetsCount();
+    }
+    
     /**
      * Sets whether the workbook's 
      * {@link nl.fountain.xelem.excel.Workbook#createDocument() createDocument}
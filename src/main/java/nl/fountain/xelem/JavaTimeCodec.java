@@ -0,0 +1,111 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Formats and parses the DateTime values of SpreadsheetML as values of the
+ * java.time package. 
+ * <P>
+ * This class needs a runtime that has the java.time package. 
+ * The rest of xelem, including {@link DateTimeCodec}, does not depend on it.
+ * A JavaTimeCodec can be used by several threads at once.
+ */
+public class JavaTimeCodec {
+    
+    private final DateTimeCodec codec;
+    
+    /**
+     * Creates a new JavaTimeCodec that uses the time zone of the
+     * {@link DateTimeCodec#getDefault() default DateTimeCodec} for instants.
+     */
+    public JavaTimeCodec() {
+        this(DateTimeCodec.getDefault());
+    }
+    
+    /**
+     * Creates a new JavaTimeCodec that uses the time zone of the given
+     * DateTimeCodec for instants.
+     * 
+     * @param codec	the codec for instants
+     */
+    public JavaTimeCodec(DateTimeCodec codec) {
+        this.codec = codec;
+    }
+    
+    /**
+     * Formats the given date and time. No time zone is involved.
+     * 
+     * @param dateTime	the date and time to format
+     * @return a string of format <code>yyyy-MM-ddTHH:mm:ss.SSS</code>
+     * @throws IllegalArgumentException if the year is not in the range 0 - 9999
+     */
+    public String format(LocalDateTime dateTime) {
+        return DateTimeCodec.format(dateTime.getYear(), dateTime.getMonthValue(), 
+                dateTime.getDayOfMonth(), dateTime.getHour(), dateTime.getMinute(), 
+                dateTime.getSecond(), dateTime.getNano() / 1000000);
+    }
+    
+    /**
+     * Formats the given instant as a local time in the time zone of 
+     * the DateTimeCodec of this JavaTimeCodec.
+     * 
+     * @param instant	the instant to format
+     * @return a string of format <code>yyyy-MM-ddTHH:mm:ss.SSS</code>
+     */
+    public String format(Instant instant) {
+        return codec.format(instant.toEpochMilli());
+    }
+    
+    /**
+     * Parses the given DateTime value to a LocalDateTime. No time zone is 
+     * involved.
+     * 
+     * @param text	the value to parse
+     * @return the corresponding LocalDateTime
+     * @throws IllegalArgumentException if the text is not a DateTime value
+     */
+    public LocalDateTime parseLocalDateTime(CharSequence text) {
+        long local = DateTimeCodec.parseLocal(text);
+        if (local == DateTimeCodec.INVALID) {
+            throw new IllegalArgumentException("Not a DateTime value: '" + text + "'.");
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(local, 1000L), 
+                (int) Math.floorMod(local, 1000L) * 1000000, ZoneOffset.UTC);
+    }
+    
+    /**
+     * Parses the given DateTime value to an Instant, taking it as a local 
+     * time in the time zone of the DateTimeCodec of this JavaTimeCodec.
+     * 
+     * @param text	the value to parse
+     * @return the corresponding Instant
+     * @throws IllegalArgumentException if the text is not a DateTime value
+     */
+    public Instant parseInstant(CharSequence text) {
+        return Instant.ofEpochMilli(codec.parse(text));
+    }
+
+}
@@ -0,0 +1,425 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem;
+
+import java.math.BigInteger;
+
+/**
+ * Formats numbers as they are written in the Data-elements of SpreadsheetML.
+ * <P>
+ * Doubles and floats are written in the layout of
+ * {@link Double#toString(double)} and {@link Float#toString(float)}, with
+ * the fewest digits that still parse back to the same value; of those 
+ * the one closest to the value is taken. Parsing the result with 
+ * {@link Double#parseDouble(String)} always gives the original value. 
+ * The digits are computed with the Schubfach algorithm of Raffaello 
+ * Giulietti. Integral values and longs are written without it.
+ * <P>
+ * Values can be formatted into a char array, which takes at most 
+ * {@link #MAX_LENGTH} characters. This class has no state and can be 
+ * used by several threads at once.
+ * 
+ * @see XLWriter#text(double)
+ */
+public class NumberFormatter {
+    
+    /**
+     * The maximum number of characters of a formatted value, 
+     * as in <code>-2.2250738585072014E-308</code>.
+     */
+    public static final int MAX_LENGTH = 24;
+    
+    // double
+    private static final int P = 53;
+    private static final int Q_MIN = -1074;
+    private static final long C_MIN = 1L << (P - 1);
+    private static final long C_TINY = 3;
+    
+    // float
+    private static final int F_P = 24;
+    private static final int F_Q_MIN = -149;
+    private static final int F_C_MIN = 1 << (F_P - 1);
+    private static final int F_C_TINY = 8;
+    
+    private static final long MASK_63 = (1L << 63) - 1;
+    private static final long MASK_32 = (1L << 32) - 1;
+    
+    // the range of k in 10^-k of the table
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+    
+    // 10^-k = g * 2^r, rounded up to 126 bits, split in g1 and g0
+    private static final long[] G1 = new long[K_MAX - K_MIN + 1];
+    private static final long[] G0 = new long[K_MAX - K_MIN + 1];
+    
+    private static final long[] POW10 = new long[19];
+    
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            int r = flog2pow10(-k) - 125;
+            BigInteger num = k <= 0 ? BigInteger.TEN.pow(-k) : BigInteger.ONE;
+            BigInteger den = k <= 0 ? BigInteger.ONE : BigInteger.TEN.pow(k);
+            if (r < 0) {
+                num = num.shiftLeft(-r);
+            } else {
+                den = den.shiftLeft(r);
+            }
+            BigInteger g = num.divide(den).add(BigInteger.ONE);
+            G1[k - K_MIN] = g.shiftRight(63).longValue();
+            G0[k - K_MIN] = g.longValue() & MASK_63;
+        }
+    }
+    
+    // this class has only static methods.
+    private NumberFormatter() {}
+    
+    /**
+     * Formats the given double.
+     * 
+     * @param d	the value to format
+     * @return the shortest string that parses to the given value
+     */
+    public static String toString(double d) {
+        char[] buffer = new char[MAX_LENGTH];
+        return new String(buffer, 0, format(d, buffer, 0));
+    }
+    
+    /**
+     * Formats the given float.
+     * 
+     * @param f	the value to format
+     * @return the shortest string that parses to the given value
+     */
+    public static String toString(float f) {
+        char[] buffer = new char[MAX_LENGTH];
+        return new String(buffer, 0, format(f, buffer, 0));
+    }
+    
+    /**
+     * Formats the given double into the given buffer.
+     * 
+     * @param d			the value to format
+     * @param buffer	the buffer to write to
+     * @param offset	the position in the buffer to start
+     * @return the position in the buffer after the value
+     */
+    public static int format(double d, char[] buffer, int offset) {
+        long bits = Double.doubleToRawLongBits(d);
+        long t = bits & (C_MIN - 1);
+        int bq = (int) (bits >>> (P - 1)) & 0x7ff;
+        if (bq == 0x7ff) {
+            return special(t != 0, bits < 0, buffer, offset);
+        }
+        int p = offset;
+        if (bits < 0) {
+            buffer[p++] = '-';
+        }
+        if (bq != 0) {
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+            if (0 < mq && mq < P) {
+                long f = c >> mq;
+                if (f << mq == c) {
+                    // an integral value
+                    return toChars(f, 0, buffer, p);
+                }
+            }
+            return toDecimal(-mq, c, 0, buffer, p);
+        }
+        if (t != 0) {
+            return t < C_TINY ? toDecimal(Q_MIN, 10 * t, -1, buffer, p) 
+                    : toDecimal(Q_MIN, t, 0, buffer, p);
+        }
+        return zero(buffer, p);
+    }
+    
+    /**
+     * Formats the given float into the given buffer.
+     * 
+     * @param f			the value to format
+     * @param buffer	the buffer to write to
+     * @param offset	the position in the buffer to start
+     * @return the position in the buffer after the value
+     */
+    public static int format(float f, char[] buffer, int offset) {
+        int bits = Float.floatToRawIntBits(f);
+        int t = bits & (F_C_MIN - 1);
+        int bq = (bits >>> (F_P - 1)) & 0xff;
+        if (bq == 0xff) {
+            return special(t != 0, bits < 0, buffer, offset);
+        }
+        int p = offset;
+        if (bits < 0) {
+            buffer[p++] = '-';
+        }
+        if (bq != 0) {
+            int mq = -F_Q_MIN + 1 - bq;
+            int c = F_C_MIN | t;
+            if (0 < mq && mq < F_P) {
+                int i = c >> mq;
+                if (i << mq == c) {
+                    return toChars(i, 0, buffer, p);
+                }
+            }
+            return toDecimal(-mq, c, 0, buffer, p);
+        }
+        if (t != 0) {
+            return t < F_C_TINY ? toDecimal(F_Q_MIN, 10 * t, -1, buffer, p) 
+                    : toDecimal(F_Q_MIN, t, 0, buffer, p);
+        }
+        return zero(buffer, p);
+    }
+    
+    /**
+     * Formats the given long into the given buffer, 
+     * like {@link Long#toString(long)}.
+     * 
+     * @param l			the value to format
+     * @param buffer	the buffer to write to
+     * @param offset	the position in the buffer to start
+     * @return the position in the buffer after the value
+     */
+    public static int format(long l, char[] buffer, int offset) {
+        int p = offset;
+        // negative values have room for Long.MIN_VALUE
+        long n = l;
+        if (l < 0) {
+            buffer[p++] = '-';
+        } else {
+            n = -l;
+        }
+        int len = 1;
+        while (len < 19 && n <= -POW10[len]) {
+            len++;
+        }
+        int end = p + len;
+        for (int i = end - 1; i >= p; i--) {
+            buffer[i] = (char) ('0' - (int) (n % 10));
+            n /= 10;
+        }
+        return end;
+    }
+    
+    private static int toDecimal(int q, long c, int dk, char[] buffer, int p) {
+        int out = (int) c & 1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != C_MIN || q == Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            // the lower neighbour is closer
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+        long g1 = G1[k - K_MIN];
+        long g0 = G0[k - K_MIN];
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+        long s = vb >> 2;
+        if (s >= 100) {
+            // one digit less may do
+            long sp10 = s / 10 * 10;
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                return toChars(upin ? sp10 : tp10, k, buffer, p);
+            }
+        }
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            return toChars(uin ? s : t, k + dk, buffer, p);
+        }
+        // both or neither are in the rounding interval: take the closest
+        long cmp = vb - ((s + t) << 1);
+        return toChars(cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk, buffer, p);
+    }
+    
+    private static int toDecimal(int q, int c, int dk, char[] buffer, int p) {
+        int out = c & 1;
+        long cb = (long) c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != F_C_MIN || q == F_Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 33;
+        long g = G1[k - K_MIN] + 1;
+        int vb = rop(g, cb << h);
+        int vbl = rop(g, cbl << h);
+        int vbr = rop(g, cbr << h);
+        int s = vb >> 2;
+        if (s >= 100) {
+            int sp10 = s / 10 * 10;
+            int tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                return toChars(upin ? sp10 : tp10, k, buffer, p);
+            }
+        }
+        int t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            return toChars(uin ? s : t, k + dk, buffer, p);
+        }
+        int cmp = vb - ((s + t) << 1);
+        return toChars(cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk, buffer, p);
+    }
+    
+    // the 126 bit g times cp, rounded to odd
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+    
+    private static int rop(long g, long cp) {
+        long x1 = multiplyHigh(g, cp);
+        long vbp = x1 >>> 31;
+        return (int) (vbp | (x1 & MASK_32) + MASK_32 >>> 32);
+    }
+    
+    // the high 64 bits of the product, as Math.multiplyHigh of Java 9
+    private static long multiplyHigh(long x, long y) {
+        long x1 = x >> 32;
+        long x2 = x & MASK_32;
+        long y1 = y >> 32;
+        long y2 = y & MASK_32;
+        long z2 = x2 * y2;
+        long t = x1 * y2 + (z2 >>> 32);
+        long z1 = (t & MASK_32) + x2 * y1;
+        long z0 = t >> 32;
+        return x1 * y1 + z0 + (z1 >> 32);
+    }
+    
+    // floor(log10(2^e))
+    private static int flog10pow2(int e) {
+        return (int) (e * 661971961083L >> 41);
+    }
+    
+    // floor(log10(3/4 * 2^e))
+    private static int flog10threeQuartersPow2(int e) {
+        return (int) (e * 661971961083L - 274743187321L >> 41);
+    }
+    
+    // floor(log2(10^e))
+    private static int flog2pow10(int e) {
+        return (int) (e * 913124641741L >> 38);
+    }
+    
+    // writes f * 10^e in the layout of Double.toString
+    private static int toChars(long f, int e, char[] buffer, int p) {
+        while (f % 10 == 0) {
+            f /= 10;
+            e++;
+        }
+        int len = 1;
+        while (len < 19 && f >= POW10[len]) {
+            len++;
+        }
+        // the value is 0.ddd * 10^exp
+        int exp = e + len;
+        if (0 < exp && exp <= 7) {
+            if (len <= exp) {
+                p = digits(f, len, buffer, p);
+                for (int i = len; i < exp; i++) {
+                    buffer[p++] = '0';
+                }
+                buffer[p++] = '.';
+                buffer[p++] = '0';
+                return p;
+            }
+            long pow = POW10[len - exp];
+            p = digits(f / pow, exp, buffer, p);
+            buffer[p++] = '.';
+            return digits(f % pow, len - exp, buffer, p);
+        }
+        if (-3 < exp && exp <= 0) {
+            buffer[p++] = '0';
+            buffer[p++] = '.';
+            for (int i = exp; i < 0; i++) {
+                buffer[p++] = '0';
+            }
+            return digits(f, len, buffer, p);
+        }
+        long pow = POW10[len - 1];
+        buffer[p++] = (char) ('0' + f / pow);
+        buffer[p++] = '.';
+        if (len == 1) {
+            buffer[p++] = '0';
+        } else {
+            p = digits(f % pow, len - 1, buffer, p);
+        }
+        buffer[p++] = 'E';
+        exp--;
+        if (exp < 0) {
+            buffer[p++] = '-';
+            exp = -exp;
+        }
+        return digits(exp, exp < 10 ? 1 : exp < 100 ? 2 : 3, buffer, p);
+    }
+    
+    // writes len digits of f, with leading zeros
+    private static int digits(long f, int len, char[] buffer, int p) {
+        int end = p + len;
+        for (int i = end - 1; i >= p; i--) {
+            buffer[i] = (char) ('0' + f % 10);
+            f /= 10;
+        }
+        return end;
+    }
+    
+    private static int zero(char[] buffer, int p) {
+        buffer[p++] = '0';
+        buffer[p++] = '.';
+        buffer[p++] = '0';
+        return p;
+    }
+    
+    private static int special(boolean nan, boolean negative, char[] buffer, int p) {
+        String s = nan ? "NaN" : negative ? "-Infinity" : "Infinity";
+        s.getChars(0, s.length(), buffer, p);
+        return p + s.length();
+    }
+
+}
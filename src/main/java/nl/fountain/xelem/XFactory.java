@@ -290,11 +290,28 @@ public class XFactory {
      * @see 	nl.fountain.xelem.excel.Workbook#appendInfoSheet()
      */
     public void appendInfoSheet(Element root, GIO gio) throws XelemException {
+        root.appendChild(root.getOwnerDocument().importNode(getInfoSheet(gio), true));
+    }
+    
+    /**
+     * Gets the Worksheet element with general information. 
+     * Adds all used styles in the info sheet to the factory 
+     * and their id's to the gio.
+     * 
+     * @param 	gio		the GIO used while writing the Workbook.
+     * 
+     * @return	the Worksheet element with general information.
+     * 
+     * @throws 	XelemException	if the info sheet could not be loaded.
+     * 
+     * @see 	nl.fountain.xelem.excel.Workbook#appendInfoSheet()
+     */
+    public Node getInfoSheet(GIO gio) throws XelemException {
         if (infoSheet == null) {
             infoSheet = loadInfoSheet();
         }
-        root.appendChild(root.getOwnerDocument().importNode(infoSheet, true));
         gio.getStyleIDSet().addAll(issStyles);
+        return infoSheet;
     }
     
     private void init() {
@@ -21,17 +21,12 @@
  */
 package nl.fountain.xelem;
 
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 
 /**
  * A utility class for xelem.
  */
 public class XLUtil {
-       
-    private static SimpleDateFormat xldf;
     
     // this class has only static methods.
     private XLUtil() {}
@@ -65,62 +60,34 @@ public class XLUtil {
     }
     
     /**
-     * Formats a Date into a Date-Time value used by SpreadsheetML.
+     * Formats a Date into a Date-Time value used by SpreadsheetML, in the
+     * default time zone. Safe for concurrent use.
      * 
      * @param 	date 	The date to be formatted.
      * 
      * @return A string of format <code>yyyy-MM-ddTHH:mm:ss.SSS</code>.
+     * @see DateTimeCodec
      */
     public static String format(Date date) {
-        StringBuffer sb = new StringBuffer(getDateFormat().format(date));
-        sb.append("T");
-        sb.append(getTimeFormat().format(date));
-        return sb.toString();
+        return DateTimeCodec.getDefault().format(date.getTime());
     }
     
     /**
      * Parses a string in the DateTime format used by SpreadsheetML 
-     * to a Date.
+     * to a Date, in the default time zone. Milliseconds are ignored. 
+     * Safe for concurrent use.
      * 
      * @param dateString	the string to be parsed
-     * @return				the corresponding Date
-     * @throws				java.text.ParseException 
+     * @return				the corresponding Date, or <code>null</code>
      * 						if the string could not be parsed
+     * @see DateTimeCodec
      */
     public static Date parse(String dateString) {
-        String datum = dateString.substring(0, 10);
-        String tijd = dateString.substring(11, 19);
-        Date date = null;
-        try {
-            date = getExcelFormat().parse(datum + " " + tijd);
-        } catch (ParseException e) {
-            e.printStackTrace();
-        }
-        return date;
-    }
-    
-    private static DateFormat getDateFormat() {
-        if (xldf == null) {
-            xldf = new SimpleDateFormat();
-        }
-        xldf.applyPattern("yyyy-MM-dd");
-        return xldf;
-    }
-    
-    private static DateFormat getTimeFormat() {
-        if (xldf == null) {
-           xldf = new SimpleDateFormat(); 
-        }
-        xldf.applyPattern("HH:mm:ss.SSS");
-        return xldf;
-    }
-    
-    private static DateFormat getExcelFormat() {
-        if (xldf == null) {
-           xldf = new SimpleDateFormat(); 
+        long millis = DateTimeCodec.getDefault().parse(dateString, Long.MIN_VALUE);
+        if (millis == Long.MIN_VALUE) {
+            return null;
         }
-        xldf.applyPattern("yyyy-MM-dd HH:mm:ss");
-        return xldf;
+        return new Date(millis - ((millis % 1000) + 1000) % 1000);
     }
 
 }
@@ -0,0 +1,665 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem;
+
+import java.io.BufferedWriter;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.util.Arrays;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import nl.fountain.xelem.excel.XLElement;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Writes SpreadsheetML directly to a character stream, without building
+ * a {@link org.w3c.dom.Document} first.
+ * <P>
+ * XLElements write themselves to an XLWriter with their
+ * {@link nl.fountain.xelem.excel.XLElement#write(XLWriter, GIO) write}-method.
+ * The XLWriter takes care of escaping, attribute order and indentation.
+ * The output is the same as the output of the indenting identity transformer
+ * of the Java platform (Java 9 and later) that
+ * {@link nl.fountain.xelem.XSerializer} uses for the
+ * Document created by a Workbook: attributes are written in alphabetical order
+ * of their qualified names, child elements are indented by four spaces and
+ * characters that cannot be expressed in the output encoding are written as
+ * character references.
+ * <P>
+ * An XLWriter is not thread safe. Use one XLWriter per output stream.
+ *
+ * @see nl.fountain.xelem.XSerializer#setStreaming(boolean)
+ */
+public class XLWriter {
+
+    private static final int INDENT_AMOUNT = 4;
+    private static final String DEFAULT_ENCODING = "UTF-8";
+
+    private Writer out;
+    private String encoding;
+    private CharsetEncoder encoder;
+    private String lineSeparator;
+
+    private int depth;
+    private int baseDepth;
+    private String[] elementNames = new String[16];
+    private int[] childNodeNums = new int[16];
+    private int childNodeNum;
+    private boolean startTagOpen;
+    private boolean startNewLine;
+    private boolean isprevtext;
+
+    private String[] attrNames = new String[8];
+    private String[] attrValues = new String[8];
+    private int attrCount;
+
+    private StringBuilder pendingText;
+    private char[] numberBuffer = new char[NumberFormatter.MAX_LENGTH];
+    private char[] spaces;
+    private Document scratch;
+
+    /**
+     * Creates a new XLWriter that writes to the given Writer. The xml-declaration
+     * will state an encoding of UTF-8.
+     *
+     * @param out	the Writer to write to
+     */
+    public XLWriter(Writer out) {
+        this(out, null);
+    }
+
+    /**
+     * Creates a new XLWriter that writes to the given Writer. The xml-declaration
+     * will state the given encoding and characters that cannot be
+     * expressed in this encoding will be written as character references.
+     *
+     * @param out		the Writer to write to
+     * @param encoding	the encoding of the output, may be <code>null</code>
+     */
+    public XLWriter(Writer out, String encoding) {
+        this.out = out;
+        this.encoding = encoding == null ? DEFAULT_ENCODING : encoding;
+        Charset cs = Charset.forName(this.encoding);
+        if (!cs.name().startsWith("UTF-")) {
+            encoder = cs.newEncoder();
+        }
+        lineSeparator = System.getProperty("line.separator");
+        pendingText = new StringBuilder();
+    }
+
+    /**
+     * Creates a new XLWriter that writes to the given OutputStream, using the
+     * given encoding.
+     *
+     * @param out		the OutputStream to write to
+     * @param encoding	the encoding of the output, may be <code>null</code>
+     */
+    public XLWriter(OutputStream out, String encoding) {
+        this(new BufferedWriter(new OutputStreamWriter(out,
+                Charset.forName(encoding == null ? DEFAULT_ENCODING : encoding))),
+                encoding);
+    }
+
+    /**
+     * Writes the xml-declaration.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void startDocument() throws IOException {
+        out.write("<?xml version=\"1.0\" encoding=\"");
+        out.write(encoding);
+        out.write("\" standalone=\"no\"?>");
+        out.write(lineSeparator);
+    }
+
+    /**
+     * Writes the last line separator and flushes the underlying stream.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void endDocument() throws IOException {
+        flushText();
+        closeStartTag();
+        if (!isprevtext) {
+            out.write(lineSeparator);
+        }
+        out.flush();
+    }
+
+    /**
+     * Starts a new element with the given qualified name. Attributes can be
+     * added with {@link #attribute(String, String)} until content is written
+     * to the new element.
+     *
+     * @param qName	the qualified name of the element
+     * @throws IOException if an I/O error occurs
+     */
+    public void startElement(String qName) throws IOException {
+        childNodeNum++;
+        flushText();
+        closeStartTag();
+        if (depth > 0 && startNewLine) {
+            indent(depth);
+        }
+        startNewLine = true;
+        out.write('<');
+        out.write(qName);
+        if (depth == elementNames.length) {
+            String[] names = new String[depth * 2];
+            System.arraycopy(elementNames, 0, names, 0, depth);
+            elementNames = names;
+            int[] nums = new int[depth * 2];
+            System.arraycopy(childNodeNums, 0, nums, 0, depth);
+            childNodeNums = nums;
+        }
+        elementNames[depth] = qName;
+        childNodeNums[depth] = childNodeNum;
+        depth++;
+        childNodeNum = 0;
+        startTagOpen = true;
+        isprevtext = false;
+    }
+
+    /**
+     * Starts a new element with the given prefix and local name.
+     *
+     * @param prefix	the prefix of the element, may be <code>null</code>
+     * @param localName	the local name of the element
+     * @throws IOException if an I/O error occurs
+     */
+    public void startElement(String prefix, String localName) throws IOException {
+        startElement(prefix == null ? localName : prefix + ":" + localName);
+    }
+
+    /**
+     * Adds an attribute to the element that was last started.
+     *
+     * @param qName	the qualified name of the attribute
+     * @param value	the value of the attribute
+     * @throws IllegalStateException if there is no start tag open
+     */
+    public void attribute(String qName, String value) {
+        if (!startTagOpen) {
+            throw new IllegalStateException(
+                    "No start tag open for attribute '" + qName + "'.");
+        }
+        if (attrCount == attrNames.length) {
+            String[] names = new String[attrCount * 2];
+            System.arraycopy(attrNames, 0, names, 0, attrCount);
+            attrNames = names;
+            String[] values = new String[attrCount * 2];
+            System.arraycopy(attrValues, 0, values, 0, attrCount);
+            attrValues = values;
+        }
+        attrNames[attrCount] = qName;
+        attrValues[attrCount] = value;
+        attrCount++;
+    }
+
+    /**
+     * Adds an attribute to the element that was last started.
+     *
+     * @param qName	the qualified name of the attribute
+     * @param i		the value of the attribute
+     */
+    public void attribute(String qName, int i) {
+        attribute(qName, String.valueOf(i));
+    }
+
+    /**
+     * Adds an attribute to the element that was last started.
+     *
+     * @param qName	the qualified name of the attribute
+     * @param d		the value of the attribute
+     * @see NumberFormatter
+     */
+    public void attribute(String qName, double d) {
+        attribute(qName, NumberFormatter.toString(d));
+    }
+
+    /**
+     * Writes character data. Empty strings are ignored.
+     *
+     * @param text	the character data
+     * @throws IOException if an I/O error occurs
+     */
+    public void text(String text) throws IOException {
+        if (text == null || text.length() == 0) return;
+        closeStartTag();
+        pendingText.append(text);
+    }
+
+    /**
+     * Writes a double as character data, without creating a String.
+     *
+     * @param d	the value to write
+     * @throws IOException if an I/O error occurs
+     * @see NumberFormatter#format(double, char[], int)
+     */
+    public void text(double d) throws IOException {
+        closeStartTag();
+        pendingText.append(numberBuffer, 0, NumberFormatter.format(d, numberBuffer, 0));
+    }
+
+    /**
+     * Writes a float as character data, without creating a String.
+     *
+     * @param f	the value to write
+     * @throws IOException if an I/O error occurs
+     * @see NumberFormatter#format(float, char[], int)
+     */
+    public void text(float f) throws IOException {
+        closeStartTag();
+        pendingText.append(numberBuffer, 0, NumberFormatter.format(f, numberBuffer, 0));
+    }
+
+    /**
+     * Writes a long as character data, without creating a String.
+     *
+     * @param l	the value to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void text(long l) throws IOException {
+        closeStartTag();
+        pendingText.append(numberBuffer, 0, NumberFormatter.format(l, numberBuffer, 0));
+    }
+
+    /**
+     * Writes a comment.
+     *
+     * @param comment	the text of the comment
+     * @throws IOException if an I/O error occurs
+     */
+    public void comment(String comment) throws IOException {
+        childNodeNum++;
+        flushText();
+        closeStartTag();
+        if (depth > 0) {
+            indent(depth);
+        }
+        out.write("<!--");
+        int len = comment.length();
+        boolean wasDash = false;
+        for (int i = 0; i < len; i++) {
+            char c = comment.charAt(i);
+            if (wasDash && c == '-') {
+                out.write(' ');
+            }
+            out.write(c);
+            wasDash = c == '-';
+        }
+        if (len > 0 && comment.charAt(len - 1) == '-') {
+            out.write(' ');
+        }
+        out.write("-->");
+        startNewLine = true;
+    }
+
+    /**
+     * Writes a processing instruction.
+     *
+     * @param target	the target of the processing instruction
+     * @param data		the data of the processing instruction
+     * @throws IOException if an I/O error occurs
+     */
+    public void processingInstruction(String target, String data)
+    		throws IOException {
+        childNodeNum++;
+        flushText();
+        closeStartTag();
+        if (depth > 0) {
+            indent(depth);
+        }
+        out.write("<?");
+        out.write(target);
+        if (data != null && data.length() > 0) {
+            out.write(' ');
+            out.write(data);
+        }
+        out.write("?>");
+        startNewLine = true;
+    }
+
+    /**
+     * Ends the element that was last started.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void endElement() throws IOException {
+        if (depth <= baseDepth) {
+            throw new IllegalStateException("No element to end.");
+        }
+        flushText();
+        depth--;
+        if (startTagOpen) {
+            writeAttributes();
+            out.write("/>");
+            startTagOpen = false;
+        } else {
+            if (childNodeNum > 1 || !isprevtext) {
+                indent(depth);
+            }
+            out.write("</");
+            out.write(elementNames[depth]);
+            out.write('>');
+        }
+        elementNames[depth] = null;
+        childNodeNum = childNodeNums[depth];
+        isprevtext = false;
+    }
+
+    /**
+     * Writes an element with the given qualified name and the given
+     * <code>text</code> as it's content.
+     *
+     * @param qName	the qualified name of the element
+     * @param text	the content of the element
+     * @throws IOException if an I/O error occurs
+     */
+    public void element(String qName, String text) throws IOException {
+        startElement(qName);
+        text(text);
+        endElement();
+    }
+
+    /**
+     * Writes the given node and all of it's descendants. Elements, attributes,
+     * text, cdata sections and comments are written; other nodes are
+     * ignored.
+     *
+     * @param node	the node to write
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeNode(Node node) throws IOException {
+        switch (node.getNodeType()) {
+        	case Node.ELEMENT_NODE:
+        	    startElement(node.getNodeName());
+        	    NamedNodeMap attrs = node.getAttributes();
+        	    for (int i = 0; i < attrs.getLength(); i++) {
+        	        Node attr = attrs.item(i);
+        	        attribute(attr.getNodeName(), attr.getNodeValue());
+        	    }
+        	    for (Node n = node.getFirstChild(); n != null; n = n.getNextSibling()) {
+        	        writeNode(n);
+        	    }
+        	    endElement();
+        	    break;
+        	case Node.TEXT_NODE:
+        	case Node.CDATA_SECTION_NODE:
+        	    text(node.getNodeValue());
+        	    break;
+        	case Node.COMMENT_NODE:
+        	    comment(node.getNodeValue());
+        	    break;
+        	case Node.DOCUMENT_NODE:
+        	case Node.DOCUMENT_FRAGMENT_NODE:
+        	    for (Node n = node.getFirstChild(); n != null; n = n.getNextSibling()) {
+        	        writeNode(n);
+        	    }
+        	    break;
+        	default:
+        	    break;
+        }
+    }
+
+    /**
+     * Writes an XLElement that has no write-method of it's own, by letting it
+     * assemble itself in a scratch document and writing the result.
+     *
+     * @param xle	the XLElement to write
+     * @param gio	a global information object
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeAssembled(XLElement xle, GIO gio) throws IOException {
+        if (scratch == null) {
+            try {
+                DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+                factory.setNamespaceAware(true);
+                scratch = factory.newDocumentBuilder().newDocument();
+            } catch (ParserConfigurationException e) {
+                throw new IOException(e.toString());
+            }
+        }
+        Element parent = scratch.createElementNS(XLElement.XMLNS, "scratch");
+        xle.assemble(parent, gio);
+        for (Node n = parent.getFirstChild(); n != null; n = n.getNextSibling()) {
+            writeNode(n);
+        }
+    }
+
+    /**
+     * Creates a new XLWriter that writes a fragment of xml to a buffer.
+     * The fragment is written as if it was written by this XLWriter at
+     * it's current position and can be inserted there with 
+     * {@link #appendFragment(XLWriter)}. Fragments can be written
+     * independently of each other and of this XLWriter, for instance
+     * by different threads.
+     * 
+     * @return	a new XLWriter for a fragment
+     */
+    public XLWriter newFragment() {
+        XLWriter fragment = new XLWriter(new CharArrayWriter(), encoding);
+        fragment.lineSeparator = lineSeparator;
+        fragment.depth = depth;
+        fragment.baseDepth = depth;
+        fragment.elementNames = new String[depth + 16];
+        fragment.childNodeNums = new int[depth + 16];
+        fragment.startNewLine = startNewLine;
+        return fragment;
+    }
+    
+    /**
+     * Inserts a fragment, created with {@link #newFragment()}, at the current 
+     * position. The fragment should be created after the last output of this
+     * XLWriter and all elements started in the fragment should be ended.
+     * 
+     * @param 	fragment	the fragment to insert
+     * @throws 	IOException if an I/O error occurs
+     * @throws	IllegalArgumentException if the XLWriter is not a fragment or
+     * 			the fragment has an element that was not ended
+     */
+    public void appendFragment(XLWriter fragment) throws IOException {
+        if (!(fragment.out instanceof CharArrayWriter)
+                || fragment.depth != fragment.baseDepth) {
+            throw new IllegalArgumentException("Not a completed fragment.");
+        }
+        fragment.flushText();
+        if (fragment.childNodeNum == 0) return;
+        childNodeNum++;
+        flushText();
+        closeStartTag();
+        childNodeNum += fragment.childNodeNum - 1;
+        ((CharArrayWriter) fragment.out).writeTo(out);
+        startNewLine = fragment.startNewLine;
+        isprevtext = fragment.isprevtext;
+    }
+
+    /**
+     * Flushes the underlying stream. Pending character data is not flushed,
+     * because it's indentation depends on what follows.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Gets the encoding stated in the xml-declaration.
+     *
+     * @return the encoding of the output
+     */
+    public String getEncoding() {
+        return encoding;
+    }
+
+    private void closeStartTag() throws IOException {
+        if (startTagOpen) {
+            writeAttributes();
+            out.write('>');
+            startTagOpen = false;
+        }
+    }
+
+    private void writeAttributes() throws IOException {
+        // same order as the attributes of a DOM-element: sorted by qualified name
+        for (int i = 1; i < attrCount; i++) {
+            String name = attrNames[i];
+            String value = attrValues[i];
+            int j = i - 1;
+            while (j >= 0 && attrNames[j].compareTo(name) > 0) {
+                attrNames[j + 1] = attrNames[j];
+                attrValues[j + 1] = attrValues[j];
+                j--;
+            }
+            attrNames[j + 1] = name;
+            attrValues[j + 1] = value;
+        }
+        for (int i = 0; i < attrCount; i++) {
+            out.write(' ');
+            out.write(attrNames[i]);
+            out.write("=\"");
+            writeEscaped(attrValues[i], true);
+            out.write('"');
+            attrNames[i] = null;
+            attrValues[i] = null;
+        }
+        attrCount = 0;
+    }
+
+    private void flushText() throws IOException {
+        if (pendingText.length() == 0) return;
+        childNodeNum++;
+        int start = 0;
+        if (depth > 0 && childNodeNum > 1) {
+            indent(depth);
+            startNewLine = true;
+            while (start < pendingText.length() && pendingText.charAt(start) == '\n') {
+                start++;
+            }
+        }
+        if (start < pendingText.length()) {
+            writeEscaped(start == 0 ? pendingText : pendingText.substring(start), false);
+            isprevtext = true;
+        }
+        pendingText.setLength(0);
+    }
+
+    private void indent(int d) throws IOException {
+        if (startNewLine) {
+            out.write(lineSeparator);
+        }
+        int n = d * INDENT_AMOUNT;
+        if (spaces == null || spaces.length < n) {
+            spaces = new char[Math.max(n, 64)];
+            Arrays.fill(spaces, ' ');
+        }
+        out.write(spaces, 0, n);
+    }
+
+    private void writeEscaped(CharSequence s, boolean inAttribute)
+    		throws IOException {
+        int len = s.length();
+        int clean = 0;
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            String replacement = null;
+            int charRef = -1;
+            if (c >= 0x20 && c < 0x7F) {
+                if (c == '&') {
+                    replacement = "&amp;";
+                } else if (c == '<') {
+                    replacement = "&lt;";
+                } else if (c == '>') {
+                    replacement = "&gt;";
+                } else if (c == '"' && inAttribute) {
+                    replacement = "&quot;";
+                } else {
+                    continue;
+                }
+            } else if (c == '\n') {
+                if (inAttribute) {
+                    charRef = c;
+                } else {
+                    replacement = lineSeparator;
+                }
+            } else if (c == '\t') {
+                if (inAttribute) {
+                    charRef = c;
+                } else {
+                    continue;
+                }
+            } else if (c < 0x20 || (c <= 0x9F && !inAttribute)) {
+                charRef = c;
+            } else if (Character.isHighSurrogate(c) && i + 1 < len
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                // like the transformer, regardless of the encoding
+                charRef = Character.toCodePoint(c, s.charAt(i + 1));
+                writeClean(s, clean, i);
+                writeCharRef(charRef);
+                clean = i + 2;
+                i++;
+                continue;
+            } else if (encoder == null || encoder.canEncode(c)) {
+                continue;
+            } else {
+                charRef = c;
+            }
+            writeClean(s, clean, i);
+            if (replacement != null) {
+                out.write(replacement);
+            } else {
+                writeCharRef(charRef);
+            }
+            clean = i + 1;
+        }
+        writeClean(s, clean, len);
+    }
+
+    private void writeClean(CharSequence s, int start, int end) throws IOException {
+        if (end > start) {
+            if (s instanceof String) {
+                out.write((String) s, start, end - start);
+            } else {
+                out.append(s, start, end);
+            }
+        }
+    }
+
+    private void writeCharRef(int codePoint) throws IOException {
+        out.write("&#");
+        out.write(Integer.toString(codePoint));
+        out.write(';');
+    }
+
+}
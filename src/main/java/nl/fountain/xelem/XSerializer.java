@@ -22,6 +22,8 @@
 package nl.fountain.xelem;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.StringWriter;
 import java.io.Writer;
@@ -43,12 +45,21 @@ import org.w3c.dom.Document;
 
 /**
  * A conveniance class for serializing Workbooks.
+ * <P>
+ * By default a Workbook is serialized by transforming the
+ * {@link org.w3c.dom.Document} obtained from it's 
+ * {@link nl.fountain.xelem.excel.Workbook#createDocument() createDocument}-method.
+ * In streaming mode the Workbook is written directly to the output by means
+ * of an {@link XLWriter}, which saves the time and memory needed to build 
+ * the Document. 
  * 
+ * @see #setStreaming(boolean)
  */
 public class XSerializer {
     
     private Transformer xformer;
     private String encoding;
+    private boolean streaming;
     
     public static final String US_ASCII = "US-ASCII";
     
@@ -58,6 +69,32 @@ public class XSerializer {
         this.encoding = encoding;
     }
     
+    /**
+     * Sets whether Workbooks are written directly to the output, without
+     * the intervention of a {@link org.w3c.dom.Document}. The output of both
+     * modes is the same (provided the platform's transformer indents with an
+     * indent-amount of 4, as it does in Java 9 and later). 
+     * Documents are always serialized by transformation.
+     * 
+     * @param 	streaming	<code>true</code> if Workbooks should be written
+     * 			directly to the output, <code>false</code> otherwise.
+     * 
+     * @see nl.fountain.xelem.excel.XLElement#write(XLWriter, GIO)
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+    
+    /**
+     * Specifies whether Workbooks are written directly to the output.
+     * 
+     * @return 	<code>true</code> if Workbooks are written directly
+     * 			to the output, <code>false</code> if they are transformed.
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+    
     /**
      * 
      */
@@ -84,6 +121,19 @@ public class XSerializer {
     }
     
     public void serialize(Workbook wb, File out) throws XelemException {
+        if (streaming) {
+            try {
+                OutputStream os = new FileOutputStream(out);
+                try {
+                    write(wb, new XLWriter(os, encoding));
+                } finally {
+                    os.close();
+                }
+            } catch (IOException e) {
+                throw new XelemException(e.fillInStackTrace());
+            }
+            return;
+        }
         Result result = new StreamResult(out);
         transform(wb, result); 
     }
@@ -94,6 +144,10 @@ public class XSerializer {
     }
     
     public void serialize(Workbook wb, OutputStream out) throws XelemException {
+        if (streaming) {
+            write(wb, new XLWriter(out, encoding));
+            return;
+        }
         Result result = new StreamResult(out);
         transform(wb, result);
     }
@@ -104,6 +158,10 @@ public class XSerializer {
     }
     
     public void serialize(Workbook wb, Writer out) throws XelemException {
+        if (streaming) {
+            write(wb, new XLWriter(out, encoding));
+            return;
+        }
         Result result = new StreamResult(out);
         transform(wb, result);
     }
@@ -113,6 +171,16 @@ public class XSerializer {
         transform(doc, result);
     }
     
+    private void write(Workbook wb, XLWriter out) throws XelemException {
+        try {
+            out.startDocument();
+            wb.write(out, new GIO());
+            out.endDocument();
+        } catch (IOException e) {
+            throw new XelemException(e.fillInStackTrace());
+        }
+    }
+    
     private void transform(Workbook wb, Result result) throws XelemException {
         try {
             Document doc = wb.createDocument();
@@ -21,10 +21,12 @@
  */
 package nl.fountain.xelem.excel;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import nl.fountain.xelem.GIO;
+import nl.fountain.xelem.XLWriter;
 
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
@@ -222,6 +224,148 @@ public abstract class AbstractXLElement implements XLElement {
         return attr;
     }
     
+    /**
+     * Writes this XLElement by letting it assemble itself in a scratch document.
+     * Subclasses should override this method and write their state directly
+     * to the XLWriter.
+     * 
+     * @see nl.fountain.xelem.XLWriter#writeAssembled(XLElement, GIO)
+     */
+    public void write(XLWriter out, GIO gio) throws IOException {
+        out.writeAssembled(this, gio);
+    }
+    
+    /**
+     * Starts an element with the tag-name and
+     * prefix suitable for the calling XLElement-implementation. 
+     * 
+     * @param 	out the XLWriter to write to
+     * 
+     * @throws	IOException if an I/O error occurs
+     */
+    protected void writeStartElement(XLWriter out) throws IOException {
+        out.startElement(getPrefix(), getTagName());
+    }
+    
+    /**
+     * Writes the comments set on the calling XLElement-subclass, if 
+     * comments should be printed according to the <code>gio</code>.
+     * Attributes must be written before the comments.
+     * 
+     * @param 	out the XLWriter to write to
+     * @param 	gio	a global information object
+     * 
+     * @throws	IOException if an I/O error occurs
+     */
+    protected void writeElementComments(XLWriter out, GIO gio) throws IOException {
+        if (gio.isPrintingComments() && getElementComments() != null) {
+            for (String s : getElementComments()) {
+                out.comment(s);
+            }
+        }
+    }
+    
+    /**
+     * Writes an empty element with the given <code>localName</code>. The
+     * prefix of the element is the same as the one of the 
+     * calling AbstractXLElement-subclass.
+     * 
+     * @param 	out the XLWriter to write to
+     * @param 	localName	the local name of the element
+     * 
+     * @throws	IOException if an I/O error occurs
+     */
+    protected void writeElement(XLWriter out, String localName) throws IOException {
+        out.startElement(getPrefix(), localName);
+        out.endElement();
+    }
+    
+    /**
+     * Writes an element with the given <code>localName</code> and the given
+     * <code>value</code> as it's content. The
+     * prefix of the element is the same as the one of the 
+     * calling AbstractXLElement-subclass.
+     * 
+     * @param 	out the XLWriter to write to
+     * @param 	localName	the local name of the element
+     * @param 	value	the content of the element
+     * 
+     * @throws	IOException if an I/O error occurs
+     */
+    protected void writeElement(XLWriter out, String localName, String value) 
+    		throws IOException {
+        out.startElement(getPrefix(), localName);
+        out.text(value);
+        out.endElement();
+    }
+    
+    /**
+     * Writes an element with the given <code>localName</code> and the given
+     * value of <code>i</code> as it's content.
+     * 
+     * @param 	out the XLWriter to write to
+     * @param 	localName	the local name of the element
+     * @param 	i	the content of the element
+     * 
+     * @throws	IOException if an I/O error occurs
+     */
+    protected void writeElement(XLWriter out, String localName, int i) 
+    		throws IOException {
+        writeElement(out, localName, String.valueOf(i));
+    }
+    
+    /**
+     * Writes an element with the given <code>localName</code> and the given
+     * value of <code>b</code> as it's content, translated as "True" or "False".
+     * 
+     * @param 	out the XLWriter to write to
+     * @param 	localName	the local name of the element
+     * @param 	b	the content of the element
+     * 
+     * @throws	IOException if an I/O error occurs
+     */
+    protected void writeElement(XLWriter out, String localName, boolean b) 
+    		throws IOException {
+        writeElement(out, localName, b ? "True" : "False");
+    }
+    
+    /**
+     * Adds an attribute with the given <code>localName</code> and 
+     * <code>value</code> to the element last started. The
+     * prefix of the attribute is the same as the one of the 
+     * calling AbstractXLElement-subclass.
+     * 
+     * @param 	out the XLWriter to write to
+     * @param 	localName	the local name of the attribute
+     * @param 	value	the value of the attribute
+     */
+    protected void writeAttribute(XLWriter out, String localName, String value) {
+        out.attribute(getPrefix() + ":" + localName, value);
+    }
+    
+    /**
+     * Adds an attribute with the given <code>localName</code> and 
+     * the value of <code>i</code> to the element last started.
+     * 
+     * @param 	out the XLWriter to write to
+     * @param 	localName	the local name of the attribute
+     * @param 	i	the value of the attribute
+     */
+    protected void writeAttribute(XLWriter out, String localName, int i) {
+        writeAttribute(out, localName, String.valueOf(i));
+    }
+    
+    /**
+     * Adds an attribute with the given <code>localName</code> and 
+     * the value of <code>d</code> to the element last started.
+     * 
+     * @param 	out the XLWriter to write to
+     * @param 	localName	the local name of the attribute
+     * @param 	d	the value of the attribute
+     */
+    protected void writeAttribute(XLWriter out, String localName, double d) {
+        out.attribute(getPrefix() + ":" + localName, d);
+    }
     
     //////////////////////////////////////////////////////////////////////////////
 
@@ -55,7 +55,9 @@ import org.w3c.dom.Element;
  * If the passed parameter is of type Double, Float or the primitive representation 
  * of these objects and the method {@link java.lang.Double#isInfinite() isInfinite}
  * results to <code>true</code> the xml will have a datatype set to
- * "String" and the cell will display "Infinite" when the spreadsheet is opened.
+ * "String" and the cell will display "Infinity" when the spreadsheet is opened,
+ * as SpreadsheetML has no Number for it. The value is kept:
+ * {@link #doubleValue()} returns the infinite value.
  * 
  * <P id="nanvalues">
  * <b>NaN values</b><br>
@@ -63,6 +65,7 @@ import org.w3c.dom.Element;
  * of these objects and the method {@link java.lang.Double#isNaN() isNaN}
  * results to <code>true</code> the resulting xml will have a datatype set to
  * "String" and the cell will display "NaN" when the spreadsheet is opened.
+ * {@link #doubleValue()} returns NaN.
  */
 public interface Cell extends XLElement {
     
@@ -315,7 +318,8 @@ public interface Cell extends XLElement {
     
     /**
      * Sets the given Double as the data of this cell. The attribute
-     * ss:Type of the Data-element will be set to "Number". 
+     * ss:Type of the Data-element will be set to "Number", or to "String"
+     * if the value is infinite or NaN.
      * 
      * @param 	data The data to be displayed in this cell. 
      * 
@@ -337,7 +341,8 @@ public interface Cell extends XLElement {
     
     /**
      * Sets the given Float as the data of this cell. The attribute
-     * ss:Type of the Data-element will be set to "Number". 
+     * ss:Type of the Data-element will be set to "Number", or to "String"
+     * if the value is infinite or NaN.
      * 
      * @param 	data The data to be displayed in this cell. 
      * 
@@ -427,7 +432,8 @@ public interface Cell extends XLElement {
     
     /**
      * Sets the given float as the data of this cell. The attribute
-     * ss:Type of the Data-element will be set to "Number". 
+     * ss:Type of the Data-element will be set to "Number", or to "String"
+     * if the value is infinite or NaN.
      * 
      * @param 	data The data to be displayed in this cell. 
      * 
@@ -438,7 +444,8 @@ public interface Cell extends XLElement {
     
     /**
      * Sets the given double as the data of this cell. The attribute
-     * ss:Type of the Data-element will be set to "Number". 
+     * ss:Type of the Data-element will be set to "Number", or to "String"
+     * if the value is infinite or NaN.
      * 
      * @param 	data The data to be displayed in this cell. 
      * 
@@ -21,9 +21,11 @@
  */
 package nl.fountain.xelem.excel;
 
+import java.io.IOException;
 import java.util.List;
 
 import nl.fountain.xelem.GIO;
+import nl.fountain.xelem.XLWriter;
 
 import org.w3c.dom.Element;
 
@@ -39,7 +41,9 @@ import org.xml.sax.Attributes;
  * <P>
  * An XLElement is capable of assembling it's state into an
  * {@link org.w3c.dom.Element} and attach this Element to a parent-element in a
- * {@link org.w3c.dom.Document}.
+ * {@link org.w3c.dom.Document}. Alternatively it can write it's state 
+ * directly to an {@link nl.fountain.xelem.XLWriter}, without the
+ * intervention of a Document.
  * 
  */
 public interface XLElement {
@@ -133,6 +137,18 @@ public interface XLElement {
      */
     Element assemble(Element parent, GIO gio);
     
+    /**
+     * Writes the state of this XLElement and all of it's children to the
+     * given XLWriter. The xml written is the same as the xml serialized from
+     * the element that {@link #assemble(Element, GIO)} would produce.
+     * 
+     * @param 	out	the XLWriter to write to
+     * @param 	gio a global information object
+     * 
+     * @throws	IOException if an I/O error occurs
+     */
+    void write(XLWriter out, GIO gio) throws IOException;
+    
     /**
      * Called by a builder during a read by {@link nl.fountain.xelem.lex.ExcelReader}.
      * Sets the (xml-)attributes found on the (xml-)element.
@@ -21,11 +21,13 @@
  */
 package nl.fountain.xelem.excel.o;
 
+import java.io.IOException;
 import java.lang.reflect.Method;
 import java.util.Date;
 
 import nl.fountain.xelem.GIO;
 import nl.fountain.xelem.XLUtil;
+import nl.fountain.xelem.XLWriter;
 import nl.fountain.xelem.excel.AbstractXLElement;
 import nl.fountain.xelem.excel.DocumentProperties;
 
@@ -188,20 +190,53 @@ public class ODocumentProperties extends AbstractXLElement implements DocumentPr
         parent.appendChild(dpe);
         return dpe;
     }
+    
+    public void write(XLWriter out, GIO gio) throws IOException {
+        writeStartElement(out);
+        writeElementComments(out, gio);
+        
+        if (title != null) writeElement(out, "Title", title);
+        if (subject != null) writeElement(out, "Subject", subject);
+        if (keywords != null) writeElement(out, "Keywords", keywords);
+        if (description != null) writeElement(out, "Description", description);
+        if (category != null) writeElement(out, "Category", category);
+        if (author != null) writeElement(out, "Author", author);
+        if (lastAuthor != null) writeElement(out, "LastAuthor", lastAuthor);
+        if (manager != null) writeElement(out, "Manager", manager);
+        if (company != null) writeElement(out, "Company", company);
+        if (hyperlinkbase != null) writeElement(out, "HyperlinkBase", hyperlinkbase);
+        if (appname != null) writeElement(out, "AppName", appname);
+        if (created != null) writeElement(out, "Created", created);
+        if (lastsaved != null) writeElement(out, "LastSaved", lastsaved);
+        
+        out.endElement();
+    }
         
     public void setChildElement(String localName, String content) {
-        invokeMethod(localName, content);
+        setChild(localName, content);
     }
     
-	private void invokeMethod(String name, Object value) {
-        Class[] types = new Class[] { value.getClass() };
-        Method method = null;
+    private void setChild(String name, String value) {
         try {
-            method = this.getClass().getDeclaredMethod("set" + name, types);
-            method.invoke(this, new Object[] { value });
-        } catch (NoSuchMethodException e) {
-            // no big deal
-        } catch (Exception e) {
+            switch (name) {
+                case "Title": setTitle(value); break;
+                case "Subject": setSubject(value); break;
+                case "Keywords": setKeywords(value); break;
+                case "Description": setDescription(value); break;
+                case "Category": setCategory(value); break;
+                case "Author": setAuthor(value); break;
+                case "LastAuthor": setLastAuthor(value); break;
+                case "Manager": setManager(value); break;
+                case "Company": setCompany(value); break;
+                case "HyperlinkBase": setHyperlinkBase(value); break;
+                case "AppName": setAppName(value); break;
+                case "Created": setCreated(value); break;
+                case "LastSaved": setLastSaved(value); break;
+                case "LastPrinted": setLastPrinted(value); break;
+                case "Version": setVersion(value); break;
+                default: // not supported
+            }
+        } catch (RuntimeException e) {
             e.printStackTrace();
         }
     }
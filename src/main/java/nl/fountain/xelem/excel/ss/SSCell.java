@@ -21,12 +21,16 @@
  */
 package nl.fountain.xelem.excel.ss;
 
+import java.io.IOException;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.util.Date;
 
+import nl.fountain.xelem.DateTimeCodec;
 import nl.fountain.xelem.GIO;
+import nl.fountain.xelem.NumberFormatter;
 import nl.fountain.xelem.XLUtil;
+import nl.fountain.xelem.XLWriter;
 import nl.fountain.xelem.excel.AbstractXLElement;
 import nl.fountain.xelem.excel.Cell;
 import nl.fountain.xelem.excel.Comment;
@@ -61,12 +65,22 @@ import org.xml.sax.Attributes;
  * the formula of the cell will be set to "<code>=#N/A</code>" and the cell will 
  * display "<code>#N/A</code>" when the spreadsheet is opened.
  * 
+ * <P>
+ * <b>Threads</b><br>
+ * The getters decode the text of a cell on first use and keep the result. 
+ * This is done in a way that is safe without synchronization: a cell that 
+ * is not changed can be read by several threads at once. A cell that is 
+ * {@link #decode() decoded} keeps the result in a primitive field instead; 
+ * it must be decoded before it is shared with other threads.
+ * 
  * <P id="infinitevalues">
  * <b>Infinite values</b><br>
  * If the passed parameter is of type Double, Float or the primitive representation 
  * of these objects and the method {@link java.lang.Double#isInfinite() isInfinite}
  * results to <code>true</code> the resulting xml will have a datatype set to
- * "String" and the cell will display "Infinite" when the spreadsheet is opened.
+ * "String" and the cell will display "Infinity" when the spreadsheet is opened,
+ * as SpreadsheetML has no Number for it. The value is kept:
+ * {@link #doubleValue()} returns the infinite value.
  * 
  * <P id="nanvalues">
  * <b>NaN values</b><br>
@@ -74,19 +88,49 @@ import org.xml.sax.Attributes;
  * of these objects and the method {@link java.lang.Double#isNaN() isNaN}
  * results to <code>true</code> the resulting xml will have a datatype set to
  * "String" and the cell will display "NaN" when the spreadsheet is opened.
+ * {@link #doubleValue()} returns NaN.
  * 
  * @see nl.fountain.xelem.excel.Worksheet#addCell()
  * @see nl.fountain.xelem.excel.Row#addCell()
  */
 public class SSCell extends AbstractXLElement implements Cell {
     
+    // the ss:Type of the Data-element, an index in DATATYPES
+    private static final byte TYPE_STRING = 0;
+    private static final byte TYPE_NUMBER = 1;
+    private static final byte TYPE_DATE_TIME = 2;
+    private static final byte TYPE_BOOLEAN = 3;
+    private static final byte TYPE_ERROR = 4;
+    private static final String[] DATATYPES = {DATATYPE_STRING, DATATYPE_NUMBER, 
+            DATATYPE_DATE_TIME, DATATYPE_BOOLEAN, DATATYPE_ERROR};
+    
+    // what is kept in data$ and value
+    private static final byte VALUE_TEXT = 0;
+    private static final byte VALUE_LONG = 1;
+    private static final byte VALUE_DOUBLE = 2;
+    private static final byte VALUE_FLOAT = 3;
+    private static final byte VALUE_MILLIS = 4;
+    private static final byte VALUE_BOOLEAN = 5;
+    // set by decode: data$ is kept, value holds what it decodes to
+    private static final byte VALUE_TEXT_DOUBLE = 6;
+    private static final byte VALUE_TEXT_MILLIS = 7;
+    
+    // the value of number if data$ is not a number
+    private static final Double NOT_A_NUMBER = new Double(Double.NaN);
+    
     private int idx;
     private boolean hasdata;
     private String styleID;
     private String formula;
     private String href;
     private String data$;
-    private String datatype;
+    private byte type;
+    private byte kind;
+    private long value;
+    // Values decoded by the getters. They are immutable and written in one 
+    // go, so cells can be read by several threads without synchronization.
+    private Double number;	// the value of data$, or of getData for numbers
+    private Long millis;	// the date of data$
     private int mergeacross;
     private int mergedown;
     private Comment comment;
@@ -98,7 +142,6 @@ public class SSCell extends AbstractXLElement implements Cell {
      * @see nl.fountain.xelem.excel.Worksheet#addCell()
      */
     public SSCell() {
-        datatype = DATATYPE_STRING;
         data$ = "";
     }
     
@@ -191,7 +234,7 @@ public class SSCell extends AbstractXLElement implements Cell {
     }
 
     public String getXLDataType() { 
-        return datatype;
+        return DATATYPES[type];
     }
 
     public void setData(Number data) {
@@ -207,8 +250,7 @@ public class SSCell extends AbstractXLElement implements Cell {
             setError(ERRORVALUE_NA);
             return;
         }
-        datatype = DATATYPE_NUMBER;
-        setData$(data.toString());
+        setData(data.intValue());
     }
     
     public void setData(Double data) {
@@ -216,12 +258,7 @@ public class SSCell extends AbstractXLElement implements Cell {
             setError(ERRORVALUE_NA);
             return;
         }
-        if (data.isInfinite() || data.isNaN()) {
-            datatype = DATATYPE_STRING;
-        } else {
-            datatype = DATATYPE_NUMBER;
-        }
-        setData$(data.toString());
+        setData(data.doubleValue());
     }
 
     public void setData(Float data) {
@@ -229,12 +266,7 @@ public class SSCell extends AbstractXLElement implements Cell {
             setError(ERRORVALUE_NA);
             return;
         }
-        if (data.isInfinite() || data.isNaN()) {
-            datatype = DATATYPE_STRING;
-        } else {
-            datatype = DATATYPE_NUMBER;
-        }
-        setData$(data.toString());
+        setData(data.floatValue());
     }
 
     public void setData(Date data) {
@@ -242,8 +274,7 @@ public class SSCell extends AbstractXLElement implements Cell {
             setError(ERRORVALUE_NA);
             return;
         }
-        datatype = DATATYPE_DATE_TIME;
-        setData$(XLUtil.format(data));
+        setValue(TYPE_DATE_TIME, VALUE_MILLIS, data.getTime());
     }
 
     public void setData(Boolean data) {
@@ -259,7 +290,7 @@ public class SSCell extends AbstractXLElement implements Cell {
             setError(ERRORVALUE_NA);
             return;
         }
-        datatype = DATATYPE_STRING;
+        type = TYPE_STRING;
         setData$(data);
     }
     
@@ -281,54 +312,50 @@ public class SSCell extends AbstractXLElement implements Cell {
     }
 
     public void setError(String error_value) {
-        datatype = DATATYPE_ERROR;
+        type = TYPE_ERROR;
         setData$(error_value);
         setFormula("=" + error_value);
     }
     
     public void setData(byte data) {
-        datatype = DATATYPE_NUMBER;
-        setData$(String.valueOf(data));
+        setValue(TYPE_NUMBER, VALUE_LONG, data);
     }
     
     public void setData(short data) {
-        datatype = DATATYPE_NUMBER;
-        setData$(String.valueOf(data));
+        setValue(TYPE_NUMBER, VALUE_LONG, data);
     }
 
     public void setData(int data) {
-        datatype = DATATYPE_NUMBER;
-        setData$(String.valueOf(data));
+        setValue(TYPE_NUMBER, VALUE_LONG, data);
     }
 
     @Override
     public void setData(Long data) {
-        datatype = DATATYPE_NUMBER;
-        setData$(String.valueOf(data));
+        if (data == null) {
+            setError(ERRORVALUE_NA);
+            return;
+        }
+        setValue(TYPE_NUMBER, VALUE_LONG, data.longValue());
     }
     
     public void setData(float data) {
-        if (Float.isInfinite(data) || Float.isNaN(data)) {
-            datatype = DATATYPE_STRING;
-        } else {
-            datatype = DATATYPE_NUMBER;
-        }
-        setData$(String.valueOf(data));
+        setValue(Float.isInfinite(data) || Float.isNaN(data) ? TYPE_STRING : TYPE_NUMBER, 
+                VALUE_FLOAT, Float.floatToRawIntBits(data));
     }
 
     public void setData(double data) {
-        if (Double.isInfinite(data) || Double.isNaN(data)) {
-            datatype = DATATYPE_STRING;
-        } else {
-            datatype = DATATYPE_NUMBER;
-        }
-        setData$(String.valueOf(data));       
+        setValue(Double.isInfinite(data) || Double.isNaN(data) ? TYPE_STRING : TYPE_NUMBER, 
+                VALUE_DOUBLE, Double.doubleToRawLongBits(data));
     }
 
     @Override
     public void setData(BigDecimal data) {
-        datatype = DATATYPE_NUMBER;
-        setData$(String.valueOf(data));
+        if (data == null) {
+            setError(ERRORVALUE_NA);
+            return;
+        }
+        type = TYPE_NUMBER;
+        setData$(data.toString());
     }
     
     public void setData(char data) {
@@ -336,18 +363,25 @@ public class SSCell extends AbstractXLElement implements Cell {
     }
     
     public void setData(boolean data) {
-        datatype = DATATYPE_BOOLEAN;
-        if (data) {
-            setData$("1");
-        } else {
-            setData$("0");
-        }
+        setValue(TYPE_BOOLEAN, VALUE_BOOLEAN, data ? 1 : 0);
     }
     
     private void setData$(String s) {
         data$ = s;
+        number = null;
+        millis = null;
+        kind = VALUE_TEXT;
+        hasdata = true;
+    }
+    
+    private void setValue(byte type, byte kind, long value) {
+        this.type = type;
+        this.kind = kind;
+        this.value = value;
+        data$ = null;
+        number = null;
+        millis = null;
         hasdata = true;
-        //System.out.println(data$);
     }
     
     public boolean hasData() {
@@ -355,42 +389,168 @@ public class SSCell extends AbstractXLElement implements Cell {
     }
     
     public boolean hasError() {
-        return DATATYPE_ERROR.equals(getXLDataType());
+        return type == TYPE_ERROR;
     }
 
+    /**
+     * Gets the value of this cell as it is written in the Data-element.
+     * Values that were set as a primitive type or a Date are formatted 
+     * each time this method is called.
+     */
     public String getData$() {
-        return data$;
+        switch (kind) {
+        	case VALUE_LONG: return Long.toString(value);
+        	case VALUE_DOUBLE: return NumberFormatter.toString(Double.longBitsToDouble(value));
+        	case VALUE_FLOAT: return NumberFormatter.toString(Float.intBitsToFloat((int) value));
+        	case VALUE_MILLIS: return DateTimeCodec.getDefault().format(value);
+        	case VALUE_BOOLEAN: return value == 0 ? "0" : "1";
+        	default: return data$;
+        }
     }
     
+    /**
+     * Gets the value of the data element of this cell as an object. 
+     * Numbers are decoded on the first call and the same Double is returned 
+     * by subsequent calls. A new Date is returned for each call, but the 
+     * text of a date is parsed only once.
+     */
     public Object getData() {
-        if (DATATYPE_NUMBER.equals(datatype)) {
-            return new Double(data$);
-        } else if (DATATYPE_DATE_TIME.equals(datatype)) {
-            return XLUtil.parse(data$);
-        } else if (DATATYPE_BOOLEAN.equals(datatype)) {
-            return new Boolean("1".equals(data$));
+        if (type == TYPE_NUMBER) {
+            double d = parseDouble(true);
+            Double n = number;
+            if (n == null) {
+                n = new Double(d);
+                number = n;
+            }
+            return n;
+        } else if (type == TYPE_DATE_TIME) {
+            if (kind == VALUE_MILLIS) {
+                // SpreadsheetML has no milliseconds
+                return new Date(value - ((value % 1000) + 1000) % 1000);
+            }
+            if (kind == VALUE_TEXT_MILLIS) {
+                return new Date(value);
+            }
+            if (kind != VALUE_TEXT && kind != VALUE_TEXT_DOUBLE) {
+                return XLUtil.parse(getData$());
+            }
+            Long m = millis;
+            if (m == null) {
+                Date date = XLUtil.parse(data$);
+                if (date == null) return null;
+                m = Long.valueOf(date.getTime());
+                millis = m;
+            }
+            return new Date(m.longValue());
+        } else if (type == TYPE_BOOLEAN) {
+            return Boolean.valueOf(booleanValue());
         }
-        return data$;
+        return getData$();
     }
     
     public int intValue() {
-        try {
-            return new Double(data$).intValue();
-        } catch (NumberFormatException e) {
-            return 0;
+        return (int) doubleValue();
+    }
+    
+    /**
+     * Convenience method for reading the value of the data element 
+     * of this cell as a <code>long</code>. Unlike <code>(long) doubleValue()</code>
+     * this keeps all the digits of long values. Returns <code>0</code>
+     * if the value could not be converted.
+     * 
+     * @return the value of the data element
+     */
+    public long longValue() {
+        if (kind == VALUE_LONG || kind == VALUE_BOOLEAN) {
+            return value;
         }
+        return (long) doubleValue();
     }
     
     public double doubleValue() {
         try {
-            return new Double(data$).doubleValue();
+            return parseDouble(false);
         } catch (NumberFormatException e) {
             return 0.0D;
         }
     }
     
     public boolean booleanValue() {
-        return "1".equals(data$);
+        switch (kind) {
+        	case VALUE_LONG:
+        	case VALUE_BOOLEAN: return value == 1;
+        	case VALUE_DOUBLE:
+        	case VALUE_FLOAT:
+        	case VALUE_MILLIS: return false;
+        	default: return "1".equals(data$);
+        }
+    }
+    
+    /**
+     * Decodes the text of this cell to the value of it's datatype and keeps
+     * the value in a primitive field, next to the text. Otherwise the text 
+     * is decoded on the first call to {@link #getData()} or one of the 
+     * xxxValue-methods and the value is kept in an object.
+     * <P>
+     * This method changes the cell: it should be called before the cell is 
+     * read by other threads. The {@link nl.fountain.xelem.lex.ExcelReader}
+     * calls it while building the cell.
+     * 
+     * @see nl.fountain.xelem.lex.ExcelReader#setDecodeValues(boolean)
+     */
+    public void decode() {
+        if (kind != VALUE_TEXT) return;
+        if (type == TYPE_DATE_TIME) {
+            Date date = XLUtil.parse(data$);
+            if (date != null) {
+                value = date.getTime();
+                kind = VALUE_TEXT_MILLIS;
+            }
+            return;
+        }
+        try {
+            value = Double.doubleToRawLongBits(Double.parseDouble(data$));
+            kind = VALUE_TEXT_DOUBLE;
+        } catch (NumberFormatException e) {
+            number = NOT_A_NUMBER;
+        }
+    }
+    
+    /*
+     * The text of a cell is parsed only once. 
+     */
+    private double parseDouble(boolean throwIfInvalid) {
+        switch (kind) {
+        	case VALUE_LONG: return value;
+        	case VALUE_DOUBLE: return Double.longBitsToDouble(value);
+        	case VALUE_FLOAT:
+        	    // the float as it is written, not it's nearest double
+        	    Double f = number;
+        	    if (f == null) {
+        	        f = new Double(Double.parseDouble(getData$()));
+        	        number = f;
+        	    }
+        	    return f.doubleValue();
+        	case VALUE_BOOLEAN: return value;
+        	case VALUE_TEXT_DOUBLE: return Double.longBitsToDouble(value);
+        	case VALUE_MILLIS:
+        	case VALUE_TEXT_MILLIS: break;
+        	default:
+        	    Double n = number;
+        	    if (n == null) {
+        	        try {
+        	            n = new Double(Double.parseDouble(data$));
+        	        } catch (NumberFormatException e) {
+        	            n = NOT_A_NUMBER;
+        	        }
+        	        number = n;
+        	    }
+        	    if (n != NOT_A_NUMBER) return n.doubleValue();
+        }
+        if (throwIfInvalid) {
+            throw new NumberFormatException("For input string: \"" + getData$() + "\"");
+        }
+        return 0.0D;
     }
 
     public String getTagName() {
@@ -438,9 +598,51 @@ public class SSCell extends AbstractXLElement implements Cell {
         return ce;
     }
     
+    public void write(XLWriter out, GIO gio) throws IOException {
+        writeStartElement(out);
+        
+        if (idx != 0) writeAttribute(out, "Index", idx);
+        if (getStyleID() != null) {
+            writeAttribute(out, "StyleID", getStyleID());
+            gio.addStyleID(getStyleID());
+        }
+        if (formula != null) writeAttribute(out, "Formula", formula);
+        if (href != null) writeAttribute(out, "HRef", href);
+        if (mergeacross > 0) writeAttribute(out, "MergeAcross", mergeacross);
+        if (mergedown > 0) writeAttribute(out, "MergeDown", mergedown);
+        writeElementComments(out, gio);
+        
+        if (kind == VALUE_LONG || kind == VALUE_DOUBLE || kind == VALUE_FLOAT) {
+            // the digits go straight to the output
+            out.startElement("Data");
+            writeAttribute(out, "Type", getXLDataType());
+            if (kind == VALUE_LONG) {
+                out.text(value);
+            } else if (kind == VALUE_DOUBLE) {
+                out.text(Double.longBitsToDouble(value));
+            } else {
+                out.text(Float.intBitsToFloat((int) value));
+            }
+            out.endElement();
+        } else {
+            String data = getData$();
+            if (!"".equals(data)) {
+                out.startElement("Data");
+                writeAttribute(out, "Type", getXLDataType());
+                out.text(data);
+                out.endElement();
+            }
+        }
+        
+        if (comment != null) {
+            comment.write(out, gio);
+        }
+        out.endElement();
+    }
+    
     public void setAttributes(Attributes attrs) {
         for (int i = 0; i < attrs.getLength(); i++) {
-            invokeMethod(attrs.getLocalName(i), attrs.getValue(i));
+            setAttribute(attrs.getLocalName(i), attrs.getValue(i));
         }
     }
     
@@ -450,15 +652,18 @@ public class SSCell extends AbstractXLElement implements Cell {
         }
     }
     
-	private void invokeMethod(String name, Object value) {
-        Class[] types = new Class[] { value.getClass() };
-        Method method = null;
+    private void setAttribute(String name, String value) {
         try {
-            method = this.getClass().getDeclaredMethod("set" + name, types);
-            method.invoke(this, new Object[] { value });
-        } catch (NoSuchMethodException e) {
-            // no big deal
-        } catch (Exception e) {
+            switch (name) {
+                case "StyleID": setStyleID(value); break;
+                case "Formula": setFormula(value); break;
+                case "HRef": setHRef(value); break;
+                case "MergeAcross": setMergeAcross(value); break;
+                case "MergeDown": setMergeDown(value); break;
+                case "Type": setType(value); break;
+                default: // not supported
+            }
+        } catch (RuntimeException e) {
             e.printStackTrace();
         }
     }
@@ -485,15 +690,37 @@ public class SSCell extends AbstractXLElement implements Cell {
      * @param type	Must be one of Cell's DATATYPE_XXX values.
      */
     protected void setType(String type) {
-        if (DATATYPE_BOOLEAN.equals(type)
-                || DATATYPE_DATE_TIME.equals(type)
-                || DATATYPE_ERROR.equals(type)
-                || DATATYPE_NUMBER.equals(type)
-                || DATATYPE_STRING.equals(type)) {
-            datatype = type;
-        } else {
-            throw new IllegalArgumentException(type + " is not a valid datatype.");
+        for (byte i = 0; i < DATATYPES.length; i++) {
+            if (DATATYPES[i].equals(type)) {
+                this.type = i;
+                number = null;
+                return;
+            }
         }
+        throw new IllegalArgumentException(type + " is not a valid datatype.");
+    }
+    
+    /**
+     * Brings this SSCell back to the state of a newly constructed SSCell.
+     * Used by the {@link nl.fountain.xelem.lex.ExcelReader} when it reuses cells.
+     * 
+     * @see nl.fountain.xelem.lex.ExcelReader#setReuseRows(boolean)
+     */
+    public void reset() {
+        idx = 0;
+        hasdata = false;
+        styleID = null;
+        formula = null;
+        href = null;
+        data$ = "";
+        type = TYPE_STRING;
+        kind = VALUE_TEXT;
+        value = 0;
+        number = null;
+        millis = null;
+        mergeacross = 0;
+        mergedown = 0;
+        comment = null;
     }
     
     public void setIndex(int index) {
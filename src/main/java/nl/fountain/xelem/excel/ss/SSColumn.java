@@ -21,9 +21,11 @@
  */
 package nl.fountain.xelem.excel.ss;
 
-import java.lang.reflect.Method;
+import java.io.IOException;
 
 import nl.fountain.xelem.GIO;
+import nl.fountain.xelem.NumberFormatter;
+import nl.fountain.xelem.XLWriter;
 import nl.fountain.xelem.excel.AbstractXLElement;
 import nl.fountain.xelem.excel.Column;
 
@@ -135,7 +137,7 @@ public class SSColumn extends AbstractXLElement implements Column {
         if (span > 0) ce.setAttributeNodeNS(
                 createAttributeNS(doc, "Span", span));
         if (width > 0.0) ce.setAttributeNodeNS(
-                createAttributeNS(doc, "Width", "" + width));
+                createAttributeNS(doc, "Width", NumberFormatter.toString(width)));
         if (hidden) ce.setAttributeNodeNS(
                 createAttributeNS(doc, "Hidden", "1"));
         if (!autoFitWidth) ce.setAttributeNodeNS(
@@ -145,21 +147,40 @@ public class SSColumn extends AbstractXLElement implements Column {
         return ce;
     }
     
+    public void write(XLWriter out, GIO gio) throws IOException {
+        writeStartElement(out);
+        
+        if (idx != 0) writeAttribute(out, "Index", idx);
+        if (getStyleID() != null) {
+            writeAttribute(out, "StyleID", getStyleID());
+            gio.addStyleID(getStyleID());
+        }
+        if (span > 0) writeAttribute(out, "Span", span);
+        if (width > 0.0) writeAttribute(out, "Width", width);
+        if (hidden) writeAttribute(out, "Hidden", "1");
+        if (!autoFitWidth) writeAttribute(out, "AutoFitWidth", "0");
+        writeElementComments(out, gio);
+        
+        out.endElement();
+    }
+    
     public void setAttributes(Attributes attrs) {
         for (int i = 0; i < attrs.getLength(); i++) {
-            invokeMethod(attrs.getLocalName(i), attrs.getValue(i));
+            setAttribute(attrs.getLocalName(i), attrs.getValue(i));
         }
     }
     
-	private void invokeMethod(String name, Object value) {
-        Class[] types = new Class[] { value.getClass() };
-        Method method = null;
+    private void setAttribute(String name, String value) {
         try {
-            method = this.getClass().getDeclaredMethod("set" + name, types);
-            method.invoke(this, new Object[] { value });
-        } catch (NoSuchMethodException e) {
-            // no big deal
-        } catch (Exception e) {
+            switch (name) {
+                case "StyleID": setStyleID(value); break;
+                case "AutoFitWidth": setAutoFitWidth(value); break;
+                case "Span": setSpan(value); break;
+                case "Width": setWidth(value); break;
+                case "Hidden": setHidden(value); break;
+                default: // not supported
+            }
+        } catch (RuntimeException e) {
             e.printStackTrace();
         }
     }
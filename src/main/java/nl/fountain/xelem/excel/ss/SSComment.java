@@ -21,9 +21,10 @@
  */
 package nl.fountain.xelem.excel.ss;
 
-import java.lang.reflect.Method;
+import java.io.IOException;
 
 import nl.fountain.xelem.GIO;
+import nl.fountain.xelem.XLWriter;
 import nl.fountain.xelem.excel.AbstractXLElement;
 import nl.fountain.xelem.excel.Comment;
 
@@ -113,9 +114,22 @@ public class SSComment extends AbstractXLElement implements Comment {
         return coe;
     }
     
+    public void write(XLWriter out, GIO gio) throws IOException {
+        if (data == null) return;
+        
+        writeStartElement(out);
+        
+        if (author != null) writeAttribute(out, "Author", author);
+        if (showAlways) writeAttribute(out, "ShowAlways", "1");
+        writeElementComments(out, gio);
+        
+        writeElement(out, "Data", data);
+        out.endElement();
+    }
+    
     public void setAttributes(Attributes attrs) {
         for (int i = 0; i < attrs.getLength(); i++) {
-            invokeMethod(attrs.getLocalName(i), attrs.getValue(i));
+            setAttribute(attrs.getLocalName(i), attrs.getValue(i));
         }
     }
     
@@ -124,15 +138,14 @@ public class SSComment extends AbstractXLElement implements Comment {
         setData(content);
     }
     
-	private void invokeMethod(String name, Object value) {
-        Class[] types = new Class[] { value.getClass() };
-        Method method = null;
+    private void setAttribute(String name, String value) {
         try {
-            method = this.getClass().getDeclaredMethod("set" + name, types);
-            method.invoke(this, new Object[] { value });
-        } catch (NoSuchMethodException e) {
-            // no big deal
-        } catch (Exception e) {
+            switch (name) {
+                case "Author": setAuthor(value); break;
+                case "ShowAlways": setShowAlways(value); break;
+                default: // not supported
+            }
+        } catch (RuntimeException e) {
             e.printStackTrace();
         }
     }
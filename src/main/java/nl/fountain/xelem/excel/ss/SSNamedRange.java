@@ -21,13 +21,14 @@
  */
 package nl.fountain.xelem.excel.ss;
 
-import java.lang.reflect.Method;
+import java.io.IOException;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.xml.sax.Attributes;
 
 import nl.fountain.xelem.GIO;
+import nl.fountain.xelem.XLWriter;
 import nl.fountain.xelem.excel.AbstractXLElement;
 import nl.fountain.xelem.excel.NamedRange;
 
@@ -104,21 +105,31 @@ public class SSNamedRange extends AbstractXLElement implements NamedRange {
         return nre;
     }
     
+    public void write(XLWriter out, GIO gio) throws IOException {
+        writeStartElement(out);
+        
+        writeAttribute(out, "Name", name);
+        if (refersTo != null) writeAttribute(out, "RefersTo", refersTo);
+        if (hidden) writeAttribute(out, "Hidden", "1");
+        writeElementComments(out, gio);
+        
+        out.endElement();
+    }
+    
     public void setAttributes(Attributes attrs) {
         for (int i = 0; i < attrs.getLength(); i++) {
-            invokeMethod(attrs.getLocalName(i), attrs.getValue(i));
+            setAttribute(attrs.getLocalName(i), attrs.getValue(i));
         }
     }
     
-	private void invokeMethod(String name, Object value) {
-        Class[] types = new Class[] { value.getClass() };
-        Method method = null;
+    private void setAttribute(String name, String value) {
         try {
-            method = this.getClass().getDeclaredMethod("set" + name, types);
-            method.invoke(this, new Object[] { value });
-        } catch (NoSuchMethodException e) {
-            // no big deal
-        } catch (Exception e) {
+            switch (name) {
+                case "RefersTo": setRefersTo(value); break;
+                case "Hidden": setHidden(value); break;
+                default: // not supported
+            }
+        } catch (RuntimeException e) {
             e.printStackTrace();
         }
     }
@@ -21,13 +21,19 @@
  */
 package nl.fountain.xelem.excel.ss;
 
-import java.lang.reflect.Method;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.AbstractCollection;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.TreeMap;
 
 import nl.fountain.xelem.GIO;
+import nl.fountain.xelem.NumberFormatter;
+import nl.fountain.xelem.XLWriter;
 import nl.fountain.xelem.excel.AbstractXLElement;
 import nl.fountain.xelem.excel.Cell;
 import nl.fountain.xelem.excel.Row;
@@ -39,12 +45,25 @@ import org.xml.sax.Attributes;
 
 /**
  * An implementation of the XLElement Row.
- * 
- * 
+ * <P>
+ * The cells of an SSRow are kept in an array, ordered by their index. As long
+ * as the indexes of the cells are contiguous, the index of a cell is
+ * it's position in the array plus the index of the first cell. Otherwise the indexes
+ * are kept in a parallel array of int. Adding a cell after the last cell and
+ * {@link #maxCellIndex()} take constant time. 
+ * <P>
+ * The first call to {@link #getCellMap()} moves the cells of this row to a
+ * TreeMap, which is used for the remaining lifetime of this row.
  */
 public class SSRow extends AbstractXLElement implements Row {
 
-    TreeMap<Integer, Cell> cells;
+    private static final Cell[] NO_CELLS = new Cell[0];
+    
+    private Cell[] cellArray = NO_CELLS;
+    private int[] indexArray; // null if the indexes are contiguous
+    private int firstIndex;
+    private int cellCount;
+    private TreeMap<Integer, Cell> cells; // not null after getCellMap()
     private int idx;
     private String styleID;
     private double height = -1.0;
@@ -58,7 +77,6 @@ public class SSRow extends AbstractXLElement implements Row {
      * @see nl.fountain.xelem.excel.Worksheet#addRow()
      */
     public SSRow() {
-        cells = new TreeMap<Integer, Cell>();
     }
     
     public void setStyleID(String id) {
@@ -187,46 +205,173 @@ public class SSRow extends AbstractXLElement implements Row {
         if (index < Worksheet.firstColumn || index > Worksheet.lastColumn) {
             throw new IndexOutOfBoundsException("columnIndex = " + index);
         }
-        cells.put(new Integer(index), cell);
+        if (cells != null) {
+            cells.put(index, cell);
+            return cell;
+        }
+        if (cellCount == 0) {
+            firstIndex = index;
+            insert(0, index, cell);
+        } else if (indexArray == null) {
+            int pos = index - firstIndex;
+            if (pos >= 0 && pos < cellCount) {
+                cellArray[pos] = cell;
+            } else if (pos == cellCount) {
+                insert(pos, index, cell);
+            } else if (pos == -1) {
+                firstIndex = index;
+                insert(0, index, cell);
+            } else {
+                toSparse();
+                put(index, cell);
+            }
+        } else {
+            put(index, cell);
+        }
         return cell;
     }
     
     public Cell removeCellAt(int index) {
-       return (Cell) cells.remove(new Integer(index)); 
+        if (cells != null) {
+            return cells.remove(index);
+        }
+        int pos = positionOf(index);
+        if (pos < 0) return null;
+        Cell cell = cellArray[pos];
+        if (indexArray == null) {
+            if (pos == 0) {
+                firstIndex++;
+            } else if (pos < cellCount - 1) {
+                toSparse();
+            }
+        }
+        cellCount--;
+        System.arraycopy(cellArray, pos + 1, cellArray, pos, cellCount - pos);
+        cellArray[cellCount] = null;
+        if (indexArray != null) {
+            System.arraycopy(indexArray, pos + 1, indexArray, pos, cellCount - pos);
+            toDenseIfContiguous();
+        }
+        return cell;
     }
 
     public Collection<Cell> getCells() {
-        return cells.values();
+        if (cells != null) {
+            return cells.values();
+        }
+        return new CellCollection();
     }
 
     public Cell getCellAt(int index) {
-        if (!hasCellAt(index)) {
+        Cell cell = getCell(index);
+        if (cell == null) {
             return addCellAt(index);
         } else {
-            return (Cell) cells.get(new Integer(index));
+            return cell;
         }
     }
     
     public boolean hasCellAt(int index) {
-        return cells.get(new Integer(index)) != null;
+        return getCell(index) != null;
     }
     
     public int size() {
-       return cells.size(); 
+        if (cells != null) {
+            return cells.size();
+        }
+        return cellCount; 
     }
     
+    /**
+     * Gets all the cells of this row. The returned TreeMap is backed by this row:
+     * changes to the map are reflected in the row and vice versa. The first call
+     * to this method moves the cells of this row to the returned map; iterators
+     * over the cells of this row that are open at that moment will throw a
+     * {@link java.util.ConcurrentModificationException} when they are used again.
+     */
     public TreeMap<Integer, Cell> getCellMap() {
+        if (cells == null) {
+            cells = new TreeMap<Integer, Cell>();
+            for (int pos = 0; pos < cellCount; pos++) {
+                cells.put(indexAt(pos), cellArray[pos]);
+            }
+            cellArray = NO_CELLS;
+            indexArray = null;
+            cellCount = 0;
+        }
         return cells;
     }
       
     public int maxCellIndex() {
-        int lastKey;
-        if (cells.size() == 0) {
-            lastKey = 0;
+        if (cells != null) {
+            return cells.isEmpty() ? 0 : cells.lastKey().intValue();
+        }
+        return cellCount == 0 ? 0 : indexAt(cellCount - 1);
+    }
+    
+    private Cell getCell(int index) {
+        if (cells != null) {
+            return cells.get(index);
+        }
+        int pos = positionOf(index);
+        return pos < 0 ? null : cellArray[pos];
+    }
+    
+    private int indexAt(int pos) {
+        return indexArray == null ? firstIndex + pos : indexArray[pos];
+    }
+    
+    private int positionOf(int index) {
+        if (indexArray == null) {
+            int pos = index - firstIndex;
+            return pos >= 0 && pos < cellCount ? pos : -1;
+        }
+        if (cellCount > 0 && index > indexArray[cellCount - 1]) {
+            return -(cellCount + 1);
+        }
+        return Arrays.binarySearch(indexArray, 0, cellCount, index);
+    }
+    
+    // sparse mode
+    private void put(int index, Cell cell) {
+        int pos = positionOf(index);
+        if (pos >= 0) {
+            cellArray[pos] = cell;
         } else {
-            lastKey = ((Integer)cells.lastKey()).intValue();
+            insert(-(pos + 1), index, cell);
+            toDenseIfContiguous();
+        }
+    }
+    
+    private void insert(int pos, int index, Cell cell) {
+        if (cellCount == cellArray.length) {
+            int capacity = Math.max(8, cellCount + (cellCount >> 1));
+            cellArray = Arrays.copyOf(cellArray, capacity);
+            if (indexArray != null) {
+                indexArray = Arrays.copyOf(indexArray, capacity);
+            }
+        }
+        System.arraycopy(cellArray, pos, cellArray, pos + 1, cellCount - pos);
+        cellArray[pos] = cell;
+        if (indexArray != null) {
+            System.arraycopy(indexArray, pos, indexArray, pos + 1, cellCount - pos);
+            indexArray[pos] = index;
+        }
+        cellCount++;
+    }
+    
+    private void toSparse() {
+        indexArray = new int[cellArray.length];
+        for (int pos = 0; pos < cellCount; pos++) {
+            indexArray[pos] = firstIndex + pos;
+        }
+    }
+    
+    private void toDenseIfContiguous() {
+        if (cellCount == 0 || indexArray[cellCount - 1] - indexArray[0] == cellCount - 1) {
+            firstIndex = cellCount == 0 ? 0 : indexArray[0];
+            indexArray = null;
         }
-        return lastKey;
     }
     
     public String getTagName() {
@@ -242,7 +387,10 @@ public class SSRow extends AbstractXLElement implements Row {
     }
 
     public Iterator<Cell> cellIterator() {
-        return new CellIterator();
+        if (cells != null) {
+            return new CellIterator();
+        }
+        return new ArrayIterator(true);
     }
     
     public Element assemble(Element parent, GIO gio) {
@@ -272,9 +420,34 @@ public class SSRow extends AbstractXLElement implements Row {
         return re;
     }
     
+    public void write(XLWriter out, GIO gio) throws IOException {
+        write(out, gio, idx);
+    }
+    
+    // writes this row with the given value of ss:Index, 0 for none
+    void write(XLWriter out, GIO gio, int index) throws IOException {
+        writeStartElement(out);
+        
+        if (index != 0) writeAttribute(out, "Index", index);
+        if (getStyleID() != null) {
+            writeAttribute(out, "StyleID", getStyleID());
+            gio.addStyleID(getStyleID());
+        }
+        if (span > 0) writeAttribute(out, "Span", span);
+        if (height > 0.0) writeAttribute(out, "Height", height);
+        if (hidden) writeAttribute(out, "Hidden", "1");
+        writeElementComments(out, gio);
+        
+        Iterator<Cell> iter = cellIterator();
+        while (iter.hasNext()) {
+            iter.next().write(out, gio);
+        }
+        out.endElement();
+    }
+    
     private void setAdditionalAttributes(Document doc, Element rowElement) {
         if (height > 0.0) rowElement.setAttributeNodeNS(
-                createAttributeNS(doc, "Height", "" + height));
+                createAttributeNS(doc, "Height", NumberFormatter.toString(height)));
         if (hidden) rowElement.setAttributeNodeNS(
                 createAttributeNS(doc, "Hidden", "1"));
     }
@@ -295,23 +468,44 @@ public class SSRow extends AbstractXLElement implements Row {
     
     public void setAttributes(Attributes attrs) {
         for (int i = 0; i < attrs.getLength(); i++) {
-            invokeMethod(attrs.getLocalName(i), attrs.getValue(i));
+            setAttribute(attrs.getLocalName(i), attrs.getValue(i));
         }
     }
     
-	private void invokeMethod(String name, Object value) {
-        Class[] types = new Class[] { value.getClass() };
-        Method method = null;
+    private void setAttribute(String name, String value) {
         try {
-            method = this.getClass().getDeclaredMethod("set" + name, types);
-            method.invoke(this, new Object[] { value });
-        } catch (NoSuchMethodException e) {
-            // no big deal
-        } catch (Exception e) {
+            switch (name) {
+                case "StyleID": setStyleID(value); break;
+                case "Height": setHeight(value); break;
+                case "Span": setSpan(value); break;
+                case "Hidden": setHidden(value); break;
+                default: // not supported
+            }
+        } catch (RuntimeException e) {
             e.printStackTrace();
         }
     }
     
+    /**
+     * Brings this SSRow back to the state of a newly constructed SSRow, 
+     * keeping the capacity it has for cells. Used by the 
+     * {@link nl.fountain.xelem.lex.ExcelReader} when it reuses rows.
+     * 
+     * @see nl.fountain.xelem.lex.ExcelReader#setReuseRows(boolean)
+     */
+    public void reset() {
+        Arrays.fill(cellArray, 0, cellCount, null);
+        indexArray = null;
+        firstIndex = 0;
+        cellCount = 0;
+        cells = null;
+        idx = 0;
+        styleID = null;
+        height = -1.0;
+        span = 0;
+        hidden = false;
+    }
+    
     /**
      * Sets the value of the ss:Index-attribute of this Row-element. This method is 
      * called by {@link nl.fountain.xelem.excel.Table#rowIterator()} to set the
@@ -325,6 +519,73 @@ public class SSRow extends AbstractXLElement implements Row {
         return idx;
     }
     
+    /////////////////////////////////////////////
+    private class CellCollection extends AbstractCollection<Cell> {
+        
+        public Iterator<Cell> iterator() {
+            if (cells != null) {
+                return cells.values().iterator();
+            }
+            return new ArrayIterator(false);
+        }
+
+        public int size() {
+            return SSRow.this.size();
+        }
+        
+    }
+    
+    /////////////////////////////////////////////
+    private class ArrayIterator implements Iterator<Cell> {
+        
+        private boolean setIndexes;
+        private int pos;
+        private int prevIndex;
+        private int lastIndex = -1;
+        
+        protected ArrayIterator(boolean setIndexes) {
+            this.setIndexes = setIndexes;
+        }
+
+        public void remove() {
+            if (lastIndex < 0) {
+                throw new IllegalStateException();
+            }
+            checkForMigration();
+            removeCellAt(lastIndex);
+            pos--;
+            lastIndex = -1;
+        }
+
+        public boolean hasNext() {
+            checkForMigration();
+            return pos < cellCount;
+        }
+
+        public Cell next() {
+            checkForMigration();
+            if (pos >= cellCount) {
+                throw new NoSuchElementException();
+            }
+            int curIndex = indexAt(pos);
+            Cell c = cellArray[pos++];
+            if (setIndexes) {
+                ((SSCell) c).setIndex(prevIndex + 1 != curIndex ? curIndex : 0);
+            }
+            prevIndex = curIndex;
+            lastIndex = curIndex;
+            return c;
+        }
+        
+        // the cells have been moved to the map of getCellMap()
+        private void checkForMigration() {
+            if (cells != null) {
+                throw new ConcurrentModificationException();
+            }
+        }
+        
+    }
+    
     /////////////////////////////////////////////
     private class CellIterator implements Iterator<Cell> {
         
@@ -21,13 +21,17 @@
  */
 package nl.fountain.xelem.excel.ss;
 
-import java.lang.reflect.Method;
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.TreeMap;
 
 import nl.fountain.xelem.GIO;
+import nl.fountain.xelem.NumberFormatter;
+import nl.fountain.xelem.XLWriter;
 import nl.fountain.xelem.excel.AbstractXLElement;
+import nl.fountain.xelem.excel.Cell;
 import nl.fountain.xelem.excel.Column;
 import nl.fountain.xelem.excel.Row;
 import nl.fountain.xelem.excel.Table;
@@ -201,6 +205,48 @@ public class SSTable extends AbstractXLElement implements Table {
         return lastKey;
     }
     
+    /**
+     * Gets the {@link nl.fountain.xelem.excel.Cell#doubleValue() double values} 
+     * of the cells in the column with the given index. The value of the cell 
+     * in the row with index <i>r</i> is at position <i>r</i> - 1 of the returned 
+     * array; the array has a length of {@link #maxRowIndex()}. The value of
+     * missing cells is <code>0.0</code>.
+     * 
+     * @param columnIndex	the index of the column
+     * @return the values of the column
+     */
+    public double[] getDoubleValues(int columnIndex) {
+        double[] values = new double[maxRowIndex()];
+        for (Map.Entry<Integer, Row> entry : rows.entrySet()) {
+            Row row = entry.getValue();
+            if (row.hasCellAt(columnIndex)) {
+                values[entry.getKey().intValue() - 1] = row.getCellAt(columnIndex).doubleValue();
+            }
+        }
+        return values;
+    }
+    
+    /**
+     * Gets the {@link SSCell#longValue() long values} of the cells
+     * in the column with the given index, in the same way as 
+     * {@link #getDoubleValues(int)}. The value of missing cells is <code>0</code>.
+     * 
+     * @param columnIndex	the index of the column
+     * @return the values of the column
+     */
+    public long[] getLongValues(int columnIndex) {
+        long[] values = new long[maxRowIndex()];
+        for (Map.Entry<Integer, Row> entry : rows.entrySet()) {
+            Row row = entry.getValue();
+            if (row.hasCellAt(columnIndex)) {
+                Cell cell = row.getCellAt(columnIndex);
+                values[entry.getKey().intValue() - 1] = cell instanceof SSCell 
+                		? ((SSCell) cell).longValue() : (long) cell.doubleValue();
+            }
+        }
+        return values;
+    }
+    
     public Iterator<Row> rowIterator() {
         return new RowIterator();
     }
@@ -230,9 +276,11 @@ public class SSTable extends AbstractXLElement implements Table {
             gio.addStyleID(getStyleID());
         }
         if (rowheight > 0.0) te.setAttributeNodeNS(
-                createAttributeNS(doc, "DefaultRowHeight", "" + rowheight));
+                createAttributeNS(doc, "DefaultRowHeight", 
+                        NumberFormatter.toString(rowheight)));
         if (columnwidth > 0.0) te.setAttributeNodeNS(
-                createAttributeNS(doc, "DefaultColumnWidth", "" + columnwidth));  
+                createAttributeNS(doc, "DefaultColumnWidth", 
+                        NumberFormatter.toString(columnwidth)));  
         
         parent.appendChild(te);
         
@@ -248,21 +296,49 @@ public class SSTable extends AbstractXLElement implements Table {
         return te;
     }
     
+    public void write(XLWriter out, GIO gio) throws IOException {
+        writeStart(out, gio);
+        out.endElement();
+    }
+    
+    // writes the start tag, the columns and the rows of this table
+    void writeStart(XLWriter out, GIO gio) throws IOException {
+        writeStartElement(out);
+        
+        if (getStyleID() != null) {
+            writeAttribute(out, "StyleID", getStyleID());
+            gio.addStyleID(getStyleID());
+        }
+        if (rowheight > 0.0) writeAttribute(out, "DefaultRowHeight", rowheight);
+        if (columnwidth > 0.0) writeAttribute(out, "DefaultColumnWidth", columnwidth);
+        writeElementComments(out, gio);
+        
+        Iterator<Column> iterC = columnIterator();
+        while (iterC.hasNext()) {
+            iterC.next().write(out, gio);
+        }
+        
+        Iterator<Row> iterR = rowIterator();
+        while (iterR.hasNext()) {
+            iterR.next().write(out, gio);
+        }
+    }
+    
     public void setAttributes(Attributes attrs) {
         for (int i = 0; i < attrs.getLength(); i++) {
-            invokeMethod(attrs.getLocalName(i), attrs.getValue(i));
+            setAttribute(attrs.getLocalName(i), attrs.getValue(i));
         }
     }
     
-	private void invokeMethod(String name, Object value) {
-        Class[] types = new Class[] { value.getClass() };
-        Method method = null;
+    private void setAttribute(String name, String value) {
         try {
-            method = this.getClass().getDeclaredMethod("set" + name, types);
-            method.invoke(this, new Object[] { value });
-        } catch (NoSuchMethodException e) {
-            // no big deal
-        } catch (Exception e) {
+            switch (name) {
+                case "StyleID": setStyleID(value); break;
+                case "ExpandedColumnCount": setExpandedColumnCount(value); break;
+                case "ExpandedRowCount": setExpandedRowCount(value); break;
+                default: // not supported
+            }
+        } catch (RuntimeException e) {
             e.printStackTrace();
         }
     }
@@ -21,7 +21,7 @@
  */
 package nl.fountain.xelem.excel.ss;
 
-import java.lang.reflect.Method;
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -30,6 +30,7 @@ import java.util.Map;
 import nl.fountain.xelem.Address;
 import nl.fountain.xelem.CellPointer;
 import nl.fountain.xelem.GIO;
+import nl.fountain.xelem.XLWriter;
 import nl.fountain.xelem.excel.AbstractXLElement;
 import nl.fountain.xelem.excel.AutoFilter;
 import nl.fountain.xelem.excel.Cell;
@@ -453,21 +454,58 @@ public class SSWorksheet extends AbstractXLElement implements Worksheet {
         return wse;
     }
     
+    public void write(XLWriter out, GIO gio) throws IOException {
+        writeStart(out, gio);
+        if (hasTable()) {
+            getTable().write(out, gio);
+        }
+        writeEnd(out, gio);
+    }
+    
+    // writes the start tag and the names of this worksheet
+    void writeStart(XLWriter out, GIO gio) throws IOException {
+        writeStartElement(out);
+        
+        writeAttribute(out, "Name", getName());
+        if (protect) writeAttribute(out, "Protected", "1");
+        if (righttoleft) writeAttribute(out, "RightToLeft", "1");
+        writeElementComments(out, gio);
+        
+        // Names
+        if (namedRanges != null) {
+            out.startElement("Names");
+            for (NamedRange nr : namedRanges.values()){
+                nr.write(out, gio);
+            }
+            out.endElement();
+        }
+    }
+    
+    // writes what follows the table and the end tag of this worksheet
+    void writeEnd(XLWriter out, GIO gio) throws IOException {
+        if (hasWorksheetOptions()) {
+            getWorksheetOptions().write(out, gio);
+        }
+        if (hasAutoFilter()) {
+            autoFilter.write(out, gio);
+        }
+        out.endElement();
+    }
+    
     public void setAttributes(Attributes attrs) {
         for (int i = 0; i < attrs.getLength(); i++) {
-            invokeMethod(attrs.getLocalName(i), attrs.getValue(i));
+            setAttribute(attrs.getLocalName(i), attrs.getValue(i));
         }
     }
     
-	private void invokeMethod(String name, Object value) {
-        Class[] types = new Class[] { value.getClass() };
-        Method method = null;
+    private void setAttribute(String name, String value) {
         try {
-            method = this.getClass().getDeclaredMethod("set" + name, types);
-            method.invoke(this, new Object[] { value });
-        } catch (NoSuchMethodException e) {
-            // no big deal
-        } catch (Exception e) {
+            switch (name) {
+                case "Protected": setProtected(value); break;
+                case "RightToLeft": setRightToLeft(value); break;
+                default: // not supported
+            }
+        } catch (RuntimeException e) {
             e.printStackTrace();
         }
     }
@@ -0,0 +1,342 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.excel.ss;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import nl.fountain.xelem.GIO;
+import nl.fountain.xelem.XLWriter;
+import nl.fountain.xelem.excel.DuplicateNameException;
+import nl.fountain.xelem.excel.Row;
+import nl.fountain.xelem.excel.Workbook;
+import nl.fountain.xelem.excel.Worksheet;
+
+/**
+ * Writes a workbook row by row, without keeping the rows in memory.
+ * <P>
+ * A Row is written to the output as soon as it is passed to one of the
+ * writeRow-methods; after that it may be garbage collected, so memory use
+ * does not depend on the number of rows. A typical session:
+ * <PRE>
+ *     StreamingWorkbookWriter sww = new StreamingWorkbookWriter(out);
+ *     sww.getWorkbook().getDocumentProperties().setTitle("Report");
+ *     sww.declareStyle("sHeader");
+ *
+ *     Worksheet sheet = sww.beginSheet("data");
+ *     sheet.getTable().addColumn().setWidth(100);
+ *     while (cursor.next()) {
+ *         Row row = new SSRow();
+ *         row.addCell(cursor.getString(1));
+ *         sww.writeRow(row);
+ *     }
+ *     sww.endSheet();
+ *     sww.finish();
+ * </PRE>
+ * <h3>Workbook</h3>
+ * Document properties, excel workbook, named ranges and comments of the
+ * workbook are taken from the {@link #getWorkbook() workbook}. They are
+ * written with the first call to {@link #beginSheet(String) beginSheet},
+ * so they have to be set before that. Worksheets that were added to the
+ * workbook are written before the streamed worksheets. The
+ * x:SelectedSheets-element is based on these worksheets only.
+ * <h3>Styles</h3>
+ * SpreadsheetML requires the styles to be declared before the worksheets.
+ * The styles written are the styles used by the worksheets of the
+ * workbook and the styles declared with {@link #declareStyle(String)}.
+ * If no style was declared, all styles
+ * of the {@link nl.fountain.xelem.XFactory} are written. A streamed
+ * row or cell that refers to a style that was not written
+ * results in an UnsupportedStyleException-warning.
+ * <h3>Worksheets</h3>
+ * The Worksheet returned by {@link #beginSheet(String) beginSheet} can be
+ * used to set attributes, names, table attributes and columns until the first
+ * row is written. It's worksheet options and auto filter are written by
+ * {@link #endSheet()}, so they can be set until then.
+ * The number of rows in a worksheet is limited to {@link Worksheet#lastRow}.
+ *
+ * @see nl.fountain.xelem.XLWriter
+ */
+public class StreamingWorkbookWriter {
+
+    private XLWriter out;
+    private XLWorkbook workbook;
+    private Set<String> declaredStyles;
+    private Set<String> sheetNames;
+    private GIO gio;
+    private GIO pre;
+    private SSWorksheet sheet;
+    private boolean tableStarted;
+    private int rowIndex;
+    private boolean finished;
+
+    /**
+     * Creates a new StreamingWorkbookWriter that writes to the given
+     * OutputStream in UTF-8.
+     *
+     * @param out	the OutputStream to write to
+     */
+    public StreamingWorkbookWriter(OutputStream out) {
+        this(new XLWriter(out, null));
+    }
+
+    /**
+     * Creates a new StreamingWorkbookWriter that writes to the given
+     * OutputStream in the given encoding.
+     *
+     * @param out		the OutputStream to write to
+     * @param encoding	the encoding of the output, may be <code>null</code>
+     */
+    public StreamingWorkbookWriter(OutputStream out, String encoding) {
+        this(new XLWriter(out, encoding));
+    }
+
+    /**
+     * Creates a new StreamingWorkbookWriter that writes to the given Writer.
+     *
+     * @param out	the Writer to write to
+     */
+    public StreamingWorkbookWriter(Writer out) {
+        this(new XLWriter(out));
+    }
+
+    /**
+     * Creates a new StreamingWorkbookWriter that writes to the given XLWriter.
+     *
+     * @param out	the XLWriter to write to
+     */
+    public StreamingWorkbookWriter(XLWriter out) {
+        this.out = out;
+        workbook = new XLWorkbook();
+        declaredStyles = new TreeSet<String>();
+        sheetNames = new HashSet<String>();
+        gio = new GIO();
+    }
+
+    /**
+     * Gets the workbook that holds the workbook-wide settings.
+     *
+     * @return the workbook of this StreamingWorkbookWriter
+     */
+    public Workbook getWorkbook() {
+        return workbook;
+    }
+
+    /**
+     * Declares a style that will be used by the streamed rows.
+     *
+     * @param 	id	the id of the style
+     * @throws 	IllegalStateException if the first worksheet was already begun
+     */
+    public void declareStyle(String id) {
+        if (pre != null) {
+            throw new IllegalStateException(
+                    "Styles must be declared before the first worksheet.");
+        }
+        declaredStyles.add(id);
+    }
+
+    /**
+     * Begins a new worksheet with the given name.
+     * Ends the current worksheet if there is one.
+     *
+     * @param 	name	the name of the worksheet
+     * @return 	the new worksheet
+     * @throws	IOException if an I/O error occurs
+     * @throws 	DuplicateNameException if a worksheet
+     * 			with the same name was already written
+     */
+    public Worksheet beginSheet(String name) throws IOException {
+        checkNotFinished();
+        if (sheet != null) {
+            endSheet();
+        }
+        if (pre == null) {
+            writeHeader();
+        }
+        if (workbook.getWorksheet(name) != null || !sheetNames.add(name)) {
+            throw new DuplicateNameException(
+                    "Duplicate name in worksheets collection: '" + name + "'.");
+        }
+        sheet = new SSWorksheet(name);
+        tableStarted = false;
+        rowIndex = 0;
+        return sheet;
+    }
+
+    /**
+     * Writes the row immediately after the last written row.
+     *
+     * @param 	row	the row to write
+     * @return 	the written row
+     * @throws	IOException if an I/O error occurs
+     * @throws 	IllegalStateException if no worksheet was begun
+     */
+    public Row writeRow(Row row) throws IOException {
+        if (sheet == null) {
+            throw new IllegalStateException("No worksheet begun.");
+        }
+        return writeRowAt(lastRowIndex() + 1, row);
+    }
+
+    /**
+     * Writes the row at the given index. Rows must be written in ascending
+     * order of their index. The index of the given row is not changed.
+     *
+     * @param 	index	the index of the row
+     * @param 	row		the row to write
+     * @return 	the written row
+     * @throws	IOException if an I/O error occurs
+     * @throws 	IllegalStateException if no worksheet was begun
+     * @throws 	IllegalArgumentException if the index is not greater than the
+     * 			index of the last written row
+     * @throws 	IndexOutOfBoundsException if the index is out of the range of
+     * 			row indexes
+     */
+    public Row writeRowAt(int index, Row row) throws IOException {
+        if (sheet == null) {
+            throw new IllegalStateException("No worksheet begun.");
+        }
+        if (index < Worksheet.firstRow || index > Worksheet.lastRow) {
+            throw new IndexOutOfBoundsException("rowIndex = " + index);
+        }
+        int last = lastRowIndex();
+        if (index <= last) {
+            throw new IllegalArgumentException("rowIndex " + index
+                    + " not greater than index of last written row: " + last);
+        }
+        if (!tableStarted) {
+            startTable();
+        }
+        int ssIndex = index == rowIndex + 1 ? 0 : index;
+        if (row instanceof SSRow) {
+            ((SSRow) row).write(out, gio, ssIndex);
+        } else {
+            int oldIndex = row.getIndex();
+            row.setIndex(ssIndex);
+            try {
+                row.write(out, gio);
+            } finally {
+                row.setIndex(oldIndex);
+            }
+        }
+        rowIndex = index;
+        return row;
+    }
+
+    /**
+     * Gets the index of the last written row of the current worksheet.
+     *
+     * @return the index of the last written row, 0 if no row was written
+     */
+    public int getRowIndex() {
+        return rowIndex;
+    }
+
+    /**
+     * Ends the current worksheet. Does nothing if there is no current worksheet.
+     *
+     * @throws	IOException if an I/O error occurs
+     */
+    public void endSheet() throws IOException {
+        if (sheet == null) return;
+        if (tableStarted) {
+            out.endElement();
+        } else {
+            sheet.writeStart(out, gio);
+            if (sheet.hasTable()) {
+                sheet.getTable().write(out, gio);
+            }
+        }
+        sheet.writeEnd(out, gio);
+        out.flush();
+        sheet = null;
+    }
+
+    /**
+     * Ends the current worksheet and the workbook and flushes the output.
+     * The underlying stream is not closed.
+     * If no worksheet was written, the workbook
+     * will contain an empty worksheet.
+     *
+     * @throws	IOException if an I/O error occurs
+     */
+    public void finish() throws IOException {
+        if (finished) return;
+        if (pre == null) {
+            if (workbook.getWorksheets().isEmpty()) {
+                workbook.addSheet();
+            }
+            writeHeader();
+        }
+        endSheet();
+        workbook.writeFooter(out, gio, pre);
+        out.endDocument();
+        finished = true;
+    }
+
+    /**
+     * Gets a list of warnings that occurred while writing.
+     *
+     * @return a list of warnings
+     * @see XLWorkbook#getWarnings()
+     */
+    public List<String> getWarnings() {
+        return workbook.getWarnings();
+    }
+
+    private void writeHeader() throws IOException {
+        Set<String> styles = declaredStyles;
+        if (styles.isEmpty()) {
+            styles = new TreeSet<String>(workbook.getFactory().getStyleIDs());
+            styles.remove("Default");
+        }
+        out.startDocument();
+        pre = workbook.writeHeader(out, gio, styles);
+        workbook.writeWorksheets(out, gio);
+    }
+
+    // the rows of the table of the worksheet are written before the streamed rows
+    private int lastRowIndex() {
+        return tableStarted ? rowIndex : ((SSTable) sheet.getTable()).maxRowIndex();
+    }
+
+    private void startTable() throws IOException {
+        sheet.writeStart(out, gio);
+        SSTable table = (SSTable) sheet.getTable();
+        table.writeStart(out, gio);
+        rowIndex = table.maxRowIndex();
+        tableStarted = true;
+    }
+
+    private void checkNotFinished() {
+        if (finished) {
+            throw new IllegalStateException("Workbook already finished.");
+        }
+    }
+
+}
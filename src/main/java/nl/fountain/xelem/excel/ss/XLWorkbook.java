@@ -21,6 +21,8 @@
  */
 package nl.fountain.xelem.excel.ss;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -29,6 +31,10 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -37,12 +43,17 @@ import javax.xml.parsers.ParserConfigurationException;
 import nl.fountain.xelem.GIO;
 import nl.fountain.xelem.UnsupportedStyleException;
 import nl.fountain.xelem.XFactory;
+import nl.fountain.xelem.XLWriter;
 import nl.fountain.xelem.XelemException;
 import nl.fountain.xelem.excel.AbstractXLElement;
+import nl.fountain.xelem.excel.Cell;
+import nl.fountain.xelem.excel.Column;
 import nl.fountain.xelem.excel.DocumentProperties;
 import nl.fountain.xelem.excel.DuplicateNameException;
 import nl.fountain.xelem.excel.ExcelWorkbook;
 import nl.fountain.xelem.excel.NamedRange;
+import nl.fountain.xelem.excel.Row;
+import nl.fountain.xelem.excel.Table;
 import nl.fountain.xelem.excel.Workbook;
 import nl.fountain.xelem.excel.Worksheet;
 import nl.fountain.xelem.excel.o.ODocumentProperties;
@@ -51,6 +62,7 @@ import nl.fountain.xelem.excel.x.XExcelWorkbook;
 import org.w3c.dom.DOMImplementation;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 
 /**
  * An implementation of the XLElement Workbook, the root of a SpreadsheetML document.
@@ -91,6 +103,8 @@ public class XLWorkbook extends AbstractXLElement implements Workbook {
     private XFactory xFactory;
     private List<String> warnings;
     private SimpleDateFormat sdf;
+    private Node infoSheetNode;
+    private Executor writeExecutor;
     
     /**
      * Creates a new XLWorkbook.
@@ -361,7 +375,211 @@ public class XLWorkbook extends AbstractXLElement implements Workbook {
         
         return root;
     }
+    
+    /**
+     * Writes this workbook, without the intervention of a 
+     * {@link org.w3c.dom.Document}. The xml written is the same as the xml
+     * serialized from the Document produced by {@link #createDocument()}.
+     * <P>
+     * The Styles-element precedes the worksheets, so the styles used
+     * in this workbook are gathered before anything is written. 
+     * Only the styleID's that can be obtained through the interfaces
+     * Table, Column, Row and Cell are gathered. A styleID that was added
+     * to the <code>gio</code> while writing, but was not gathered beforehand,
+     * results in an UnsupportedStyleException-warning.
+     * 
+     * @see nl.fountain.xelem.XSerializer#setStreaming(boolean)
+     */
+    public void write(XLWriter out, GIO gio) throws IOException {
+        if (sheets.size() < 1) {
+            addSheet();
+        }
+        GIO pre = writeHeader(out, gio, null);
+        writeWorksheets(out, gio);
+        writeFooter(out, gio, pre);
+    }
+    
+    /**
+     * Sets the Executor that writes the worksheets of this workbook in
+     * parallel when this workbook is written with 
+     * {@link #write(XLWriter, GIO)}. Each worksheet is written
+     * to it's own buffer, with it's own GIO. The buffers are written to the
+     * output in the order of the worksheets, so the xml written is the same
+     * as the xml written without an Executor.
+     * <P>
+     * Set to <code>null</code>, which is the default, to write the worksheets
+     * one after the other. The Executor is not shut down by this workbook.
+     * Worksheets that are written in parallel should not share
+     * rows, cells or other elements. The buffers of worksheets that are finished
+     * before their predecessors are kept in memory.
+     * 
+     * @param executor the Executor to write the worksheets with, 
+     * 			may be <code>null</code>
+     */
+    public void setWriteExecutor(Executor executor) {
+        writeExecutor = executor;
+    }
+    
+    /**
+     * Gets the Executor that writes the worksheets of this workbook in parallel.
+     * 
+     * @return	the Executor or <code>null</code> if the worksheets are written
+     * 			one after the other
+     * @see #setWriteExecutor(Executor)
+     */
+    public Executor getWriteExecutor() {
+        return writeExecutor;
+    }
+    
+    /**
+     * Writes the worksheets of this workbook, in parallel if a 
+     * write executor was set.
+     */
+    void writeWorksheets(XLWriter out, GIO gio) throws IOException {
+        if (writeExecutor == null || sheetList.size() < 2) {
+            for (String s : sheetList) {
+                Worksheet ws = sheets.get(s);
+                ws.write(out, gio);
+            }
+            return;
+        }
+        List<FutureTask<XLWriter>> tasks = new ArrayList<FutureTask<XLWriter>>();
+        List<GIO> gios = new ArrayList<GIO>();
+        for (String s : sheetList) {
+            final Worksheet ws = sheets.get(s);
+            final XLWriter fragment = out.newFragment();
+            final GIO sheetGio = new GIO();
+            sheetGio.setPrintComments(gio.isPrintingComments());
+            FutureTask<XLWriter> task = new FutureTask<XLWriter>(new Callable<XLWriter>() {
+                public XLWriter call() throws IOException {
+                    ws.write(fragment, sheetGio);
+                    return fragment;
+                }
+            });
+            tasks.add(task);
+            gios.add(sheetGio);
+            writeExecutor.execute(task);
+        }
+        try {
+            for (int i = 0; i < tasks.size(); i++) {
+                out.appendFragment(getFragment(tasks.get(i)));
+                gio.merge(gios.get(i));
+            }
+        } finally {
+            for (FutureTask<XLWriter> task : tasks) {
+                task.cancel(true);
+            }
+        }
+    }
+    
+    private XLWriter getFragment(FutureTask<XLWriter> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing worksheets.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+    
+    /**
+     * Writes everything that precedes the worksheets: the root element with
+     * document properties, excel workbook, styles and names. 
+     * 
+     * @param declaredStyles	styleID's to write next to those gathered 
+     * 			from the worksheets of this workbook, may be <code>null</code>
+     * @return	the GIO with the gathered information
+     */
+    GIO writeHeader(XLWriter out, GIO gio, Collection<String> declaredStyles) 
+    		throws IOException {
+        warnings = null;
+        gio.setPrintComments(isPrintingElementComments());
+        
+        // gather Global Information
+        GIO pre = new GIO();
+        infoSheetNode = null;
+        if (appendInfoSheet) {
+            try {
+                infoSheetNode = getFactory().getInfoSheet(pre);
+            } catch (XelemException e) {
+                addWarning(e.getCause());
+            }
+        }
+        gatherGlobalInformation(pre);
+        if (declaredStyles != null) {
+            pre.getStyleIDSet().addAll(declaredStyles);
+        }
+        
+        out.processingInstruction("mso-application", "progid=\"Excel.Sheet\"");
+        if (isPrintingDocComments()) {
+            for (String s : getFactory().getDocComments()) {
+                out.comment(s);
+            }
+        }
+        
+        out.startElement(getTagName());
+        out.attribute("xmlns", XMLNS);
+        out.attribute("xmlns:o", XMLNS_O);
+        out.attribute("xmlns:x", XMLNS_X);
+        out.attribute("xmlns:ss", XMLNS_SS);
+        out.attribute("xmlns:html", XMLNS_HTML);
+        writeElementComments(out, gio);
+        
+        //o:DocumentProperties
+        if (hasDocumentProperties()) {
+            documentProperties.write(out, gio);
+        }
 
+        //x:ExcelWorkbook
+        getExcelWorkbook().write(out, pre);
+        
+        //Styles
+        out.startElement("Styles");
+        writeDefaultStyle(out);
+        writeStyles(out, pre);
+        out.endElement();
+        
+        // Names
+        if (namedRanges != null) {
+            out.startElement("Names");
+            for (NamedRange nr : namedRanges.values()) {
+                nr.write(out, gio);
+            }
+            out.endElement();
+        }
+        return pre;
+    }
+    
+    /**
+     * Writes everything that follows the worksheets and closes the root element.
+     * 
+     * @param pre	the GIO returned by {@link #writeHeader(XLWriter, GIO, Collection)}
+     */
+    void writeFooter(XLWriter out, GIO gio, GIO pre) throws IOException {
+        // append xelem-info sheet
+        if (infoSheetNode != null) {
+            out.writeNode(infoSheetNode);
+            infoSheetNode = null;
+        }
+        out.endElement();
+        
+        for (String id : gio.getStyleIDSet()) {
+            if (!pre.getStyleIDSet().contains(id)) {
+                addWarning(new UnsupportedStyleException(
+                        "Style '" + id + "' was used, but not written."));
+            }
+        }
+    }
+    
     public List<String> getWarnings() {
         if (warnings == null) {
             return Collections.emptyList();
@@ -418,7 +636,75 @@ public class XLWorkbook extends AbstractXLElement implements Workbook {
         }
     }
     
-    private XFactory getFactory() {
+    private void writeDefaultStyle(XLWriter out) throws IOException {
+        Element dse = getFactory().getStyle("Default");
+        if (dse == null) {
+            out.startElement("Style");
+            writeAttribute(out, "ID", "Default");
+            writeAttribute(out, "Name", "Normal");
+            out.startElement("Alignment");
+            writeAttribute(out, "Vertical", "Bottom");
+            out.endElement();
+            out.element("Borders", null);
+            out.element("Font", null);
+            out.element("Interior", null);
+            out.element("NumberFormat", null);
+            out.element("Protection", null);
+            out.endElement();
+        } else {
+            out.writeNode(dse);
+        }
+    }
+    
+    private void writeStyles(XLWriter out, GIO gio) throws IOException {
+        for (String id : gio.getStyleIDSet()) {
+            Element style = getFactory().getStyle(id);
+            if (style == null) {
+                // last resort: create one on the spot
+                out.startElement("Style");
+                writeAttribute(out, "ID", id);
+                out.endElement();
+                addWarning(new UnsupportedStyleException(
+                        "Style '" + id + "' not found."));
+            } else {
+                // we have a style from the XFactory
+                out.writeNode(style);
+            }
+        }
+    }
+    
+    // collects what must be known before the first worksheet is written
+    private void gatherGlobalInformation(GIO gio) {
+        for (String s : sheetList) {
+            Worksheet ws = sheets.get(s);
+            if (ws.hasTable()) {
+                Table table = ws.getTable();
+                if (table.getStyleID() != null) {
+                    gio.addStyleID(table.getStyleID());
+                }
+                for (Column column : table.getColumns()) {
+                    if (column.getStyleID() != null) {
+                        gio.addStyleID(column.getStyleID());
+                    }
+                }
+                for (Row row : table.getRows()) {
+                    if (row.getStyleID() != null) {
+                        gio.addStyleID(row.getStyleID());
+                    }
+                    for (Cell cell : row.getCells()) {
+                        if (cell.getStyleID() != null) {
+                            gio.addStyleID(cell.getStyleID());
+                        }
+                    }
+                }
+            }
+            if (ws.hasWorksheetOptions() && ws.getWorksheetOptions().isSelected()) {
+                gio.increaseSelectedSheets();
+            }
+        }
+    }
+    
+    XFactory getFactory() {
         if (xFactory == null) {
             try {
                 xFactory = XFactory.newInstance();
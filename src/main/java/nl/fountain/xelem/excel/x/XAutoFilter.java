@@ -21,10 +21,13 @@
  */
 package nl.fountain.xelem.excel.x;
 
+import java.io.IOException;
+
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 import nl.fountain.xelem.GIO;
+import nl.fountain.xelem.XLWriter;
 import nl.fountain.xelem.excel.AbstractXLElement;
 import nl.fountain.xelem.excel.AutoFilter;
 
@@ -75,5 +78,14 @@ public class XAutoFilter extends AbstractXLElement implements AutoFilter {
             return null;
         }
     }
+    
+    public void write(XLWriter out, GIO gio) throws IOException {
+        if (getRange() != null) {
+            writeStartElement(out);
+            writeAttribute(out, "Range", getRange());
+            writeElementComments(out, gio);
+            out.endElement();
+        }
+    }
 
 }
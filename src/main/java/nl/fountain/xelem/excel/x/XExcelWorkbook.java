@@ -21,9 +21,10 @@
  */
 package nl.fountain.xelem.excel.x;
 
-import java.lang.reflect.Method;
+import java.io.IOException;
 
 import nl.fountain.xelem.GIO;
+import nl.fountain.xelem.XLWriter;
 import nl.fountain.xelem.excel.AbstractXLElement;
 import nl.fountain.xelem.excel.ExcelWorkbook;
 
@@ -175,19 +176,51 @@ public class XExcelWorkbook extends AbstractXLElement implements ExcelWorkbook {
         return ewbe;
     }
     
+    /**
+     * Writes this ExcelWorkbook. If the <code>gio</code> counts more than one
+     * selected sheet, the x:SelectedSheets-element is written as well. 
+     * (When assembling, the workbook appends this element after all
+     * worksheets were assembled.)
+     */
+    public void write(XLWriter out, GIO gio) throws IOException {
+        writeStartElement(out);
+        writeElementComments(out, gio);
+        
+        if (windowHeight > 0)
+            writeElement(out, "WindowHeight", windowHeight);
+        if (windowWidth > 0)
+            writeElement(out, "WindowWidth", windowWidth);
+        if (windowTopX != 0)
+            writeElement(out, "WindowTopX", windowTopX);
+        if (windowTopY != 0)
+            writeElement(out, "WindowTopY", windowTopY);
+        if (activeSheet > -1)
+            writeElement(out, "ActiveSheet", activeSheet);
+        writeElement(out, "ProtectStructure", protectstructure);
+        writeElement(out, "ProtectWindows", protectwindows);
+        if (gio.getSelectedSheetsCount() > 1)
+            writeElement(out, "SelectedSheets", gio.getSelectedSheetsCount());
+        
+        out.endElement();
+    }
+    
     public void setChildElement(String localName, String content) {
-        invokeMethod(localName, content);
+        setChild(localName, content);
     }
     
-	private void invokeMethod(String name, Object value) {
-        Class[] types = new Class[] { value.getClass() };
-        Method method = null;
+    private void setChild(String name, String value) {
         try {
-            method = this.getClass().getDeclaredMethod("set" + name, types);
-            method.invoke(this, new Object[] { value });
-        } catch (NoSuchMethodException e) {
-            // no big deal
-        } catch (Exception e) {
+            switch (name) {
+                case "WindowHeight": setWindowHeight(value); break;
+                case "WindowWidth": setWindowWidth(value); break;
+                case "WindowTopX": setWindowTopX(value); break;
+                case "WindowTopY": setWindowTopY(value); break;
+                case "ActiveSheet": setActiveSheet(value); break;
+                case "ProtectStructure": setProtectStructure(value); break;
+                case "ProtectWindows": setProtectWindows(value); break;
+                default: // not supported
+            }
+        } catch (RuntimeException e) {
             e.printStackTrace();
         }
     }
@@ -21,11 +21,14 @@
  */
 package nl.fountain.xelem.excel.x;
 
+import java.io.IOException;
+
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 import nl.fountain.xelem.Area;
 import nl.fountain.xelem.GIO;
+import nl.fountain.xelem.XLWriter;
 import nl.fountain.xelem.excel.AbstractXLElement;
 import nl.fountain.xelem.excel.Pane;
 
@@ -126,5 +129,17 @@ public class XPane extends AbstractXLElement implements Pane {
         parent.appendChild(pe);
         return pe;
     }
+    
+    public void write(XLWriter out, GIO gio) throws IOException {
+        writeStartElement(out);
+        writeElementComments(out, gio);
+        
+        writeElement(out, "Number", number);
+        if (activeCol > -1) writeElement(out, "ActiveCol", activeCol);
+        if (activeRow > -1) writeElement(out, "ActiveRow", activeRow);
+        if (rangeSelection != null) writeElement(out, "RangeSelection", rangeSelection);
+        
+        out.endElement();
+    }
 
 }
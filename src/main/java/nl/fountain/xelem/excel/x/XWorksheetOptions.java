@@ -21,13 +21,14 @@
  */
 package nl.fountain.xelem.excel.x;
 
-import java.lang.reflect.Method;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
 import nl.fountain.xelem.Area;
 import nl.fountain.xelem.GIO;
 import nl.fountain.xelem.XLUtil;
+import nl.fountain.xelem.XLWriter;
 import nl.fountain.xelem.excel.AbstractXLElement;
 import nl.fountain.xelem.excel.Pane;
 import nl.fountain.xelem.excel.WorksheetOptions;
@@ -434,6 +435,76 @@ public class XWorksheetOptions extends AbstractXLElement implements WorksheetOpt
         return wsoe;
     }
     
+    public void write(XLWriter out, GIO gio) throws IOException {
+        writeStartElement(out);
+        writeElementComments(out, gio);
+        
+        if (isSelected()) {
+            writeElement(out, "Selected");
+            gio.increaseSelectedSheets();
+        }
+        if (displaysNoHeadings()) writeElement(out, "DoNotDisplayHeadings");
+        if (displaysNoGridlines()) writeElement(out, "DoNotDisplayGridlines");
+        if (displaysFormulas()) writeElement(out, "DisplayFormulas");
+        if (topRowVisible > -1) writeElement(out, "TopRowVisible", topRowVisible);
+        if (leftColumnVisible > -1) writeElement(out, "LeftColumnVisible", leftColumnVisible);
+        if (zoom > 0) writeElement(out, "Zoom", zoom);
+        if (tabColorIndex != -1) writeElement(out, "TabColorIndex", tabColorIndex);
+        if (gridlineColor != null) writeElement(out, "GridlineColor", gridlineColor);
+        if (visible != null) writeElement(out, "Visible", visible);
+        if (freezePanes) {
+            writeElement(out, "FreezePanes");
+            writeElement(out, "FrozenNoSplit");
+        }
+        
+        boolean splitH = false;
+        if (splitHorizontal > 0 || topRowBottomPane > -1) {
+            splitH = true;
+            writeElement(out, "SplitHorizontal", splitHorizontal);
+            writeElement(out, "TopRowBottomPane", topRowBottomPane);
+        }
+        
+        boolean splitV = false;
+        if (splitVertical > 0 || leftColumnRightPane > -1) {
+            splitV = true;
+            writeElement(out, "SplitVertical", splitVertical);
+            writeElement(out, "LeftColumnRightPane", leftColumnRightPane);
+        }
+        
+        if (activePane == 3
+                || (splitH && activePane == 2)
+                || (splitV && activePane == 1)
+                || (splitH && splitV && activePane == 0)) {
+            writeElement(out, "ActivePane", activePane);
+        }
+        
+        if (panes != null) {
+            out.startElement(getPrefix(), "Panes");
+            
+            Pane pane3 = panes.get(3);
+            if (pane3 != null) {
+                pane3.write(out, gio);
+            }
+            
+            Pane pane2 = panes.get(2);
+            if (pane2 != null && splitH) {
+                pane2.write(out, gio);
+            }
+            
+            Pane pane1 = panes.get(1);
+            if (pane1 != null && splitV) {
+                pane1.write(out, gio);
+            }
+            
+            Pane pane0 = panes.get(0);
+            if (pane0 != null && splitH && splitV) {
+                pane0.write(out, gio);
+            }
+            out.endElement();
+        }
+        out.endElement();
+    }
+    
     private Pane getPane(int number) {
         if (panes == null) {
             panes = new HashMap<Integer, Pane>();
@@ -466,18 +537,36 @@ public class XWorksheetOptions extends AbstractXLElement implements WorksheetOpt
     
     public void setChildElement(String localName, String content) {
         //System.out.println(localName+"="+content);
-        invokeMethod(localName, content);
+        setChild(localName, content);
     }
     
-	private void invokeMethod(String name, Object value) {
-        Class[] types = new Class[] { value.getClass() };
-        Method method = null;
+    private void setChild(String name, String value) {
         try {
-            method = this.getClass().getDeclaredMethod("set" + name, types);
-            method.invoke(this, new Object[] { value });
-        } catch (NoSuchMethodException e) {
-            // no big deal
-        } catch (Exception e) {
+            switch (name) {
+                case "TopRowVisible": setTopRowVisible(value); break;
+                case "LeftColumnVisible": setLeftColumnVisible(value); break;
+                case "Zoom": setZoom(value); break;
+                case "TabColorIndex": setTabColorIndex(value); break;
+                case "Selected": setSelected(value); break;
+                case "DoNotDisplayHeadings": setDoNotDisplayHeadings(value); break;
+                case "DoNotDisplayGridlines": setDoNotDisplayGridlines(value); break;
+                case "DisplayFormulas": setDisplayFormulas(value); break;
+                case "Visible": setVisible(value); break;
+                case "RangeSelection": setRangeSelection(value); break;
+                case "FreezePanes": setFreezePanes(value); break;
+                case "SplitHorizontal": setSplitHorizontal(value); break;
+                case "TopRowBottomPane": setTopRowBottomPane(value); break;
+                case "SplitVertical": setSplitVertical(value); break;
+                case "LeftColumnRightPane": setLeftColumnRightPane(value); break;
+                case "ActivePane": setActivePane(value); break;
+                case "GridlineColor": setGridlineColor(value); break;
+                case "Number": setNumber(value); break;
+                case "ActiveRow": setActiveRow(value); break;
+                case "ActiveCol": setActiveCol(value); break;
+                case "Pane": setPane(value); break;
+                default: // not supported
+            }
+        } catch (RuntimeException e) {
             e.printStackTrace();
         }
     }
@@ -0,0 +1,55 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+import nl.fountain.xelem.excel.Row;
+
+/**
+ * Recieves the rows of the sources that are read by a {@link BatchReader}. 
+ * Calls to a BatchListener are never concurrent, although they may come 
+ * from different threads.
+ */
+public interface BatchListener {
+    
+    /**
+     * Called for every row of every source.
+     * 
+     * @param sourceIndex	the index of the source in the batch
+     * @param systemId		the system id of the source, may be <code>null</code>
+     * @param sheetIndex	the index of the worksheet in the source
+     * @param sheetName		the name of the worksheet
+     * @param row			the row
+     */
+    void setRow(int sourceIndex, String systemId, int sheetIndex, String sheetName, Row row);
+    
+    /**
+     * Called when a source was read or when reading it failed. No rows of
+     * the source follow.
+     * 
+     * @param sourceIndex	the index of the source in the batch
+     * @param systemId		the system id of the source, may be <code>null</code>
+     * @param error			the exception that stopped the read of the source,
+     * 						<code>null</code> if the source was read completely
+     */
+    void endSource(int sourceIndex, String systemId, Exception error);
+
+}
@@ -0,0 +1,378 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import nl.fountain.xelem.excel.Row;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Reads a batch of sources concurrently and delivers their rows to a 
+ * {@link BatchListener}.
+ * <P>
+ * At most {@link #setParallelism(int) parallelism} sources are read at the 
+ * same time, each by an ExcelReader of an {@link ExcelReaderPool}. 
+ * The sources are read on the threads of the {@link #setExecutor(Executor)
+ * executor} that was set, or else on virtual threads if the Java runtime 
+ * has them, or else on a thread pool of parallelism threads that lives for 
+ * the duration of the read.
+ * <P>
+ * A source that cannot be read does not stop the batch: the exception is
+ * passed to {@link BatchListener#endSource endSource} and the other sources 
+ * are read. An exception thrown by {@link BatchListener#setRow setRow} 
+ * counts as an error of the source of the row. A RuntimeException thrown 
+ * by endSource does not stop the batch; the first one is thrown by the 
+ * read-method after all sources were read.
+ * <P>
+ * If {@link #setOrdered(boolean) ordered}, the BatchListener recieves the
+ * rows and the endSource-calls of the sources in the order of the batch: 
+ * rows of a source that is read ahead of it's turn are kept in memory 
+ * until the sources before it are done. Otherwise rows are delivered as 
+ * soon as they are read and rows of different sources interleave.
+ * <P>
+ * Progress can be followed from another thread with 
+ * {@link #getCompletedCount()} and {@link #getSourceCount()}.
+ */
+public class BatchReader {
+    
+    private ExcelReaderPool pool;
+    private int parallelism;
+    private Executor executor;
+    private boolean ordered;
+    private AtomicInteger completed = new AtomicInteger();
+    private volatile int sourceCount;
+    
+    /**
+     * Constructs a new BatchReader that reads as many sources at the same 
+     * time as there are processors.
+     * 
+     * @throws ParserConfigurationException if a parser cannot be created
+     * 		 which satisfies the current configuration
+     * @throws SAXException	for SAX errors
+     */
+    public BatchReader() throws ParserConfigurationException, SAXException {
+        this(new ExcelReaderPool());
+    }
+    
+    /**
+     * Constructs a new BatchReader that reads with ExcelReaders of the 
+     * given pool. The parallelism is the maximum number of idle ExcelReaders
+     * of the pool.
+     * 
+     * @param pool	the pool of ExcelReaders
+     */
+    public BatchReader(ExcelReaderPool pool) {
+        this.pool = pool;
+        parallelism = pool.getMaxIdle();
+    }
+    
+    /**
+     * Sets the maximum number of sources that are read at the same time.
+     * 
+     * @param parallelism	the maximum number of concurrent reads
+     * @throws IllegalArgumentException if parallelism is less than 1
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism < 1: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+    
+    /**
+     * Gets the maximum number of sources that are read at the same time.
+     * 
+     * @return the parallelism
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+    
+    /**
+     * Sets the Executor that runs the reads of the sources.
+     * 
+     * @param executor	the Executor that reads the sources, <code>null</code> 
+     * 					to use virtual threads or a thread pool for every batch
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+    
+    /**
+     * Gets the Executor that runs the reads of the sources.
+     * 
+     * @return the Executor, may be <code>null</code>
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+    
+    /**
+     * Specifies whether rows and endSource-calls are delivered in the order
+     * of the batch. The default is <code>false</code>.
+     * 
+     * @param ordered	<code>true</code> for the order of the batch,
+     * 					<code>false</code> for the order of completion
+     */
+    public void setOrdered(boolean ordered) {
+        this.ordered = ordered;
+    }
+    
+    /**
+     * Specifies whether rows and endSource-calls are delivered in the order
+     * of the batch.
+     * 
+     * @return <code>true</code> if delivered in the order of the batch
+     * @see #setOrdered(boolean)
+     */
+    public boolean isOrdered() {
+        return ordered;
+    }
+    
+    /**
+     * Gets the number of sources of the current or last batch that were
+     * completed, succesfully or not.
+     * 
+     * @return the number of completed sources
+     */
+    public int getCompletedCount() {
+        return completed.get();
+    }
+    
+    /**
+     * Gets the number of sources of the current or last batch.
+     * 
+     * @return the number of sources
+     */
+    public int getSourceCount() {
+        return sourceCount;
+    }
+    
+    /**
+     * Reads the given files. See {@link #read(List, BatchListener)}.
+     * 
+     * @param files		the files to read
+     * @param listener	the listener that recieves the rows
+     * @return the number of files that could not be read
+     * @throws InterruptedException if the calling thread is interrupted
+     * 		while waiting for the reads
+     */
+    public int readFiles(Collection<File> files, BatchListener listener) 
+    		throws InterruptedException {
+        List<InputSource> sources = new ArrayList<InputSource>(files.size());
+        for (File file : files) {
+            sources.add(new InputSource(file.toURI().toString()));
+        }
+        return read(sources, listener);
+    }
+    
+    /**
+     * Reads the given sources and delivers their rows to the given listener. 
+     * Returns when all sources were read. If the calling thread is interrupted,
+     * no more sources are started and the reads that are in progress are 
+     * completed before the InterruptedException is thrown.
+     * 
+     * @param sources	the sources to read
+     * @param listener	the listener that recieves the rows
+     * @return the number of sources that could not be read
+     * @throws InterruptedException if the calling thread is interrupted
+     * 		while waiting for the reads
+     * @throws RuntimeException the first exception thrown by 
+     * 		{@link BatchListener#endSource endSource}
+     */
+    public int read(List<InputSource> sources, BatchListener listener) 
+    		throws InterruptedException {
+        completed.set(0);
+        sourceCount = sources.size();
+        Batch batch = new Batch(sources.size(), listener);
+        int permits = parallelism;
+        Semaphore semaphore = new Semaphore(permits);
+        ExecutorService ownExecutor = executor == null ? createExecutor(permits) : null;
+        Executor exec = executor == null ? ownExecutor : executor;
+        try {
+            for (int i = 0; i < sources.size(); i++) {
+                semaphore.acquire();
+                try {
+                    exec.execute(new SourceTask(i, sources.get(i), batch, semaphore));
+                } catch (RuntimeException e) {
+                    semaphore.release();
+                    batch.endSource(i, sources.get(i).getSystemId(), e);
+                }
+            }
+        } finally {
+            semaphore.acquireUninterruptibly(permits);
+            if (ownExecutor != null) ownExecutor.shutdown();
+        }
+        if (batch.endSourceError != null) {
+            throw batch.endSourceError;
+        }
+        return batch.failures;
+    }
+    
+    // virtual threads if Executors.newVirtualThreadPerTaskExecutor is there
+    private static ExecutorService createExecutor(int threads) {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (Exception e) {
+            return Executors.newFixedThreadPool(threads);
+        }
+    }
+    
+    ///////////////////////////////////////////////////////////////
+    private class SourceTask extends DefaultExcelReaderListener implements Runnable {
+        
+        private int index;
+        private InputSource source;
+        private Batch batch;
+        private Semaphore semaphore;
+        
+        SourceTask(int index, InputSource source, Batch batch, Semaphore semaphore) {
+            this.index = index;
+            this.source = source;
+            this.batch = batch;
+            this.semaphore = semaphore;
+        }
+        
+        public void run() {
+            Exception error = null;
+            try {
+                pool.read(source, this);
+            } catch (Exception e) {
+                error = e;
+            } finally {
+                try {
+                    batch.endSource(index, source.getSystemId(), error);
+                } finally {
+                    semaphore.release();
+                }
+            }
+        }
+        
+        public void setRow(int sheetIndex, String sheetName, Row row) {
+            batch.setRow(index, source.getSystemId(), sheetIndex, sheetName, row);
+        }
+        
+    }
+    
+    ///////////////////////////////////////////////////////////////
+    /**
+     * Delivers the rows and ends of sources to the listener, one call at 
+     * a time, in the order of the batch if ordered.
+     */
+    private class Batch {
+        
+        private BatchListener listener;
+        private int current;
+        private List<List<Object[]>> pending;
+        private boolean[] done;
+        private String[] systemIds;
+        private Exception[] errors;
+        int failures;
+        RuntimeException endSourceError;
+        
+        Batch(int size, BatchListener listener) {
+            this.listener = listener;
+            if (ordered) {
+                pending = new ArrayList<List<Object[]>>(size);
+                for (int i = 0; i < size; i++) {
+                    pending.add(null);
+                }
+                done = new boolean[size];
+                systemIds = new String[size];
+                errors = new Exception[size];
+            }
+        }
+        
+        synchronized void setRow(int sourceIndex, String systemId, int sheetIndex, 
+                String sheetName, Row row) {
+            if (!ordered || sourceIndex == current) {
+                listener.setRow(sourceIndex, systemId, sheetIndex, sheetName, row);
+            } else {
+                List<Object[]> rows = pending.get(sourceIndex);
+                if (rows == null) {
+                    rows = new ArrayList<Object[]>();
+                    pending.set(sourceIndex, rows);
+                }
+                rows.add(new Object[] {systemId, sheetIndex, sheetName, row});
+            }
+        }
+        
+        synchronized void endSource(int sourceIndex, String systemId, Exception error) {
+            if (!ordered) {
+                fireEndSource(sourceIndex, systemId, error);
+                return;
+            }
+            done[sourceIndex] = true;
+            systemIds[sourceIndex] = systemId;
+            if (errors[sourceIndex] == null) errors[sourceIndex] = error;
+            while (current < done.length && done[current]) {
+                int index = current++;
+                fireEndSource(index, systemIds[index], errors[index]);
+                if (current < done.length) {
+                    firePending(current);
+                }
+            }
+        }
+        
+        // delivers the rows of a source that was read ahead of it's turn
+        private void firePending(int sourceIndex) {
+            List<Object[]> rows = pending.get(sourceIndex);
+            pending.set(sourceIndex, null);
+            if (rows == null) return;
+            try {
+                for (Object[] r : rows) {
+                    listener.setRow(sourceIndex, (String) r[0], (Integer) r[1], 
+                            (String) r[2], (Row) r[3]);
+                }
+            } catch (RuntimeException e) {
+                if (errors[sourceIndex] == null) errors[sourceIndex] = e;
+            }
+        }
+        
+        private void fireEndSource(int sourceIndex, String systemId, Exception error) {
+            if (error != null) failures++;
+            completed.incrementAndGet();
+            try {
+                listener.endSource(sourceIndex, systemId, error);
+            } catch (RuntimeException e) {
+                if (endSourceError == null) endSourceError = e;
+            }
+        }
+        
+    }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+import nl.fountain.xelem.excel.XLElement;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+/**
+ * Delivers the values of the cells of a Row-element to CellValueListeners
+ * without constructing Row- or Cell-instances. 
+ */
+class CellValueBuilder extends AnonymousBuilder {
+    
+    private char[] chars;
+    private int length;
+    private CharSlice text;
+    private int currentCellIndex;
+    private String dataType;
+    private int skipDepth;
+    
+    CellValueBuilder(Director director) {
+        super(director);
+        chars = new char[64];
+        text = new CharSlice();
+    }
+    
+    public void build(XMLReader reader, ContentHandler parent) {
+        setUpBuilder(reader, parent);
+        currentCellIndex = 0;
+        skipDepth = 0;
+        dataType = null;
+    }
+    
+    public void startElement(String uri, String localName, String qName,
+            Attributes atts) throws SAXException {
+        length = 0;
+        if (skipDepth > 0) {
+            skipDepth++;
+            return;
+        }
+        if (XLElement.XMLNS_SS.equals(uri)) {
+            if ("Cell".equals(localName)) {
+                String index = atts.getValue(XLElement.XMLNS_SS, "Index");
+                if (index != null) {
+                    currentCellIndex = Integer.parseInt(index);
+                } else {
+                    currentCellIndex++;
+                }
+                if (currentCellIndex > director.getBuildArea().getLastColumn()) {
+                    director.getElementSkipper().skip(reader, this, 2);
+                } else if (!director.getBuildArea().isColumnPartOfArea(currentCellIndex)
+                        || !director.isColumnProjected(currentCellIndex)) {
+                    director.getElementSkipper().skip(reader, this, 1);
+                }
+            } else if ("Data".equals(localName)) {
+                dataType = atts.getValue(XLElement.XMLNS_SS, "Type");
+            } else if ("Comment".equals(localName)) {
+                skipDepth = 1;
+            }
+        }
+    }
+    
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        if (skipDepth > 0) {
+            skipDepth--;
+            return;
+        }
+        if (XLElement.XMLNS_SS.equals(uri)) {
+            if ("Data".equals(localName)) {
+                text.length = length;
+                director.getCellValueDispatcher().dispatch(
+                        director.getCellValueListeners(), director.getCurrentSheetIndex(),
+                        director.getCurrentRowIndex(), currentCellIndex, dataType, text);
+            } else if ("Row".equals(localName)) {
+                reader.setContentHandler(parent);
+                director.rowCompleted();
+            }
+        }
+    }
+    
+    public void characters(char[] ch, int start, int len) throws SAXException {
+        if (skipDepth > 0) return;
+        if (length + len > chars.length) {
+            char[] newChars = new char[Math.max(chars.length * 2, length + len)];
+            System.arraycopy(chars, 0, newChars, 0, length);
+            chars = newChars;
+        }
+        System.arraycopy(ch, start, chars, length, len);
+        length += len;
+    }
+    
+    ///////////////////////////////////////////////////////////////
+    private class CharSlice implements CharSequence {
+        
+        private int length;
+
+        public int length() {
+            return length;
+        }
+
+        public char charAt(int index) {
+            if (index >= length) {
+                throw new IndexOutOfBoundsException("index = " + index);
+            }
+            return chars[index];
+        }
+
+        public CharSequence subSequence(int start, int end) {
+            if (end > length) {
+                throw new IndexOutOfBoundsException("end = " + end);
+            }
+            return new String(chars, start, end - start);
+        }
+        
+        public String toString() {
+            return new String(chars, 0, length);
+        }
+        
+    }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+import java.util.List;
+
+import nl.fountain.xelem.DateTimeCodec;
+import nl.fountain.xelem.excel.Cell;
+
+/**
+ * Converts the text of Data-elements to values and delivers them to
+ * CellValueListeners. Not thread safe: each Director has one of it's own.
+ */
+class CellValueDispatcher {
+    
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 
+    };
+    private static final long MAX_EXACT = 1L << 53;
+    private static final long INVALID = Long.MIN_VALUE;
+    
+    private boolean invalid;
+    
+    /**
+     * Delivers the data of the given cell, if it has data.
+     */
+    void dispatch(List<CellValueListener> listeners, int sheetIndex, int rowIndex,
+            Cell cell) {
+        if (cell.hasData()) {
+            dispatch(listeners, sheetIndex, rowIndex, cell.getIndex(), 
+                    cell.getXLDataType(), cell.getData$());
+        }
+    }
+    
+    /**
+     * Delivers the text of a Data-element with the given type.
+     */
+    void dispatch(List<CellValueListener> listeners, int sheetIndex, int rowIndex,
+            int columnIndex, String type, CharSequence text) {
+        if (Cell.DATATYPE_NUMBER.equals(type)) {
+            double d = parseDouble(text);
+            if (!invalid) {
+                for (int i = 0; i < listeners.size(); i++) {
+                    listeners.get(i).onNumber(sheetIndex, rowIndex, columnIndex, d);
+                }
+                return;
+            }
+        } else if (Cell.DATATYPE_DATE_TIME.equals(type)) {
+            long millis = parseDateTime(text);
+            if (millis != INVALID) {
+                for (int i = 0; i < listeners.size(); i++) {
+                    listeners.get(i).onDate(sheetIndex, rowIndex, columnIndex, millis);
+                }
+                return;
+            }
+        } else if (Cell.DATATYPE_BOOLEAN.equals(type)) {
+            boolean b = text.length() == 1 && text.charAt(0) == '1';
+            for (int i = 0; i < listeners.size(); i++) {
+                listeners.get(i).onBoolean(sheetIndex, rowIndex, columnIndex, b);
+            }
+            return;
+        } else if (Cell.DATATYPE_ERROR.equals(type)) {
+            for (int i = 0; i < listeners.size(); i++) {
+                listeners.get(i).onError(sheetIndex, rowIndex, columnIndex, text);
+            }
+            return;
+        }
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onText(sheetIndex, rowIndex, columnIndex, text);
+        }
+    }
+    
+    /*
+     * Plain decimals with at most 15 significant digits are converted without 
+     * creating a String. The quotient of two exactly representable numbers 
+     * is correctly rounded, so the result is the same as that of 
+     * Double.parseDouble. Other numbers go to Double.parseDouble.
+     */
+    double parseDouble(CharSequence text) {
+        invalid = false;
+        int length = text.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+            negative = text.charAt(0) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean point = false;
+        boolean anyDigit = false;
+        boolean fast = true;
+        for (; i < length && fast; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (digits == 15) {
+                    fast = false;
+                }
+                anyDigit = true;
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) digits++;
+                if (point) scale++;
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                fast = false;
+            }
+        }
+        if (fast && anyDigit && scale < POWERS_OF_TEN.length && mantissa < MAX_EXACT) {
+            double d = scale == 0 ? mantissa : mantissa / POWERS_OF_TEN[scale];
+            return negative ? -d : d;
+        }
+        try {
+            return Double.parseDouble(text.toString());
+        } catch (NumberFormatException e) {
+            invalid = true;
+            return 0.0D;
+        }
+    }
+    
+    /*
+     * The format is yyyy-MM-ddTHH:mm:ss, optionally followed by milliseconds, 
+     * which are ignored, as they are by XLUtil.parse.
+     */
+    long parseDateTime(CharSequence text) {
+        long millis = DateTimeCodec.getDefault().parse(text, INVALID);
+        if (millis == INVALID) {
+            return INVALID;
+        }
+        return millis - ((millis % 1000) + 1000) % 1000;
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+/**
+ * Recieve notification of the values of cells. 
+ * A registered CellValueListener listens to the values of cells 
+ * while the {@link ExcelReader} is reading xml-spreadsheets of type spreadsheetML.
+ * <P>
+ * If no {@link ExcelReaderListener ExcelReaderListeners} are registered on
+ * the ExcelReader, values are delivered straight from the characters of the 
+ * parser: no Row- or Cell-instances are constructed while reading.
+ * If ExcelReaderListeners are registered, the values are taken from the Cells
+ * that are delivered to these listeners. In both cases the values are the 
+ * same and only cells with a Data-element and within the read area 
+ * are delivered.
+ * 
+ * @see ExcelReader#addCellValueListener(CellValueListener)
+ */
+public interface CellValueListener {
+    
+    /**
+     * Recieve notification of a cell of type Number.
+     * 
+     * @param sheetIndex 	the index of the worksheet (0-based)
+     * @param rowIndex		the index of the row (1-based)
+     * @param columnIndex	the index of the cell (1-based)
+     * @param value			the value of the cell
+     */
+    void onNumber(int sheetIndex, int rowIndex, int columnIndex, double value);
+    
+    /**
+     * Recieve notification of a cell of type String, or of a cell with 
+     * a Number or DateTime that could not be parsed.
+     * 
+     * @param sheetIndex 	the index of the worksheet (0-based)
+     * @param rowIndex		the index of the row (1-based)
+     * @param columnIndex	the index of the cell (1-based)
+     * @param text			the text of the cell. Only valid during this call: 
+     * 		the characters may be overwritten afterwards. Call it's 
+     * 		toString-method to keep the text
+     */
+    void onText(int sheetIndex, int rowIndex, int columnIndex, CharSequence text);
+    
+    /**
+     * Recieve notification of a cell of type Boolean.
+     * 
+     * @param sheetIndex 	the index of the worksheet (0-based)
+     * @param rowIndex		the index of the row (1-based)
+     * @param columnIndex	the index of the cell (1-based)
+     * @param value			the value of the cell
+     */
+    void onBoolean(int sheetIndex, int rowIndex, int columnIndex, boolean value);
+    
+    /**
+     * Recieve notification of a cell of type DateTime.
+     * 
+     * @param sheetIndex 	the index of the worksheet (0-based)
+     * @param rowIndex		the index of the row (1-based)
+     * @param columnIndex	the index of the cell (1-based)
+     * @param epochMillis	the value of the cell in milliseconds since 
+     * 		January 1, 1970, 00:00:00 GMT, in the default time zone, as with
+     * 		{@link nl.fountain.xelem.XLUtil#parse(String)}
+     */
+    void onDate(int sheetIndex, int rowIndex, int columnIndex, long epochMillis);
+    
+    /**
+     * Recieve notification of a cell of type Error.
+     * 
+     * @param sheetIndex 	the index of the worksheet (0-based)
+     * @param rowIndex		the index of the row (1-based)
+     * @param columnIndex	the index of the cell (1-based)
+     * @param errorValue	the error value of the cell, i.e. <code>#N/A</code>.
+     * 		Only valid during this call
+     */
+    void onError(int sheetIndex, int rowIndex, int columnIndex, CharSequence errorValue);
+
+}
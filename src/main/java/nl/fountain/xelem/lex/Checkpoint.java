@@ -0,0 +1,227 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A point in a SpreadsheetML file from which a read can be resumed.
+ * Checkpoints are delivered to {@link CheckpointListener CheckpointListeners}
+ * by an ExcelReader with a {@link ExcelReader#setCheckpointInterval(int) 
+ * checkpoint interval}. A checkpoint is taken right before a Row-element:
+ * all rows before it were delivered to listeners.
+ * <P>
+ * Besides the offset of the row, a checkpoint holds the offsets of the
+ * start tag of the root element and of the worksheet up to it's first row. 
+ * {@link ExcelReader#resume(java.io.File, Checkpoint)} reads these parts
+ * of the file again, so the namespaces and the Table- and Column-elements
+ * of the worksheet are known, and continues with the row of the checkpoint.
+ * <P>
+ * A Checkpoint can be saved with {@link #write(OutputStream)} and read back
+ * with {@link #read(InputStream)}. It is only valid for the file it was
+ * taken from, as long as that file is not changed.
+ * 
+ * @see ExcelReader#resume(java.io.File, Checkpoint)
+ */
+public class Checkpoint {
+    
+    private static final int MAGIC = 0x58435054; // XCPT
+    private static final int VERSION = 1;
+    
+    private long offset;
+    private long rootEnd;
+    private long sheetStart;
+    private long headerEnd;
+    private int sheetIndex;
+    private String sheetName;
+    private int rowIndex;
+    private Map<String, String> prefixMap;
+    
+    Checkpoint(long offset, long rootEnd, long sheetStart, long headerEnd,
+            int sheetIndex, String sheetName, int rowIndex, Map<String, String> prefixMap) {
+        this.offset = offset;
+        this.rootEnd = rootEnd;
+        this.sheetStart = sheetStart;
+        this.headerEnd = headerEnd;
+        this.sheetIndex = sheetIndex;
+        this.sheetName = sheetName;
+        this.rowIndex = rowIndex;
+        this.prefixMap = Collections.unmodifiableMap(new HashMap<String, String>(prefixMap));
+    }
+    
+    /**
+     * Gets the offset in the file of the Row-element a resumed read 
+     * continues with.
+     * 
+     * @return the offset of the next row in bytes
+     */
+    public long getOffset() {
+        return offset;
+    }
+    
+    /**
+     * Gets the index of the worksheet of this checkpoint.
+     * 
+     * @return the index of the worksheet (0-based)
+     */
+    public int getSheetIndex() {
+        return sheetIndex;
+    }
+    
+    /**
+     * Gets the name of the worksheet of this checkpoint.
+     * 
+     * @return the name of the worksheet
+     */
+    public String getSheetName() {
+        return sheetName;
+    }
+    
+    /**
+     * Gets the index of the last row before this checkpoint. A row without 
+     * an ss:Index-attribute that follows the checkpoint has the next index.
+     * 
+     * @return the index of the last row before this checkpoint
+     */
+    public int getRowIndex() {
+        return rowIndex;
+    }
+    
+    /**
+     * Gets the prefixes (keys) and uri's recieved before this checkpoint.
+     * 
+     * @return an unmodifiable map of prefixes and uri's
+     */
+    public Map<String, String> getPrefixMap() {
+        return prefixMap;
+    }
+    
+    long getSheetStart() {
+        return sheetStart;
+    }
+    
+    long getHeaderEnd() {
+        return headerEnd;
+    }
+    
+    /**
+     * Gets the regions of the file that are read when resuming from this 
+     * checkpoint: the start tag of the root element, the worksheet up to 
+     * it's first row and the rest of the file from the offset onwards.
+     */
+    long[] getRegions(long fileLength) {
+        return new long[] {0, rootEnd, sheetStart, headerEnd, offset, fileLength};
+    }
+    
+    /**
+     * Checks that the offsets of this checkpoint point at markup of the 
+     * file of the given channel.
+     */
+    boolean matches(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (rootEnd < 1 || sheetStart < rootEnd || headerEnd < sheetStart 
+                || offset < headerEnd || offset >= size) {
+            return false;
+        }
+        return byteAt(channel, rootEnd - 1) == '>' && byteAt(channel, sheetStart) == '<'
+        		&& byteAt(channel, offset) == '<';
+    }
+    
+    private int byteAt(FileChannel channel, long position) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(1);
+        return channel.read(b, position) == 1 ? b.get(0) : -1;
+    }
+    
+    /**
+     * Writes this Checkpoint to the given stream. The stream is flushed, 
+     * not closed.
+     * 
+     * @param out	the stream to write to
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeLong(offset);
+        data.writeLong(rootEnd);
+        data.writeLong(sheetStart);
+        data.writeLong(headerEnd);
+        data.writeInt(sheetIndex);
+        data.writeBoolean(sheetName != null);
+        if (sheetName != null) {
+            data.writeUTF(sheetName);
+        }
+        data.writeInt(rowIndex);
+        data.writeInt(prefixMap.size());
+        for (Map.Entry<String, String> entry : prefixMap.entrySet()) {
+            data.writeUTF(entry.getKey());
+            data.writeUTF(entry.getValue());
+        }
+        data.flush();
+    }
+    
+    /**
+     * Reads a Checkpoint that was written with {@link #write(OutputStream)}
+     * from the given stream. The stream is not closed.
+     * 
+     * @param in	the stream to read from
+     * @return the Checkpoint
+     * @throws IOException if the stream cannot be read or does not hold 
+     * 		a checkpoint
+     */
+    public static Checkpoint read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+            throw new IOException("Not a checkpoint.");
+        }
+        long offset = data.readLong();
+        long rootEnd = data.readLong();
+        long sheetStart = data.readLong();
+        long headerEnd = data.readLong();
+        int sheetIndex = data.readInt();
+        String sheetName = data.readBoolean() ? data.readUTF() : null;
+        int rowIndex = data.readInt();
+        int size = data.readInt();
+        Map<String, String> prefixMap = new HashMap<String, String>();
+        for (int i = 0; i < size; i++) {
+            prefixMap.put(data.readUTF(), data.readUTF());
+        }
+        return new Checkpoint(offset, rootEnd, sheetStart, headerEnd, 
+                sheetIndex, sheetName, rowIndex, prefixMap);
+    }
+    
+    public String toString() {
+        return "Checkpoint[sheet " + sheetIndex + " '" + sheetName + "', after row " 
+        		+ rowIndex + ", offset " + offset + "]";
+    }
+
+}
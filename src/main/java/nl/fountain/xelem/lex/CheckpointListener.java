@@ -0,0 +1,45 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+/**
+ * An ExcelReaderListener that recieves the checkpoints of a read. 
+ * Checkpoints are only taken if a 
+ * {@link ExcelReader#setCheckpointInterval(int) checkpoint interval} 
+ * was set on the ExcelReader.
+ * 
+ * @see Checkpoint
+ */
+public interface CheckpointListener extends ExcelReaderListener {
+    
+    /**
+     * Recieve notification of a checkpoint. All rows before the checkpoint 
+     * were delivered; the next event is about the row that follows it.
+     * A listener that saves the checkpoint, after it has processed the
+     * rows before it, can resume the read from there with 
+     * {@link ExcelReader#resume(java.io.File, Checkpoint)}.
+     * 
+     * @param checkpoint	the checkpoint
+     */
+    void checkpoint(Checkpoint checkpoint);
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+/**
+ * Does effectively nothing. It's up to the subclasses of this class to do
+ * effectively something.
+ */
+public class DefaultCellValueListener implements CellValueListener {
+
+    /**
+     * Does effectively nothing. Subclasses can override this method
+     * to do effectively something.
+     */
+    public void onNumber(int sheetIndex, int rowIndex, int columnIndex, double value) {
+    }
+    /**
+     * Does effectively nothing. Subclasses can override this method
+     * to do effectively something.
+     */
+    public void onText(int sheetIndex, int rowIndex, int columnIndex, CharSequence text) {
+    }
+    /**
+     * Does effectively nothing. Subclasses can override this method
+     * to do effectively something.
+     */
+    public void onBoolean(int sheetIndex, int rowIndex, int columnIndex, boolean value) {
+    }
+    /**
+     * Does effectively nothing. Subclasses can override this method
+     * to do effectively something.
+     */
+    public void onDate(int sheetIndex, int rowIndex, int columnIndex, long epochMillis) {
+    }
+    /**
+     * Does effectively nothing. Subclasses can override this method
+     * to do effectively something.
+     */
+    public void onError(int sheetIndex, int rowIndex, int columnIndex, 
+            CharSequence errorValue) {
+    }
+
+}
@@ -21,7 +21,9 @@
 package nl.fountain.xelem.lex;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import nl.fountain.xelem.Area;
 import nl.fountain.xelem.excel.Worksheet;
@@ -39,19 +41,45 @@ public class Director {
     private SSWorksheetBuilder ssworksheetbuilder;
     private SSRowBuilder ssrowbuilder;
     private SSCellBuilder sscellbuilder;
+    private CellValueBuilder cellvaluebuilder;
+    private CellValueDispatcher cellValueDispatcher;
+    private ElementSkipper elementSkipper;
     private List<AnonymousBuilder> anonymousBuilders;
     private Area buildArea;
+    private Area sheetArea;
+    private SheetSelection sheetSelection;
+    private Set<String> unreadSheetNames;
+    private Set<Integer> unreadSheetIndexes;
     private List<ExcelReaderListener> listeners;
+    private List<CellValueListener> valueListeners;
     
     private int currentSheetIndex;
     private String currentSheetName;
     private int currentRowIndex;
+    private int firstSheetIndex;
+    private int rowIndexBase;
+    private boolean reuseRows;
+    private boolean decodeValues;
+    private boolean stopAfterArea;
+    private int eventMask = SelectiveListener.ALL_EVENTS;
+    private RowPredicate rowPredicate;
+    private boolean[] keyColumns;
+    private int lastKeyColumn;
+    private boolean[] projection;
+    private ParallelSheetReader parallelSheetReader;
+    private ReadControl readControl;
+    private boolean worksheetOpen;
+    private int checkpointInterval;
+    private OffsetScanner offsetScanner;
     
     public void setBuildArea(Area area) {
         buildArea = area;
     }
     
     public Area getBuildArea() {
+        if (sheetArea != null) {
+            return sheetArea;
+        }
         if (buildArea == null) {
             buildArea = new Area(Worksheet.firstRow, Worksheet.firstColumn,
                     Worksheet.lastRow, Worksheet.lastColumn);
@@ -63,6 +91,55 @@ public class Director {
         return buildArea != null;
     }
     
+    void setSheetSelection(SheetSelection selection) {
+        sheetSelection = selection;
+    }
+    
+    SheetSelection getSheetSelection() {
+        if (sheetSelection == null) {
+            sheetSelection = new SheetSelection();
+        }
+        return sheetSelection;
+    }
+    
+    boolean isSheetSelected(int index, String name) {
+        return getSheetSelection().isSelected(index, name);
+    }
+    
+    /**
+     * Sets the read area of the worksheet with the given name, if one
+     * was set, as the build area of the current worksheet.
+     */
+    void setCurrentSheetArea(String name) {
+        sheetArea = getSheetSelection().getArea(name);
+    }
+    
+    void startSheetSelection() {
+        if (getSheetSelection().isFinite()) {
+            unreadSheetNames = new HashSet<String>(sheetSelection.getNames());
+            unreadSheetIndexes = new HashSet<Integer>(sheetSelection.getIndexes());
+        } else {
+            unreadSheetNames = null;
+            unreadSheetIndexes = null;
+        }
+        sheetArea = null;
+    }
+    
+    /**
+     * Called after a selected worksheet was read. Stops the read 
+     * if all selected worksheets were read.
+     */
+    void sheetCompleted(int index, String name) throws ReadStoppedException {
+        sheetArea = null;
+        if (unreadSheetNames != null) {
+            unreadSheetNames.remove(name);
+            unreadSheetIndexes.remove(index);
+            if (unreadSheetNames.isEmpty() && unreadSheetIndexes.isEmpty()) {
+                throw new ReadStoppedException();
+            }
+        }
+    }
+    
     public List<ExcelReaderListener> getListeners() {
         if (listeners == null) {
             listeners = new ArrayList<ExcelReaderListener>();
@@ -84,6 +161,64 @@ public class Director {
         getListeners().clear();
     }
     
+    public List<CellValueListener> getCellValueListeners() {
+        if (valueListeners == null) {
+            valueListeners = new ArrayList<CellValueListener>();
+        }
+        return valueListeners;
+    }
+    
+    public void addCellValueListener(CellValueListener l) {
+        if (!getCellValueListeners().contains(l)) {
+            getCellValueListeners().add(l);
+        }
+    }
+    
+    public boolean removeCellValueListener(CellValueListener l) {
+        return getCellValueListeners().remove(l);
+    }
+    
+    public void clearCellValueListeners() {
+        getCellValueListeners().clear();
+    }
+    
+    /**
+     * Specifies whether rows can be read without constructing Row- and 
+     * Cell-instances: CellValueListeners are registered, 
+     * ExcelReaderListeners are not and there is no row predicate.
+     */
+    boolean isReadingValuesOnly() {
+        return getListeners().isEmpty() && !getCellValueListeners().isEmpty()
+                && rowPredicate == null;
+    }
+    
+    /**
+     * Finds the events that the listeners want to recieve. 
+     * Called at the start of a read.
+     */
+    void startEventMask() {
+        eventMask = EventMasks.getEventMask(getListeners());
+    }
+    
+    /**
+     * Specifies whether any of the listeners wants to recieve one of the
+     * given events.
+     * 
+     * @param events	a bitwise or of constants of {@link SelectiveListener}
+     */
+    boolean wants(int events) {
+        return (eventMask & events) != 0;
+    }
+    
+    /**
+     * Specifies whether rows have to be built or read: listeners want rows 
+     * or cells, or CellValueListeners are registered.
+     */
+    boolean wantsRows() {
+        return wants(SelectiveListener.ROW | SelectiveListener.CELL) 
+        		|| !getCellValueListeners().isEmpty();
+    }
+    
     public XLWorkbookBuilder getXLWorkbookBuilder() {
         if (xlworkbookbuilder == null) {
             xlworkbookbuilder = new XLWorkbookBuilder(this);
@@ -112,6 +247,27 @@ public class Director {
         return sscellbuilder; 
     }
     
+    CellValueBuilder getCellValueBuilder() {
+        if (cellvaluebuilder == null) {
+            cellvaluebuilder = new CellValueBuilder(this);
+        }
+        return cellvaluebuilder;
+    }
+    
+    CellValueDispatcher getCellValueDispatcher() {
+        if (cellValueDispatcher == null) {
+            cellValueDispatcher = new CellValueDispatcher();
+        }
+        return cellValueDispatcher;
+    }
+    
+    ElementSkipper getElementSkipper() {
+        if (elementSkipper == null) {
+            elementSkipper = new ElementSkipper();
+        }
+        return elementSkipper;
+    }
+    
     public AnonymousBuilder getAnonymousBuilder() {
         AnonymousBuilder aBuilder = null;
         for (AnonymousBuilder builder : getBuilders()) {
@@ -152,6 +308,241 @@ public class Director {
         return currentRowIndex;
     }
     
+    void setRowPredicate(RowPredicate predicate) {
+        rowPredicate = predicate;
+        keyColumns = null;
+        lastKeyColumn = Worksheet.lastColumn;
+        if (predicate != null && predicate.getKeyColumns() != null) {
+            keyColumns = toColumnSet(predicate.getKeyColumns());
+            lastKeyColumn = 0;
+            for (int i = 0; i < keyColumns.length; i++) {
+                if (keyColumns[i]) lastKeyColumn = i;
+            }
+        }
+    }
+    
+    RowPredicate getRowPredicate() {
+        return rowPredicate;
+    }
+    
+    /**
+     * Gets the index of the last column that is needed by the row predicate.
+     */
+    int getLastKeyColumn() {
+        return lastKeyColumn;
+    }
+    
+    boolean isKeyColumn(int index) {
+        return rowPredicate != null && (keyColumns == null || keyColumns[index]);
+    }
+    
+    void setColumnProjection(int[] columns) {
+        projection = columns == null || columns.length == 0 ? null : toColumnSet(columns);
+    }
+    
+    boolean isColumnProjected(int index) {
+        return projection == null || projection[index];
+    }
+    
+    /**
+     * Gets the indexes of the projected columns, <code>null</code> if all 
+     * columns are projected.
+     */
+    int[] getColumnProjection() {
+        if (projection == null) return null;
+        int count = 0;
+        for (int i = 0; i < projection.length; i++) {
+            if (projection[i]) count++;
+        }
+        int[] columns = new int[count];
+        count = 0;
+        for (int i = 0; i < projection.length; i++) {
+            if (projection[i]) columns[count++] = i;
+        }
+        return columns;
+    }
+    
+    private boolean[] toColumnSet(int[] columns) {
+        boolean[] set = new boolean[Worksheet.lastColumn + 1];
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] < Worksheet.firstColumn || columns[i] > Worksheet.lastColumn) {
+                throw new IndexOutOfBoundsException("columnIndex = " + columns[i]);
+            }
+            set[columns[i]] = true;
+        }
+        return set;
+    }
+    
+    void setStopAfterArea(boolean stop) {
+        stopAfterArea = stop;
+    }
+    
+    boolean isStopAfterArea() {
+        return stopAfterArea;
+    }
+    
+    void setReuseRows(boolean reuse) {
+        reuseRows = reuse;
+    }
+    
+    boolean isReuseRows() {
+        return reuseRows;
+    }
+    
+    void setDecodeValues(boolean decode) {
+        decodeValues = decode;
+    }
+    
+    boolean isDecodeValues() {
+        return decodeValues;
+    }
+    
+    void setFirstSheetIndex(int index) {
+        firstSheetIndex = index;
+    }
+    
+    int getFirstSheetIndex() {
+        return firstSheetIndex;
+    }
+    
+    /**
+     * Sets the index of the row before the first Row-element of a worksheet. 
+     * Used when a worksheet is read from an indexed row onwards.
+     */
+    void setRowIndexBase(int index) {
+        rowIndexBase = index;
+    }
+    
+    int getRowIndexBase() {
+        return rowIndexBase;
+    }
+    
+    void setParallelSheetReader(ParallelSheetReader psr) {
+        parallelSheetReader = psr;
+    }
+    
+    ParallelSheetReader getParallelSheetReader() {
+        return parallelSheetReader;
+    }
+    
+    /**
+     * Creates the builders that are needed for every read.
+     */
+    void createBuilders() {
+        getXLWorkbookBuilder();
+        getSSWorksheetBuilder();
+        getSSRowBuilder();
+        getSSCellBuilder();
+        getCellValueBuilder();
+        getCellValueDispatcher();
+        getElementSkipper();
+    }
+    
+    /**
+     * Restores the settings of a new Director. The builders are kept.
+     */
+    void reset() {
+        buildArea = null;
+        sheetArea = null;
+        sheetSelection = null;
+        unreadSheetNames = null;
+        unreadSheetIndexes = null;
+        clearExcelReaderListeners();
+        clearCellValueListeners();
+        currentSheetIndex = 0;
+        currentSheetName = null;
+        currentRowIndex = 0;
+        firstSheetIndex = 0;
+        rowIndexBase = 0;
+        reuseRows = false;
+        decodeValues = false;
+        stopAfterArea = false;
+        eventMask = SelectiveListener.ALL_EVENTS;
+        setRowPredicate(null);
+        projection = null;
+        parallelSheetReader = null;
+        readControl = null;
+        worksheetOpen = false;
+        checkpointInterval = 0;
+        offsetScanner = null;
+        for (AnonymousBuilder builder : getBuilders()) {
+            builder.setOccupied(false);
+        }
+    }
+    
+    void setReadControl(ReadControl control) {
+        readControl = control;
+    }
+    
+    ReadControl getReadControl() {
+        return readControl;
+    }
+    
+    /**
+     * Called at the start of every Row-element. Stops the read if the 
+     * ReadControl says so.
+     */
+    void checkControl() throws ReadStoppedException {
+        if (readControl != null && readControl.rowStarted()) {
+            throw new ReadStoppedException();
+        }
+    }
+    
+    /**
+     * Called after a row was delivered. Stops the read if the ReadControl 
+     * says so.
+     */
+    void rowCompleted() throws ReadStoppedException {
+        if (readControl != null && readControl.rowCompleted()) {
+            throw new ReadStoppedException();
+        }
+    }
+    
+    void setCheckpointInterval(int rows) {
+        checkpointInterval = rows;
+    }
+    
+    int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+    
+    void setOffsetScanner(OffsetScanner scanner) {
+        offsetScanner = scanner;
+    }
+    
+    /**
+     * Called at the start of every Row-element of the current worksheet. 
+     * Delivers a checkpoint to CheckpointListeners if it is time for one.
+     * 
+     * @param rowOrdinal	the number of Row-elements before this one
+     * @param rowIndex		the index of the previous row
+     */
+    void rowStarted(int rowOrdinal, int rowIndex) {
+        if (offsetScanner == null || rowOrdinal == 0 || rowOrdinal % checkpointInterval != 0) {
+            return;
+        }
+        Checkpoint checkpoint = offsetScanner.getCheckpoint(
+                currentSheetIndex - firstSheetIndex, rowOrdinal, 
+                currentSheetIndex, currentSheetName, rowIndex);
+        if (checkpoint == null) return;
+        for (ExcelReaderListener listener : getListeners()) {
+            if (listener instanceof CheckpointListener) {
+                ((CheckpointListener) listener).checkpoint(checkpoint);
+            }
+        }
+    }
+    
+    /**
+     * Specifies whether startWorksheet was delivered and endWorksheet was not.
+     */
+    void setWorksheetOpen(boolean open) {
+        worksheetOpen = open;
+    }
+    
+    boolean isWorksheetOpen() {
+        return worksheetOpen;
+    }
+    
     private List<AnonymousBuilder> getBuilders() {
         if (anonymousBuilders == null) {
             anonymousBuilders = new ArrayList<AnonymousBuilder>();
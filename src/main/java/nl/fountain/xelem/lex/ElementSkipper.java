@@ -0,0 +1,68 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Skips the rest of one or more open elements. Nothing is done with the
+ * elements and characters that are skipped. The end of the outermost skipped
+ * element is passed on to the parent.
+ */
+class ElementSkipper extends DefaultHandler {
+    
+    private XMLReader reader;
+    private ContentHandler parent;
+    private int depth;
+    
+    /**
+     * Skips the rest of the given number of open elements.
+     * 
+     * @param reader	the XMLReader
+     * @param parent	the handler that recieves the end of the outermost
+     * 					skipped element and the events after that
+     * @param levels	the number of open elements to skip, at least 1
+     */
+    void skip(XMLReader reader, ContentHandler parent, int levels) {
+        this.reader = reader;
+        this.parent = parent;
+        depth = levels;
+        reader.setContentHandler(this);
+    }
+
+    public void startElement(String uri, String localName, String qName,
+            Attributes atts) throws SAXException {
+        depth++;
+    }
+    
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        if (--depth == 0) {
+            reader.setContentHandler(parent);
+            parent.endElement(uri, localName, qName);
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import nl.fountain.xelem.excel.AutoFilter;
+import nl.fountain.xelem.excel.Cell;
+import nl.fountain.xelem.excel.Column;
+import nl.fountain.xelem.excel.DocumentProperties;
+import nl.fountain.xelem.excel.ExcelWorkbook;
+import nl.fountain.xelem.excel.NamedRange;
+import nl.fountain.xelem.excel.Row;
+import nl.fountain.xelem.excel.Table;
+import nl.fountain.xelem.excel.WorksheetOptions;
+
+/**
+ * Finds the events that listeners want to recieve.
+ * 
+ * @see SelectiveListener
+ */
+final class EventMasks {
+    
+    private static final Event[] EVENTS = {
+        new Event("setDocumentProperties", SelectiveListener.DOCUMENT_PROPERTIES, 
+                DocumentProperties.class),
+        new Event("setExcelWorkbook", SelectiveListener.EXCEL_WORKBOOK, 
+                ExcelWorkbook.class),
+        new Event("setNamedRange", SelectiveListener.NAMED_RANGE, 
+                NamedRange.class),
+        new Event("setNamedRange", SelectiveListener.NAMED_RANGE, 
+                int.class, String.class, NamedRange.class),
+        new Event("startTable", SelectiveListener.TABLE, 
+                int.class, String.class, Table.class),
+        new Event("setColumn", SelectiveListener.COLUMN, 
+                int.class, String.class, Column.class),
+        new Event("setRow", SelectiveListener.ROW, 
+                int.class, String.class, Row.class),
+        new Event("setCell", SelectiveListener.CELL, 
+                int.class, String.class, int.class, Cell.class),
+        new Event("setWorksheetOptions", SelectiveListener.WORKSHEET_OPTIONS, 
+                int.class, String.class, WorksheetOptions.class),
+        new Event("setAutoFilter", SelectiveListener.AUTO_FILTER, 
+                int.class, String.class, AutoFilter.class)
+    };
+    
+    // overridden methods per class
+    private static final Map<Class<?>, Integer> classMasks = 
+        new ConcurrentHashMap<Class<?>, Integer>();
+    
+    private EventMasks() {
+    }
+    
+    /**
+     * Gets the events the given listeners want to recieve.
+     */
+    static int getEventMask(List<ExcelReaderListener> listeners) {
+        int mask = 0;
+        for (ExcelReaderListener listener : listeners) {
+            mask |= getEventMask(listener);
+            if (mask == SelectiveListener.ALL_EVENTS) break;
+        }
+        return mask;
+    }
+    
+    /**
+     * Gets the events the given listener wants to recieve.
+     */
+    static int getEventMask(ExcelReaderListener listener) {
+        if (listener instanceof SelectiveListener) {
+            return ((SelectiveListener) listener).getEventMask();
+        } else if (listener instanceof DefaultExcelReaderFilter) {
+            DefaultExcelReaderFilter filter = (DefaultExcelReaderFilter) listener;
+            return getOverridden(filter.getClass(), DefaultExcelReaderFilter.class)
+            		| getEventMask(filter.getListeners());
+        } else if (listener instanceof DefaultExcelReaderListener) {
+            return getOverridden(listener.getClass(), DefaultExcelReaderListener.class);
+        }
+        return SelectiveListener.ALL_EVENTS;
+    }
+    
+    private static int getOverridden(Class<?> c, Class<?> base) {
+        Integer mask = classMasks.get(c);
+        if (mask == null) {
+            int m = 0;
+            for (int i = 0; i < EVENTS.length; i++) {
+                try {
+                    Method method = c.getMethod(EVENTS[i].name, EVENTS[i].parameterTypes);
+                    if (method.getDeclaringClass() != base) {
+                        m |= EVENTS[i].mask;
+                    }
+                } catch (NoSuchMethodException e) {
+                    m |= EVENTS[i].mask;
+                } catch (SecurityException e) {
+                    m |= EVENTS[i].mask;
+                }
+            }
+            mask = m;
+            classMasks.put(c, mask);
+        }
+        return mask.intValue();
+    }
+    
+    // a method of ExcelReaderListener and the event it receives
+    private static class Event {
+        
+        final String name;
+        final int mask;
+        final Class<?>[] parameterTypes;
+        
+        Event(String name, int mask, Class<?>... parameterTypes) {
+            this.name = name;
+            this.mask = mask;
+            this.parameterTypes = parameterTypes;
+        }
+    }
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands the events of a read over from the thread that parses to the 
+ * thread that runs the listeners.
+ * <P>
+ * The events are published in a bounded ring buffer with one producer, 
+ * the parsing thread, and one consumer. Neither side takes a lock: each side 
+ * only advances it's own sequence and reads the sequence of the other side.
+ * A side that has to wait, because the buffer is full or empty, spins for 
+ * a while and then parks until the other side unparks it or a short 
+ * time has elapsed.
+ */
+class EventPipeline extends EventRecorder {
+    
+    private static final int SPINS = 100;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    
+    private final EventRecorder.Event[] ring;
+    private final int mask;
+    // next sequence to take
+    private final AtomicLong head = new AtomicLong();
+    // next sequence to publish
+    private final AtomicLong tail = new AtomicLong();
+    
+    private volatile Thread producer;
+    private volatile Thread consumer;
+    private volatile boolean closed;
+    private volatile boolean cancelled;
+    
+    /**
+     * Creates a new EventPipeline that buffers at least the given
+     * number of events.
+     */
+    EventPipeline(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        ring = new EventRecorder.Event[size];
+        mask = size - 1;
+    }
+    
+    /**
+     * Publishes the event. Waits while the buffer is full.
+     * 
+     * @throws Cancelled if the pipeline was cancelled
+     */
+    void record(Event event) {
+        long seq = tail.get();
+        int spins = 0;
+        while (seq - head.get() == ring.length) {
+            if (cancelled) throw new Cancelled();
+            if (spins++ < SPINS) continue;
+            producer = Thread.currentThread();
+            if (seq - head.get() == ring.length && !cancelled) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+            producer = null;
+        }
+        if (cancelled) throw new Cancelled();
+        ring[(int) seq & mask] = event;
+        tail.lazySet(seq + 1);
+        Thread waiting = consumer;
+        if (waiting != null) LockSupport.unpark(waiting);
+    }
+    
+    /**
+     * Signals that no more events will be published.
+     */
+    void close() {
+        closed = true;
+        Thread waiting = consumer;
+        if (waiting != null) LockSupport.unpark(waiting);
+    }
+    
+    /**
+     * Takes the next event. Waits while the buffer is empty.
+     * 
+     * @return the next event, <code>null</code> if the pipeline was closed 
+     * 		and all events were taken or if the pipeline was cancelled
+     * @throws InterruptedIOException if the thread was interrupted while waiting
+     */
+    Event take() throws InterruptedIOException {
+        long seq = head.get();
+        int spins = 0;
+        while (seq == tail.get()) {
+            if (cancelled) return null;
+            // events published before closing are visible after reading closed
+            if (closed) {
+                if (seq == tail.get()) return null;
+                break;
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedIOException("Interrupted while reading.");
+            }
+            if (spins++ < SPINS) continue;
+            consumer = Thread.currentThread();
+            if (seq == tail.get() && !closed && !cancelled) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+            consumer = null;
+        }
+        if (cancelled) return null;
+        int index = (int) seq & mask;
+        Event event = ring[index];
+        ring[index] = null;
+        head.lazySet(seq + 1);
+        Thread waiting = producer;
+        if (waiting != null) LockSupport.unpark(waiting);
+        return event;
+    }
+    
+    /**
+     * Cancels the pipeline. Both sides stop at their next event.
+     */
+    void cancel() {
+        cancelled = true;
+        Thread waiting = producer;
+        if (waiting != null) LockSupport.unpark(waiting);
+        waiting = consumer;
+        if (waiting != null) LockSupport.unpark(waiting);
+    }
+    
+    boolean isCancelled() {
+        return cancelled;
+    }
+    
+    ///////////////////////////////////////////////////////////////
+    /**
+     * Thrown at the parsing thread when the pipeline was cancelled.
+     */
+    static class Cancelled extends RuntimeException {
+        
+        private static final long serialVersionUID = 1L;
+        
+        Cancelled() {
+            super("Read cancelled.");
+        }
+        
+    }
+
+}
@@ -0,0 +1,284 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+import java.util.List;
+import java.util.Map;
+
+import nl.fountain.xelem.excel.AutoFilter;
+import nl.fountain.xelem.excel.Cell;
+import nl.fountain.xelem.excel.Column;
+import nl.fountain.xelem.excel.DocumentProperties;
+import nl.fountain.xelem.excel.ExcelWorkbook;
+import nl.fountain.xelem.excel.NamedRange;
+import nl.fountain.xelem.excel.Row;
+import nl.fountain.xelem.excel.Table;
+import nl.fountain.xelem.excel.Worksheet;
+import nl.fountain.xelem.excel.WorksheetOptions;
+
+/**
+ * Records the events of a read as instances of {@link EventRecorder.Event},
+ * so that they can be fired to listeners later on, or on another thread.
+ * The text of cell values is copied; rows and cells are recorded as they are,
+ * so they should not be reused while recording.
+ */
+abstract class EventRecorder extends DefaultExcelReaderListener 
+		implements CellValueListener, SelectiveListener, CheckpointListener {
+    
+    private int eventMask = ALL_EVENTS;
+    
+    /**
+     * Sets the events to record, those wanted by the listeners that 
+     * the events will be fired to.
+     */
+    void setEventMask(int mask) {
+        eventMask = mask;
+    }
+    
+    public int getEventMask() {
+        return eventMask;
+    }
+    
+    /**
+     * Recieves the recorded event.
+     */
+    abstract void record(Event event);
+    
+    public void startDocument() {
+        record(new Event() {
+            void fire(ExcelReaderListener l) {
+                l.startDocument();
+            }
+        });
+    }
+    
+    public void processingInstruction(final String target, final String data) {
+        record(new Event() {
+            void fire(ExcelReaderListener l) {
+                l.processingInstruction(target, data);
+            }
+        });
+    }
+    
+    public void startWorkbook(final String systemID) {
+        record(new Event() {
+            void fire(ExcelReaderListener l) {
+                l.startWorkbook(systemID);
+            }
+        });
+    }
+    
+    public void setDocumentProperties(final DocumentProperties docProps) {
+        record(new Event() {
+            void fire(ExcelReaderListener l) {
+                l.setDocumentProperties(docProps);
+            }
+        });
+    }
+    
+    public void setExcelWorkbook(final ExcelWorkbook excelWb) {
+        record(new Event() {
+            void fire(ExcelReaderListener l) {
+                l.setExcelWorkbook(excelWb);
+            }
+        });
+    }
+    
+    public void setNamedRange(final NamedRange namedRange) {
+        record(new Event() {
+            void fire(ExcelReaderListener l) {
+                l.setNamedRange(namedRange);
+            }
+        });
+    }
+    
+    public void startWorksheet(final int sheetIndex, final Worksheet sheet) {
+        record(new Event() {
+            void fire(ExcelReaderListener l) {
+                l.startWorksheet(sheetIndex, sheet);
+            }
+        });
+    }
+    
+    public void setNamedRange(final int sheetIndex, final String sheetName,
+            final NamedRange namedRange) {
+        record(new Event() {
+            void fire(ExcelReaderListener l) {
+                l.setNamedRange(sheetIndex, sheetName, namedRange);
+            }
+        });
+    }
+    
+    public void startTable(final int sheetIndex, final String sheetName, 
+            final Table table) {
+        record(new Event() {
+            void fire(ExcelReaderListener l) {
+                l.startTable(sheetIndex, sheetName, table);
+            }
+        });
+    }
+    
+    public void setColumn(final int sheetIndex, final String sheetName, 
+            final Column column) {
+        record(new Event() {
+            void fire(ExcelReaderListener l) {
+                l.setColumn(sheetIndex, sheetName, column);
+            }
+        });
+    }
+    
+    public void setRow(final int sheetIndex, final String sheetName, final Row row) {
+        record(new Event() {
+            void fire(ExcelReaderListener l) {
+                l.setRow(sheetIndex, sheetName, row);
+            }
+        });
+    }
+    
+    public void setCell(final int sheetIndex, final String sheetName, 
+            final int rowIndex, final Cell cell) {
+        record(new Event() {
+            void fire(ExcelReaderListener l) {
+                l.setCell(sheetIndex, sheetName, rowIndex, cell);
+            }
+        });
+    }
+    
+    public void setWorksheetOptions(final int sheetIndex, final String sheetName,
+            final WorksheetOptions wsOptions) {
+        record(new Event() {
+            void fire(ExcelReaderListener l) {
+                l.setWorksheetOptions(sheetIndex, sheetName, wsOptions);
+            }
+        });
+    }
+    
+    public void setAutoFilter(final int sheetIndex, final String sheetName,
+            final AutoFilter autoFilter) {
+        record(new Event() {
+            void fire(ExcelReaderListener l) {
+                l.setAutoFilter(sheetIndex, sheetName, autoFilter);
+            }
+        });
+    }
+    
+    public void endWorksheet(final int sheetIndex, final String sheetName) {
+        record(new Event() {
+            void fire(ExcelReaderListener l) {
+                l.endWorksheet(sheetIndex, sheetName);
+            }
+        });
+    }
+    
+    public void endDocument(final Map<String, String> prefixMap) {
+        record(new Event() {
+            void fire(ExcelReaderListener l) {
+                l.endDocument(prefixMap);
+            }
+        });
+    }
+    
+    public void checkpoint(final Checkpoint checkpoint) {
+        record(new Event() {
+            void fire(ExcelReaderListener l) {
+                if (l instanceof CheckpointListener) {
+                    ((CheckpointListener) l).checkpoint(checkpoint);
+                }
+            }
+        });
+    }
+    
+    public void onNumber(final int sheetIndex, final int rowIndex, 
+            final int columnIndex, final double value) {
+        record(new Event() {
+            void fire(CellValueListener l) {
+                l.onNumber(sheetIndex, rowIndex, columnIndex, value);
+            }
+        });
+    }
+    
+    public void onText(final int sheetIndex, final int rowIndex, 
+            final int columnIndex, CharSequence text) {
+        final String s = text.toString();
+        record(new Event() {
+            void fire(CellValueListener l) {
+                l.onText(sheetIndex, rowIndex, columnIndex, s);
+            }
+        });
+    }
+    
+    public void onBoolean(final int sheetIndex, final int rowIndex, 
+            final int columnIndex, final boolean value) {
+        record(new Event() {
+            void fire(CellValueListener l) {
+                l.onBoolean(sheetIndex, rowIndex, columnIndex, value);
+            }
+        });
+    }
+    
+    public void onDate(final int sheetIndex, final int rowIndex, 
+            final int columnIndex, final long epochMillis) {
+        record(new Event() {
+            void fire(CellValueListener l) {
+                l.onDate(sheetIndex, rowIndex, columnIndex, epochMillis);
+            }
+        });
+    }
+    
+    public void onError(final int sheetIndex, final int rowIndex, 
+            final int columnIndex, CharSequence errorValue) {
+        final String s = errorValue.toString();
+        record(new Event() {
+            void fire(CellValueListener l) {
+                l.onError(sheetIndex, rowIndex, columnIndex, s);
+            }
+        });
+    }
+    
+    ///////////////////////////////////////////////////////////////
+    /**
+     * An event that was recorded.
+     */
+    abstract static class Event {
+        
+        /**
+         * Fires this event to the given listeners.
+         */
+        void fire(List<ExcelReaderListener> listeners, 
+                List<CellValueListener> valueListeners) {
+            for (ExcelReaderListener listener : listeners) {
+                fire(listener);
+            }
+            for (CellValueListener listener : valueListeners) {
+                fire(listener);
+            }
+        }
+        
+        void fire(ExcelReaderListener listener) {
+        }
+        
+        void fire(CellValueListener listener) {
+        }
+        
+    }
+
+}
@@ -20,17 +20,39 @@
  */
 package nl.fountain.xelem.lex;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.FilterReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import nl.fountain.xelem.Area;
 import nl.fountain.xelem.excel.Workbook;
+import nl.fountain.xelem.excel.Worksheet;
 import nl.fountain.xelem.excel.XLElement;
 
 import org.xml.sax.Attributes;
@@ -65,6 +87,14 @@ public class ExcelReader {
     Director director;
     private Handler handler;
     private Map<String, String> uris;
+    private XMLInputFactory inputFactory;
+    private Executor readExecutor;
+    private boolean orderedEvents = true;
+    private Executor pipelineExecutor;
+    private int pipelineCapacity = 1024;
+    private volatile EventPipeline pipeline;
+    private Checkpoint resumed;
+    private long[] resumedRegions;
     
     /**
      * Constructs a new ExcelReader.
@@ -117,6 +147,8 @@ public class ExcelReader {
      * Sets the area that is to be read. 
      * Reading will be restricted to the specified area until another
      * area is set or until the read area has been cleared.
+     * Rows and cells outside the area are skipped as a whole; after the 
+     * last row of the area the rest of the table is skipped.
      * 
      * @param area the area to read
      * @see <a href="package-summary.html#areas">package overview</a>
@@ -126,12 +158,27 @@ public class ExcelReader {
     }
     
     /**
-     * Clears the read area. Reading will not be rerstricted after a call
+     * Sets the area that is to be read on the worksheet with the given name.
+     * On this worksheet the given area is read instead of the area set by
+     * {@link #setReadArea(Area)}. 
+     * 
+     * @param sheetName	the name of the worksheet
+     * @param area 		the area to read, <code>null</code> to remove the
+     * 					area of the worksheet
+     */
+    public void setReadArea(String sheetName, Area area) {
+        director.getSheetSelection().setArea(sheetName, area);
+    }
+    
+    /**
+     * Clears the read area and the read areas of individual worksheets. 
+     * Reading will not be rerstricted after a call
      * to this method.
      *
      */
     public void clearReadArea() {
         director.setBuildArea(null);
+        director.getSheetSelection().clearAreas();
     }
     
     /**
@@ -148,6 +195,76 @@ public class ExcelReader {
         }
     }
     
+    /**
+     * Gets the area that restricts reading on the worksheet with the given name.
+     * This is the area that was set for the worksheet or, if no area was set
+     * for the worksheet, the read area of this ExcelReader.
+     * 
+     * @param sheetName	the name of the worksheet
+     * @return  the read area of the worksheet, may be <code>null</code>
+     */
+    public Area getReadArea(String sheetName) {
+        Area area = director.getSheetSelection().getArea(sheetName);
+        return area == null ? getReadArea() : area;
+    }
+    
+    /**
+     * Selects the worksheet with the given name for reading. If worksheets 
+     * were selected, only the selected worksheets are read. Other worksheets 
+     * are skipped as a whole: listeners are not informed of anything that 
+     * is in these worksheets. The index of a worksheet is still it's index 
+     * among all the worksheets of the workbook.
+     * <P>
+     * If worksheets were selected by name or index only, the read ends 
+     * after the last of these worksheets was read.
+     * 
+     * @param sheetName	the name of the worksheet to read
+     */
+    public void selectSheet(String sheetName) {
+        director.getSheetSelection().addName(sheetName);
+    }
+    
+    /**
+     * Selects the worksheet with the given index for reading.
+     * 
+     * @param sheetIndex	the index of the worksheet to read (0-based)
+     * @see #selectSheet(String)
+     */
+    public void selectSheet(int sheetIndex) {
+        director.getSheetSelection().addIndex(sheetIndex);
+    }
+    
+    /**
+     * Selects the worksheets that are selected by the given SheetSelector
+     * for reading.
+     * 
+     * @param selector	the SheetSelector that selects worksheets to read
+     * @see #selectSheet(String)
+     */
+    public void addSheetSelector(SheetSelector selector) {
+        director.getSheetSelection().addSelector(selector);
+    }
+    
+    /**
+     * Clears the selection of worksheets. All worksheets will be read after
+     * a call to this method.
+     */
+    public void clearSheetSelection() {
+        director.getSheetSelection().clear();
+    }
+    
+    /**
+     * Specifies whether the worksheet with the given index and name will be read.
+     * 
+     * @param sheetIndex	the index of the worksheet (0-based)
+     * @param sheetName		the name of the worksheet
+     * @return <code>true</code> if no worksheets were selected or if the 
+     * 		worksheet was selected, <code>false</code> otherwise
+     */
+    public boolean isSheetSelected(int sheetIndex, String sheetName) {
+        return director.isSheetSelected(sheetIndex, sheetName);
+    }
+    
     /**
      * Specifies whether reading is restricted on this ExcelReader.
      * 
@@ -156,6 +273,379 @@ public class ExcelReader {
         return director.hasBuildArea();
     }
     
+    /**
+     * Sets the Executor that reads worksheets in parallel. If an Executor is set,
+     * a read first finds the worksheets in the document and 
+     * then hands each worksheet to a task that is run by the Executor. 
+     * The document is kept in memory during the read. 
+     * Documents that are read from a character stream, that have a 
+     * document type declaration, that are encoded in UTF-16 or that have only 
+     * one worksheet are read sequentially. 
+     * <P>
+     * Listeners receive the same events as with a sequential read, depending on
+     * {@link #setOrderedEvents(boolean)}.
+     * 
+     * @param executor	the Executor that reads the worksheets, 
+     * 					<code>null</code> to read sequentially
+     */
+    public void setReadExecutor(Executor executor) {
+        readExecutor = executor;
+    }
+    
+    /**
+     * Gets the Executor that reads worksheets in parallel.
+     * 
+     * @return the Executor that reads worksheets, may be <code>null</code>
+     */
+    public Executor getReadExecutor() {
+        return readExecutor;
+    }
+    
+    /**
+     * Specifies whether events of worksheets that are read in parallel should be
+     * delivered in the order of the document. If <code>true</code>, which is the
+     * default, events of worksheets are delivered on the thread that called 
+     * the read-method, in the same order as with a sequential read. 
+     * If <code>false</code>, events of a worksheet are delivered on the thread
+     * that reads the worksheet, as soon as they occur. Events of one worksheet
+     * are still in order, but events of different worksheets may interleave, so
+     * listeners should be thread safe. The events for the workbook and the 
+     * document are always delivered on the thread that called the read-method;
+     * events of worksheets come after startWorkbook and before endDocument.
+     * <P>
+     * Has no effect if no {@link #setReadExecutor(Executor) read executor} was set.
+     * The getWorkbook-methods always deliver ordered events.
+     * 
+     * @param ordered	<code>true</code> for events in the order of the document,
+     * 					<code>false</code> for events as soon as they occur
+     */
+    public void setOrderedEvents(boolean ordered) {
+        orderedEvents = ordered;
+    }
+    
+    /**
+     * Sets the Executor that parses the document during a pipelined read.
+     * If an Executor is set, a read parses the document on a thread of 
+     * the Executor while the listeners are run on the thread that called 
+     * the read-method. Events are handed over from the parsing thread to the 
+     * listeners through a bounded buffer of 
+     * {@link #setPipelineCapacity(int) pipeline capacity} events, so that parsing
+     * and the work of listeners overlap. If the buffer is full, parsing waits
+     * for the listeners. Listeners receive the same events, in the same order, 
+     * as with a read that is not pipelined.
+     * <P>
+     * A {@link #setRowPredicate(RowPredicate) row predicate} is asked on the 
+     * parsing thread. Rows are never reused during a pipelined read. 
+     * If a {@link #setReadExecutor(Executor) read executor} was set as well, 
+     * worksheets are read in parallel with ordered events. 
+     * Listeners should not be added or removed during a pipelined read.
+     * <P>
+     * An exception thrown by the parser is thrown by the read-method after
+     * the events that came before it were delivered. An exception thrown
+     * by a listener stops parsing and is thrown by the read-method. 
+     * A pipelined read can be stopped with {@link #cancelRead()}.
+     * <P>
+     * The Executor must run the parse on another thread. An Executor that runs 
+     * tasks on the thread that calls <code>execute</code>, like a 
+     * <code>ThreadPoolExecutor</code> with a <code>CallerRunsPolicy</code> that is 
+     * saturated, makes the read-method throw an IllegalStateException without 
+     * dispatching any events.
+     * 
+     * @param executor	the Executor that parses the document, 
+     * 					<code>null</code> to parse on the thread that called 
+     * 					the read-method
+     */
+    public void setPipelineExecutor(Executor executor) {
+        pipelineExecutor = executor;
+    }
+    
+    /**
+     * Gets the Executor that parses the document during a pipelined read.
+     * 
+     * @return the Executor that parses the document, may be <code>null</code>
+     * @see #setPipelineExecutor(Executor)
+     */
+    public Executor getPipelineExecutor() {
+        return pipelineExecutor;
+    }
+    
+    /**
+     * Sets the number of events that can be buffered during a pipelined read.
+     * The default is 1024. The buffer is rounded up to a power of two.
+     * 
+     * @param capacity	the number of events that can be buffered
+     * @throws IllegalArgumentException if capacity is less than 1
+     */
+    public void setPipelineCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity < 1: " + capacity);
+        }
+        pipelineCapacity = capacity;
+    }
+    
+    /**
+     * Gets the number of events that can be buffered during a pipelined read.
+     * 
+     * @return the pipeline capacity
+     */
+    public int getPipelineCapacity() {
+        return pipelineCapacity;
+    }
+    
+    /**
+     * Cancels the pipelined read that is in progress. May be called from
+     * any thread, including from a listener. No more events are delivered 
+     * after the current one and the read-method returns normally as soon as 
+     * parsing has stopped. Has no effect if no pipelined read is in progress.
+     * 
+     * @see #setPipelineExecutor(Executor)
+     */
+    public void cancelRead() {
+        EventPipeline p = pipeline;
+        if (p != null) p.cancel();
+    }
+    
+    /**
+     * Specifies whether events of worksheets that are read in parallel are
+     * delivered in the order of the document.
+     * 
+     * @return <code>true</code> if events are delivered in order, 
+     * 		<code>false</code> otherwise
+     * @see #setOrderedEvents(boolean)
+     */
+    public boolean isOrderedEvents() {
+        return orderedEvents;
+    }
+    
+    /**
+     * Specifies whether the Row- and Cell-instances that are passed to
+     * {@link ExcelReaderListener#setRow setRow} and
+     * {@link ExcelReaderListener#setCell setCell}
+     * should be reused. If <code>true</code>, one Row and a few Cells are
+     * reset and reused for every row that is read, so a Row and it's Cells are 
+     * only valid during the call to setRow and setCell. Listeners that want to 
+     * keep values should copy them. The default is <code>false</code>.
+     * <P>
+     * Reusing rows cannot be combined with a {@link WorkbookListener} or a 
+     * {@link RowBatcher}: a read throws an IllegalStateException if one of 
+     * these is registered. 
+     * The getWorkbook-methods do not reuse rows.
+     * 
+     * @param reuse	<code>true</code> to reuse rows and cells, 
+     * 				<code>false</code> otherwise
+     */
+    public void setReuseRows(boolean reuse) {
+        director.setReuseRows(reuse);
+    }
+    
+    /**
+     * Specifies whether Row- and Cell-instances are reused.
+     * 
+     * @return <code>true</code> if rows and cells are reused, 
+     * 		<code>false</code> otherwise
+     * @see #setReuseRows(boolean)
+     */
+    public boolean isReuseRows() {
+        return director.isReuseRows();
+    }
+    
+    /**
+     * Specifies whether the values of cells should be decoded while reading.
+     * If <code>true</code>, the text of every cell that is read is decoded 
+     * to a number or a date, according to it's datatype, before the cell is 
+     * delivered to listeners. If <code>false</code>, a cell decodes it's text 
+     * on the first call to getData or one of the xxxValue-methods. 
+     * Either way the text is decoded only once. 
+     * <P>
+     * Decoding while reading costs time for cells whose values are never 
+     * asked for, but takes the decoding off the threads that use the 
+     * values. A decoded cell keeps it's value in a primitive field next to 
+     * the text, while a cell that decodes on first access keeps an object 
+     * for the value as well: it needs more memory once it's value was asked for.
+     * Cells can be read by several threads at once in both cases. 
+     * The default is <code>false</code>.
+     * 
+     * @param decode	<code>true</code> to decode values while reading, 
+     * 					<code>false</code> to decode them on first access
+     * @see nl.fountain.xelem.excel.ss.SSCell#decode()
+     */
+    public void setDecodeValues(boolean decode) {
+        director.setDecodeValues(decode);
+    }
+    
+    /**
+     * Specifies whether the values of cells are decoded while reading.
+     * 
+     * @return <code>true</code> if values are decoded while reading, 
+     * 		<code>false</code> otherwise
+     * @see #setDecodeValues(boolean)
+     */
+    public boolean isDecodeValues() {
+        return director.isDecodeValues();
+    }
+    
+    /**
+     * Specifies whether a read should stop after the read area. Rows are read
+     * in ascending order, so as soon as a row after the last row of the read 
+     * area is found, the remaining rows of the worksheet are skipped. If
+     * <code>true</code>, the read ends at that point: listeners recieve
+     * endWorksheet for the worksheet that was being read and endDocument; the 
+     * rest of the document, including the worksheet options of the worksheet
+     * and any following worksheets, is not read. 
+     * If no read area is set, the whole document is read.
+     * <P>
+     * Reads that stop after the read area are not done in parallel. 
+     * The default is <code>false</code>.
+     * 
+     * @param stop	<code>true</code> to stop after the read area,
+     * 				<code>false</code> to read the whole document
+     * @see #setReadArea(Area)
+     */
+    public void setStopAfterArea(boolean stop) {
+        director.setStopAfterArea(stop);
+    }
+    
+    /**
+     * Specifies whether a read stops after the read area.
+     * 
+     * @return <code>true</code> if a read stops after the read area,
+     * 		<code>false</code> otherwise
+     * @see #setStopAfterArea(boolean)
+     */
+    public boolean isStopAfterArea() {
+        return director.isStopAfterArea();
+    }
+    
+    /**
+     * Sets the ReadControl that can stop a read before the end of the 
+     * document: after a number of rows or bytes, at a deadline or on request.
+     * When a read is stopped, parsing ends, the input is closed and listeners 
+     * recieve endWorksheet for the worksheet that was being read and 
+     * endDocument. The ReadControl tells them whether the read was 
+     * {@link ReadControl#isTruncated() truncated}. 
+     * <P>
+     * Reads with a ReadControl are not done in parallel. During a 
+     * {@link #setPipelineExecutor(Executor) pipelined read} the limits are
+     * checked on the parsing thread, so events that were already buffered 
+     * are delivered after a stop.
+     * 
+     * @param control	the ReadControl, <code>null</code> to read whole documents
+     * @see ReadControl
+     */
+    public void setReadControl(ReadControl control) {
+        director.setReadControl(control);
+    }
+    
+    /**
+     * Gets the ReadControl that can stop a read.
+     * 
+     * @return the ReadControl, may be <code>null</code>
+     * @see #setReadControl(ReadControl)
+     */
+    public ReadControl getReadControl() {
+        return director.getReadControl();
+    }
+    
+    /**
+     * Sets the number of rows between checkpoints. During a read with a
+     * checkpoint interval, {@link CheckpointListener CheckpointListeners} 
+     * recieve a {@link Checkpoint} before every so many Row-elements of 
+     * a worksheet, counting the rows outside the read area as well. A read
+     * that was broken off can be {@link #resume(File, Checkpoint) resumed} 
+     * from the last checkpoint that was recieved.
+     * <P>
+     * Checkpoints are taken of documents that are read from a byte stream 
+     * or a system id, in an encoding in which markup is written in single
+     * bytes, like UTF-8 or ISO-8859-1. Reads of character streams, of
+     * ByteBuffers and of worksheets with a {@link SheetIndex} do not 
+     * deliver checkpoints. Reads with a checkpoint interval are not done
+     * in parallel.
+     * 
+     * @param rows	the number of rows between checkpoints, 0 for no checkpoints
+     * @throws IllegalArgumentException if rows is negative
+     * @see CheckpointListener
+     */
+    public void setCheckpointInterval(int rows) {
+        if (rows < 0) {
+            throw new IllegalArgumentException("Checkpoint interval < 0: " + rows);
+        }
+        director.setCheckpointInterval(rows);
+    }
+    
+    /**
+     * Gets the number of rows between checkpoints.
+     * 
+     * @return the number of rows between checkpoints, 0 if no checkpoints 
+     * 		are taken
+     * @see #setCheckpointInterval(int)
+     */
+    public int getCheckpointInterval() {
+        return director.getCheckpointInterval();
+    }
+
+    /**
+     * Sets a predicate that decides which rows are delivered to listeners.
+     * The predicate is asked as soon as the cells of its
+     * {@link RowPredicate#getKeyColumns() key columns} were read. Rows that
+     * are not accepted are not delivered by
+     * {@link ExcelReaderListener#setRow setRow} and their
+     * cells are not delivered by
+     * {@link ExcelReaderListener#setCell setCell};
+     * the remaining cells of these rows are skipped without being built.
+     * The cells of accepted rows that were read before the decision are
+     * delivered right after it.
+     * <P>
+     * Rows that are not accepted are not added to the workbook returned by
+     * {@link #getWorkbook(InputSource)}. RowIterators opened by this
+     * ExcelReader are not affected.
+     *
+     * @param predicate	the row predicate, <code>null</code> to deliver all rows
+     * @throws IndexOutOfBoundsException if a key column is out of the range
+     * 		of column indexes
+     */
+    public void setRowPredicate(RowPredicate predicate) {
+        director.setRowPredicate(predicate);
+    }
+
+    /**
+     * Gets the row predicate of this ExcelReader.
+     *
+     * @return the row predicate, <code>null</code> if none was set
+     */
+    public RowPredicate getRowPredicate() {
+        return director.getRowPredicate();
+    }
+
+    /**
+     * Sets the columns of which cells are built. Cells in other columns are
+     * skipped. Where the read area selects a block of the worksheet, a
+     * column projection selects separate columns; a cell is built if it is
+     * part of the read area and its column is projected. Cells of key columns
+     * of the {@link #setRowPredicate(RowPredicate) row predicate} that are
+     * not projected are only built to decide on the row, and are not delivered.
+     * <P>
+     * RowIterators opened by this ExcelReader are not affected.
+     *
+     * @param columns	the 1-based indexes of the projected columns,
+     * 		<code>null</code> or none to build the cells of all columns
+     * @throws IndexOutOfBoundsException if a column is out of the range
+     * 		of column indexes
+     */
+    public void setColumnProjection(int... columns) {
+        director.setColumnProjection(columns);
+    }
+
+    /**
+     * Gets the projected columns of this ExcelReader.
+     *
+     * @return the indexes of the projected columns in ascending order,
+     * 		<code>null</code> if the cells of all columns are built
+     * @see #setColumnProjection(int...)
+     */
+    public int[] getColumnProjection() {
+        return director.getColumnProjection();
+    }
+
     /**
      * Gets a list of registered listeners on this ExcelReader.
      * 
@@ -167,6 +657,8 @@ public class ExcelReader {
     
     /**
      * Registers the given listener on this ExcelReader.
+     * Elements of the document for which none of the listeners wants events
+     * are not built; see {@link SelectiveListener}.
      * 
      * @param listener the ExcelReaderListener to be registered
      * @see <a href="package-summary.html#eventbasedmodel">package overview</a>
@@ -194,6 +686,45 @@ public class ExcelReader {
         director.clearExcelReaderListeners();
     }
     
+    /**
+     * Gets a list of registered CellValueListeners on this ExcelReader.
+     * 
+     * @return a list of registered CellValueListeners
+     */
+    public List<CellValueListener> getCellValueListeners() {
+        return director.getCellValueListeners();
+    }
+    
+    /**
+     * Registers the given CellValueListener on this ExcelReader. 
+     * If only CellValueListeners are registered, a read delivers the values 
+     * of cells without constructing Row- and Cell-instances.
+     * 
+     * @param listener the CellValueListener to be registered
+     */
+    public void addCellValueListener(CellValueListener listener) {
+        director.addCellValueListener(listener);
+    }
+    
+    /**
+     * Removes the passed CellValueListener on this ExcelReader.
+     * 
+     * @param listener the CellValueListener to be removed
+     * @return <code>true</code> if the passed listener was registered,
+     * 		<code>false</code> otherwise
+     */
+    public boolean removeCellValueListener(CellValueListener listener) {
+        return director.removeCellValueListener(listener);
+    }
+    
+    /**
+     * Remove all CellValueListeners on this ExcelReader
+     *
+     */
+    public void clearCellValueListeners() {
+        director.clearCellValueListeners();
+    }
+    
     /**
      * Delivers the contents of the specified file as a fully populated Workbook.
      * If a read area was set on this ExcelReader its worksheets
@@ -230,8 +761,17 @@ public class ExcelReader {
     public Workbook getWorkbook(InputSource source) throws IOException, SAXException {
         WorkbookListener wbl = new WorkbookListener();
         addExcelReaderListener(wbl);
-        read(source);
-        removeExcelReaderListener(wbl);
+        boolean ordered = orderedEvents;
+        boolean reuse = director.isReuseRows();
+        orderedEvents = true;
+        director.setReuseRows(false);
+        try {
+            read(source);
+        } finally {
+            orderedEvents = ordered;
+            director.setReuseRows(reuse);
+            removeExcelReaderListener(wbl);
+        }
         return wbl.getWorkbook();
     }
     
@@ -269,17 +809,646 @@ public class ExcelReader {
      * under java 1.4 and previous releases. Releases prior to java 1.5
      * will throw a <code>org.xml.sax.SAXParseException</code> under these
      * adverse conditions.
+     * <P>
+     * If a {@link #setPipelineExecutor(Executor) pipeline executor} was set,
+     * the stream is parsed on a thread of that Executor while the listeners 
+     * are run on the calling thread.
      * 
      * @param source		the Inputsource streaming spreadsheetML
      * @throws IOException	signals a failed or interrupted I/O operation
      * @throws SAXException	signals a general SAX error or warning
+     * @throws IllegalStateException if rows are reused and a WorkbookListener
+     * 		or a RowBatcher is registered
      */
     public void read(InputSource source) throws IOException, SAXException {
+        checkReuseRows();
+        if (pipelineExecutor != null) {
+            readPipelined(parseTask(source));
+        } else {
+            parse(source);
+        }
+    }
+    
+    /**
+     * Reads the SpreadsheetML in the given buffer, from it's position to it's 
+     * limit, and dispatches events to registered
+     * {@link ExcelReaderListener ExcelReaderListeners}. The position of the 
+     * buffer is not changed.
+     * <P>
+     * Instead of the SAXParser of this ExcelReader a tokenizer is used that 
+     * works directly on the bytes of the buffer. Listeners receive the same 
+     * events as with {@link #read(InputSource)}. Documents with a document
+     * type declaration or in an encoding other than UTF-8 or US-ASCII are 
+     * read with the SAXParser.
+     * 
+     * @param buffer		the buffer holding spreadsheetML
+     * @throws IOException	signals a failed or interrupted I/O operation
+     * @throws SAXException	signals a general SAX error or warning
+     * @throws IllegalStateException if rows are reused and a WorkbookListener
+     * 		or a RowBatcher is registered
+     */
+    public void read(ByteBuffer buffer) throws IOException, SAXException {
+        read(buffer, null);
+    }
+    
+    /**
+     * Maps the given file into memory and reads it like 
+     * {@link #read(ByteBuffer)}. Files of more than 2GB are read with the 
+     * SAXParser of this ExcelReader.
+     * 
+     * @param file			the SpreadsheetML file
+     * @throws IOException	signals a failed or interrupted I/O operation
+     * @throws SAXException	signals a general SAX error or warning
+     * @throws IllegalStateException if rows are reused and a WorkbookListener
+     * 		or a RowBatcher is registered
+     */
+    public void readMapped(File file) throws IOException, SAXException {
+        // the system id as the SAXParser would expand a file name
+        String systemId = file.getAbsoluteFile().toURI().toString();
+        if (!systemId.startsWith("file://")) {
+            systemId = "file://" + systemId.substring(5);
+        }
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                InputSource source = new InputSource(in);
+                source.setSystemId(systemId);
+                read(source);
+            } else {
+                read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), systemId);
+            }
+        } finally {
+            in.close();
+        }
+    }
+    
+    private void read(ByteBuffer buffer, final String systemId) 
+    		throws IOException, SAXException {
+        final ByteBuffer bytes = buffer.duplicate();
+        if (!SpreadsheetTokenizer.canRead(bytes)) {
+            InputSource source = new InputSource(new ByteBufferInputStream(bytes));
+            source.setSystemId(systemId);
+            read(source);
+            return;
+        }
+        checkReuseRows();
+        if (pipelineExecutor != null) {
+            readPipelined(new Callable<Void>() {
+                public Void call() throws Exception {
+                    tokenize(bytes, systemId);
+                    return null;
+                }
+            });
+        } else {
+            tokenize(bytes, systemId);
+        }
+    }
+    
+    /**
+     * Reads the worksheet with the given name from the given file, using
+     * the given SheetIndex to go to the worksheet and to the rows of it's 
+     * read area without reading the rest of the file. Only the bytes of the 
+     * root element's start tag, of the worksheet up to it's first row, of 
+     * the rows around the read area and of the remainder of the worksheet 
+     * are read.
+     * <P>
+     * Listeners receive the same events for the worksheet as with a read of 
+     * the whole file, with the same sheet and row indexes. Events of the 
+     * workbook, like setDocumentProperties and setNamedRange, are not delivered.
+     * 
+     * @param file		the SpreadsheetML file
+     * @param index		a SheetIndex of the file
+     * @param sheetName	the name of the worksheet
+     * @throws IOException	signals a failed or interrupted I/O operation
+     * @throws SAXException	signals a general SAX error or warning
+     * @throws IllegalArgumentException if the index is not 
+     * 		{@link SheetIndex#isCurrent(File) current} for the file or if 
+     * 		the file has no worksheet with the given name
+     * @throws IllegalStateException if rows are reused and a WorkbookListener
+     * 		or a RowBatcher is registered
+     */
+    public void read(File file, SheetIndex index, String sheetName) 
+    		throws IOException, SAXException {
+        if (!index.isCurrent(file)) {
+            throw new IllegalArgumentException("SheetIndex is not current for " + file);
+        }
+        int sheetIndex = index.getSheetIndex(sheetName);
+        if (sheetIndex < 0) {
+            throw new IllegalArgumentException("No worksheet named '" + sheetName + "'.");
+        }
+        checkReuseRows();
+        Area area = getReadArea(sheetName);
+        int firstRow = area == null ? Worksheet.firstRow : area.getFirstRow();
+        int lastRow = area == null ? Worksheet.lastRow : area.getLastRow();
+        byte[] rootEnd = ("</" + index.getRootQName() + ">").getBytes("ISO-8859-1");
+        FileInputStream in = new FileInputStream(file);
+        int firstSheetIndex = director.getFirstSheetIndex();
+        int rowIndexBase = director.getRowIndexBase();
+        int checkpointInterval = director.getCheckpointInterval();
+        try {
+            director.setCheckpointInterval(0);
+            InputSource source = new InputSource(new RegionInputStream(in.getChannel(), 
+                    index.getRegions(sheetIndex, firstRow, lastRow), rootEnd));
+            source.setSystemId(file.toURI().toString());
+            director.setFirstSheetIndex(sheetIndex);
+            director.setRowIndexBase(index.getRowIndexBase(sheetIndex, firstRow));
+            if (pipelineExecutor != null) {
+                readPipelined(parseTask(source));
+            } else {
+                parse(source);
+            }
+        } finally {
+            director.setFirstSheetIndex(firstSheetIndex);
+            director.setRowIndexBase(rowIndexBase);
+            director.setCheckpointInterval(checkpointInterval);
+            in.close();
+        }
+    }
+    
+    /**
+     * Resumes the read of the given file from the given checkpoint. Only the 
+     * start tag of the root element, the worksheet of the checkpoint up to 
+     * it's first row and the rest of the file from the checkpoint onwards 
+     * are read.
+     * <P>
+     * Listeners receive startDocument, startWorksheet, startTable and 
+     * setColumn of the worksheet of the checkpoint again, followed by the 
+     * events of the rows after the checkpoint, with the same sheet and row 
+     * indexes as in a read of the whole file, and the events of the rest of
+     * the document. Events of the workbook before the worksheet, like 
+     * setDocumentProperties and setNamedRange, are not delivered. 
+     * If a checkpoint interval was set, checkpoints are taken 
+     * of the resumed read as well.
+     * 
+     * @param file			the SpreadsheetML file the checkpoint was taken of
+     * @param checkpoint	the checkpoint to resume from
+     * @throws IOException	signals a failed or interrupted I/O operation
+     * @throws SAXException	signals a general SAX error or warning
+     * @throws IllegalArgumentException if the checkpoint does not match 
+     * 		the file
+     * @throws IllegalStateException if rows are reused and a WorkbookListener
+     * 		or a RowBatcher is registered
+     * @see #setCheckpointInterval(int)
+     */
+    public void resume(File file, Checkpoint checkpoint) throws IOException, SAXException {
+        checkReuseRows();
+        FileInputStream in = new FileInputStream(file);
+        int firstSheetIndex = director.getFirstSheetIndex();
+        int rowIndexBase = director.getRowIndexBase();
+        try {
+            FileChannel channel = in.getChannel();
+            if (!checkpoint.matches(channel)) {
+                throw new IllegalArgumentException(checkpoint + " does not match " + file);
+            }
+            resumedRegions = checkpoint.getRegions(channel.size());
+            resumed = checkpoint;
+            InputSource source = new InputSource(
+                    new RegionInputStream(channel, resumedRegions, new byte[0]));
+            source.setSystemId(file.toURI().toString());
+            director.setFirstSheetIndex(checkpoint.getSheetIndex());
+            director.setRowIndexBase(checkpoint.getRowIndex());
+            if (pipelineExecutor != null) {
+                readPipelined(parseTask(source));
+            } else {
+                parse(source);
+            }
+        } finally {
+            director.setFirstSheetIndex(firstSheetIndex);
+            director.setRowIndexBase(rowIndexBase);
+            resumed = null;
+            resumedRegions = null;
+            in.close();
+        }
+    }
+    
+    /**
+     * Restores the settings of a new ExcelReader, keeping the parser and 
+     * the builders. 
+     */
+    void reset() {
+        director.reset();
+        parser.reset();
+        reader = null;
+        readExecutor = null;
+        orderedEvents = true;
+        pipelineExecutor = null;
+        pipelineCapacity = 1024;
+        pipeline = null;
+        uris = null;
+        resumed = null;
+        resumedRegions = null;
+    }
+    
+    private void checkReuseRows() {
+        if (director.isReuseRows()) {
+            for (ExcelReaderListener listener : director.getListeners()) {
+                if (listener instanceof WorkbookListener) {
+                    throw new IllegalStateException(
+                            "Cannot reuse rows while building a workbook.");
+                } else if (listener instanceof RowBatcher) {
+                    throw new IllegalStateException(
+                            "Cannot reuse rows while batching rows.");
+                }
+            }
+        }
+    }
+    
+    private void parse(InputSource source) throws IOException, SAXException {
         getPrefixMap().clear();
         reader = parser.getXMLReader();
         reader.setContentHandler(getHandler());
         reader.setErrorHandler(getHandler());
-        reader.parse(source);
+        ReadControl control = director.getReadControl();
+        director.setWorksheetOpen(false);
+        boolean scanning = director.getCheckpointInterval() > 0 
+        		&& source.getCharacterStream() == null && !isMultiByte(source.getEncoding());
+        boolean opened = (control != null || scanning) 
+        		&& source.getByteStream() == null && source.getCharacterStream() == null;
+        if (scanning) {
+            source = scanningSource(source);
+        }
+        if (control != null) {
+            control.startRead();
+            source = countingSource(source, control);
+        }
+        try {
+            if (readExecutor == null || source.getCharacterStream() != null 
+                    || director.isStopAfterArea() || control != null || scanning) {
+                reader.parse(source);
+            } else {
+                readParallel(source);
+            }
+        } catch (ReadStoppedException e) {
+            if (control != null && control.isTruncated()) {
+                close(source);
+            }
+            readStopped();
+        } finally {
+            director.setOffsetScanner(null);
+            if (opened) close(source);
+        }
+    }
+    
+    // a copy of the source with a stream that is scanned for checkpoints
+    private InputSource scanningSource(InputSource source) throws IOException {
+        InputSource scanning = new InputSource();
+        scanning.setSystemId(source.getSystemId());
+        scanning.setPublicId(source.getPublicId());
+        scanning.setEncoding(source.getEncoding());
+        InputStream in = source.getByteStream();
+        if (in == null) {
+            in = openStream(source.getSystemId());
+        }
+        OffsetScanner scanner = new OffsetScanner(in, 
+                director.getCheckpointInterval(), getPrefixMap());
+        if (resumed != null) {
+            scanner.resume(resumed, resumedRegions);
+        }
+        director.setOffsetScanner(scanner);
+        scanning.setByteStream(scanner);
+        return scanning;
+    }
+    
+    private boolean isMultiByte(String encoding) {
+        if (encoding == null) return false;
+        String e = encoding.toUpperCase();
+        return e.startsWith("UTF-16") || e.startsWith("UTF-32") || e.startsWith("UCS") 
+        		|| e.startsWith("UNICODE");
+    }
+    
+    private void tokenize(ByteBuffer buffer, String systemId) 
+    		throws IOException, SAXException {
+        getPrefixMap().clear();
+        SpreadsheetTokenizer tokenizer = new SpreadsheetTokenizer();
+        reader = tokenizer;
+        reader.setContentHandler(getHandler());
+        reader.setErrorHandler(getHandler());
+        ReadControl control = director.getReadControl();
+        director.setWorksheetOpen(false);
+        if (control != null) {
+            control.startRead();
+            tokenizer.setReadControl(control);
+        }
+        try {
+            tokenizer.parse(buffer, systemId, null);
+        } catch (ReadStoppedException e) {
+            readStopped();
+        }
+    }
+    
+    /*
+     * Delivers endWorksheet, if a worksheet was being read, and endDocument
+     * after a read was stopped.
+     */
+    private void readStopped() {
+        if (director.isWorksheetOpen()) {
+            director.setWorksheetOpen(false);
+            for (ExcelReaderListener listener : director.getListeners()) {
+                listener.endWorksheet(director.getCurrentSheetIndex(), 
+                        director.getCurrentSheetName());
+            }
+        }
+        for (ExcelReaderListener listener : director.getListeners()) {
+            listener.endDocument(getPrefixMap());
+        }
+    }
+    
+    // a copy of the source with a stream that counts the bytes that were read
+    private InputSource countingSource(InputSource source, final ReadControl control) 
+    		throws IOException {
+        InputSource counting = new InputSource();
+        counting.setSystemId(source.getSystemId());
+        counting.setPublicId(source.getPublicId());
+        counting.setEncoding(source.getEncoding());
+        if (source.getCharacterStream() != null) {
+            counting.setCharacterStream(new FilterReader(source.getCharacterStream()) {
+                public int read() throws IOException {
+                    int c = super.read();
+                    if (c >= 0) control.addBytes(1);
+                    return c;
+                }
+                public int read(char[] cbuf, int off, int len) throws IOException {
+                    int n = super.read(cbuf, off, len);
+                    if (n > 0) control.addBytes(n);
+                    return n;
+                }
+            });
+        } else {
+            InputStream in = source.getByteStream();
+            if (in == null) {
+                in = openStream(source.getSystemId());
+            }
+            counting.setByteStream(new FilterInputStream(in) {
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b >= 0) control.addBytes(1);
+                    return b;
+                }
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = super.read(b, off, len);
+                    if (n > 0) control.addBytes(n);
+                    return n;
+                }
+            });
+        }
+        return counting;
+    }
+    
+    private void close(InputSource source) throws IOException {
+        if (source.getCharacterStream() != null) {
+            source.getCharacterStream().close();
+        } else if (source.getByteStream() != null) {
+            source.getByteStream().close();
+        }
+    }
+    
+    private Callable<Void> parseTask(final InputSource source) {
+        return new Callable<Void>() {
+            public Void call() throws Exception {
+                parse(source);
+                return null;
+            }
+        };
+    }
+    
+    /*
+     * The listeners of the director are replaced by the pipeline for the 
+     * duration of the read. 
+     */
+    private void readPipelined(final Callable<Void> parse) throws IOException, SAXException {
+        List<ExcelReaderListener> listeners = 
+            new ArrayList<ExcelReaderListener>(director.getListeners());
+        List<CellValueListener> valueListeners = 
+            new ArrayList<CellValueListener>(director.getCellValueListeners());
+        final EventPipeline p = new EventPipeline(pipelineCapacity);
+        p.setEventMask(EventMasks.getEventMask(listeners));
+        director.clearExcelReaderListeners();
+        director.clearCellValueListeners();
+        if (!listeners.isEmpty()) director.addExcelReaderListener(p);
+        if (!valueListeners.isEmpty()) director.addCellValueListener(p);
+        boolean ordered = orderedEvents;
+        boolean reuse = director.isReuseRows();
+        orderedEvents = true;
+        director.setReuseRows(false);
+        final Thread caller = Thread.currentThread();
+        FutureTask<Void> task = new FutureTask<Void>(new Callable<Void>() {
+            public Void call() throws Exception {
+                try {
+                    // parsing on the calling thread would fill the buffer 
+                    // before the listeners take anything and wait forever
+                    if (Thread.currentThread() == caller) {
+                        throw new IllegalStateException(
+                                "The pipeline executor ran the parse on the thread that reads.");
+                    }
+                    parse.call();
+                } catch (EventPipeline.Cancelled e) {
+                    // the read was cancelled
+                } finally {
+                    p.close();
+                }
+                return null;
+            }
+        });
+        boolean started = false;
+        boolean completed = false;
+        pipeline = p;
+        try {
+            pipelineExecutor.execute(task);
+            started = true;
+            EventRecorder.Event event;
+            while ((event = p.take()) != null) {
+                event.fire(listeners, valueListeners);
+            }
+            completed = true;
+        } finally {
+            if (!completed) p.cancel();
+            try {
+                if (started) awaitParse(task, completed);
+            } finally {
+                pipeline = null;
+                orderedEvents = ordered;
+                director.setReuseRows(reuse);
+                director.clearExcelReaderListeners();
+                director.clearCellValueListeners();
+                for (ExcelReaderListener listener : listeners) {
+                    director.addExcelReaderListener(listener);
+                }
+                for (CellValueListener listener : valueListeners) {
+                    director.addCellValueListener(listener);
+                }
+            }
+        }
+    }
+    
+    /*
+     * Waits for the parsing task. Exceptions of the parser are only thrown if
+     * the listeners completed normally.
+     */
+    private void awaitParse(FutureTask<Void> task, boolean completed) 
+    		throws IOException, SAXException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    task.get();
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (!completed || pipelineCancelled(e.getCause())) return;
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    } else if (cause instanceof SAXException) {
+                        throw (SAXException) cause;
+                    } else if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    } else if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new SAXException((Exception) cause);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+                if (completed) {
+                    throw new InterruptedIOException("Interrupted while reading.");
+                }
+            }
+        }
+    }
+    
+    // the parser may have wrapped the exception thrown by the pipeline
+    private boolean pipelineCancelled(Throwable t) {
+        while (t != null) {
+            if (t instanceof EventPipeline.Cancelled) return true;
+            t = t instanceof SAXException ? ((SAXException) t).getException() : t.getCause();
+        }
+        return false;
+    }
+    
+    private void readParallel(InputSource source) throws IOException, SAXException {
+        InputStream in = source.getByteStream();
+        boolean opened = in == null;
+        if (opened) {
+            in = openStream(source.getSystemId());
+        }
+        byte[] bytes;
+        try {
+            bytes = readFully(in);
+        } finally {
+            if (opened) in.close();
+        }
+        ParallelSheetReader psr = new ParallelSheetReader(bytes, source.getEncoding());
+        if (psr.scan()) {
+            psr.prepare(director, getPrefixMap(), readExecutor, orderedEvents);
+            bytes = psr.getSkeleton();
+        } else {
+            psr = null;
+        }
+        InputSource skeleton = new InputSource(new ByteArrayInputStream(bytes));
+        skeleton.setSystemId(source.getSystemId());
+        skeleton.setPublicId(source.getPublicId());
+        skeleton.setEncoding(source.getEncoding());
+        director.setParallelSheetReader(psr);
+        try {
+            reader.parse(skeleton);
+        } finally {
+            director.setParallelSheetReader(null);
+            if (psr != null) psr.cancel();
+        }
+    }
+    
+    private byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Opens the file with the given name for reading the rows of the worksheet
+     * with the given name.
+     * 
+     * @param fileName		the name of the file to be read
+     * @param sheetName		the name of the worksheet, <code>null</code> for 
+     * 						the first worksheet
+     * @return				a RowIterator for the rows of the worksheet
+     * @throws IOException	if the file cannot be opened
+     * @throws XMLStreamException	if a parser cannot be created
+     * 
+     * @see #openRows(InputSource, String)
+     */
+    public RowIterator openRows(String fileName, String sheetName) 
+    		throws IOException, XMLStreamException {
+        return openRows(new InputSource(fileName), sheetName);
+    }
+    
+    /**
+     * Opens the given InputSource for reading the rows of the worksheet
+     * with the given name. The rows are pulled from the stream with a
+     * {@link javax.xml.stream.XMLStreamReader}; the stream is parsed only as far
+     * as rows are taken from the returned RowIterator. 
+     * <P>
+     * If a read area was set on this ExcelReader or on the worksheet, only the 
+     * rows and cells within the area are delivered. Row and cell indexes are the same as those 
+     * delivered to listeners by {@link #read(InputSource)}. Listeners registered
+     * on this ExcelReader are not informed. Changes to the read area of this
+     * ExcelReader do not affect RowIterators that are already open.
+     * 
+     * @param source		the InputSource streaming spreadsheetML
+     * @param sheetName		the name of the worksheet, <code>null</code> for 
+     * 						the first worksheet
+     * @return				a RowIterator for the rows of the worksheet
+     * @throws IOException	if the stream of the source cannot be opened
+     * @throws XMLStreamException	if a parser cannot be created
+     */
+    public RowIterator openRows(InputSource source, String sheetName) 
+    		throws IOException, XMLStreamException {
+        if (inputFactory == null) {
+            inputFactory = XMLInputFactory.newInstance();
+            inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        }
+        Closeable stream;
+        XMLStreamReader xsr;
+        if (source.getCharacterStream() != null) {
+            stream = source.getCharacterStream();
+            xsr = inputFactory.createXMLStreamReader(source.getSystemId(), 
+                    source.getCharacterStream());
+        } else {
+            InputStream in = source.getByteStream();
+            if (in == null) {
+                in = openStream(source.getSystemId());
+            }
+            stream = in;
+            try {
+                if (source.getEncoding() != null) {
+                    xsr = inputFactory.createXMLStreamReader(in, source.getEncoding());
+                } else {
+                    xsr = inputFactory.createXMLStreamReader(source.getSystemId(), in);
+                }
+            } catch (XMLStreamException e) {
+                in.close();
+                throw e;
+            }
+        }
+        return new RowIterator(xsr, stream, sheetName, getReadArea(sheetName));
+    }
+    
+    private InputStream openStream(String systemId) throws IOException {
+        if (systemId == null) {
+            throw new IOException("InputSource has no stream and no system id.");
+        }
+        try {
+            return new URL(systemId).openStream();
+        } catch (MalformedURLException e) {
+            return new FileInputStream(systemId);
+        }
     }
 
     /**
@@ -306,6 +1475,32 @@ public class ExcelReader {
     
     //////////////////////////////////////////////////////////////////////////////
     
+    private static class ByteBufferInputStream extends InputStream {
+        
+        private ByteBuffer buffer;
+        
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+        
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+        
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+        
+        public int available() {
+            return buffer.remaining();
+        }
+        
+    }
+    
     private class Handler extends DefaultHandler {
         
         private Locator locator;
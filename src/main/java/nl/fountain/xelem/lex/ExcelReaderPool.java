@@ -0,0 +1,256 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import nl.fountain.xelem.excel.Workbook;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * A pool of ExcelReaders that can be shared by threads. 
+ * <P>
+ * An ExcelReader keeps the state of the read it is doing and can be used by
+ * one thread at a time. An ExcelReaderPool keeps ExcelReaders, with their
+ * parsers and builders, ready to be used. The read-methods and 
+ * getWorkbook-methods of the pool take an idle ExcelReader, 
+ * do the read and return the ExcelReader to the pool, so they can be called 
+ * concurrently:
+ * <PRE>
+ *     ExcelReaderPool pool = new ExcelReaderPool();
+ *     ...
+ *     // on any thread
+ *     Workbook wb = pool.getWorkbook(new InputSource(in));
+ * </PRE>
+ * If the read needs other settings than the defaults of an ExcelReader, 
+ * {@link #borrow() borrow} an ExcelReader, configure it and 
+ * {@link #release(ExcelReader) release} it when done:
+ * <PRE>
+ *     ExcelReader reader = pool.borrow();
+ *     try {
+ *         reader.setReadArea(new Area("A1:C10"));
+ *         reader.addExcelReaderListener(listener);
+ *         reader.read(source);
+ *     } finally {
+ *         pool.release(reader);
+ *     }
+ * </PRE>
+ * A released ExcelReader is restored to the settings of a new ExcelReader:
+ * listeners, read areas, executors and other settings of the read are 
+ * removed, so the next borrower starts afresh.
+ * <P>
+ * If all ExcelReaders are in use, a new one is created. At most 
+ * {@link #getMaxIdle() maxIdle} ExcelReaders are kept in the pool. 
+ * All ExcelReaders of the pool get their parser from the same 
+ * SAXParserFactory.
+ */
+public class ExcelReaderPool {
+    
+    private SAXParserFactory factory;
+    private ConcurrentLinkedQueue<ExcelReader> idle;
+    private AtomicInteger idleCount;
+    private int maxIdle;
+    
+    /**
+     * Constructs a new ExcelReaderPool that keeps as many ExcelReaders 
+     * as there are processors.
+     * 
+     * @throws ParserConfigurationException if a parser cannot be created
+     * 		 which satisfies the current configuration
+     * @throws SAXException	for SAX errors
+     */
+    public ExcelReaderPool() throws ParserConfigurationException, SAXException {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Constructs a new ExcelReaderPool with the given number of 
+     * ExcelReaders, which is also the maximum number of idle ExcelReaders
+     * that the pool keeps.
+     * 
+     * @param size	the number of ExcelReaders to create
+     * @throws ParserConfigurationException if a parser cannot be created
+     * 		 which satisfies the current configuration
+     * @throws SAXException	for SAX errors
+     * @throws IllegalArgumentException if size is less than 1
+     */
+    public ExcelReaderPool(int size) throws ParserConfigurationException, SAXException {
+        if (size < 1) {
+            throw new IllegalArgumentException("size < 1: " + size);
+        }
+        factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        idle = new ConcurrentLinkedQueue<ExcelReader>();
+        idleCount = new AtomicInteger();
+        maxIdle = size;
+        for (int i = 0; i < size; i++) {
+            idle.add(createReader());
+            idleCount.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Takes an idle ExcelReader from the pool, or creates a new one if 
+     * there are none. The ExcelReader should be 
+     * {@link #release(ExcelReader) released} after use.
+     * 
+     * @return an ExcelReader with the settings of a new ExcelReader
+     * @throws SAXException if a parser cannot be created
+     */
+    public ExcelReader borrow() throws SAXException {
+        ExcelReader reader = idle.poll();
+        if (reader != null) {
+            idleCount.decrementAndGet();
+            return reader;
+        }
+        try {
+            return createReader();
+        } catch (ParserConfigurationException e) {
+            throw new SAXException(e);
+        }
+    }
+    
+    /**
+     * Returns the given ExcelReader to the pool. It's settings are 
+     * restored to those of a new ExcelReader. The ExcelReader should not 
+     * be used after it was released. If the pool already holds 
+     * {@link #getMaxIdle() maxIdle} ExcelReaders, the given ExcelReader 
+     * is discarded.
+     * 
+     * @param reader	an ExcelReader that was borrowed from this pool
+     */
+    public void release(ExcelReader reader) {
+        reader.reset();
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.add(reader);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+    
+    /**
+     * Delivers the contents of the given InputSource as a fully populated 
+     * Workbook, using an ExcelReader of this pool.
+     * 
+     * @param source		the Inputsource streaming spreadsheetML	
+     * @return				a fully populated Workbook
+     * @throws IOException	signals a failed or interrupted I/O operation
+     * @throws SAXException	signals a general SAX error or warning
+     * @see ExcelReader#getWorkbook(InputSource)
+     */
+    public Workbook getWorkbook(InputSource source) throws IOException, SAXException {
+        ExcelReader reader = borrow();
+        try {
+            return reader.getWorkbook(source);
+        } finally {
+            release(reader);
+        }
+    }
+    
+    /**
+     * Delivers the contents of the file with the given name as a fully 
+     * populated Workbook, using an ExcelReader of this pool.
+     * 
+     * @param fileName		the name of the file to be read
+     * @return				a fully populated Workbook
+     * @throws IOException	signals a failed or interrupted I/O operation
+     * @throws SAXException	signals a general SAX error or warning
+     * @see ExcelReader#getWorkbook(String)
+     */
+    public Workbook getWorkbook(String fileName) throws IOException, SAXException {
+        return getWorkbook(new InputSource(fileName));
+    }
+    
+    /**
+     * Reads the stream of the given InputSource with an ExcelReader of this
+     * pool and dispatches events to the given listeners.
+     * 
+     * @param source		the Inputsource streaming spreadsheetML
+     * @param listeners		the listeners that recieve the events of this read
+     * @throws IOException	signals a failed or interrupted I/O operation
+     * @throws SAXException	signals a general SAX error or warning
+     * @see ExcelReader#read(InputSource)
+     */
+    public void read(InputSource source, ExcelReaderListener... listeners) 
+    		throws IOException, SAXException {
+        ExcelReader reader = borrow();
+        try {
+            for (ExcelReaderListener listener : listeners) {
+                reader.addExcelReaderListener(listener);
+            }
+            reader.read(source);
+        } finally {
+            release(reader);
+        }
+    }
+    
+    /**
+     * Reads the file with the given name with an ExcelReader of this
+     * pool and dispatches events to the given listeners.
+     * 
+     * @param fileName		the name of the file to be read
+     * @param listeners		the listeners that recieve the events of this read
+     * @throws IOException	signals a failed or interrupted I/O operation
+     * @throws SAXException	signals a general SAX error or warning
+     * @see ExcelReader#read(String)
+     */
+    public void read(String fileName, ExcelReaderListener... listeners) 
+    		throws IOException, SAXException {
+        read(new InputSource(fileName), listeners);
+    }
+    
+    /**
+     * Gets the number of ExcelReaders that are waiting in the pool.
+     * 
+     * @return the number of idle ExcelReaders
+     */
+    public int getIdleCount() {
+        return idleCount.get();
+    }
+    
+    /**
+     * Gets the maximum number of idle ExcelReaders that are kept in the pool.
+     * 
+     * @return the maximum number of idle ExcelReaders
+     */
+    public int getMaxIdle() {
+        return maxIdle;
+    }
+    
+    private ExcelReader createReader() throws ParserConfigurationException, SAXException {
+        ExcelReader reader;
+        // a SAXParserFactory is not thread safe
+        synchronized (factory) {
+            reader = new ExcelReader(factory.newSAXParser());
+        }
+        reader.director.createBuilders();
+        return reader;
+    }
+
+}
@@ -0,0 +1,315 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Map;
+
+/**
+ * Keeps track of the offsets of worksheets and rows in the bytes that the
+ * parser reads, in order to take checkpoints.
+ * <P>
+ * The parser reads ahead, so the offsets of rows are found before the 
+ * builders get to them. The offset of every row at a checkpoint is queued 
+ * until it is asked for by {@link #getCheckpoint}.
+ * Only encodings in which markup is written in single bytes, like UTF-8, 
+ * can be scanned. No checkpoints are taken of documents in other encodings 
+ * or with a document type declaration.
+ */
+class OffsetScanner extends FilterInputStream {
+    
+    private static final int TEXT = 0;
+    private static final int TAG = 1;
+    private static final int NAME = 2;
+    private static final int IN_TAG = 3;
+    private static final int QUOTE = 4;
+    private static final int PI = 5;
+    private static final int BANG = 6;
+    private static final int COMMENT = 7;
+    private static final int CDATA = 8;
+    private static final int FAILED = 9;
+    
+    private static final byte[] WORKSHEET = {'W', 'o', 'r', 'k', 's', 'h', 'e', 'e', 't'};
+    private static final byte[] TABLE = {'T', 'a', 'b', 'l', 'e'};
+    private static final byte[] ROW = {'R', 'o', 'w'};
+    
+    private int interval;
+    private Map<String, String> prefixMap;
+    private long[] regions;
+    private Checkpoint resumed;
+    
+    private long position;
+    private int state;
+    private int last;
+    private int quote;
+    private int repeat;
+    private long tagStart;
+    private boolean endTag;
+    private byte[] name = new byte[64];
+    private int nameLength;
+    private int localStart;
+    private int depth;
+    private boolean inTable;
+    
+    private long rootEnd = -1;
+    private int sheetCount;
+    private long sheetStart;
+    private long headerEnd;
+    private boolean headerKnown;
+    private int rowCount;
+    private ArrayDeque<long[]> rows = new ArrayDeque<long[]>();
+    
+    /**
+     * @param in		the stream the parser reads
+     * @param interval	the number of rows between checkpoints
+     * @param prefixMap	the prefix map of the read
+     */
+    OffsetScanner(InputStream in, int interval, Map<String, String> prefixMap) {
+        super(in);
+        this.interval = interval;
+        this.prefixMap = prefixMap;
+    }
+    
+    /**
+     * Scans the stream of a resumed read. 
+     * 
+     * @param checkpoint	the checkpoint the read resumes from
+     * @param regions		pairs of start and end offsets in the file of 
+     * 						the bytes of the stream
+     */
+    void resume(Checkpoint checkpoint, long[] regions) {
+        resumed = checkpoint;
+        this.regions = regions;
+    }
+    
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) scan(new byte[] {(byte) b}, 0, 1);
+        return b;
+    }
+    
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) scan(b, off, n);
+        return n;
+    }
+    
+    public long skip(long n) throws IOException {
+        // skipped bytes could not be scanned
+        state = FAILED;
+        return super.skip(n);
+    }
+    
+    /**
+     * Gets the checkpoint before the row with the given ordinal in the 
+     * worksheet with the given ordinal, <code>null</code> if it's offset 
+     * is not known. Rows before it are forgotten.
+     * 
+     * @param sheetOrdinal	the number of worksheets before the worksheet 
+     * 						in the stream
+     * @param rowOrdinal	the number of Row-elements before the row 
+     * 						in the worksheet
+     */
+    Checkpoint getCheckpoint(int sheetOrdinal, int rowOrdinal, 
+            int sheetIndex, String sheetName, int rowIndex) {
+        if (state == FAILED) return null;
+        long[] row;
+        while ((row = rows.peek()) != null) {
+            if (row[0] > sheetOrdinal || (row[0] == sheetOrdinal && row[1] > rowOrdinal)) {
+                return null;
+            }
+            rows.poll();
+            if (row[0] == sheetOrdinal && row[1] == rowOrdinal) {
+                return new Checkpoint(row[2], rootEnd, row[3], row[4], 
+                        sheetIndex, sheetName, rowIndex, prefixMap);
+            }
+        }
+        return null;
+    }
+    
+    private void scan(byte[] b, int off, int len) {
+        if (position == 0 && (b[off] == 0 || b[off] == (byte) 0xFE || b[off] == (byte) 0xFF
+                || (len > 1 && b[off + 1] == 0))) {
+            // UTF-16 or UTF-32
+            state = FAILED;
+        }
+        int end = off + len;
+        for (int i = off; i < end && state != FAILED; i++, position++) {
+            int c = b[i];
+            switch (state) {
+            case TEXT:
+                if (c == '<') {
+                    tagStart = position;
+                    state = TAG;
+                }
+                break;
+            case TAG:
+                nameLength = 0;
+                localStart = 0;
+                endTag = c == '/';
+                if (c == '?') {
+                    state = PI;
+                } else if (c == '!') {
+                    state = BANG;
+                } else {
+                    if (!endTag) appendName(c);
+                    state = NAME;
+                }
+                last = c;
+                break;
+            case NAME:
+                if (c > ' ' && c != '/' && c != '>') {
+                    appendName(c);
+                    break;
+                }
+                // the end of the name is part of the tag
+                state = IN_TAG;
+                inTag(c);
+                break;
+            case IN_TAG:
+                inTag(c);
+                break;
+            case QUOTE:
+                if (c == quote) state = IN_TAG;
+                last = c;
+                break;
+            case PI:
+                if (c == '>' && last == '?') state = TEXT;
+                last = c;
+                break;
+            case BANG:
+                repeat = 0;
+                if (c == '-') {
+                    state = COMMENT;
+                } else if (c == '[') {
+                    state = CDATA;
+                } else {
+                    // a document type declaration
+                    state = FAILED;
+                }
+                break;
+            case COMMENT:
+                repeat = skipUntil(c, '-', repeat);
+                break;
+            case CDATA:
+                repeat = skipUntil(c, ']', repeat);
+                break;
+            }
+        }
+    }
+    
+    private void inTag(int c) {
+        if (c == '"' || c == '\'') {
+            quote = c;
+            state = QUOTE;
+        } else if (c == '>') {
+            endOfTag(last == '/');
+            state = TEXT;
+        }
+        last = c;
+    }
+    
+    // ends comments and CDATA-sections with two of the given byte and '>'
+    private int skipUntil(int c, int closing, int count) {
+        if (c == closing) return count + 1;
+        if (c == '>' && count >= 2) state = TEXT;
+        return 0;
+    }
+    
+    private void appendName(int c) {
+        if (nameLength < name.length) {
+            name[nameLength] = (byte) c;
+        }
+        nameLength++;
+        if (c == ':') localStart = nameLength;
+    }
+    
+    private boolean isLocalName(byte[] local) {
+        if (nameLength > name.length || nameLength - localStart != local.length) {
+            return false;
+        }
+        for (int i = 0; i < local.length; i++) {
+            if (name[localStart + i] != local[i]) return false;
+        }
+        return true;
+    }
+    
+    private void endOfTag(boolean empty) {
+        if (endTag) {
+            depth--;
+            if (depth == 2) inTable = false;
+            return;
+        }
+        if (depth == 0) {
+            rootEnd = fileOffset(position) + 1;
+        } else if (depth == 1 && isLocalName(WORKSHEET)) {
+            startSheet();
+        } else if (depth == 2 && !empty && isLocalName(TABLE)) {
+            inTable = true;
+        } else if (depth == 3 && inTable && isLocalName(ROW)) {
+            startRow();
+        }
+        if (!empty) depth++;
+    }
+    
+    private void startSheet() {
+        sheetCount++;
+        rowCount = 0;
+        if (resumed != null && sheetCount == 1) {
+            // the worksheet is read from it's header and a checkpoint onwards
+            sheetStart = resumed.getSheetStart();
+            headerEnd = resumed.getHeaderEnd();
+            headerKnown = true;
+        } else {
+            sheetStart = fileOffset(tagStart);
+            headerKnown = false;
+        }
+    }
+    
+    private void startRow() {
+        long offset = fileOffset(tagStart);
+        int ordinal = rowCount++;
+        if (!headerKnown) {
+            headerEnd = offset;
+            headerKnown = true;
+        }
+        if (ordinal > 0 && ordinal % interval == 0) {
+            rows.add(new long[] {sheetCount - 1, ordinal, offset, sheetStart, headerEnd});
+        }
+    }
+    
+    // the offset in the file of the given position in the stream
+    private long fileOffset(long pos) {
+        if (regions == null) return pos;
+        long base = 0;
+        for (int i = 0; i < regions.length; i += 2) {
+            long length = regions[i + 1] - regions[i];
+            if (pos < base + length) return regions[i] + pos - base;
+            base += length;
+        }
+        return -1;
+    }
+
+}
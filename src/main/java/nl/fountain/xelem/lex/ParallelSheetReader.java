@@ -0,0 +1,444 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import nl.fountain.xelem.Area;
+import nl.fountain.xelem.excel.XLElement;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Reads the worksheets of SpreadsheetML in parallel.
+ * <P>
+ * A first pass over the bytes of the document finds the Worksheet-elements.
+ * Each worksheet is parsed by a task of it's own, with it's own Director 
+ * and builders, as part of a small document that consists of the 
+ * root element and the worksheet. The remaining document, with empty 
+ * Worksheet-elements, is parsed by the ExcelReader. When the builder of
+ * the ExcelReader reaches a Worksheet-element it calls 
+ * {@link #completeSheet(int)}, which waits for the task of that worksheet.
+ * If events are ordered, the tasks record their events and these are
+ * replayed to the listeners of the ExcelReader in the order of the worksheets.
+ * Otherwise the tasks inform the listeners directly.
+ */
+class ParallelSheetReader {
+    
+    private static final Charset LATIN_1 = Charset.forName("ISO-8859-1");
+    private static final Pattern XMLNS = 
+        Pattern.compile("xmlns(?::([^\\s=]+))?\\s*=\\s*([\"'])(.*?)\\2");
+    
+    private byte[] bytes;
+    private String encoding;
+    private int rootEnd;
+    private String rootQName;
+    private List<int[]> sheets; // start, end of start tag, end
+    private List<String> sheetQNames;
+    private List<FutureTask<SheetEvents>> tasks;
+    private List<Map<String, String>> prefixMaps;
+    
+    private Director director;
+    private Map<String, String> prefixMap;
+    private Executor executor;
+    private boolean ordered;
+    
+    ParallelSheetReader(byte[] bytes, String encoding) {
+        this.bytes = bytes;
+        this.encoding = encoding;
+        sheets = new ArrayList<int[]>();
+        sheetQNames = new ArrayList<String>();
+    }
+    
+    /**
+     * Finds the worksheets in the document.
+     * 
+     * @return <code>true</code> if the document contains more than one worksheet
+     * 		and can be read in parallel, <code>false</code> otherwise
+     */
+    boolean scan() {
+        int len = bytes.length;
+        // only encodings in which markup is ASCII
+        if (len < 2 || bytes[0] == 0 || bytes[1] == 0 
+                || (bytes[0] & 0xFF) == 0xFE || (bytes[0] & 0xFF) == 0xFF) {
+            return false;
+        }
+        Set<String> sheetTags = null;
+        int depth = 0;
+        int pos = 0;
+        int sheetStart = -1;
+        int sheetTagEnd = -1;
+        while (true) {
+            int lt = indexOf("<", pos);
+            if (lt < 0) return false;
+            if (startsWith("<!--", lt)) {
+                pos = indexOf("-->", lt + 4);
+            } else if (startsWith("<![CDATA[", lt)) {
+                pos = indexOf("]]>", lt + 9);
+            } else if (startsWith("<?", lt)) {
+                pos = indexOf("?>", lt + 2);
+            } else if (startsWith("<!", lt)) {
+                return false; // a document type declaration might declare entities
+            } else {
+                pos = endOfTag(lt);
+                if (pos < 0) return false;
+                if (bytes[lt + 1] == '/') {
+                    depth--;
+                    if (depth == 1 && sheetStart >= 0) {
+                        sheets.add(new int[] {sheetStart, sheetTagEnd, pos + 1});
+                        sheetStart = -1;
+                    } else if (depth == 0) {
+                        return sheets.size() > 1;
+                    }
+                } else {
+                    boolean empty = bytes[pos - 1] == '/';
+                    String qName = getName(lt + 1);
+                    if (depth == 0) {
+                        if (empty) return false;
+                        rootEnd = pos + 1;
+                        rootQName = qName;
+                        sheetTags = getWorksheetTags(new String(bytes, lt, pos - lt, LATIN_1));
+                    } else if (depth == 1 && sheetTags.contains(qName)) {
+                        sheetQNames.add(qName);
+                        if (empty) {
+                            sheets.add(new int[] {lt, pos + 1, pos + 1});
+                        } else {
+                            sheetStart = lt;
+                            sheetTagEnd = pos + 1;
+                        }
+                    }
+                    if (!empty) depth++;
+                }
+            }
+            if (pos < 0) return false;
+            pos++;
+        }
+    }
+    
+    /**
+     * Prepares the tasks that read the worksheets.
+     * 
+     * @param director	the Director of the ExcelReader
+     * @param prefixMap	the prefix map of the ExcelReader
+     * @param executor	the Executor that runs the tasks
+     * @param ordered	whether events should be delivered in the order of the
+     * 					worksheets, on the thread of the ExcelReader
+     */
+    void prepare(Director director, Map<String, String> prefixMap, Executor executor, 
+            boolean ordered) {
+        this.director = director;
+        this.prefixMap = prefixMap;
+        this.executor = executor;
+        this.ordered = ordered;
+    }
+    
+    /**
+     * Starts the tasks that read the worksheets. Called when the builder
+     * of the ExcelReader starts to build the workbook.
+     */
+    void start() {
+        if (tasks != null) return;
+        tasks = new ArrayList<FutureTask<SheetEvents>>();
+        prefixMaps = new ArrayList<Map<String, String>>();
+        Area area = director.hasBuildArea() ? director.getBuildArea() : null;
+        for (int i = 0; i < sheets.size(); i++) {
+            Map<String, String> prefixes = new HashMap<String, String>();
+            FutureTask<SheetEvents> task = new FutureTask<SheetEvents>(
+                    new SheetTask(i, area, ordered, prefixes));
+            tasks.add(task);
+            prefixMaps.add(prefixes);
+            executor.execute(task);
+        }
+    }
+    
+    /**
+     * Gets the document without the contents of the worksheets.
+     */
+    byte[] getSkeleton() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int pos = 0;
+        for (int i = 0; i < sheets.size(); i++) {
+            int[] sheet = sheets.get(i);
+            out.write(bytes, pos, sheet[1] - pos);
+            if (sheet[1] != sheet[2]) {
+                byte[] endTag = ("</" + sheetQNames.get(i) + ">").getBytes(LATIN_1);
+                out.write(endTag, 0, endTag.length);
+            }
+            pos = sheet[2];
+        }
+        out.write(bytes, pos, bytes.length - pos);
+        return out.toByteArray();
+    }
+    
+    /**
+     * Waits for the task that reads the worksheet with the given index and
+     * replays it's events, if they were recorded.
+     */
+    void completeSheet(int sheetIndex) throws SAXException {
+        start();
+        SheetEvents events;
+        try {
+            events = tasks.get(sheetIndex).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SAXException(new InterruptedIOException(
+                    "Interrupted while reading worksheets."));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SAXException) {
+                throw (SAXException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new SAXException((Exception) cause);
+        }
+        prefixMap.putAll(prefixMaps.get(sheetIndex));
+        if (events != null) {
+            events.replay(director);
+        }
+    }
+    
+    /**
+     * Cancels the tasks that are still running.
+     */
+    void cancel() {
+        if (tasks == null) return;
+        for (FutureTask<SheetEvents> task : tasks) {
+            task.cancel(true);
+        }
+    }
+    
+    private byte[] getSheetDocument(int sheetIndex) {
+        int[] sheet = sheets.get(sheetIndex);
+        byte[] endTag = ("</" + rootQName + ">").getBytes(LATIN_1);
+        int sheetLength = sheet[2] - sheet[0];
+        byte[] doc = new byte[rootEnd + sheetLength + endTag.length];
+        System.arraycopy(bytes, 0, doc, 0, rootEnd);
+        System.arraycopy(bytes, sheet[0], doc, rootEnd, sheetLength);
+        System.arraycopy(endTag, 0, doc, rootEnd + sheetLength, endTag.length);
+        return doc;
+    }
+    
+    private Set<String> getWorksheetTags(String rootTag) {
+        Set<String> tags = new HashSet<String>();
+        Matcher m = XMLNS.matcher(rootTag);
+        while (m.find()) {
+            if (XLElement.XMLNS_SS.equals(m.group(3))) {
+                tags.add(m.group(1) == null ? "Worksheet" : m.group(1) + ":Worksheet");
+            }
+        }
+        return tags;
+    }
+    
+    private String getName(int start) {
+        int end = start;
+        while (end < bytes.length) {
+            byte b = bytes[end];
+            if (b == '>' || b == '/' || b == ' ' || b == '\t' || b == '\n' || b == '\r') {
+                break;
+            }
+            end++;
+        }
+        return new String(bytes, start, end - start, LATIN_1);
+    }
+    
+    private int endOfTag(int lt) {
+        byte quote = 0;
+        for (int i = lt + 1; i < bytes.length; i++) {
+            byte b = bytes[i];
+            if (quote != 0) {
+                if (b == quote) quote = 0;
+            } else if (b == '"' || b == '\'') {
+                quote = b;
+            } else if (b == '>') {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    // returns the index of the last byte of s, -1 if not found
+    private int indexOf(String s, int from) {
+        int last = bytes.length - s.length();
+        char first = s.charAt(0);
+        for (int i = from; i <= last; i++) {
+            if (bytes[i] == first && startsWith(s, i)) {
+                return i + s.length() - 1;
+            }
+        }
+        return -1;
+    }
+    
+    private boolean startsWith(String s, int pos) {
+        if (pos + s.length() > bytes.length) return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (bytes[pos + i] != s.charAt(i)) return false;
+        }
+        return true;
+    }
+    
+    ///////////////////////////////////////////////////////////////
+    private class SheetTask implements Callable<SheetEvents> {
+        
+        private int sheetIndex;
+        private Area area;
+        private boolean ordered;
+        private Map<String, String> prefixes;
+        
+        SheetTask(int sheetIndex, Area area, boolean ordered, Map<String, String> prefixes) {
+            this.sheetIndex = sheetIndex;
+            this.area = area;
+            this.ordered = ordered;
+            this.prefixes = prefixes;
+        }
+
+        public SheetEvents call() throws Exception {
+            Director sheetDirector = new Director();
+            sheetDirector.setBuildArea(area);
+            sheetDirector.setFirstSheetIndex(sheetIndex);
+            sheetDirector.setSheetSelection(director.getSheetSelection());
+            sheetDirector.setRowPredicate(director.getRowPredicate());
+            sheetDirector.setColumnProjection(director.getColumnProjection());
+            // recorded events keep their rows
+            sheetDirector.setReuseRows(director.isReuseRows() && !ordered);
+            sheetDirector.setDecodeValues(director.isDecodeValues());
+            SheetEvents events = null;
+            if (ordered) {
+                events = new SheetEvents();
+                events.setEventMask(EventMasks.getEventMask(director.getListeners()));
+                if (!director.getListeners().isEmpty()) {
+                    sheetDirector.addExcelReaderListener(events);
+                }
+                if (!director.getCellValueListeners().isEmpty()) {
+                    sheetDirector.addCellValueListener(events);
+                }
+            } else {
+                for (ExcelReaderListener listener : director.getListeners()) {
+                    sheetDirector.addExcelReaderListener(listener);
+                }
+                for (CellValueListener listener : director.getCellValueListeners()) {
+                    sheetDirector.addCellValueListener(listener);
+                }
+            }
+            SAXParserFactory spf = SAXParserFactory.newInstance();
+            spf.setNamespaceAware(true);
+            XMLReader reader = spf.newSAXParser().getXMLReader();
+            SheetHandler handler = new SheetHandler(reader, sheetDirector, prefixes);
+            reader.setContentHandler(handler);
+            reader.setErrorHandler(handler);
+            InputSource source = new InputSource(new ByteArrayInputStream(
+                    getSheetDocument(sheetIndex)));
+            source.setEncoding(encoding);
+            try {
+                reader.parse(source);
+            } catch (ReadStoppedException e) {
+                // all selected worksheets of this document were read
+            }
+            return events;
+        }
+        
+    }
+    
+    ///////////////////////////////////////////////////////////////
+    private static class SheetHandler extends DefaultHandler {
+        
+        private XMLReader reader;
+        private Director director;
+        private Map<String, String> prefixes;
+        
+        SheetHandler(XMLReader reader, Director director, Map<String, String> prefixes) {
+            this.reader = reader;
+            this.director = director;
+            this.prefixes = prefixes;
+        }
+        
+        public void startPrefixMapping(String prefix, String uri) throws SAXException {
+            prefixes.put(prefix, uri);
+        }
+        
+        public void startElement(String uri, String localName, String qName,
+                Attributes attributes) throws SAXException {
+            if (XLElement.XMLNS_SS.equals(uri) && "Workbook".equals(localName)) {
+                director.getXLWorkbookBuilder().build(reader, this);               
+            }       
+        }
+        
+        public void fatalError(SAXParseException e) throws SAXException {
+            throw e;
+        }
+        
+        public void error(SAXParseException e) throws SAXException {
+            throw e;
+        }
+        
+        public void warning(SAXParseException e) throws SAXException {
+            throw e;
+        }
+        
+    }
+    
+    ///////////////////////////////////////////////////////////////
+    /**
+     * Records the events of one worksheet.
+     */
+    private static class SheetEvents extends EventRecorder {
+        
+        private List<Event> events = new ArrayList<Event>();
+        
+        void record(Event event) {
+            events.add(event);
+        }
+        
+        void replay(Director director) {
+            for (Event event : events) {
+                event.fire(director.getListeners(), director.getCellValueListeners());
+            }
+        }
+        
+    }
+
+}
@@ -0,0 +1,260 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+/**
+ * Stops a read before the end of the document. 
+ * <P>
+ * A ReadControl that is {@link ExcelReader#setReadControl(ReadControl) set} 
+ * on an ExcelReader stops a read when one of it's limits is reached: 
+ * the number of rows that were delivered, the number of bytes that were 
+ * read from the input or the deadline. A read can also be stopped by 
+ * calling {@link #stop()}, from a listener or from any other thread. 
+ * <P>
+ * The limits are checked at the start of every row and after every row 
+ * that was delivered. A read that reaches the row limit stops at the start 
+ * of the next row, so that a document with exactly as many rows as the limit 
+ * is read to the end and is not truncated. When a read is stopped, parsing ends and the input is closed. 
+ * Listeners recieve endWorksheet for the worksheet that was being read and 
+ * endDocument; during these calls and after the read, 
+ * {@link #isTruncated()} returns <code>true</code> and {@link #getReason()}
+ * tells why the read was stopped. A read that ends normally, or that ends 
+ * after the read area or after the selected worksheets, is not truncated.
+ * <P>
+ * The counts and the reason are cleared at the start of every read. 
+ * A request to {@link #stop() stop} is not: a ReadControl that was stopped
+ * stops every read until it is {@link #reset() reset}. 
+ */
+public class ReadControl {
+    
+    /**
+     * The reason of a read that was not stopped.
+     */
+    public static final int NOT_STOPPED = 0;
+    /**
+     * The reason of a read that was stopped by {@link #stop()}.
+     */
+    public static final int STOPPED = 1;
+    /**
+     * The reason of a read that was stopped at the row limit.
+     */
+    public static final int ROW_LIMIT = 2;
+    /**
+     * The reason of a read that was stopped at the byte limit.
+     */
+    public static final int BYTE_LIMIT = 3;
+    /**
+     * The reason of a read that was stopped at the deadline.
+     */
+    public static final int DEADLINE = 4;
+    
+    private long rowLimit = Long.MAX_VALUE;
+    private long byteLimit = Long.MAX_VALUE;
+    private long deadline = Long.MAX_VALUE;
+    private volatile boolean stopRequested;
+    private volatile int reason;
+    private volatile long rowCount;
+    private volatile long bytesRead;
+    
+    /**
+     * Sets the maximum number of rows that are delivered to listeners.
+     * Rows that are skipped, because they are outside the read area or are 
+     * rejected by the row predicate, are not counted.
+     * 
+     * @param limit	the maximum number of rows, <code>Long.MAX_VALUE</code> 
+     * 				for no limit
+     * @throws IllegalArgumentException if limit is less than 1
+     */
+    public void setRowLimit(long limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit < 1: " + limit);
+        }
+        rowLimit = limit;
+    }
+    
+    /**
+     * Gets the maximum number of rows that are delivered to listeners.
+     * 
+     * @return the row limit
+     */
+    public long getRowLimit() {
+        return rowLimit;
+    }
+    
+    /**
+     * Sets the number of bytes after which a read is stopped. 
+     * The parser reads it's input in blocks, so a read may proceed a block 
+     * beyond this limit. Characters of a character stream are counted as bytes.
+     * 
+     * @param limit	the number of bytes, <code>Long.MAX_VALUE</code> 
+     * 				for no limit
+     * @throws IllegalArgumentException if limit is less than 1
+     */
+    public void setByteLimit(long limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit < 1: " + limit);
+        }
+        byteLimit = limit;
+    }
+    
+    /**
+     * Gets the number of bytes after which a read is stopped.
+     * 
+     * @return the byte limit
+     */
+    public long getByteLimit() {
+        return byteLimit;
+    }
+    
+    /**
+     * Sets the time at which a read is stopped.
+     * 
+     * @param millis	the deadline in milliseconds since the epoch,
+     * 					<code>Long.MAX_VALUE</code> for no deadline
+     */
+    public void setDeadline(long millis) {
+        deadline = millis;
+    }
+    
+    /**
+     * Sets the deadline at the given number of milliseconds from now.
+     * 
+     * @param millis	the number of milliseconds a read may take
+     */
+    public void setTimeout(long millis) {
+        deadline = System.currentTimeMillis() + millis;
+    }
+    
+    /**
+     * Gets the time at which a read is stopped.
+     * 
+     * @return the deadline in milliseconds since the epoch
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+    
+    /**
+     * Stops the read that is in progress and all following reads, until 
+     * this ReadControl is reset. May be called from any thread.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+    
+    /**
+     * Withdraws a request to stop and clears the counts and the reason.
+     */
+    public void reset() {
+        stopRequested = false;
+        startRead();
+    }
+    
+    /**
+     * Specifies whether the last read was stopped by this ReadControl.
+     * 
+     * @return <code>true</code> if the read was stopped before 
+     * 		the end of the document
+     */
+    public boolean isTruncated() {
+        return reason != NOT_STOPPED;
+    }
+    
+    /**
+     * Gets the reason why the last read was stopped.
+     * 
+     * @return one of the constants of this class, 
+     * 		{@link #NOT_STOPPED} if the read was not stopped
+     */
+    public int getReason() {
+        return reason;
+    }
+    
+    /**
+     * Gets the number of rows that were delivered during the last read.
+     * 
+     * @return the number of rows
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+    
+    /**
+     * Gets the number of bytes that were read from the input during the 
+     * last read.
+     * 
+     * @return the number of bytes
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+    
+    void startRead() {
+        reason = NOT_STOPPED;
+        rowCount = 0;
+        bytesRead = 0;
+    }
+    
+    void addBytes(long n) {
+        bytesRead += n;
+    }
+    
+    void setBytesRead(long n) {
+        bytesRead = n;
+    }
+    
+    /**
+     * Counts a delivered row. Returns <code>true</code> if the read
+     * should stop.
+     */
+    boolean rowCompleted() {
+        rowCount++;
+        return check();
+    }
+    
+    /**
+     * Returns <code>true</code> if the read should stop.
+     */
+    boolean check() {
+        if (stopRequested) {
+            reason = STOPPED;
+        } else if (bytesRead >= byteLimit) {
+            reason = BYTE_LIMIT;
+        } else if (deadline != Long.MAX_VALUE && System.currentTimeMillis() >= deadline) {
+            reason = DEADLINE;
+        }
+        return reason != NOT_STOPPED;
+    }
+    
+    /**
+     * Called at the start of a row. Returns <code>true</code> if the read 
+     * should stop.
+     */
+    boolean rowStarted() {
+        if (rowCount >= rowLimit) {
+            reason = ROW_LIMIT;
+            return true;
+        }
+        return check();
+    }
+
+}
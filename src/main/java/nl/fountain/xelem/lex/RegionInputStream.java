@@ -0,0 +1,82 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads regions of a file, followed by some bytes of it's own. 
+ * The regions are read with positional reads on a FileChannel, so only 
+ * the bytes of the regions are read from the file.
+ */
+class RegionInputStream extends InputStream {
+    
+    private FileChannel channel;
+    private long[] regions;
+    private byte[] tail;
+    private int region;
+    private long position;
+    private int tailPos;
+    
+    /**
+     * @param channel	the channel of the file
+     * @param regions	pairs of start and end offsets
+     * @param tail		the bytes that follow the regions
+     */
+    RegionInputStream(FileChannel channel, long[] regions, byte[] tail) {
+        this.channel = channel;
+        this.regions = regions;
+        this.tail = tail;
+        position = regions.length > 0 ? regions[0] : 0;
+    }
+    
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+    }
+    
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        while (region < regions.length && position >= regions[region + 1]) {
+            region += 2;
+            if (region < regions.length) position = regions[region];
+        }
+        if (region < regions.length) {
+            int n = (int) Math.min(len, regions[region + 1] - position);
+            int read = channel.read(ByteBuffer.wrap(b, off, n), position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of file at " + position + ".");
+            }
+            position += read;
+            return read;
+        }
+        if (tailPos == tail.length) return -1;
+        int n = Math.min(len, tail.length - tailPos);
+        System.arraycopy(tail, tailPos, b, off, n);
+        tailPos += n;
+        return n;
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+import java.util.List;
+
+import nl.fountain.xelem.excel.Row;
+
+/**
+ * An ExcelReaderListener that recieves rows in batches. Rows are collected
+ * and passed in batches by a {@link RowBatcher}; the setRow-method of 
+ * a RowBatchListener registered with a RowBatcher is not called.
+ * 
+ * @see RowBatcher
+ */
+public interface RowBatchListener extends ExcelReaderListener {
+    
+    /**
+     * Recieve notification of a batch of rows. The rows are in the order 
+     * in which they were read and all belong to the same worksheet.
+     * The list is only valid during this call; the rows themselves
+     * may be kept.
+     * 
+     * @param sheetIndex	the index of the worksheet (0-based)
+     * @param sheetName		the name of the worksheet
+     * @param batch			the rows that were read since the previous batch
+     */
+    void setRows(int sheetIndex, String sheetName, List<Row> batch);
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import nl.fountain.xelem.excel.Row;
+
+/**
+ * Collects rows and passes them in batches to it's 
+ * {@link RowBatchListener RowBatchListeners}. A batch is passed when it
+ * holds the maximum number of rows, when the total number of cells in
+ * the batch reaches the maximum number of cells, and at the end of 
+ * each worksheet, before endWorksheet is passed. All other events, and rows 
+ * for listeners that are not RowBatchListeners, are passed unfiltered.
+ * <PRE>
+ *     RowBatcher batcher = new RowBatcher(500);
+ *     batcher.addExcelReaderListener(myJdbcListener);
+ *     reader.addExcelReaderListener(batcher);
+ * </PRE>
+ * Rows in a batch must be distinct: an ExcelReader that 
+ * {@link ExcelReader#setReuseRows(boolean) reuses rows} cannot read 
+ * with a RowBatcher.
+ */
+public class RowBatcher extends DefaultExcelReaderFilter {
+    
+    private int maxRows;
+    private int maxCells;
+    private List<Row> batch;
+    private int cellCount;
+    private int sheetIndex;
+    private String sheetName;
+    
+    /**
+     * Creates a new RowBatcher that passes batches of at most the 
+     * given number of rows.
+     * 
+     * @param maxRows	the maximum number of rows in a batch
+     * @throws IllegalArgumentException if maxRows is less than 1
+     */
+    public RowBatcher(int maxRows) {
+        this(maxRows, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Creates a new RowBatcher that passes batches of at most the 
+     * given number of rows. A batch is also passed as soon as it holds 
+     * the given number of cells, which keeps the size of batches of 
+     * wide rows within bounds.
+     * 
+     * @param maxRows	the maximum number of rows in a batch
+     * @param maxCells	the number of cells at which a batch is passed
+     * @throws IllegalArgumentException if maxRows or maxCells is less than 1
+     */
+    public RowBatcher(int maxRows, int maxCells) {
+        if (maxRows < 1 || maxCells < 1) {
+            throw new IllegalArgumentException("maxRows = " + maxRows 
+                    + ", maxCells = " + maxCells);
+        }
+        this.maxRows = maxRows;
+        this.maxCells = maxCells;
+        batch = new ArrayList<Row>(Math.min(maxRows, 1024));
+    }
+    
+    /**
+     * Gets the maximum number of rows in a batch.
+     * 
+     * @return the maximum number of rows in a batch
+     */
+    public int getMaxRows() {
+        return maxRows;
+    }
+    
+    /**
+     * Gets the number of cells at which a batch is passed.
+     * 
+     * @return the maximum number of cells in a batch
+     */
+    public int getMaxCells() {
+        return maxCells;
+    }
+    
+    /**
+     * Discards rows left over from a previous read that did not end normally,
+     * and passes the event.
+     */
+    public void startDocument() {
+        batch.clear();
+        cellCount = 0;
+        super.startDocument();
+    }
+    
+    /**
+     * Adds the row to the current batch and passes the batch if it is full.
+     * Passes the row to listeners that are not RowBatchListeners.
+     */
+    public void setRow(int sheetIndex, String sheetName, Row row) {
+        boolean batched = false;
+        for (ExcelReaderListener l : getListeners()) {
+            if (l instanceof RowBatchListener) {
+                batched = true;
+            } else {
+                l.setRow(sheetIndex, sheetName, row);
+            }
+        }
+        if (!batched) return;
+        boolean sameName = sheetName == null 
+        		? this.sheetName == null : sheetName.equals(this.sheetName);
+        if (!batch.isEmpty() && (sheetIndex != this.sheetIndex || !sameName)) {
+            flush();
+        }
+        this.sheetIndex = sheetIndex;
+        this.sheetName = sheetName;
+        batch.add(row);
+        cellCount += row.size();
+        if (batch.size() >= maxRows || cellCount >= maxCells) {
+            flush();
+        }
+    }
+    
+    /**
+     * Passes the current batch and then the event.
+     */
+    public void endWorksheet(int sheetIndex, String sheetName) {
+        flush();
+        super.endWorksheet(sheetIndex, sheetName);
+    }
+    
+    /**
+     * Passes the current batch, if the read ended within a worksheet,
+     * and then the event.
+     */
+    public void endDocument(Map<String, String> prefixMap) {
+        flush();
+        super.endDocument(prefixMap);
+    }
+    
+    /**
+     * Passes the rows collected so far to the RowBatchListeners. 
+     * Does nothing if no rows were collected.
+     */
+    public void flush() {
+        if (batch.isEmpty()) return;
+        try {
+            for (ExcelReaderListener l : getListeners()) {
+                if (l instanceof RowBatchListener) {
+                    ((RowBatchListener) l).setRows(sheetIndex, sheetName, batch);
+                }
+            }
+        } finally {
+            batch.clear();
+            cellCount = 0;
+        }
+    }
+
+}
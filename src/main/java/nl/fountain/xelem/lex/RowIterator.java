@@ -0,0 +1,334 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import nl.fountain.xelem.Area;
+import nl.fountain.xelem.excel.Cell;
+import nl.fountain.xelem.excel.Comment;
+import nl.fountain.xelem.excel.Row;
+import nl.fountain.xelem.excel.XLElement;
+import nl.fountain.xelem.excel.ss.SSRow;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Iterates the rows of a worksheet while reading SpreadsheetML.
+ * <P>
+ * A RowIterator pulls the rows from the underlying stream: the stream is 
+ * parsed only as far as needed to deliver the next row. The rows and their
+ * cells are the same as the rows delivered to 
+ * {@link ExcelReaderListener#setRow(int, String, Row)} by an ExcelReader with
+ * the same read area. Rows outside the read area are skipped.
+ * <P>
+ * A RowIterator should be closed when it is no longer needed. It is closed
+ * automatically when the last row was read.
+ * <PRE>
+ *     RowIterator iter = reader.openRows(new InputSource("foo.xml"), "Sheet1");
+ *     try {
+ *         while (iter.hasNext()) {
+ *             Row row = iter.next();
+ *             ...
+ *         }
+ *     } finally {
+ *         iter.close();
+ *     }
+ * </PRE>
+ * The methods hasNext and next throw a RuntimeException with an
+ * XMLStreamException as cause when the stream cannot be read. 
+ *
+ * @see ExcelReader#openRows(org.xml.sax.InputSource, String)
+ */
+public class RowIterator implements Iterator<Row>, Closeable {
+    
+    private XMLStreamReader xsr;
+    private Closeable stream;
+    private String requestedSheetName;
+    private Area area;
+    
+    private int sheetIndex = -1;
+    private String sheetName;
+    private boolean found;
+    private boolean inSheet;
+    private int currentRowIndex;
+    private Row next;
+    private boolean closed;
+    
+    private AttributesImpl atts;
+    private StringBuilder text;
+    
+    RowIterator(XMLStreamReader xsr, Closeable stream, String sheetName, Area area) {
+        this.xsr = xsr;
+        this.stream = stream;
+        this.requestedSheetName = sheetName;
+        this.area = area;
+        atts = new AttributesImpl();
+        text = new StringBuilder();
+    }
+    
+    /**
+     * Gets the index of the worksheet that is read, counting from 0.
+     * 
+     * @return	the index of the worksheet, -1 if the worksheet was not
+     * 			(yet) found
+     */
+    public int getSheetIndex() {
+        return found ? sheetIndex : -1;
+    }
+    
+    /**
+     * Gets the name of the worksheet that is read.
+     * 
+     * @return	the name of the worksheet, <code>null</code> if the worksheet
+     * 			was not (yet) found
+     */
+    public String getSheetName() {
+        return sheetName;
+    }
+
+    public boolean hasNext() {
+        if (next == null && !closed) {
+            try {
+                next = readRow();
+            } catch (XMLStreamException e) {
+                closeQuietly();
+                throw new RuntimeException(e);
+            }
+            if (next == null) {
+                closeQuietly();
+            }
+        }
+        return next != null;
+    }
+
+    public Row next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Row row = next;
+        next = null;
+        return row;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * Stops reading and closes the underlying stream.
+     */
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        next = null;
+        try {
+            xsr.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+    
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            // nothing to be done
+        }
+    }
+    
+    private Row readRow() throws XMLStreamException {
+        while (xsr.hasNext()) {
+            int event = xsr.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (!XLElement.XMLNS_SS.equals(xsr.getNamespaceURI())) {
+                    if (inSheet) skipElement();
+                } else if (!inSheet) {
+                    if ("Worksheet".equals(xsr.getLocalName())) {
+                        startWorksheet();
+                    } else if (!"Workbook".equals(xsr.getLocalName())) {
+                        skipElement();
+                    }
+                } else if ("Row".equals(xsr.getLocalName())) {
+                    String index = xsr.getAttributeValue(XLElement.XMLNS_SS, "Index");
+                    if (index != null) {
+                        currentRowIndex = Integer.parseInt(index);
+                    } else {
+                        currentRowIndex++;
+                    }
+                    if (area != null && currentRowIndex > area.getLastRow()) {
+                        // the rest of the rows are outside the area
+                        return null;
+                    }
+                    if (area == null || area.isRowPartOfArea(currentRowIndex)) {
+                        return buildRow();
+                    }
+                    skipElement();
+                } else if (!"Table".equals(xsr.getLocalName())) {
+                    skipElement();
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT && inSheet
+                    && "Worksheet".equals(xsr.getLocalName())
+                    && XLElement.XMLNS_SS.equals(xsr.getNamespaceURI())) {
+                inSheet = false;
+                return null;
+            }
+        }
+        return null;
+    }
+    
+    private void startWorksheet() throws XMLStreamException {
+        sheetIndex++;
+        String name = xsr.getAttributeValue(XLElement.XMLNS_SS, "Name");
+        if (requestedSheetName == null || requestedSheetName.equals(name)) {
+            sheetName = name;
+            found = true;
+            inSheet = true;
+            currentRowIndex = 0;
+        } else {
+            skipElement();
+        }
+    }
+    
+    // see SSWorksheetBuilder and SSRowBuilder
+    private Row buildRow() throws XMLStreamException {
+        Row row = new SSRow();
+        row.setIndex(currentRowIndex);
+        row.setAttributes(getAttributes());
+        int currentCellIndex = 0;
+        while (true) {
+            int event = xsr.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (XLElement.XMLNS_SS.equals(xsr.getNamespaceURI())
+                        && "Cell".equals(xsr.getLocalName())) {
+                    String index = xsr.getAttributeValue(XLElement.XMLNS_SS, "Index");
+                    if (index != null) {
+                        currentCellIndex = Integer.parseInt(index);
+                    } else {
+                        currentCellIndex++;
+                    }
+                    if (area == null || area.isColumnPartOfArea(currentCellIndex)) {
+                        Cell cell = row.addCellAt(currentCellIndex);
+                        cell.setIndex(currentCellIndex);
+                        cell.setAttributes(getAttributes());
+                        buildCell(cell);
+                        continue;
+                    }
+                }
+                skipElement();
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                return row;
+            }
+        }
+    }
+    
+    // see SSCellBuilder
+    private void buildCell(Cell cell) throws XMLStreamException {
+        int depth = 0;
+        while (true) {
+            int event = xsr.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                text.setLength(0);
+                if (XLElement.XMLNS_SS.equals(xsr.getNamespaceURI())) {
+                    if ("Data".equals(xsr.getLocalName())) {
+                        cell.setAttributes(getAttributes());
+                    } else if ("Comment".equals(xsr.getLocalName())) {
+                        Comment comment = cell.addComment();
+                        comment.setAttributes(getAttributes());
+                        buildComment(comment);
+                        continue;
+                    }
+                }
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (depth-- == 0) return;
+                cell.setChildElement(xsr.getLocalName(), text.toString());
+            } else {
+                appendText();
+            }
+        }
+    }
+    
+    // see AnonymousBuilder
+    private void buildComment(Comment comment) throws XMLStreamException {
+        int depth = 0;
+        while (true) {
+            int event = xsr.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (!XLElement.XMLNS_HTML.equals(xsr.getNamespaceURI())) {
+                    text.setLength(0);
+                }
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (depth-- == 0) return;
+                comment.setChildElement(xsr.getLocalName(), text.toString());
+            } else {
+                appendText();
+            }
+        }
+    }
+    
+    private void appendText() {
+        if (xsr.hasText()) {
+            text.append(xsr.getTextCharacters(), xsr.getTextStart(), xsr.getTextLength());
+        }
+    }
+    
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = xsr.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+    
+    private Attributes getAttributes() {
+        atts.clear();
+        for (int i = 0; i < xsr.getAttributeCount(); i++) {
+            String uri = xsr.getAttributeNamespace(i);
+            String localName = xsr.getAttributeLocalName(i);
+            String prefix = xsr.getAttributePrefix(i);
+            String qName = prefix == null || prefix.length() == 0 ? 
+                    localName : prefix + ":" + localName;
+            atts.addAttribute(uri == null ? "" : uri, localName, qName, 
+                    "CDATA", xsr.getAttributeValue(i));
+        }
+        return atts;
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+import nl.fountain.xelem.excel.Row;
+
+/**
+ * Decides which rows are delivered by an {@link ExcelReader}. The decision is
+ * taken while the row is being read, as soon as the cells of the key columns
+ * were read. Rows that are not accepted never reach 
+ * {@link ExcelReaderListener#setRow setRow} or 
+ * {@link ExcelReaderListener#setCell setCell}, and the rest of their cells
+ * is skipped.
+ * 
+ * @see ExcelReader#setRowPredicate(RowPredicate)
+ */
+public interface RowPredicate {
+    
+    /**
+     * Gets the indexes of the columns that are needed to decide on a row. 
+     * Called once, when this RowPredicate is set on the ExcelReader.
+     * 
+     * @return the 1-based indexes of the key columns, <code>null</code> if 
+     * 		all the cells of a row are needed
+     */
+    int[] getKeyColumns();
+    
+    /**
+     * Specifies whether the given row should be delivered.
+     * 
+     * @param sheetIndex	the index of the worksheet (0-based)
+     * @param sheetName		the name of the worksheet
+     * @param row			the row that is being read. It has the cells of 
+     * 		the key columns that are within the read area, and may have 
+     * 		the cells before these columns as well
+     * @return	<code>true</code> if the row should be delivered, 
+     * 			<code>false</code> otherwise
+     */
+    boolean accept(int sheetIndex, String sheetName, Row row);
+
+}
@@ -64,12 +64,11 @@ class SSCellBuilder extends AnonymousBuilder {
     public void endElement(String uri, String localName, String qName) throws SAXException {
         if (current.getNameSpace().equals(uri)) {
             if (current.getTagName().equals(localName)) {
-            	for (ExcelReaderListener listener : director.getListeners()) {
-                    listener.setCell(director.getCurrentSheetIndex(),
-                            director.getCurrentSheetName(), 
-                            director.getCurrentRowIndex(), current);
-                }
                 reader.setContentHandler(parent);
+                if (director.isDecodeValues()) {
+                    current.decode();
+                }
+                director.getSSRowBuilder().cellCompleted(current);
                 return;
             }
         }
@@ -20,9 +20,13 @@
  */
 package nl.fountain.xelem.lex;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import nl.fountain.xelem.excel.Cell;
 import nl.fountain.xelem.excel.Row;
 import nl.fountain.xelem.excel.XLElement;
+import nl.fountain.xelem.excel.ss.SSCell;
 import nl.fountain.xelem.excel.ss.SSRow;
 
 import org.xml.sax.Attributes;
@@ -37,6 +41,10 @@ class SSRowBuilder extends AnonymousBuilder {
     
     private Row currentRow;
     private int currentCellIndex;
+    private List<SSCell> reusableCells;
+    private int reusedCellCount;
+    private boolean decided;
+    private boolean rejected;
     
     SSRowBuilder(Director director) {
         super(director);
@@ -46,6 +54,9 @@ class SSRowBuilder extends AnonymousBuilder {
         setUpBuilder(reader, parent);
         currentRow = (SSRow) xle;
         currentCellIndex = 0;
+        reusedCellCount = 0;
+        decided = director.getRowPredicate() == null;
+        rejected = false;
     }
     
     public void startElement(String uri, String localName, String qName,
@@ -58,8 +69,18 @@ class SSRowBuilder extends AnonymousBuilder {
                 } else {
                     currentCellIndex++;
                 }
-                if (director.getBuildArea().isColumnPartOfArea(currentCellIndex)) {
-	                Cell cell = currentRow.addCellAt(currentCellIndex);
+                if (!decided && currentCellIndex > director.getLastKeyColumn()) {
+                    decide();
+                }
+                if (rejected || currentCellIndex > director.getBuildArea().getLastColumn()) {
+                    // cells are in ascending order: skip the rest of the row
+                    director.getElementSkipper().skip(reader, this, 2);
+                } else if (!director.getBuildArea().isColumnPartOfArea(currentCellIndex)
+                        || !(director.isColumnProjected(currentCellIndex) 
+                                || (!decided && director.isKeyColumn(currentCellIndex)))) {
+                    director.getElementSkipper().skip(reader, this, 1);
+                } else {
+	                Cell cell = currentRow.addCellAt(currentCellIndex, getCell());
 	                cell.setIndex(currentCellIndex);
 	                cell.setAttributes(atts);
 	                Builder builder = director.getSSCellBuilder();
@@ -69,14 +90,82 @@ class SSRowBuilder extends AnonymousBuilder {
         }
     }
     
+    private Cell getCell() {
+        if (!director.isReuseRows()) {
+            return new SSCell();
+        }
+        if (reusableCells == null) {
+            reusableCells = new ArrayList<SSCell>();
+        }
+        SSCell cell;
+        if (reusedCellCount < reusableCells.size()) {
+            cell = reusableCells.get(reusedCellCount);
+            cell.reset();
+        } else {
+            cell = new SSCell();
+            reusableCells.add(cell);
+        }
+        reusedCellCount++;
+        return cell;
+    }
+    
+    /**
+     * Called by the SSCellBuilder when a cell of the current row was built.
+     */
+    void cellCompleted(Cell cell) {
+        if (decided) {
+            fireCell(cell);
+        }
+    }
+    
+    /*
+     * Cells that were built before the decision are delivered 
+     * if the row is accepted.
+     */
+    private void decide() {
+        decided = true;
+        rejected = !director.getRowPredicate().accept(director.getCurrentSheetIndex(),
+                director.getCurrentSheetName(), currentRow);
+        if (rejected) return;
+        List<Cell> cells = new ArrayList<Cell>(currentRow.getCells());
+        for (Cell cell : cells) {
+            if (director.isColumnProjected(cell.getIndex())) {
+                fireCell(cell);
+            } else {
+                currentRow.removeCellAt(cell.getIndex());
+            }
+        }
+    }
+    
+    private void fireCell(Cell cell) {
+    	for (ExcelReaderListener listener : director.getListeners()) {
+            listener.setCell(director.getCurrentSheetIndex(),
+                    director.getCurrentSheetName(), 
+                    director.getCurrentRowIndex(), cell);
+        }
+        if (!director.getCellValueListeners().isEmpty()) {
+            director.getCellValueDispatcher().dispatch(
+                    director.getCellValueListeners(), director.getCurrentSheetIndex(),
+                    director.getCurrentRowIndex(), cell);
+        }
+    }
+    
     public void endElement(String uri, String localName, String qName) throws SAXException {
         if (currentRow.getTagName().equals(localName)) {
             if (currentRow.getNameSpace().equals(uri)) {
+                if (!decided) {
+                    decide();
+                }
+                if (rejected) {
+                    reader.setContentHandler(parent);
+                    return;
+                }
             	for (ExcelReaderListener listener : director.getListeners()) {
                     listener.setRow(director.getCurrentSheetIndex(),
                             director.getCurrentSheetName(), currentRow);
                 }
                 reader.setContentHandler(parent);
+                director.rowCompleted();
                 return;
             }
         }
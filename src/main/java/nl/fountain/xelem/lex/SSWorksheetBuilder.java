@@ -46,6 +46,8 @@ class SSWorksheetBuilder extends AnonymousBuilder {
 
     private int currentRowIndex;
     private int currentColumnIndex;
+    private int rowOrdinal;
+    private SSRow reusableRow;
     
     SSWorksheetBuilder(Director director) {
         super(director);
@@ -53,8 +55,12 @@ class SSWorksheetBuilder extends AnonymousBuilder {
 
     public void build(XMLReader reader, ContentHandler parent) {
         setUpBuilder(reader, parent);
-        currentRowIndex = 0;
+        // a worksheet may be read from an indexed row or checkpoint onwards
+        currentRowIndex = director.getCurrentSheetIndex() == director.getFirstSheetIndex()
+        		? director.getRowIndexBase() : 0;
         currentColumnIndex = 0;
+        rowOrdinal = 0;
+        director.setWorksheetOpen(true);
     }
     
     public void startElement(String uri, String localName, String qName,
@@ -63,10 +69,15 @@ class SSWorksheetBuilder extends AnonymousBuilder {
 	        startSSElement(localName, atts);
         } else if (XLElement.XMLNS_X.equals(uri)) {
             if ("WorksheetOptions".equals(localName)) {
+                if (!director.wants(SelectiveListener.WORKSHEET_OPTIONS)) {
+                    director.getElementSkipper().skip(reader, this, 1);
+                    return;
+                }
                 WorksheetOptions wso = new XWorksheetOptions();
                 Builder builder = director.getAnonymousBuilder();
                 builder.build(reader, this, wso);
-            } else if ("AutoFilter".equals(localName)) {
+            } else if ("AutoFilter".equals(localName)
+                    && director.wants(SelectiveListener.AUTO_FILTER)) {
                 AutoFilter autoF = new XAutoFilter();
                 autoF.setRange(atts.getValue(XLElement.XMLNS_X, "Range"));
                 for (ExcelReaderListener listener : director.getListeners()) {
@@ -77,16 +88,31 @@ class SSWorksheetBuilder extends AnonymousBuilder {
         }        
     }
 
-    private void startSSElement(String localName, Attributes atts) {
+    private void startSSElement(String localName, Attributes atts) throws SAXException {
         if ("Row".equals(localName)) {
+            director.rowStarted(rowOrdinal++, currentRowIndex);
+            director.checkControl();
             String index = atts.getValue(XLElement.XMLNS_SS, "Index");
             if (index != null) {
                 currentRowIndex = Integer.parseInt(index);
             } else {
                 currentRowIndex++;
             }
-            if (director.getBuildArea().isRowPartOfArea(currentRowIndex)) {
-	            Row row = new SSRow();
+            if (currentRowIndex > director.getBuildArea().getLastRow()) {
+                // rows are in ascending order: the rest of the table is outside the area
+                if (director.isStopAfterArea()) {
+                    endWorksheet();
+                    throw new ReadStoppedException();
+                }
+                director.getElementSkipper().skip(reader, this, 2);
+            } else if (!director.getBuildArea().isRowPartOfArea(currentRowIndex)
+                    || !director.wantsRows()) {
+                director.getElementSkipper().skip(reader, this, 1);
+            } else if (director.isReadingValuesOnly()) {
+                director.setCurrentRowIndex(currentRowIndex);
+                director.getCellValueBuilder().build(reader, this);
+            } else {
+	            Row row = getRow();
 	            row.setIndex(currentRowIndex);
 	            row.setAttributes(atts);
 	            director.setCurrentRowIndex(currentRowIndex);
@@ -100,7 +126,8 @@ class SSWorksheetBuilder extends AnonymousBuilder {
             } else {
                 currentColumnIndex++;
             }
-            if (director.getBuildArea().isColumnPartOfArea(currentColumnIndex)) {
+            if (director.getBuildArea().isColumnPartOfArea(currentColumnIndex)
+                    && director.wants(SelectiveListener.COLUMN)) {
                 Column column = new SSColumn();
                 column.setIndex(currentColumnIndex);
 	            column.setAttributes(atts);
@@ -110,6 +137,7 @@ class SSWorksheetBuilder extends AnonymousBuilder {
 	            }
             }
         } else if ("Table".equals(localName)) {
+            if (!director.wants(SelectiveListener.TABLE)) return;
             Table table = new SSTable();
             table.setAttributes(atts);
             for (ExcelReaderListener listener : director.getListeners()) {
@@ -117,6 +145,7 @@ class SSWorksheetBuilder extends AnonymousBuilder {
                         director.getCurrentSheetName(), table);
             }
         } else if ("NamedRange". equals(localName)) {
+            if (!director.wants(SelectiveListener.NAMED_RANGE)) return;
             String name = atts.getValue(XLElement.XMLNS_SS, "Name");
             NamedRange nr = new SSNamedRange(name, null);
             nr.setAttributes(atts);
@@ -128,14 +157,33 @@ class SSWorksheetBuilder extends AnonymousBuilder {
     }
     
 
+    private void endWorksheet() {
+        director.setWorksheetOpen(false);
+    	for (ExcelReaderListener listener : director.getListeners()) {
+            listener.endWorksheet(director.getCurrentSheetIndex(),
+                    director.getCurrentSheetName());
+        }
+    }
+    
+    private Row getRow() {
+        if (!director.isReuseRows()) {
+            return new SSRow();
+        }
+        if (reusableRow == null) {
+            reusableRow = new SSRow();
+        } else {
+            reusableRow.reset();
+        }
+        return reusableRow;
+    }
+
     public void endElement(String uri, String localName, String qName) throws SAXException {
         if ("Worksheet".equals(localName)) {
             if (XLElement.XMLNS_SS.equals(uri)) {
-            	for (ExcelReaderListener listener : director.getListeners()) {
-                    listener.endWorksheet(director.getCurrentSheetIndex(),
-                            director.getCurrentSheetName());
-                }
+                endWorksheet();
                 reader.setContentHandler(parent);
+                director.sheetCompleted(director.getCurrentSheetIndex(), 
+                        director.getCurrentSheetName());
                 return;
             }
         }
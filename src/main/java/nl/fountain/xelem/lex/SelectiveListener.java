@@ -0,0 +1,71 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+/**
+ * An ExcelReaderListener that declares the events it wants to recieve. 
+ * An ExcelReader does not construct the 
+ * {@link nl.fountain.xelem.excel.XLElement XLElements} for events that
+ * none of it's listeners wants, and skips the elements in the document 
+ * where it can. 
+ * <P>
+ * Listeners that do not implement this interface are not asked: for a 
+ * subclass of {@link DefaultExcelReaderListener} the events are those of the
+ * methods it overrides, for a subclass of {@link DefaultExcelReaderFilter} 
+ * these are combined with the events of it's listeners. Any other listener 
+ * recieves all events.
+ * <P>
+ * The events startDocument, processingInstruction, startWorkbook, 
+ * startWorksheet, endWorksheet and endDocument are always delivered.
+ */
+public interface SelectiveListener extends ExcelReaderListener {
+    
+    /** The setDocumentProperties-event. */
+    int DOCUMENT_PROPERTIES = 1;
+    /** The setExcelWorkbook-event. */
+    int EXCEL_WORKBOOK = 1 << 1;
+    /** The setNamedRange-events of the workbook and of worksheets. */
+    int NAMED_RANGE = 1 << 2;
+    /** The startTable-event. */
+    int TABLE = 1 << 3;
+    /** The setColumn-event. */
+    int COLUMN = 1 << 4;
+    /** The setRow-event. */
+    int ROW = 1 << 5;
+    /** The setCell-event. */
+    int CELL = 1 << 6;
+    /** The setWorksheetOptions-event. */
+    int WORKSHEET_OPTIONS = 1 << 7;
+    /** The setAutoFilter-event. */
+    int AUTO_FILTER = 1 << 8;
+    /** All events. */
+    int ALL_EVENTS = (1 << 9) - 1;
+    
+    /**
+     * Gets the events this listener wants to recieve. Called at the start 
+     * of each read.
+     * 
+     * @return the events as a bitwise or of the constants of this interface
+     */
+    int getEventMask();
+
+}
@@ -0,0 +1,670 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import nl.fountain.xelem.excel.XLElement;
+
+/**
+ * An index of the byte offsets of the worksheets and rows in a 
+ * SpreadsheetML file. 
+ * <P>
+ * A SheetIndex is created by scanning the file once. It records where each 
+ * worksheet starts and ends and where every n-th row of it's table starts, 
+ * together with the index of that row. With the index an ExcelReader can 
+ * {@link ExcelReader#read(File, SheetIndex, String) read} a worksheet, or only
+ * the rows of it's read area, without reading the file from the start.
+ * <P>
+ * A SheetIndex can be stored in a small sidecar file next to the 
+ * SpreadsheetML file. {@link #load(File, int)} reads the sidecar if it is 
+ * current and creates and stores the index otherwise.
+ * <PRE>
+ *     SheetIndex index = SheetIndex.load(file, 1000);
+ *     reader.setReadArea("data", new Area("A500000:J500100"));
+ *     reader.read(file, index, "data");
+ * </PRE>
+ * Files with a document type declaration and files encoded in UTF-16 
+ * cannot be indexed.
+ */
+public class SheetIndex {
+    
+    /**
+     * The extension of sidecar files.
+     */
+    public static final String SIDECAR_EXTENSION = ".xidx";
+    
+    private static final int MAGIC = 0x58494458; // XIDX
+    private static final int VERSION = 2;
+    private static final Charset LATIN_1 = Charset.forName("ISO-8859-1");
+    private static final Pattern XMLNS = 
+        Pattern.compile("xmlns(?::([^\\s=]+))?\\s*=\\s*([\"'])(.*?)\\2");
+    private static final Pattern ENCODING = 
+        Pattern.compile("encoding\\s*=\\s*([\"'])(.*?)\\1");
+    
+    private long fileLength;
+    private long lastModified;
+    private int rowInterval;
+    private long rootEnd;
+    private String rootQName;
+    private List<Sheet> sheets;
+    
+    private SheetIndex() {
+        sheets = new ArrayList<Sheet>();
+    }
+    
+    /**
+     * Creates a SheetIndex of the given file.
+     * 
+     * @param file			the SpreadsheetML file
+     * @param rowInterval	the number of rows between indexed rows. A lower
+     * 			interval gives a larger index and a read that starts closer
+     * 			to the first row of the read area.
+     * @return a SheetIndex of the file
+     * @throws IOException if the file cannot be read or cannot be indexed
+     * @throws IllegalArgumentException if rowInterval is less than 1
+     */
+    public static SheetIndex create(File file, int rowInterval) throws IOException {
+        if (rowInterval < 1) {
+            throw new IllegalArgumentException("rowInterval < 1: " + rowInterval);
+        }
+        SheetIndex index = new SheetIndex();
+        index.fileLength = file.length();
+        index.lastModified = file.lastModified();
+        index.rowInterval = rowInterval;
+        InputStream in = new FileInputStream(file);
+        try {
+            index.scan(in);
+        } finally {
+            in.close();
+        }
+        return index;
+    }
+    
+    /**
+     * Reads the sidecar of the given file if it is current, otherwise creates
+     * a SheetIndex and writes it to the sidecar.
+     * 
+     * @param file			the SpreadsheetML file
+     * @param rowInterval	the number of rows between indexed rows of 
+     * 			a new index
+     * @return a SheetIndex of the file
+     * @throws IOException if the file cannot be read or cannot be indexed, 
+     * 			or if the sidecar cannot be written
+     * @see #getSidecar(File)
+     */
+    public static SheetIndex load(File file, int rowInterval) throws IOException {
+        File sidecar = getSidecar(file);
+        if (sidecar.exists()) {
+            try {
+                SheetIndex index = read(sidecar);
+                if (index.isCurrent(file)) {
+                    return index;
+                }
+            } catch (IOException e) {
+                // a damaged sidecar is replaced
+            }
+        }
+        SheetIndex index = create(file, rowInterval);
+        index.write(sidecar);
+        return index;
+    }
+    
+    /**
+     * Gets the sidecar file of the given file: a file in the same directory
+     * with the name of the given file followed by {@link #SIDECAR_EXTENSION}.
+     * 
+     * @param file	the SpreadsheetML file
+     * @return the sidecar file
+     */
+    public static File getSidecar(File file) {
+        return new File(file.getPath() + SIDECAR_EXTENSION);
+    }
+    
+    /**
+     * Reads a SheetIndex from the given sidecar file.
+     * 
+     * @param sidecar	the file the index was written to
+     * @return the SheetIndex
+     * @throws IOException if the file cannot be read or is not a sidecar file
+     */
+    public static SheetIndex read(File sidecar) throws IOException {
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(sidecar)));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a sheet index: " + sidecar);
+            }
+            SheetIndex index = new SheetIndex();
+            index.fileLength = in.readLong();
+            index.lastModified = in.readLong();
+            index.rowInterval = in.readInt();
+            index.rootEnd = in.readLong();
+            index.rootQName = in.readUTF();
+            int sheetCount = in.readInt();
+            for (int i = 0; i < sheetCount; i++) {
+                String name = in.readBoolean() ? in.readUTF() : null;
+                Sheet sheet = new Sheet(name, in.readLong());
+                sheet.headerEnd = in.readLong();
+                sheet.tableEnd = in.readLong();
+                sheet.end = in.readLong();
+                int rowCount = in.readInt();
+                sheet.rows = new int[rowCount];
+                sheet.offsets = new long[rowCount];
+                long offset = sheet.headerEnd;
+                int row = 0;
+                for (int r = 0; r < rowCount; r++) {
+                    row += in.readInt();
+                    offset += in.readLong();
+                    sheet.rows[r] = row;
+                    sheet.offsets[r] = offset;
+                }
+                sheet.rowCount = rowCount;
+                index.sheets.add(sheet);
+            }
+            return index;
+        } finally {
+            in.close();
+        }
+    }
+    
+    /**
+     * Writes this SheetIndex to the given file.
+     * 
+     * @param sidecar	the file to write to
+     * @throws IOException if the file cannot be written
+     */
+    public void write(File sidecar) throws IOException {
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(sidecar)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(fileLength);
+            out.writeLong(lastModified);
+            out.writeInt(rowInterval);
+            out.writeLong(rootEnd);
+            out.writeUTF(rootQName);
+            out.writeInt(sheets.size());
+            for (Sheet sheet : sheets) {
+                out.writeBoolean(sheet.name != null);
+                if (sheet.name != null) out.writeUTF(sheet.name);
+                out.writeLong(sheet.start);
+                out.writeLong(sheet.headerEnd);
+                out.writeLong(sheet.tableEnd);
+                out.writeLong(sheet.end);
+                out.writeInt(sheet.rowCount);
+                // offsets and row indexes as differences
+                long offset = sheet.headerEnd;
+                int row = 0;
+                for (int r = 0; r < sheet.rowCount; r++) {
+                    out.writeInt(sheet.rows[r] - row);
+                    out.writeLong(sheet.offsets[r] - offset);
+                    row = sheet.rows[r];
+                    offset = sheet.offsets[r];
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+    
+    /**
+     * Specifies whether this SheetIndex was created for the current 
+     * contents of the given file. Compares the length and the time of last 
+     * modification of the file with those at the time of indexing.
+     * 
+     * @param file	the SpreadsheetML file
+     * @return <code>true</code> if the file did not change since it was indexed,
+     * 		<code>false</code> otherwise
+     */
+    public boolean isCurrent(File file) {
+        return file.length() == fileLength && file.lastModified() == lastModified;
+    }
+    
+    /**
+     * Gets the number of rows between indexed rows.
+     * 
+     * @return the row interval of this SheetIndex
+     */
+    public int getRowInterval() {
+        return rowInterval;
+    }
+    
+    /**
+     * Gets the names of the worksheets in the order of the document.
+     * 
+     * @return the names of the worksheets
+     */
+    public List<String> getSheetNames() {
+        List<String> names = new ArrayList<String>();
+        for (Sheet sheet : sheets) {
+            names.add(sheet.name);
+        }
+        return Collections.unmodifiableList(names);
+    }
+    
+    /**
+     * Gets the index of the worksheet with the given name.
+     * 
+     * @param sheetName	the name of the worksheet
+     * @return the index of the worksheet (0-based), -1 if there is no
+     * 		worksheet with the given name
+     */
+    int getSheetIndex(String sheetName) {
+        for (int i = 0; i < sheets.size(); i++) {
+            String name = sheets.get(i).name;
+            if (name == null ? sheetName == null : name.equals(sheetName)) return i;
+        }
+        return -1;
+    }
+    
+    long getRootEnd() {
+        return rootEnd;
+    }
+    
+    String getRootQName() {
+        return rootQName;
+    }
+    
+    /**
+     * Gets the regions of the file that make up a document with the 
+     * given worksheet and the rows from firstRow to lastRow. The document 
+     * consists of the root start tag, the worksheet up to it's first row, 
+     * the rows and the remainder of the worksheet after the table.
+     * 
+     * @return pairs of start and end offsets
+     */
+    long[] getRegions(int sheetIndex, int firstRow, int lastRow) {
+        Sheet sheet = sheets.get(sheetIndex);
+        long rowStart = sheet.headerEnd;
+        long rowEnd = sheet.tableEnd;
+        if (sheet.rowCount > 0) {
+            int first = sheet.getEntry(firstRow);
+            rowStart = sheet.offsets[first];
+            for (int r = first + 1; r < sheet.rowCount; r++) {
+                if (sheet.rows[r] > lastRow) {
+                    rowEnd = sheet.offsets[r];
+                    break;
+                }
+            }
+        }
+        return new long[] {0, rootEnd, sheet.start, sheet.headerEnd, 
+                rowStart, rowEnd, sheet.tableEnd, sheet.end};
+    }
+    
+    /**
+     * Gets the index of the row before the first row that starts at 
+     * the offset given by {@link #getRegions(int, int, int)}.
+     */
+    int getRowIndexBase(int sheetIndex, int firstRow) {
+        Sheet sheet = sheets.get(sheetIndex);
+        if (sheet.rowCount == 0) return 0;
+        return sheet.rows[sheet.getEntry(firstRow)] - 1;
+    }
+    
+    private void scan(InputStream in) throws IOException {
+        Scanner sc = new Scanner(in);
+        Charset charset = Charset.forName("UTF-8");
+        Set<String> sheetTags = null;
+        String prefix = null;
+        // attributes without a prefix are in no namespace
+        String ssPrefix = null;
+        Sheet sheet = null;
+        boolean inTable = false;
+        int rowIndex = 0;
+        int rowNumber = 0;
+        int depth = 0;
+        int b;
+        while ((b = sc.read()) != -1) {
+            if (b != '<') continue;
+            long lt = sc.position() - 1;
+            b = sc.read();
+            if (b == '?') {
+                String pi = sc.readUntil("?>", true);
+                if (depth == 0 && pi.startsWith("xml ")) {
+                    charset = getCharset(pi);
+                }
+            } else if (b == '!') {
+                b = sc.read();
+                if (b == '-' && sc.skipIf("-")) {
+                    sc.readUntil("-->", false);
+                } else if (b == '[' && sc.skipIf("CDATA[")) {
+                    sc.readUntil("]]>", false);
+                } else {
+                    throw new IOException(
+                    		"Documents with a document type declaration cannot be indexed.");
+                }
+            } else if (b == '/') {
+                sc.readTag(false);
+                depth--;
+                if (depth == 1 && sheet != null) {
+                    sheet.end = sc.position();
+                    if (sheet.headerEnd < 0) {
+                        sheet.headerEnd = sheet.end;
+                        sheet.tableEnd = sheet.end;
+                    }
+                    sheet = null;
+                } else if (depth == 2 && inTable) {
+                    sheet.tableEnd = lt;
+                    if (sheet.headerEnd < 0) sheet.headerEnd = lt;
+                    inTable = false;
+                } else if (depth == 0) {
+                    return;
+                }
+            } else if (b == -1) {
+                break;
+            } else {
+                String qName = sc.readName(b);
+                boolean collect = depth <= 3;
+                String tag = sc.readTag(collect);
+                boolean empty = sc.isEmptyTag();
+                if (depth == 0) {
+                    rootEnd = sc.position();
+                    rootQName = qName;
+                    sheetTags = getWorksheetTags(tag);
+                    ssPrefix = getAttributePrefix(tag);
+                    if (empty) throw new IOException("Document has no worksheets.");
+                } else if (depth == 1 && sheetTags.contains(qName)) {
+                    int colon = qName.indexOf(':');
+                    prefix = colon < 0 ? "" : qName.substring(0, colon + 1);
+                    if (ssPrefix == null) ssPrefix = prefix;
+                    sheet = new Sheet(getAttribute(ssPrefix + "Name", tag, charset), lt);
+                    sheets.add(sheet);
+                    rowIndex = 0;
+                    rowNumber = 0;
+                    if (empty) {
+                        sheet.end = sc.position();
+                        sheet.headerEnd = sheet.end;
+                        sheet.tableEnd = sheet.end;
+                        sheet = null;
+                    }
+                } else if (depth == 2 && sheet != null && qName.equals(prefix + "Table")) {
+                    inTable = !empty;
+                } else if (depth == 3 && inTable && qName.equals(prefix + "Row")) {
+                    String index = getAttribute(ssPrefix + "Index", tag, charset);
+                    rowIndex = index == null ? rowIndex + 1 : Integer.parseInt(index.trim());
+                    if (sheet.headerEnd < 0) sheet.headerEnd = lt;
+                    if (rowNumber++ % rowInterval == 0) {
+                        sheet.addRow(rowIndex, lt);
+                    }
+                }
+                if (!empty) depth++;
+            }
+        }
+        throw new IOException("Unexpected end of document.");
+    }
+    
+    private Charset getCharset(String xmlDecl) throws IOException {
+        Matcher m = ENCODING.matcher(xmlDecl);
+        if (!m.find()) return Charset.forName("UTF-8");
+        String encoding = m.group(2);
+        if (encoding.toUpperCase().startsWith("UTF-16")) {
+            throw new IOException("Documents encoded in UTF-16 cannot be indexed.");
+        }
+        try {
+            return Charset.forName(encoding);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unsupported encoding: " + encoding);
+        }
+    }
+    
+    private Set<String> getWorksheetTags(String rootTag) {
+        Set<String> tags = new HashSet<String>();
+        Matcher m = XMLNS.matcher(rootTag);
+        while (m.find()) {
+            if (XLElement.XMLNS_SS.equals(m.group(3))) {
+                tags.add(m.group(1) == null ? "Worksheet" : m.group(1) + ":Worksheet");
+            }
+        }
+        return tags;
+    }
+    
+    // the prefix of the ss-namespace for attributes, null if there is none
+    private String getAttributePrefix(String rootTag) {
+        Matcher m = XMLNS.matcher(rootTag);
+        while (m.find()) {
+            if (m.group(1) != null && XLElement.XMLNS_SS.equals(m.group(3))) {
+                return m.group(1) + ":";
+            }
+        }
+        return null;
+    }
+    
+    // the tag was read as ISO-8859-1
+    private String getAttribute(String qName, String tag, Charset charset) {
+        Matcher m = Pattern.compile("\\s" + Pattern.quote(qName) 
+                + "\\s*=\\s*([\"'])(.*?)\\1", Pattern.DOTALL).matcher(tag);
+        if (!m.find()) return null;
+        String value = new String(m.group(2).getBytes(LATIN_1), charset);
+        return unescape(value);
+    }
+    
+    private String unescape(String value) {
+        if (value.indexOf('&') < 0) return value;
+        StringBuilder sb = new StringBuilder();
+        int i = 0;
+        while (i < value.length()) {
+            char c = value.charAt(i);
+            int semi = c == '&' ? value.indexOf(';', i) : -1;
+            if (semi < 0) {
+                sb.append(c);
+                i++;
+                continue;
+            }
+            String ref = value.substring(i + 1, semi);
+            if (ref.equals("amp")) {
+                sb.append('&');
+            } else if (ref.equals("lt")) {
+                sb.append('<');
+            } else if (ref.equals("gt")) {
+                sb.append('>');
+            } else if (ref.equals("quot")) {
+                sb.append('"');
+            } else if (ref.equals("apos")) {
+                sb.append('\'');
+            } else if (ref.startsWith("#x")) {
+                sb.appendCodePoint(Integer.parseInt(ref.substring(2), 16));
+            } else if (ref.startsWith("#")) {
+                sb.appendCodePoint(Integer.parseInt(ref.substring(1)));
+            } else {
+                sb.append('&').append(ref).append(';');
+            }
+            i = semi + 1;
+        }
+        return sb.toString();
+    }
+    
+    ///////////////////////////////////////////////////////////////
+    private static class Sheet {
+        
+        private String name;
+        private long start;
+        private long headerEnd = -1;
+        private long tableEnd = -1;
+        private long end;
+        private int rowCount;
+        private int[] rows = new int[16];
+        private long[] offsets = new long[16];
+        
+        Sheet(String name, long start) {
+            this.name = name;
+            this.start = start;
+        }
+        
+        // the last indexed row not after the given row, or the first
+        int getEntry(int rowIndex) {
+            int low = 0;
+            int high = rowCount - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (rows[mid] <= rowIndex) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return low;
+        }
+        
+        void addRow(int rowIndex, long offset) {
+            if (rowCount == rows.length) {
+                int[] newRows = new int[rowCount * 2];
+                long[] newOffsets = new long[rowCount * 2];
+                System.arraycopy(rows, 0, newRows, 0, rowCount);
+                System.arraycopy(offsets, 0, newOffsets, 0, rowCount);
+                rows = newRows;
+                offsets = newOffsets;
+            }
+            rows[rowCount] = rowIndex;
+            offsets[rowCount] = offset;
+            rowCount++;
+        }
+        
+    }
+    
+    ///////////////////////////////////////////////////////////////
+    /**
+     * Reads the bytes of markup and keeps track of the offset.
+     */
+    private static class Scanner {
+        
+        private InputStream in;
+        private byte[] buffer = new byte[64 * 1024];
+        private int pos;
+        private int len;
+        private long bufferOffset;
+        private ByteArrayOutputStream tag = new ByteArrayOutputStream();
+        private boolean emptyTag;
+        
+        Scanner(InputStream in) {
+            this.in = in;
+        }
+        
+        int read() throws IOException {
+            if (pos == len && !fill()) return -1;
+            return buffer[pos++] & 0xFF;
+        }
+        
+        private boolean fill() throws IOException {
+            bufferOffset += len;
+            pos = 0;
+            len = in.read(buffer, 0, buffer.length);
+            if (len <= 0) {
+                len = 0;
+                return false;
+            }
+            return true;
+        }
+        
+        // the offset of the next byte
+        long position() {
+            return bufferOffset + pos;
+        }
+        
+        boolean skipIf(String s) throws IOException {
+            for (int i = 0; i < s.length(); i++) {
+                int b = read();
+                if (b != s.charAt(i)) {
+                    if (b == -1) throw new IOException("Unexpected end of document.");
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        String readUntil(String end, boolean collect) throws IOException {
+            tag.reset();
+            int matched = 0;
+            while (matched < end.length()) {
+                int b = read();
+                if (b == -1) throw new IOException("Unexpected end of document.");
+                if (collect) tag.write(b);
+                if (b == end.charAt(matched)) {
+                    matched++;
+                } else {
+                    matched = b == end.charAt(0) ? 1 : 0;
+                }
+            }
+            return collect ? new String(tag.toByteArray(), LATIN_1) : null;
+        }
+        
+        // reads a name; first is the first byte of the name, if it was read
+        String readName(int first) throws IOException {
+            tag.reset();
+            if (first != -1) tag.write(first);
+            while (pos < len || fill()) {
+                int b = buffer[pos] & 0xFF;
+                if (b == '>' || b == '/' || b == ' ' || b == '\t' || b == '\n' || b == '\r') {
+                    break;
+                }
+                tag.write(b);
+                pos++;
+            }
+            return new String(tag.toByteArray(), LATIN_1);
+        }
+        
+        // reads up to and including '>', quote aware
+        String readTag(boolean collect) throws IOException {
+            tag.reset();
+            int quote = 0;
+            int last = 0;
+            while (true) {
+                int b = read();
+                if (b == -1) throw new IOException("Unexpected end of document.");
+                if (quote != 0) {
+                    if (b == quote) quote = 0;
+                } else if (b == '"' || b == '\'') {
+                    quote = b;
+                } else if (b == '>') {
+                    emptyTag = last == '/';
+                    return collect ? new String(tag.toByteArray(), LATIN_1) : null;
+                }
+                if (collect) tag.write(b);
+                last = b;
+            }
+        }
+        
+        boolean isEmptyTag() {
+            return emptyTag;
+        }
+        
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import nl.fountain.xelem.Area;
+
+/**
+ * Keeps the worksheets that were selected on an ExcelReader and the
+ * read areas of individual worksheets. Changed between reads only.
+ */
+class SheetSelection {
+    
+    private Set<String> names = new HashSet<String>();
+    private Set<Integer> indexes = new HashSet<Integer>();
+    private List<SheetSelector> selectors = new ArrayList<SheetSelector>();
+    private Map<String, Area> areas = new HashMap<String, Area>();
+    
+    void addName(String name) {
+        names.add(name);
+    }
+    
+    void addIndex(int index) {
+        indexes.add(index);
+    }
+    
+    void addSelector(SheetSelector selector) {
+        selectors.add(selector);
+    }
+    
+    void clear() {
+        names.clear();
+        indexes.clear();
+        selectors.clear();
+    }
+    
+    boolean isEmpty() {
+        return names.isEmpty() && indexes.isEmpty() && selectors.isEmpty();
+    }
+    
+    boolean isSelected(int index, String name) {
+        if (isEmpty() || names.contains(name) || indexes.contains(index)) {
+            return true;
+        }
+        for (SheetSelector selector : selectors) {
+            if (selector.isSelected(index, name)) return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Specifies whether all selected worksheets can be known in advance,
+     * i.e. no SheetSelectors were added.
+     */
+    boolean isFinite() {
+        return !isEmpty() && selectors.isEmpty();
+    }
+    
+    Set<String> getNames() {
+        return names;
+    }
+    
+    Set<Integer> getIndexes() {
+        return indexes;
+    }
+    
+    void setArea(String name, Area area) {
+        if (area == null) {
+            areas.remove(name);
+        } else {
+            areas.put(name, area);
+        }
+    }
+    
+    Area getArea(String name) {
+        return areas.get(name);
+    }
+    
+    void clearAreas() {
+        areas.clear();
+    }
+
+}
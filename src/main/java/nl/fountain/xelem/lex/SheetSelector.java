@@ -0,0 +1,41 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+/**
+ * Selects the worksheets that are to be read by an {@link ExcelReader}.
+ * 
+ * @see ExcelReader#addSheetSelector(SheetSelector)
+ */
+public interface SheetSelector {
+    
+    /**
+     * Specifies whether the worksheet with the given index and name should be read.
+     * 
+     * @param sheetIndex	the index of the worksheet (0-based)
+     * @param sheetName		the name of the worksheet
+     * @return	<code>true</code> if the worksheet should be read,
+     * 			<code>false</code> otherwise
+     */
+    boolean isSelected(int sheetIndex, String sheetName);
+
+}
@@ -0,0 +1,939 @@
+/*
+ * Created on 17-okt-2026
+ * Copyright (C) 2004  Henk van den Berg
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * see license.txt
+ *
+ */
+package nl.fountain.xelem.lex;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
+
+/**
+ * Reads SpreadsheetML from a ByteBuffer and reports it to a ContentHandler
+ * like a namespace aware SAXParser does. 
+ * <P>
+ * The tokenizer works on the bytes of the buffer. Names of elements and 
+ * attributes are looked up in a table of names by their bytes, so the 
+ * small vocabulary of SpreadsheetML does not create new strings. Only 
+ * character data and attribute values are decoded from UTF-8. 
+ * <P>
+ * The tokenizer does not read documents with a document type declaration or
+ * documents in an encoding other than UTF-8 or US-ASCII; see 
+ * {@link #canRead(ByteBuffer)}. Documents that are not well-formed are
+ * reported with a SAXParseException, although not every constraint is checked.
+ */
+class SpreadsheetTokenizer implements XMLReader, Locator {
+    
+    private static final String XML_URI = "http://www.w3.org/XML/1998/namespace";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    
+    private ContentHandler contentHandler;
+    private ErrorHandler errorHandler;
+    private DTDHandler dtdHandler;
+    private EntityResolver entityResolver;
+    
+    private ByteBuffer in;
+    private int start;
+    private int pos;
+    private int limit;
+    private String systemId;
+    private String publicId;
+    private ReadControl control;
+    
+    private Symbols symbols = new Symbols();
+    private Map<String, String> localNameCache = new HashMap<String, String>();
+    private AttributeList attributes = new AttributeList();
+    private char[] text = new char[256];
+    private int textLength;
+    
+    // elements
+    private String[] uris = new String[16];
+    private String[] localNames = new String[16];
+    private String[] qNames = new String[16];
+    private int[] bindingCounts = new int[16];
+    private int depth;
+    
+    // namespace bindings
+    private String[] prefixes = new String[16];
+    private String[] prefixURIs = new String[16];
+    private int bindingCount;
+    
+    // attributes of the current start tag, before resolving namespaces
+    private String[] attQNames = new String[8];
+    private String[] attValues = new String[8];
+    
+    /**
+     * Specifies whether the document in the given buffer can be read by 
+     * a SpreadsheetTokenizer: it has no byte order mark other than that of 
+     * UTF-8, it's encoding is UTF-8 or US-ASCII and it has no document type 
+     * declaration. The position of the buffer is not changed.
+     */
+    static boolean canRead(ByteBuffer buffer) {
+        int p = buffer.position();
+        int end = buffer.limit();
+        if (end - p < 4) return false;
+        int b0 = buffer.get(p) & 0xFF;
+        if (b0 == 0xEF) {
+            if ((buffer.get(p + 1) & 0xFF) != 0xBB || (buffer.get(p + 2) & 0xFF) != 0xBF) {
+                return false;
+            }
+            p += 3;
+        } else if (b0 == 0xFE || b0 == 0xFF || b0 == 0 || buffer.get(p + 1) == 0) {
+            return false;
+        }
+        while (p < end) {
+            int b = buffer.get(p);
+            if (b == ' ' || b == '\t' || b == '\n' || b == '\r') {
+                p++;
+            } else if (b != '<' || p + 1 >= end) {
+                return false;
+            } else if (buffer.get(p + 1) == '?') {
+                int close = indexOf(buffer, "?>", p + 2, end);
+                if (close < 0) return false;
+                if (startsWith(buffer, "<?xml", p) && !isEncodingSupported(
+                        decode(buffer, p, close, Charset.forName("ISO-8859-1")))) {
+                    return false;
+                }
+                p = close + 2;
+            } else if (startsWith(buffer, "<!--", p)) {
+                int close = indexOf(buffer, "-->", p + 4, end);
+                if (close < 0) return false;
+                p = close + 3;
+            } else {
+                return buffer.get(p + 1) != '!';
+            }
+        }
+        return false;
+    }
+    
+    private static boolean isEncodingSupported(String xmlDecl) {
+        int index = xmlDecl.indexOf("encoding");
+        if (index < 0) return true;
+        int q = index + 8;
+        while (q < xmlDecl.length() && xmlDecl.charAt(q) != '"' && xmlDecl.charAt(q) != '\'') {
+            q++;
+        }
+        if (q >= xmlDecl.length()) return false;
+        int close = xmlDecl.indexOf(xmlDecl.charAt(q), q + 1);
+        if (close < 0) return false;
+        String encoding = xmlDecl.substring(q + 1, close).trim().toUpperCase();
+        return encoding.equals("UTF-8") || encoding.equals("UTF8") 
+        		|| encoding.equals("US-ASCII") || encoding.equals("ASCII");
+    }
+    
+    /**
+     * Sets the ReadControl that is told the number of bytes that were read.
+     */
+    void setReadControl(ReadControl control) {
+        this.control = control;
+    }
+    
+    /**
+     * Parses the document in the given buffer, from it's position to it's
+     * limit. The position of the buffer is not changed.
+     * 
+     * @param buffer	the document
+     * @param systemId	the system id of the document, may be <code>null</code>
+     * @param publicId	the public id of the document, may be <code>null</code>
+     */
+    void parse(ByteBuffer buffer, String systemId, String publicId) 
+    		throws IOException, SAXException {
+        in = buffer;
+        start = buffer.position();
+        pos = start;
+        limit = buffer.limit();
+        this.systemId = systemId;
+        this.publicId = publicId;
+        depth = 0;
+        bindingCount = 0;
+        try {
+            parseDocument();
+        } finally {
+            in = null;
+        }
+    }
+    
+    private void parseDocument() throws SAXException {
+        if (contentHandler == null) {
+            contentHandler = new org.xml.sax.helpers.DefaultHandler();
+        }
+        contentHandler.setDocumentLocator(this);
+        contentHandler.startDocument();
+        if (limit - pos >= 3 && (in.get(pos) & 0xFF) == 0xEF) {
+            pos += 3;
+        }
+        if (startsWith(in, "<?xml", pos) && isWhitespace(pos + 5)) {
+            int close = indexOf(in, "?>", pos, limit);
+            if (close < 0) fatal("The XML declaration is not closed.");
+            pos = close + 2;
+        }
+        boolean rootSeen = false;
+        while (pos < limit) {
+            int lt = indexOf(in, (byte) '<', pos, limit);
+            int textEnd = lt < 0 ? limit : lt;
+            if (textEnd > pos) {
+                if (depth > 0) {
+                    parseText(textEnd);
+                } else {
+                    for (int i = pos; i < textEnd; i++) {
+                        if (!isWhitespace(i)) {
+                            pos = i;
+                            fatal("Content is not allowed " 
+                                    + (rootSeen ? "in trailing section." : "in prolog."));
+                        }
+                    }
+                }
+                pos = textEnd;
+            }
+            if (lt < 0) break;
+            byte next = lt + 1 < limit ? in.get(lt + 1) : 0;
+            if (next == '?') {
+                parseProcessingInstruction();
+            } else if (next == '!') {
+                if (startsWith(in, "<!--", pos)) {
+                    int close = indexOf(in, "-->", pos + 4, limit);
+                    if (close < 0) fatal("The comment is not closed.");
+                    pos = close + 3;
+                } else if (depth > 0 && startsWith(in, "<![CDATA[", pos)) {
+                    int close = indexOf(in, "]]>", pos + 9, limit);
+                    if (close < 0) fatal("The CDATA section is not closed.");
+                    textLength = 0;
+                    appendText(pos + 9, close, false);
+                    contentHandler.characters(text, 0, textLength);
+                    pos = close + 3;
+                } else {
+                    fatal("Markup declarations are not supported.");
+                }
+            } else if (next == '/') {
+                if (depth == 0) fatal("Unexpected end tag.");
+                parseEndTag();
+            } else {
+                if (rootSeen && depth == 0) {
+                    fatal("Markup in the document following the root element must be well-formed.");
+                }
+                rootSeen = true;
+                parseStartTag();
+            }
+        }
+        if (!rootSeen) fatal("Premature end of file.");
+        if (depth > 0) {
+            fatal("XML document structures must start and end within the same entity.");
+        }
+        contentHandler.endDocument();
+    }
+    
+    private void parseProcessingInstruction() throws SAXException {
+        int close = indexOf(in, "?>", pos + 2, limit);
+        if (close < 0) fatal("The processing instruction is not closed.");
+        int nameEnd = pos + 2;
+        while (nameEnd < close && !isWhitespace(nameEnd)) {
+            nameEnd++;
+        }
+        String target = symbols.get(in, pos + 2, nameEnd);
+        if (target.length() == 0 || target.equalsIgnoreCase("xml")) {
+            fatal("The processing instruction target is not allowed.");
+        }
+        int dataStart = nameEnd;
+        while (dataStart < close && isWhitespace(dataStart)) {
+            dataStart++;
+        }
+        String data = decode(in, dataStart, close, UTF_8);
+        pos = close + 2;
+        contentHandler.processingInstruction(target, data);
+    }
+    
+    private void parseStartTag() throws SAXException {
+        if (control != null) {
+            control.setBytesRead(pos - start);
+        }
+        pos++;
+        int nameStart = pos;
+        pos = nameEnd(pos);
+        if (pos == nameStart) fatal("The markup is not well-formed.");
+        String qName = symbols.get(in, nameStart, pos);
+        int attCount = 0;
+        int declared = 0;
+        boolean empty = false;
+        while (true) {
+            int spaces = pos;
+            skipWhitespace();
+            if (pos >= limit) fatal("XML document structures must start and end within the same entity.");
+            byte b = in.get(pos);
+            if (b == '>') {
+                pos++;
+                break;
+            } else if (b == '/') {
+                if (pos + 1 >= limit || in.get(pos + 1) != '>') {
+                    fatal("The element type \"" + qName + "\" must be followed by '>' or '/>'.");
+                }
+                pos += 2;
+                empty = true;
+                break;
+            }
+            if (spaces == pos) {
+                fatal("Element type \"" + qName 
+                        + "\" must be followed by either attribute specifications, \">\" or \"/>\".");
+            }
+            int attStart = pos;
+            pos = nameEnd(pos);
+            if (pos == attStart) fatal("The markup is not well-formed.");
+            String attQName = symbols.get(in, attStart, pos);
+            skipWhitespace();
+            if (pos >= limit || in.get(pos) != '=') {
+                fatal("Attribute name \"" + attQName + "\" must be followed by the ' = ' character.");
+            }
+            pos++;
+            skipWhitespace();
+            byte quote = pos < limit ? in.get(pos) : 0;
+            if (quote != '"' && quote != '\'') {
+                fatal("Open quote is expected for attribute \"" + attQName + "\".");
+            }
+            int valueStart = ++pos;
+            int valueEnd = indexOf(in, quote, valueStart, limit);
+            if (valueEnd < 0) fatal("The attribute value is not closed.");
+            String value = attributeValue(valueStart, valueEnd);
+            pos = valueEnd + 1;
+            if (attQName.equals("xmlns") || attQName.startsWith("xmlns:")) {
+                String prefix = attQName.length() == 5 ? "" : attQName.substring(6);
+                for (int i = bindingCount - declared; i < bindingCount; i++) {
+                    if (prefixes[i].equals(prefix)) alreadySpecified(attQName, qName);
+                }
+                bind(prefix, value);
+                declared++;
+            } else {
+                for (int i = 0; i < attCount; i++) {
+                    if (attQNames[i].equals(attQName)) alreadySpecified(attQName, qName);
+                }
+                if (attCount == attQNames.length) {
+                    attQNames = grow(attQNames);
+                    attValues = grow(attValues);
+                }
+                attQNames[attCount] = attQName;
+                attValues[attCount] = value;
+                attCount++;
+            }
+        }
+        for (int i = bindingCount - declared; i < bindingCount; i++) {
+            contentHandler.startPrefixMapping(prefixes[i], prefixURIs[i]);
+        }
+        attributes.clear();
+        for (int i = 0; i < attCount; i++) {
+            String attQName = attQNames[i];
+            int colon = attQName.indexOf(':');
+            if (colon < 0) {
+                attributes.add("", attQName, attQName, attValues[i]);
+            } else {
+                String attURI = resolve(attQName.substring(0, colon), attQName);
+                String attLocalName = localName(attQName, colon);
+                if (attributes.getIndex(attURI, attLocalName) >= 0) {
+                    fatal("Attribute \"" + attLocalName + "\" bound to namespace \"" + attURI 
+                            + "\" was already specified for element \"" + qName + "\".");
+                }
+                attributes.add(attURI, attLocalName, attQName, attValues[i]);
+            }
+        }
+        int colon = qName.indexOf(':');
+        String uri = colon < 0 ? resolveDefault() : resolve(qName.substring(0, colon), qName);
+        String localName = colon < 0 ? qName : localName(qName, colon);
+        if (depth == qNames.length) {
+            uris = grow(uris);
+            localNames = grow(localNames);
+            qNames = grow(qNames);
+            int[] counts = new int[depth * 2];
+            System.arraycopy(bindingCounts, 0, counts, 0, depth);
+            bindingCounts = counts;
+        }
+        uris[depth] = uri;
+        localNames[depth] = localName;
+        qNames[depth] = qName;
+        bindingCounts[depth] = declared;
+        depth++;
+        contentHandler.startElement(uri, localName, qName, attributes);
+        if (empty) {
+            endElement();
+        }
+    }
+    
+    private void parseEndTag() throws SAXException {
+        pos += 2;
+        int nameStart = pos;
+        pos = nameEnd(pos);
+        String qName = symbols.get(in, nameStart, pos);
+        skipWhitespace();
+        if (pos >= limit || in.get(pos) != '>') {
+            fatal("The end-tag for element type \"" + qName + "\" must end with a '>' delimiter.");
+        }
+        pos++;
+        if (!qName.equals(qNames[depth - 1])) {
+            fatal("The element type \"" + qNames[depth - 1] 
+                    + "\" must be terminated by the matching end-tag \"</" 
+                    + qNames[depth - 1] + ">\".");
+        }
+        endElement();
+    }
+    
+    private void endElement() throws SAXException {
+        depth--;
+        contentHandler.endElement(uris[depth], localNames[depth], qNames[depth]);
+        for (int i = 0; i < bindingCounts[depth]; i++) {
+            bindingCount--;
+            contentHandler.endPrefixMapping(prefixes[bindingCount]);
+        }
+    }
+    
+    private void parseText(int end) throws SAXException {
+        textLength = 0;
+        appendText(pos, end, true);
+        contentHandler.characters(text, 0, textLength);
+    }
+    
+    // decodes UTF-8, normalizes line ends and, if references is true, 
+    // resolves references
+    private void appendText(int from, int end, boolean references) throws SAXException {
+        int i = from;
+        while (i < end) {
+            int b = in.get(i);
+            if (b >= 0) {
+                if (b == '&' && references) {
+                    i = appendReference(i, end);
+                    continue;
+                } else if (b == '\r') {
+                    appendChar('\n');
+                    if (i + 1 < end && in.get(i + 1) == '\n') i++;
+                } else {
+                    appendChar((char) b);
+                }
+                i++;
+            } else {
+                i = appendMultiByte(i, end);
+            }
+        }
+    }
+    
+    private int appendMultiByte(int i, int end) throws SAXException {
+        int b = in.get(i) & 0xFF;
+        int n;
+        int cp;
+        if ((b & 0xE0) == 0xC0) {
+            n = 1;
+            cp = b & 0x1F;
+        } else if ((b & 0xF0) == 0xE0) {
+            n = 2;
+            cp = b & 0x0F;
+        } else if ((b & 0xF8) == 0xF0) {
+            n = 3;
+            cp = b & 0x07;
+        } else {
+            pos = i;
+            fatal("Invalid byte 1 of UTF-8 sequence.");
+            return end;
+        }
+        if (i + n >= end) {
+            pos = i;
+            fatal("Invalid byte " + (end - i + 1) + " of " + (n + 1) + "-byte UTF-8 sequence.");
+        }
+        for (int k = 1; k <= n; k++) {
+            int c = in.get(i + k) & 0xFF;
+            if ((c & 0xC0) != 0x80) {
+                pos = i;
+                fatal("Invalid byte " + (k + 1) + " of " + (n + 1) + "-byte UTF-8 sequence.");
+            }
+            cp = (cp << 6) | (c & 0x3F);
+        }
+        appendCodePoint(cp);
+        return i + n + 1;
+    }
+    
+    private int appendReference(int amp, int end) throws SAXException {
+        int semi = indexOf(in, (byte) ';', amp + 1, end);
+        if (semi < 0) {
+            pos = amp;
+            fatal("The entity name must immediately follow the '&' in the entity reference.");
+        }
+        int cp = reference(amp, semi);
+        appendCodePoint(cp);
+        return semi + 1;
+    }
+    
+    // the code point of the reference from amp to semi
+    private int reference(int amp, int semi) throws SAXException {
+        int length = semi - amp - 1;
+        if (length > 1 && in.get(amp + 1) == '#') {
+            int radix = 10;
+            int i = amp + 2;
+            if (in.get(i) == 'x') {
+                radix = 16;
+                i++;
+            }
+            int cp = 0;
+            if (i == semi) fatal("A decimal representation must immediately follow the \"&#\".");
+            for (; i < semi; i++) {
+                int digit = Character.digit((char) in.get(i), radix);
+                if (digit < 0 || cp > 0x10FFFF) {
+                    pos = amp;
+                    fatal("Invalid character reference.");
+                }
+                cp = cp * radix + digit;
+            }
+            if (cp == 0 || cp > 0x10FFFF) {
+                pos = amp;
+                fatal("Invalid character reference.");
+            }
+            return cp;
+        }
+        if (length == 2 && in.get(amp + 1) == 'l' && in.get(amp + 2) == 't') return '<';
+        if (length == 2 && in.get(amp + 1) == 'g' && in.get(amp + 2) == 't') return '>';
+        if (length == 3 && startsWith(in, "amp", amp + 1)) return '&';
+        if (length == 4 && startsWith(in, "quot", amp + 1)) return '"';
+        if (length == 4 && startsWith(in, "apos", amp + 1)) return '\'';
+        pos = amp;
+        fatal("The entity \"" + decode(in, amp + 1, semi, UTF_8) + "\" was referenced, but not declared.");
+        return 0;
+    }
+    
+    private String attributeValue(int from, int end) throws SAXException {
+        boolean plain = end - from <= Symbols.MAX_SYMBOL_LENGTH;
+        for (int i = from; i < end && plain; i++) {
+            byte b = in.get(i);
+            if (b == '&' || b == '\t' || b == '\n' || b == '\r' || b == '<') plain = false;
+        }
+        if (plain) {
+            return symbols.get(in, from, end);
+        }
+        textLength = 0;
+        int i = from;
+        while (i < end) {
+            int b = in.get(i);
+            if (b == '<') {
+                pos = i;
+                fatal("The value of attribute must not contain the '<' character.");
+            } else if (b == '&') {
+                i = appendReference(i, end);
+            } else if (b == '\t' || b == '\n') {
+                appendChar(' ');
+                i++;
+            } else if (b == '\r') {
+                appendChar(' ');
+                if (i + 1 < end && in.get(i + 1) == '\n') i++;
+                i++;
+            } else if (b >= 0) {
+                appendChar((char) b);
+                i++;
+            } else {
+                i = appendMultiByte(i, end);
+            }
+        }
+        return new String(text, 0, textLength);
+    }
+    
+    private void appendChar(char c) {
+        if (textLength == text.length) {
+            char[] newText = new char[text.length * 2];
+            System.arraycopy(text, 0, newText, 0, textLength);
+            text = newText;
+        }
+        text[textLength++] = c;
+    }
+    
+    private void appendCodePoint(int cp) {
+        if (cp < 0x10000) {
+            appendChar((char) cp);
+        } else {
+            appendChar(Character.highSurrogate(cp));
+            appendChar(Character.lowSurrogate(cp));
+        }
+    }
+    
+    private void alreadySpecified(String attQName, String qName) throws SAXException {
+        fatal("Attribute \"" + attQName + "\" was already specified for element \"" + qName + "\".");
+    }
+    
+    private void bind(String prefix, String uri) throws SAXException {
+        if (prefix.equals("xml") || prefix.equals("xmlns")) {
+            fatal("The prefix \"" + prefix + "\" cannot be bound.");
+        }
+        if (bindingCount == prefixes.length) {
+            prefixes = grow(prefixes);
+            prefixURIs = grow(prefixURIs);
+        }
+        prefixes[bindingCount] = prefix;
+        prefixURIs[bindingCount] = uri;
+        bindingCount++;
+    }
+    
+    private String resolve(String prefix, String qName) throws SAXException {
+        if (prefix.equals("xml")) return XML_URI;
+        for (int i = bindingCount - 1; i >= 0; i--) {
+            if (prefixes[i].equals(prefix)) return prefixURIs[i];
+        }
+        fatal("The prefix \"" + prefix + "\" for \"" + qName + "\" is not bound.");
+        return null;
+    }
+    
+    private String resolveDefault() {
+        for (int i = bindingCount - 1; i >= 0; i--) {
+            if (prefixes[i].length() == 0) return prefixURIs[i];
+        }
+        return "";
+    }
+    
+    private String localName(String qName, int colon) {
+        String localName = localNameCache.get(qName);
+        if (localName == null) {
+            localName = qName.substring(colon + 1).intern();
+            if (localNameCache.size() < Symbols.CAPACITY) {
+                localNameCache.put(qName, localName);
+            }
+        }
+        return localName;
+    }
+    
+    private int nameEnd(int p) {
+        while (p < limit) {
+            byte b = in.get(p);
+            if (b == '>' || b == '/' || b == '=' || b == ' ' || b == '\t' 
+                    || b == '\n' || b == '\r' || b == '<' || b == '?') {
+                break;
+            }
+            p++;
+        }
+        return p;
+    }
+    
+    private void skipWhitespace() {
+        while (pos < limit && isWhitespace(pos)) {
+            pos++;
+        }
+    }
+    
+    private boolean isWhitespace(int p) {
+        if (p >= limit) return false;
+        byte b = in.get(p);
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+    
+    private void fatal(String message) throws SAXException {
+        SAXParseException e = new SAXParseException(message, this);
+        if (errorHandler != null) {
+            errorHandler.fatalError(e);
+        }
+        throw e;
+    }
+    
+    private static String[] grow(String[] array) {
+        String[] newArray = new String[array.length * 2];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        return newArray;
+    }
+    
+    private static boolean startsWith(ByteBuffer buffer, String s, int p) {
+        if (p + s.length() > buffer.limit()) return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (buffer.get(p + i) != s.charAt(i)) return false;
+        }
+        return true;
+    }
+    
+    private static int indexOf(ByteBuffer buffer, byte b, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (buffer.get(i) == b) return i;
+        }
+        return -1;
+    }
+    
+    private static int indexOf(ByteBuffer buffer, String s, int from, int end) {
+        byte first = (byte) s.charAt(0);
+        int last = end - s.length();
+        for (int i = from; i <= last; i++) {
+            if (buffer.get(i) == first && startsWith(buffer, s, i)) return i;
+        }
+        return -1;
+    }
+    
+    private static String decode(ByteBuffer buffer, int from, int end, Charset charset) {
+        byte[] bytes = new byte[end - from];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(from + i);
+        }
+        return new String(bytes, charset);
+    }
+    
+    //////////////////////////////////////////////////////////// Locator
+    
+    public String getPublicId() {
+        return publicId;
+    }
+    
+    public String getSystemId() {
+        return systemId;
+    }
+    
+    public int getLineNumber() {
+        if (in == null) return -1;
+        int line = 1;
+        for (int i = start; i < pos && i < limit; i++) {
+            if (in.get(i) == '\n') line++;
+        }
+        return line;
+    }
+    
+    public int getColumnNumber() {
+        if (in == null) return -1;
+        int column = 1;
+        for (int i = Math.min(pos, limit) - 1; i >= start && in.get(i) != '\n'; i--) {
+            column++;
+        }
+        return column;
+    }
+    
+    //////////////////////////////////////////////////////////// XMLReader
+    
+    public boolean getFeature(String name) 
+    		throws SAXNotRecognizedException, SAXNotSupportedException {
+        if ("http://xml.org/sax/features/namespaces".equals(name)) return true;
+        if ("http://xml.org/sax/features/namespace-prefixes".equals(name)) return false;
+        throw new SAXNotRecognizedException(name);
+    }
+    
+    public void setFeature(String name, boolean value) 
+    		throws SAXNotRecognizedException, SAXNotSupportedException {
+        if (getFeature(name) != value) {
+            throw new SAXNotSupportedException(name);
+        }
+    }
+    
+    public Object getProperty(String name) 
+    		throws SAXNotRecognizedException, SAXNotSupportedException {
+        throw new SAXNotRecognizedException(name);
+    }
+    
+    public void setProperty(String name, Object value) 
+    		throws SAXNotRecognizedException, SAXNotSupportedException {
+        throw new SAXNotRecognizedException(name);
+    }
+    
+    public void setEntityResolver(EntityResolver resolver) {
+        entityResolver = resolver;
+    }
+    
+    public EntityResolver getEntityResolver() {
+        return entityResolver;
+    }
+    
+    public void setDTDHandler(DTDHandler handler) {
+        dtdHandler = handler;
+    }
+    
+    public DTDHandler getDTDHandler() {
+        return dtdHandler;
+    }
+    
+    public void setContentHandler(ContentHandler handler) {
+        contentHandler = handler;
+    }
+    
+    public ContentHandler getContentHandler() {
+        return contentHandler;
+    }
+    
+    public void setErrorHandler(ErrorHandler handler) {
+        errorHandler = handler;
+    }
+    
+    public ErrorHandler getErrorHandler() {
+        return errorHandler;
+    }
+    
+    /**
+     * Reads the byte stream of the input source into memory and parses it.
+     */
+    public void parse(InputSource input) throws IOException, SAXException {
+        InputStream stream = input.getByteStream();
+        if (stream == null) {
+            throw new SAXNotSupportedException("Only byte streams can be parsed.");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = stream.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        parse(ByteBuffer.wrap(out.toByteArray()), input.getSystemId(), input.getPublicId());
+    }
+    
+    public void parse(String systemId) throws IOException, SAXException {
+        throw new SAXNotSupportedException("Only byte streams can be parsed.");
+    }
+    
+    ///////////////////////////////////////////////////////////////
+    /**
+     * A table of the strings of names and short values, looked up by 
+     * their UTF-8 bytes.
+     */
+    private static class Symbols {
+        
+        static final int MAX_SYMBOL_LENGTH = 32;
+        static final int CAPACITY = 4096;
+        
+        private byte[][] keys = new byte[CAPACITY][];
+        private String[] values = new String[CAPACITY];
+        private int count;
+        
+        String get(ByteBuffer buffer, int from, int end) {
+            int length = end - from;
+            if (length > MAX_SYMBOL_LENGTH) {
+                return decode(buffer, from, end, UTF_8);
+            }
+            int hash = 0;
+            for (int i = from; i < end; i++) {
+                hash = 31 * hash + buffer.get(i);
+            }
+            int slot = (hash ^ (hash >>> 16)) & (CAPACITY - 1);
+            while (keys[slot] != null) {
+                byte[] key = keys[slot];
+                if (key.length == length && equals(key, buffer, from)) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & (CAPACITY - 1);
+            }
+            String value = decode(buffer, from, end, UTF_8);
+            // keep the table sparse
+            if (count < CAPACITY / 2) {
+                byte[] key = new byte[length];
+                for (int i = 0; i < length; i++) {
+                    key[i] = buffer.get(from + i);
+                }
+                keys[slot] = key;
+                values[slot] = value;
+                count++;
+            }
+            return value;
+        }
+        
+        private boolean equals(byte[] key, ByteBuffer buffer, int from) {
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != buffer.get(from + i)) return false;
+            }
+            return true;
+        }
+        
+    }
+    
+    ///////////////////////////////////////////////////////////////
+    private static class AttributeList implements Attributes {
+        
+        private String[] uris = new String[8];
+        private String[] localNames = new String[8];
+        private String[] qNames = new String[8];
+        private String[] values = new String[8];
+        private int length;
+        
+        void clear() {
+            length = 0;
+        }
+        
+        void add(String uri, String localName, String qName, String value) {
+            if (length == uris.length) {
+                uris = grow(uris);
+                localNames = grow(localNames);
+                qNames = grow(qNames);
+                values = grow(values);
+            }
+            uris[length] = uri;
+            localNames[length] = localName;
+            qNames[length] = qName;
+            values[length] = value;
+            length++;
+        }
+        
+        public int getLength() {
+            return length;
+        }
+        
+        public String getURI(int index) {
+            return index >= 0 && index < length ? uris[index] : null;
+        }
+        
+        public String getLocalName(int index) {
+            return index >= 0 && index < length ? localNames[index] : null;
+        }
+        
+        public String getQName(int index) {
+            return index >= 0 && index < length ? qNames[index] : null;
+        }
+        
+        public String getType(int index) {
+            return index >= 0 && index < length ? "CDATA" : null;
+        }
+        
+        public String getValue(int index) {
+            return index >= 0 && index < length ? values[index] : null;
+        }
+        
+        public int getIndex(String uri, String localName) {
+            for (int i = 0; i < length; i++) {
+                if (localNames[i].equals(localName) && uris[i].equals(uri)) return i;
+            }
+            return -1;
+        }
+        
+        public int getIndex(String qName) {
+            for (int i = 0; i < length; i++) {
+                if (qNames[i].equals(qName)) return i;
+            }
+            return -1;
+        }
+        
+        public String getType(String uri, String localName) {
+            return getType(getIndex(uri, localName));
+        }
+        
+        public String getType(String qName) {
+            return getType(getIndex(qName));
+        }
+        
+        public String getValue(String uri, String localName) {
+            return getValue(getIndex(uri, localName));
+        }
+        
+        public String getValue(String qName) {
+            return getValue(getIndex(qName));
+        }
+        
+    }
+
+}
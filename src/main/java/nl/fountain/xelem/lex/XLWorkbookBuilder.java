@@ -48,7 +48,12 @@ class XLWorkbookBuilder extends AnonymousBuilder {
     
     public void build(XMLReader reader, ContentHandler parent) {
         super.build(reader, parent);
-        sheetCounter = 0;
+        sheetCounter = director.getFirstSheetIndex();
+        director.startSheetSelection();
+        director.startEventMask();
+        if (director.getParallelSheetReader() != null) {
+            director.getParallelSheetReader().start();
+        }
     }
             
     public void startElement(String uri, String localName, String qName,
@@ -56,12 +61,20 @@ class XLWorkbookBuilder extends AnonymousBuilder {
         
         // DocumentProperties
         if (XLElement.XMLNS_O.equals(uri) && "DocumentProperties".equals(localName)) {            
+            if (!director.wants(SelectiveListener.DOCUMENT_PROPERTIES)) {
+                director.getElementSkipper().skip(reader, this, 1);
+                return;
+            }
             DocumentProperties docprops = new ODocumentProperties();
             Builder builder = director.getAnonymousBuilder();
             builder.build(reader, this, docprops);
         
         // ExcelWorkbook
         } else if (XLElement.XMLNS_X.equals(uri) && "ExcelWorkbook".equals(localName)) {
+            if (!director.wants(SelectiveListener.EXCEL_WORKBOOK)) {
+                director.getElementSkipper().skip(reader, this, 1);
+                return;
+            }
             ExcelWorkbook xlwb = new XExcelWorkbook();
             Builder builder = director.getAnonymousBuilder();
             builder.build(reader, this, xlwb);
@@ -70,6 +83,7 @@ class XLWorkbookBuilder extends AnonymousBuilder {
             
         // NamedRange
         } else if (XLElement.XMLNS_SS.equals(uri) && "NamedRange". equals(localName)) {
+            if (!director.wants(SelectiveListener.NAMED_RANGE)) return;
             NamedRange nr = new SSNamedRange(
                     atts.getValue(XLElement.XMLNS_SS, "Name"), null);
             nr.setAttributes(atts);
@@ -80,15 +94,26 @@ class XLWorkbookBuilder extends AnonymousBuilder {
         // Worksheet
         } else if (XLElement.XMLNS_SS.equals(uri) && "Worksheet". equals(localName)) {
             String sheetName = atts.getValue(XLElement.XMLNS_SS, "Name");
+            int sheetIndex = sheetCounter++;
+            if (!director.isSheetSelected(sheetIndex, sheetName)) {
+                director.getElementSkipper().skip(reader, this, 1);
+                return;
+            }
+            if (director.getParallelSheetReader() != null) {
+                // the worksheet was read by another thread
+                director.getParallelSheetReader().completeSheet(sheetIndex);
+                director.sheetCompleted(sheetIndex, sheetName);
+                return;
+            }
             Worksheet sheet = new SSWorksheet(sheetName);
-            director.setCurrentSheetIndex(sheetCounter);
+            director.setCurrentSheetIndex(sheetIndex);
             director.setCurrentSheetName(sheetName);
+            director.setCurrentSheetArea(sheetName);
             sheet.setAttributes(atts);
             for (ExcelReaderListener listener : director.getListeners()) {
-                listener.startWorksheet(sheetCounter, sheet);
+                listener.startWorksheet(sheetIndex, sheet);
             }
             
-            sheetCounter++;
             Builder builder = director.getSSWorksheetBuilder();
             builder.build(reader, this);
         }
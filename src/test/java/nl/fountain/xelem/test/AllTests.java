@@ -43,6 +43,7 @@ public class AllTests extends TestCase {
         suite.addTestSuite(AreaTest.class);
         suite.addTestSuite(CellPointerTest.class);       
         suite.addTestSuite(XLUtilTest.class);
+        suite.addTestSuite(XLWriterTest.class);
         suite.addTestSuite(SSCellTest.class);
         suite.addTestSuite(SSCommentTest.class);
         suite.addTestSuite(SSColumnTest.class);
@@ -55,6 +56,7 @@ public class AllTests extends TestCase {
         suite.addTestSuite(XFactoryTest.class);
         suite.addTestSuite(XLWorkbookTest.class);
         suite.addTestSuite(CreateDocumentTest.class);
+        suite.addTestSuite(StreamingWorkbookWriterTest.class);
         
         suite.addTestSuite(XLDocumentTest.class);
         
@@ -62,6 +64,25 @@ public class AllTests extends TestCase {
         suite.addTestSuite(DirectorTest.class);
         suite.addTestSuite(ExcelReaderListenerTest.class);
         suite.addTestSuite(WorkbookListenerTest.class);
+        suite.addTestSuite(RowIteratorTest.class);
+        suite.addTestSuite(ParallelReadTest.class);
+        suite.addTestSuite(CellValueListenerTest.class);
+        suite.addTestSuite(ReuseRowsTest.class);
+        suite.addTestSuite(ReadAreaTest.class);
+        suite.addTestSuite(SheetSelectionTest.class);
+        suite.addTestSuite(RowPredicateTest.class);
+        suite.addTestSuite(PipelinedReadTest.class);
+        suite.addTestSuite(RowBatcherTest.class);
+        suite.addTestSuite(SelectiveListenerTest.class);
+        suite.addTestSuite(SheetIndexTest.class);
+        suite.addTestSuite(FastPathReadTest.class);
+        suite.addTestSuite(ExcelReaderPoolTest.class);
+        suite.addTestSuite(BatchReaderTest.class);
+        suite.addTestSuite(ReadControlTest.class);
+        suite.addTestSuite(CheckpointTest.class);
+        suite.addTestSuite(DateTimeCodecTest.class);
+        suite.addTestSuite(JavaTimeCodecTest.class);
+        suite.addTestSuite(NumberFormatterTest.class);
         
         return suite;
     }
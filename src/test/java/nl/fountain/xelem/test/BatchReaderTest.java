@@ -0,0 +1,297 @@
+/*
+ * Created on 17-okt-2026
+ *
+ */
+package nl.fountain.xelem.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+import nl.fountain.xelem.XSerializer;
+import nl.fountain.xelem.excel.Row;
+import nl.fountain.xelem.excel.Workbook;
+import nl.fountain.xelem.excel.Worksheet;
+import nl.fountain.xelem.excel.ss.XLWorkbook;
+import nl.fountain.xelem.lex.BatchListener;
+import nl.fountain.xelem.lex.BatchReader;
+import nl.fountain.xelem.lex.ExcelReader;
+import nl.fountain.xelem.lex.ExcelReaderPool;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ *
+ */
+public class BatchReaderTest extends TestCase {
+
+    private static byte[][] docs;
+
+    private BatchReader batchReader;
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(BatchReaderTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        batchReader = new BatchReader(new ExcelReaderPool(2));
+        if (docs == null) {
+            docs = new byte[12][];
+            for (int i = 0; i < docs.length; i++) {
+                Workbook wb = new XLWorkbook();
+                for (int s = 0; s < 2; s++) {
+                    Worksheet sheet = wb.addSheet("sheet" + s);
+                    // later sources are shorter, so they tend to complete first
+                    for (int r = 1; r <= 10 * (docs.length - i); r++) {
+                        sheet.addCellAt(r, 1).setData(i);
+                    }
+                }
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                new XSerializer().serialize(wb, out);
+                docs[i] = out.toByteArray();
+            }
+        }
+    }
+
+    public void testOrdered() throws Exception {
+        batchReader.setOrdered(true);
+        assertTrue(batchReader.isOrdered());
+        EventLog log = new EventLog();
+        assertEquals(0, batchReader.read(sources(), log));
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < docs.length; i++) {
+            for (int s = 0; s < 2; s++) {
+                for (int r = 1; r <= 10 * (docs.length - i); r++) {
+                    expected.add(i + " source" + i + " " + s + " sheet" + s + " " + r);
+                }
+            }
+            expected.add("end " + i + " source" + i + " null");
+        }
+        assertEquals(expected, log.events);
+        assertEquals(docs.length, batchReader.getCompletedCount());
+        assertEquals(docs.length, batchReader.getSourceCount());
+    }
+
+    public void testUnordered() throws Exception {
+        assertFalse(batchReader.isOrdered());
+        EventLog log = new EventLog();
+        assertEquals(0, batchReader.read(sources(), log));
+        int rows = 0;
+        List<String> ends = new ArrayList<String>();
+        for (String event : log.events) {
+            if (event.startsWith("end")) {
+                ends.add(event);
+            } else {
+                rows++;
+            }
+        }
+        assertEquals(2 * 10 * (12 * 13 / 2), rows);
+        assertEquals(docs.length, ends.size());
+        Collections.sort(ends);
+        assertEquals("end 0 source0 null", ends.get(0));
+    }
+
+    public void testErrorIsolation() throws Exception {
+        List<InputSource> sources = sources();
+        InputSource broken = new InputSource(new ByteArrayInputStream("<broken".getBytes()));
+        broken.setSystemId("broken");
+        sources.add(3, broken);
+        InputSource missing = new InputSource("file:///no/such/file.xml");
+        sources.add(missing);
+        batchReader.setOrdered(true);
+        EventLog log = new EventLog();
+        assertEquals(2, batchReader.read(sources, log));
+        assertTrue(log.events.contains("end 3 broken SAXParseException"));
+        assertEquals("end 13 file:///no/such/file.xml FileNotFoundException", 
+                log.events.get(log.events.size() - 1));
+        assertTrue(log.events.contains("end 12 source11 null"));
+        assertEquals(14, batchReader.getCompletedCount());
+    }
+
+    public void testListenerError() throws Exception {
+        batchReader.setOrdered(true);
+        EventLog log = new EventLog() {
+            public void setRow(int sourceIndex, String systemId, int sheetIndex, 
+                    String sheetName, Row row) {
+                if (sourceIndex == 5) throw new IllegalStateException("source 5");
+                super.setRow(sourceIndex, systemId, sheetIndex, sheetName, row);
+            }
+        };
+        assertEquals(1, batchReader.read(sources(), log));
+        assertTrue(log.events.contains("end 5 source5 IllegalStateException"));
+        assertTrue(log.events.contains("end 11 source11 null"));
+    }
+
+    public void testPendingListenerError() throws Exception {
+        // source 1 is read ahead of it's turn and waits halfway until source 0 ended
+        CountDownLatch ahead = new CountDownLatch(1);
+        final CountDownLatch ended = new CountDownLatch(1);
+        List<InputSource> sources = new ArrayList<InputSource>();
+        sources.add(new InputSource(new GatedStream(docs[0], 0, new CountDownLatch(1), ahead)));
+        sources.add(new InputSource(new GatedStream(docs[1], docs[1].length / 2, ahead, ended)));
+        batchReader.setOrdered(true);
+        EventLog log = new EventLog() {
+            public void setRow(int sourceIndex, String systemId, int sheetIndex, 
+                    String sheetName, Row row) {
+                if (sourceIndex == 1 && sheetIndex == 0 && row.getIndex() == 1) {
+                    throw new IllegalStateException("source 1");
+                }
+                super.setRow(sourceIndex, systemId, sheetIndex, sheetName, row);
+            }
+            public void endSource(int sourceIndex, String systemId, Exception error) {
+                super.endSource(sourceIndex, systemId, error);
+                if (sourceIndex == 0) ended.countDown();
+            }
+        };
+        assertEquals(1, batchReader.read(sources, log));
+        assertTrue(log.events.contains("end 0 null null"));
+        assertEquals("end 1 null IllegalStateException", log.events.get(log.events.size() - 1));
+    }
+
+    public void testParallelism() throws Exception {
+        final AtomicInteger reading = new AtomicInteger();
+        final AtomicInteger max = new AtomicInteger();
+        ExcelReaderPool pool = new ExcelReaderPool(2) {
+            public ExcelReader borrow() throws SAXException {
+                int n = reading.incrementAndGet();
+                synchronized (max) {
+                    if (n > max.get()) max.set(n);
+                }
+                return super.borrow();
+            }
+            public void release(ExcelReader reader) {
+                reading.decrementAndGet();
+                super.release(reader);
+            }
+        };
+        batchReader = new BatchReader(pool);
+        assertEquals(2, batchReader.getParallelism());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        batchReader.setExecutor(executor);
+        assertSame(executor, batchReader.getExecutor());
+        batchReader.setParallelism(3);
+        assertEquals(3, batchReader.getParallelism());
+        try {
+            assertEquals(0, batchReader.read(sources(), new EventLog()));
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(max.get() <= 3);
+        assertEquals(0, reading.get());
+        try {
+            batchReader.setParallelism(0);
+            fail("should throw exception");
+        } catch (IllegalArgumentException e) {
+            //
+        }
+    }
+
+    public void testReadFiles() throws Exception {
+        List<File> files = new ArrayList<File>();
+        try {
+            for (int i = 0; i < 3; i++) {
+                File file = File.createTempFile("batch", ".xml");
+                FileOutputStream out = new FileOutputStream(file);
+                out.write(docs[i]);
+                out.close();
+                files.add(file);
+            }
+            batchReader.setOrdered(true);
+            EventLog log = new EventLog();
+            assertEquals(0, batchReader.readFiles(files, log));
+            String last = log.events.get(log.events.size() - 1);
+            assertTrue(last, last.startsWith("end 2 file:"));
+            assertTrue(last.endsWith(files.get(2).getName() + " null"));
+        } finally {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    private List<InputSource> sources() {
+        List<InputSource> sources = new ArrayList<InputSource>();
+        for (int i = 0; i < docs.length; i++) {
+            InputSource source = new InputSource(new ByteArrayInputStream(docs[i]));
+            source.setSystemId("source" + i);
+            sources.add(source);
+        }
+        return sources;
+    }
+
+    private static class GatedStream extends ByteArrayInputStream {
+
+        private int gate;
+        private CountDownLatch reached;
+        private CountDownLatch open;
+
+        GatedStream(byte[] bytes, int gate, CountDownLatch reached, CountDownLatch open) {
+            super(bytes);
+            this.gate = gate;
+            this.reached = reached;
+            this.open = open;
+        }
+
+        public synchronized int read() {
+            await();
+            return super.read();
+        }
+
+        public synchronized int read(byte[] b, int off, int len) {
+            await();
+            if (pos < gate) len = Math.min(len, gate - pos);
+            return super.read(b, off, len);
+        }
+
+        private void await() {
+            if (pos < gate || open.getCount() == 0) return;
+            reached.countDown();
+            try {
+                assertTrue(open.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+    }
+
+    private static class EventLog implements BatchListener {
+
+        List<String> events = new ArrayList<String>();
+        boolean busy;
+
+        public void setRow(int sourceIndex, String systemId, int sheetIndex, 
+                String sheetName, Row row) {
+            check();
+            events.add(sourceIndex + " " + systemId + " " + sheetIndex + " " 
+                    + sheetName + " " + row.getIndex());
+            busy = false;
+        }
+
+        public void endSource(int sourceIndex, String systemId, Exception error) {
+            check();
+            events.add("end " + sourceIndex + " " + systemId + " " 
+                    + (error == null ? null : error.getClass().getSimpleName()));
+            busy = false;
+        }
+
+        // calls are never concurrent
+        private void check() {
+            if (busy) throw new IllegalStateException("concurrent call");
+            busy = true;
+        }
+
+    }
+
+}
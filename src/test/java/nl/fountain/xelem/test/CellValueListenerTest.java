@@ -0,0 +1,199 @@
+/*
+ * Created on 17-okt-2026
+ *
+ */
+package nl.fountain.xelem.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+import nl.fountain.xelem.Area;
+import nl.fountain.xelem.XSerializer;
+import nl.fountain.xelem.excel.Cell;
+import nl.fountain.xelem.excel.Workbook;
+import nl.fountain.xelem.excel.Worksheet;
+import nl.fountain.xelem.excel.ss.XLWorkbook;
+import nl.fountain.xelem.lex.DefaultExcelReaderListener;
+import nl.fountain.xelem.lex.ExcelReader;
+import nl.fountain.xelem.lex.CellValueListener;
+
+import org.xml.sax.InputSource;
+
+/**
+ *
+ */
+public class CellValueListenerTest extends TestCase {
+
+    private static byte[] xml;
+    private static List<String> numbers;
+
+    private ExcelReader reader;
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(CellValueListenerTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        reader = new ExcelReader();
+        if (xml == null) {
+            Workbook wb = new XLWorkbook();
+            Worksheet sheet = wb.addSheet("values");
+            sheet.addCell("a & b");
+            sheet.addCell(1.5);
+            sheet.addCell(new Date(1234567890000L));
+            sheet.addCell(true).addComment("a comment");
+            sheet.addCell(false);
+            sheet.addCell().setError(Cell.ERRORVALUE_DIV_BY_0);
+            sheet.addCell();
+            sheet.addCellAt(3, 5).setData(-42);
+            sheet.addCellAt(3, 7).setFormula("=R1C2*2");
+            Worksheet numberSheet = wb.addSheet("numbers");
+            Random random = new Random(17);
+            numbers = new ArrayList<String>();
+            for (int r = 1; r <= 200; r++) {
+                double d;
+                switch (r % 5) {
+                    case 0: d = random.nextDouble(); break;
+                    case 1: d = random.nextInt(100000) / 100.0D; break;
+                    case 2: d = random.nextGaussian() * 1e12; break;
+                    case 3: d = Double.longBitsToDouble(random.nextLong()); break;
+                    default: d = random.nextLong() / 1000.0D; break;
+                }
+                if (Double.isNaN(d) || Double.isInfinite(d)) d = r;
+                numberSheet.addCellAt(r, 1).setData(d);
+                numbers.add(numberSheet.getCellAt(r, 1).getData$());
+            }
+            numberSheet.addCellAt(201, 1).setData(0.1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new XSerializer().serialize(wb, out);
+            // numbers as they may be found in a document
+            String doc = new String(out.toByteArray(), "UTF-8");
+            String[] texts = {"007", "-0", "1.", ".5", "+3", "1e3", "12345678901234567890",
+                    "0.30000000000000004", " 2 ", "not a number"};
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < texts.length; i++) {
+                sb.append("<ss:Row><ss:Cell><ss:Data ss:Type=\"Number\">").append(texts[i])
+                        .append("</ss:Data></ss:Cell></ss:Row>");
+                numbers.add(texts[i]);
+            }
+            int index = doc.lastIndexOf("</ss:Table>");
+            doc = doc.substring(0, index) + sb + doc.substring(index);
+            xml = doc.getBytes("UTF-8");
+        }
+    }
+
+    public void testValues() throws Exception {
+        ValueLog log = new ValueLog();
+        reader.addCellValueListener(log);
+        reader.read(new InputSource(new ByteArrayInputStream(xml)));
+        assertEquals("0 1 1 text a & b", log.events.get(0));
+        assertEquals("0 1 2 number 1.5", log.events.get(1));
+        long millis = 1234567890000L;
+        assertEquals("0 1 3 date " + (millis - millis % 1000), log.events.get(2));
+        assertEquals("0 1 4 boolean true", log.events.get(3));
+        assertEquals("0 1 5 boolean false", log.events.get(4));
+        assertEquals("0 1 6 error #DIV/0", log.events.get(5));
+        assertEquals("0 3 5 number -42.0", log.events.get(6));
+        assertEquals("1 1 1 number", log.events.get(7).substring(0, 12));
+    }
+
+    public void testNumbers() throws Exception {
+        ValueLog log = new ValueLog();
+        reader.addCellValueListener(log);
+        reader.setReadArea(new Area("A1:A1000"));
+        reader.read(new InputSource(new ByteArrayInputStream(xml)));
+        List<String> events = log.events.subList(1, log.events.size());
+        assertEquals(numbers.size() + 1, events.size());
+        for (int i = 0; i < numbers.size(); i++) {
+            String text = numbers.get(i);
+            String event = events.get(i >= 200 ? i + 1 : i);
+            String prefix = "1 " + (i >= 200 ? i + 2 : i + 1) + " 1 ";
+            try {
+                double d = Double.parseDouble(text);
+                assertEquals(prefix + "number " + d, event);
+            } catch (NumberFormatException e) {
+                assertEquals(prefix + "text " + text, event);
+            }
+        }
+        assertEquals("1 201 1 number 0.1", events.get(200));
+    }
+
+    public void testSameAsCells() throws Exception {
+        ValueLog log = new ValueLog();
+        reader.addCellValueListener(log);
+        reader.read(new InputSource(new ByteArrayInputStream(xml)));
+        List<String> valuesOnly = new ArrayList<String>(log.events);
+
+        log.events.clear();
+        reader.addExcelReaderListener(new DefaultExcelReaderListener());
+        reader.read(new InputSource(new ByteArrayInputStream(xml)));
+        assertEquals(valuesOnly, log.events);
+
+        log.events.clear();
+        reader.setReadArea(new Area("A2:D500"));
+        reader.read(new InputSource(new ByteArrayInputStream(xml)));
+        List<String> withCells = new ArrayList<String>(log.events);
+        reader.clearExcelReaderListeners();
+        log.events.clear();
+        reader.read(new InputSource(new ByteArrayInputStream(xml)));
+        assertEquals(withCells, log.events);
+        assertEquals("1 2 1 number", withCells.get(0).substring(0, 12));
+    }
+
+    public void testParallel() throws Exception {
+        ValueLog log = new ValueLog();
+        reader.addCellValueListener(log);
+        reader.read(new InputSource(new ByteArrayInputStream(xml)));
+        List<String> expected = new ArrayList<String>(log.events);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            reader.setReadExecutor(executor);
+            log.events.clear();
+            reader.read(new InputSource(new ByteArrayInputStream(xml)));
+            assertEquals(expected, log.events);
+
+            reader.setOrderedEvents(false);
+            log.events.clear();
+            reader.read(new InputSource(new ByteArrayInputStream(xml)));
+            assertEquals(expected.size(), log.events.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class ValueLog implements CellValueListener {
+
+        List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+        public void onNumber(int sheetIndex, int rowIndex, int columnIndex, double value) {
+            events.add(sheetIndex + " " + rowIndex + " " + columnIndex + " number " + value);
+        }
+
+        public void onText(int sheetIndex, int rowIndex, int columnIndex, CharSequence text) {
+            events.add(sheetIndex + " " + rowIndex + " " + columnIndex + " text " + text);
+        }
+
+        public void onBoolean(int sheetIndex, int rowIndex, int columnIndex, boolean value) {
+            events.add(sheetIndex + " " + rowIndex + " " + columnIndex + " boolean " + value);
+        }
+
+        public void onDate(int sheetIndex, int rowIndex, int columnIndex, long epochMillis) {
+            events.add(sheetIndex + " " + rowIndex + " " + columnIndex + " date " + epochMillis);
+        }
+
+        public void onError(int sheetIndex, int rowIndex, int columnIndex,
+                CharSequence errorValue) {
+            events.add(sheetIndex + " " + rowIndex + " " + columnIndex + " error " + errorValue);
+        }
+
+    }
+
+}
@@ -0,0 +1,287 @@
+/*
+ * Created on 17-okt-2026
+ *
+ */
+package nl.fountain.xelem.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+import nl.fountain.xelem.XSerializer;
+import nl.fountain.xelem.excel.Column;
+import nl.fountain.xelem.excel.Row;
+import nl.fountain.xelem.excel.Workbook;
+import nl.fountain.xelem.excel.Worksheet;
+import nl.fountain.xelem.excel.ss.XLWorkbook;
+import nl.fountain.xelem.lex.Checkpoint;
+import nl.fountain.xelem.lex.CheckpointListener;
+import nl.fountain.xelem.lex.DefaultExcelReaderListener;
+import nl.fountain.xelem.lex.ExcelReader;
+
+import org.xml.sax.InputSource;
+
+/**
+ *
+ */
+public class CheckpointTest extends TestCase {
+
+    private static byte[] xml;
+    private static File file;
+
+    private ExcelReader reader;
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(CheckpointTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        reader = new ExcelReader();
+        if (xml == null) {
+            Workbook wb = new XLWorkbook();
+            wb.getDocumentProperties().setTitle("checkpoints");
+            Worksheet sheet = wb.addSheet("first");
+            sheet.addColumn().setWidth(100);
+            sheet.addColumn().setWidth(50);
+            for (int r = 1; r <= 25; r++) {
+                sheet.addCellAt(r, 1).setData("a\u00e9 " + r);
+                sheet.addCellAt(r, 2).setData(r * 1.5);
+            }
+            sheet = wb.addSheet("second");
+            // rows with gaps are written with an ss:Index
+            for (int r = 1; r <= 23; r++) {
+                sheet.addCellAt(r * 2, 1).setData(r);
+            }
+            sheet.getCellAt(7 * 2, 1).addComment("<Row> in a comment");
+            wb.addSheet("third").addCell("third");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new XSerializer().serialize(wb, out);
+            xml = out.toByteArray();
+            file = File.createTempFile("checkpoint", ".xml");
+            file.deleteOnExit();
+            FileOutputStream fos = new FileOutputStream(file);
+            fos.write(xml);
+            fos.close();
+        }
+    }
+
+    public void testCheckpoints() throws Exception {
+        reader.setCheckpointInterval(10);
+        Recorder recorder = new Recorder();
+        reader.addExcelReaderListener(recorder);
+        reader.read(new InputSource(new ByteArrayInputStream(xml)));
+        assertEquals(4, recorder.checkpoints.size());
+        assertCheckpoint(recorder.checkpoints.get(0), 0, "first", 10);
+        assertCheckpoint(recorder.checkpoints.get(1), 0, "first", 20);
+        assertCheckpoint(recorder.checkpoints.get(2), 1, "second", 20);
+        assertCheckpoint(recorder.checkpoints.get(3), 1, "second", 40);
+        assertEquals("row 0 10 a\u00e9 10", recorder.log.get(9));
+        assertEquals("checkpoint 0 10", recorder.log.get(10));
+        assertEquals("row 0 11 a\u00e9 11", recorder.log.get(11));
+        assertEquals("urn:schemas-microsoft-com:office:spreadsheet", 
+                recorder.checkpoints.get(0).getPrefixMap().get("ss"));
+
+        recorder = new Recorder();
+        reader.addExcelReaderListener(recorder);
+        reader.setCheckpointInterval(0);
+        reader.read(new InputSource(new ByteArrayInputStream(xml)));
+        assertEquals(0, recorder.checkpoints.size());
+    }
+
+    public void testResume() throws Exception {
+        reader.setCheckpointInterval(10);
+        Recorder full = new Recorder();
+        reader.addExcelReaderListener(full);
+        reader.read(file.getPath());
+        reader.removeExcelReaderListener(full);
+        for (Checkpoint checkpoint : full.checkpoints) {
+            Recorder resumed = new Recorder();
+            reader.addExcelReaderListener(resumed);
+            reader.resume(file, checkpoint);
+            reader.removeExcelReaderListener(resumed);
+            List<String> expected = full.log.subList(
+                    full.log.indexOf(toString(checkpoint)) + 1, full.log.size());
+            assertEquals(expected, resumed.log);
+            // the header of the worksheet is read again
+            assertEquals(checkpoint.getSheetName(), resumed.sheetNames.get(0));
+            assertEquals(checkpoint.getSheetIndex() == 0 ? 2 : 0, resumed.columns);
+        }
+    }
+
+    public void testResumeFromResumed() throws Exception {
+        reader.setCheckpointInterval(10);
+        Recorder full = new Recorder();
+        reader.addExcelReaderListener(full);
+        reader.read(file.getPath());
+        reader.removeExcelReaderListener(full);
+        Recorder resumed = new Recorder();
+        reader.addExcelReaderListener(resumed);
+        reader.resume(file, full.checkpoints.get(0));
+        reader.removeExcelReaderListener(resumed);
+        assertEquals(3, resumed.checkpoints.size());
+        for (int i = 0; i < 3; i++) {
+            Checkpoint expected = full.checkpoints.get(i + 1);
+            Checkpoint actual = resumed.checkpoints.get(i);
+            assertEquals(expected.getOffset(), actual.getOffset());
+            assertEquals(expected.getRowIndex(), actual.getRowIndex());
+            assertEquals(expected.getSheetIndex(), actual.getSheetIndex());
+        }
+        Recorder again = new Recorder();
+        reader.addExcelReaderListener(again);
+        reader.resume(file, resumed.checkpoints.get(0));
+        List<String> expected = full.log.subList(
+                full.log.indexOf(toString(full.checkpoints.get(1))) + 1, full.log.size());
+        assertEquals(expected, again.log);
+    }
+
+    public void testResumeAfterFailure() throws Exception {
+        reader.setCheckpointInterval(5);
+        final List<Checkpoint> saved = new ArrayList<Checkpoint>();
+        final List<String> processed = new ArrayList<String>();
+        Recorder failing = new Recorder() {
+            public void setRow(int sheetIndex, String sheetName, Row row) {
+                if (sheetIndex == 1 && row.getIndex() == 30) {
+                    throw new IllegalStateException("failure");
+                }
+                processed.add("row " + sheetIndex + " " + row.getIndex());
+            }
+            public void checkpoint(Checkpoint checkpoint) {
+                saved.add(checkpoint);
+            }
+        };
+        reader.addExcelReaderListener(failing);
+        try {
+            reader.read(file.getPath());
+            fail("should throw exception");
+        } catch (IllegalStateException e) {
+            //
+        }
+        reader.removeExcelReaderListener(failing);
+        Checkpoint last = saved.get(saved.size() - 1);
+        assertCheckpoint(last, 1, "second", 20);
+
+        // the checkpoint survives the process
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        last.write(out);
+        last = Checkpoint.read(new ByteArrayInputStream(out.toByteArray()));
+        assertCheckpoint(last, 1, "second", 20);
+
+        Recorder resumed = new Recorder();
+        reader.addExcelReaderListener(resumed);
+        reader.resume(file, last);
+        assertEquals("row 1 22 11", resumed.log.get(0));
+        assertTrue(processed.contains("row 1 20"));
+        assertTrue(processed.contains("row 1 28"));
+        assertEquals("row 2 1 third", resumed.log.get(resumed.log.size() - 1));
+    }
+
+    public void testPipelined() throws Exception {
+        reader.setCheckpointInterval(10);
+        Recorder sequential = new Recorder();
+        reader.addExcelReaderListener(sequential);
+        reader.read(file.getPath());
+        reader.removeExcelReaderListener(sequential);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            reader.setPipelineExecutor(executor);
+            reader.setPipelineCapacity(4);
+            Recorder pipelined = new Recorder();
+            reader.addExcelReaderListener(pipelined);
+            reader.read(file.getPath());
+            assertEquals(sequential.log, pipelined.log);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testNoCheckpoints() throws Exception {
+        reader.setCheckpointInterval(10);
+        Recorder recorder = new Recorder();
+        reader.addExcelReaderListener(recorder);
+        reader.read(new InputSource(new StringReader(new String(xml, "UTF-8"))));
+        assertEquals(0, recorder.checkpoints.size());
+        assertEquals(25 + 23 + 1, recorder.log.size());
+
+        String doctype = new String(xml, "UTF-8").replaceFirst("<Workbook", 
+                "<!DOCTYPE Workbook []>\n<Workbook");
+        recorder.log.clear();
+        reader.read(new InputSource(new ByteArrayInputStream(doctype.getBytes("UTF-8"))));
+        assertEquals(0, recorder.checkpoints.size());
+        assertEquals(25 + 23 + 1, recorder.log.size());
+        try {
+            reader.setCheckpointInterval(-1);
+            fail("should throw exception");
+        } catch (IllegalArgumentException e) {
+            //
+        }
+    }
+
+    public void testMismatch() throws Exception {
+        reader.setCheckpointInterval(10);
+        Recorder recorder = new Recorder();
+        reader.addExcelReaderListener(recorder);
+        reader.read(file.getPath());
+        File other = File.createTempFile("checkpoint", ".xml");
+        other.deleteOnExit();
+        FileOutputStream fos = new FileOutputStream(other);
+        fos.write(xml, 0, xml.length / 3);
+        fos.write(' ');
+        fos.write(xml, xml.length / 3, xml.length - xml.length / 3);
+        fos.close();
+        try {
+            reader.resume(other, recorder.checkpoints.get(3));
+            fail("should throw exception");
+        } catch (IllegalArgumentException e) {
+            //
+        }
+    }
+
+    private void assertCheckpoint(Checkpoint checkpoint, int sheetIndex, 
+            String sheetName, int rowIndex) throws Exception {
+        assertEquals(sheetIndex, checkpoint.getSheetIndex());
+        assertEquals(sheetName, checkpoint.getSheetName());
+        assertEquals(rowIndex, checkpoint.getRowIndex());
+        String row = new String(xml, (int) checkpoint.getOffset(), 7, "UTF-8");
+        assertTrue(row, row.startsWith("<ss:Row") || row.startsWith("<Row"));
+    }
+
+    private static String toString(Checkpoint checkpoint) {
+        return "checkpoint " + checkpoint.getSheetIndex() + " " + checkpoint.getRowIndex();
+    }
+
+    private static class Recorder extends DefaultExcelReaderListener 
+    		implements CheckpointListener {
+
+        List<String> log = new ArrayList<String>();
+        List<Checkpoint> checkpoints = new ArrayList<Checkpoint>();
+        List<String> sheetNames = new ArrayList<String>();
+        int columns;
+
+        public void startWorksheet(int sheetIndex, Worksheet sheet) {
+            sheetNames.add(sheet.getName());
+        }
+
+        public void setColumn(int sheetIndex, String sheetName, Column column) {
+            columns++;
+        }
+
+        public void setRow(int sheetIndex, String sheetName, Row row) {
+            log.add("row " + sheetIndex + " " + row.getIndex() + " " 
+                    + row.getCellAt(1).getData$());
+        }
+
+        public void checkpoint(Checkpoint checkpoint) {
+            checkpoints.add(checkpoint);
+            log.add(CheckpointTest.toString(checkpoint));
+        }
+
+    }
+
+}
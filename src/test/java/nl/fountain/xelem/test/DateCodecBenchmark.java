@@ -0,0 +1,171 @@
+/*
+ * Created on 17-okt-2026
+ *
+ */
+package nl.fountain.xelem.test;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import nl.fountain.xelem.DateTimeCodec;
+
+/**
+ * Measures the speed of formatting and parsing DateTime values. 
+ * Not a unit test: run it's main-method.
+ * <P>
+ * Compares the DateTimeCodec with the SimpleDateFormat that was used 
+ * by XLUtil before, from one thread and from several threads. 
+ * The SimpleDateFormat can only be shared by synchronizing on it.
+ */
+public class DateCodecBenchmark {
+
+    private static final int VALUES = 500000;
+    private static final int THREADS = 4;
+    private static final int RUNS = 5;
+
+    private static SimpleDateFormat xldf;
+
+    public static void main(String[] args) throws Exception {
+        long[] millis = new long[VALUES];
+        String[] texts = new String[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            millis[i] = 946684800000L + i * 6311520L;
+            texts[i] = DateTimeCodec.getDefault().format(millis[i]);
+        }
+        benchmarkFormat(millis);
+        benchmarkParse(texts);
+        benchmarkThreads(millis);
+    }
+
+    private static void benchmarkFormat(long[] millis) {
+        DateTimeCodec codec = DateTimeCodec.getDefault();
+        char[] buffer = new char[32];
+        for (int run = 0; run < RUNS; run++) {
+            int length = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < millis.length; i++) {
+                length += formatOld(new Date(millis[i])).length();
+            }
+            long old = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < millis.length; i++) {
+                length += codec.format(millis[i]).length();
+            }
+            long string = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < millis.length; i++) {
+                length += codec.format(millis[i], buffer, 0);
+            }
+            long chars = System.nanoTime() - start;
+            System.out.println("formatted " + millis.length + " values: SimpleDateFormat "
+                    + old / 1000000 + " ms, codec " + string / 1000000 
+                    + " ms, codec into char[] " + chars / 1000000 + " ms. (" + length + ")");
+        }
+    }
+
+    private static void benchmarkParse(String[] texts) {
+        DateTimeCodec codec = DateTimeCodec.getDefault();
+        for (int run = 0; run < RUNS; run++) {
+            long sum = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < texts.length; i++) {
+                sum += parseOld(texts[i]).getTime();
+            }
+            long old = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < texts.length; i++) {
+                sum += codec.parse(texts[i]);
+            }
+            long parsed = System.nanoTime() - start;
+            System.out.println("parsed " + texts.length + " values: SimpleDateFormat "
+                    + old / 1000000 + " ms, codec " + parsed / 1000000 + " ms. (" + sum + ")");
+        }
+    }
+
+    private static void benchmarkThreads(final long[] millis) throws Exception {
+        for (int run = 0; run < RUNS; run++) {
+            long old = runThreads(millis, true);
+            long codec = runThreads(millis, false);
+            System.out.println("formatted " + millis.length + " values in each of " 
+                    + THREADS + " threads: synchronized SimpleDateFormat "
+                    + old / 1000000 + " ms, codec " + codec / 1000000 + " ms.");
+        }
+    }
+
+    private static long runThreads(final long[] millis, final boolean old) throws Exception {
+        final DateTimeCodec codec = DateTimeCodec.getDefault();
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            threads[t] = new Thread() {
+                public void run() {
+                    char[] buffer = new char[32];
+                    for (int i = 0; i < millis.length; i++) {
+                        if (old) {
+                            synchronized (DateCodecBenchmark.class) {
+                                formatOld(new Date(millis[i]));
+                            }
+                        } else {
+                            codec.format(millis[i], buffer, 0);
+                        }
+                    }
+                }
+            };
+        }
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            threads[t].start();
+        }
+        for (int t = 0; t < THREADS; t++) {
+            threads[t].join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    // the formatting as it was done by XLUtil before
+    private static String formatOld(Date date) {
+        StringBuffer sb = new StringBuffer(getDateFormat().format(date));
+        sb.append("T");
+        sb.append(getTimeFormat().format(date));
+        return sb.toString();
+    }
+
+    // the parsing as it was done by XLUtil before
+    private static Date parseOld(String dateString) {
+        String datum = dateString.substring(0, 10);
+        String tijd = dateString.substring(11, 19);
+        Date date = null;
+        try {
+            date = getExcelFormat().parse(datum + " " + tijd);
+        } catch (ParseException e) {
+            e.printStackTrace();
+        }
+        return date;
+    }
+
+    private static DateFormat getDateFormat() {
+        if (xldf == null) {
+            xldf = new SimpleDateFormat();
+        }
+        xldf.applyPattern("yyyy-MM-dd");
+        return xldf;
+    }
+
+    private static DateFormat getTimeFormat() {
+        if (xldf == null) {
+            xldf = new SimpleDateFormat();
+        }
+        xldf.applyPattern("HH:mm:ss.SSS");
+        return xldf;
+    }
+
+    private static DateFormat getExcelFormat() {
+        if (xldf == null) {
+            xldf = new SimpleDateFormat();
+        }
+        xldf.applyPattern("yyyy-MM-dd HH:mm:ss");
+        return xldf;
+    }
+
+}
@@ -0,0 +1,166 @@
+/*
+ * Created on 17-okt-2026
+ *
+ */
+package nl.fountain.xelem.test;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import junit.framework.TestCase;
+import nl.fountain.xelem.DateTimeCodec;
+import nl.fountain.xelem.XLUtil;
+
+/**
+ *
+ */
+public class DateTimeCodecTest extends TestCase {
+
+    private static final String[] ZONES = {"UTC", "Europe/Amsterdam", "America/New_York",
+            "Australia/Lord_Howe", "Asia/Kolkata", "America/Sao_Paulo", "Pacific/Apia"};
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(DateTimeCodecTest.class);
+    }
+
+    public void testFormat() {
+        DateTimeCodec codec = new DateTimeCodec(TimeZone.getTimeZone("UTC"));
+        assertEquals("2009-02-13T23:31:30.123", codec.format(1234567890123L));
+        assertEquals("1970-01-01T00:00:00.000", codec.format(0L));
+        assertEquals("1969-12-31T23:59:59.999", codec.format(-1L));
+        assertEquals("2000-02-29T12:00:00.005", codec.format(951825600005L));
+        assertEquals("1900-01-01T00:00:00.000", codec.format(new Date(-2208988800000L)));
+        char[] buffer = new char[32];
+        buffer[0] = '>';
+        int end = codec.format(0L, buffer, 1);
+        assertEquals(1 + DateTimeCodec.LENGTH, end);
+        assertEquals(">1970-01-01T00:00:00.000", new String(buffer, 0, end));
+        
+        codec = new DateTimeCodec(TimeZone.getTimeZone("Europe/Amsterdam"));
+        assertEquals("2009-02-14T00:31:30.123", codec.format(1234567890123L));
+        assertEquals("Europe/Amsterdam", codec.getTimeZoneID());
+    }
+
+    public void testSameAsSimpleDateFormat() throws Exception {
+        Random random = new Random(17);
+        for (int z = 0; z < ZONES.length; z++) {
+            TimeZone zone = TimeZone.getTimeZone(ZONES[z]);
+            DateTimeCodec codec = new DateTimeCodec(zone);
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS");
+            sdf.setTimeZone(zone);
+            for (int i = 0; i < 20000; i++) {
+                // 1900 - 2100
+                long millis = -2208988800000L 
+                		+ (long) (random.nextDouble() * 73048 * 24 * 3600000L);
+                String expected = sdf.format(new Date(millis));
+                assertEquals(ZONES[z], expected, codec.format(millis));
+                // within an overlap both take the earlier of the two times
+                assertEquals(ZONES[z] + " " + expected, 
+                        sdf.parse(expected).getTime(), codec.parse(expected));
+            }
+        }
+    }
+
+    public void testTransitions() throws Exception {
+        String[] times = {"2021-03-28T02:30:00", "2021-10-31T02:30:00", 
+                "2021-03-14T02:30:00", "2021-11-07T01:30:00", "2021-04-04T01:45:00", 
+                "2021-10-03T02:15:00", "2011-12-30T10:00:00", "2011-12-29T23:59:59",
+                "1918-01-01T00:10:00", "2018-11-04T00:30:00", "2019-02-16T23:30:00"};
+        for (int z = 0; z < ZONES.length; z++) {
+            TimeZone zone = TimeZone.getTimeZone(ZONES[z]);
+            DateTimeCodec codec = new DateTimeCodec(zone);
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+            sdf.setTimeZone(zone);
+            for (int i = 0; i < times.length; i++) {
+                assertEquals(ZONES[z] + " " + times[i], 
+                        sdf.parse(times[i]).getTime(), codec.parse(times[i]));
+            }
+        }
+    }
+
+    public void testParse() {
+        DateTimeCodec codec = new DateTimeCodec(TimeZone.getTimeZone("UTC"));
+        assertEquals(1234567890123L, codec.parse("2009-02-13T23:31:30.123"));
+        assertEquals(1234567890100L, codec.parse("2009-02-13T23:31:30.1"));
+        assertEquals(1234567890123L, codec.parse("2009-02-13T23:31:30.123456"));
+        assertEquals(1234567890000L, codec.parse("2009-02-13 23:31:30"));
+        assertEquals(1234567860000L, codec.parse("2009-02-13T23:31"));
+        assertEquals(1234567890000L, codec.parse("2009-02-13T23:31:30Z"));
+        assertEquals(951782400000L, codec.parse("2000-02-29T00:00:00.000"));
+        String[] invalid = {"", "2009-02-13", "2009-02-13T23", "2009/02/13T23:31:30", 
+                "2009-13-13T23:31:30", "2009-02-29T23:31:30", "2009-04-31T00:00:00",
+                "2009-02-13T24:00:00", "2009-02-13T23:60:00", "2009-02-13T23:31:60",
+                "20o9-02-13T23:31:30", "2009-02-13T23:31:3x"};
+        for (int i = 0; i < invalid.length; i++) {
+            assertEquals(invalid[i], -1L, codec.parse(invalid[i], -1L));
+            assertNull(codec.parseDate(invalid[i]));
+            try {
+                codec.parse(invalid[i]);
+                fail("should throw exception: " + invalid[i]);
+            } catch (IllegalArgumentException e) {
+                //
+            }
+        }
+        assertEquals(new Date(0L), codec.parseDate(new StringBuilder("1970-01-01T00:00:00")));
+    }
+
+    public void testOutOfRange() {
+        TimeZone zone = TimeZone.getTimeZone("UTC");
+        DateTimeCodec codec = new DateTimeCodec(zone);
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS");
+        sdf.setTimeZone(zone);
+        long[] values = {-12219292800001L, -30610224000000L - 1234L, 253402300800000L};
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(sdf.format(new Date(values[i])), codec.format(values[i]));
+        }
+        assertEquals(values[1], codec.parse(codec.format(values[1])));
+    }
+
+    public void testXLUtil() {
+        DateTimeCodec codec = DateTimeCodec.getDefault();
+        assertSame(codec, DateTimeCodec.getDefault());
+        Date date = new Date(1234567890123L);
+        String s = XLUtil.format(date);
+        assertEquals(codec.format(date), s);
+        // milliseconds are ignored
+        assertEquals(1234567890000L, XLUtil.parse(s).getTime());
+        assertNull(XLUtil.parse("2009"));
+        assertNull(XLUtil.parse("not a date at all"));
+    }
+
+    public void testConcurrentUse() throws Exception {
+        final DateTimeCodec codec = new DateTimeCodec(TimeZone.getTimeZone("Europe/Amsterdam"));
+        final List<String> errors = new ArrayList<String>();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final long seed = t;
+            threads[t] = new Thread() {
+                public void run() {
+                    Random random = new Random(seed);
+                    char[] buffer = new char[32];
+                    for (int i = 0; i < 50000; i++) {
+                        long millis = (long) (random.nextDouble() * 4e12);
+                        int end = codec.format(millis, buffer, 0);
+                        String s = new String(buffer, 0, end);
+                        // a time within an overlap is parsed to the earlier time
+                        if (!s.equals(codec.format(codec.parse(s)))) {
+                            synchronized (errors) {
+                                errors.add(millis + " -> " + new String(buffer, 0, end));
+                            }
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+        }
+        assertTrue(errors.toString(), errors.isEmpty());
+    }
+
+}
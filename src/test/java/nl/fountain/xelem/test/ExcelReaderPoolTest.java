@@ -0,0 +1,173 @@
+/*
+ * Created on 17-okt-2026
+ *
+ */
+package nl.fountain.xelem.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+import nl.fountain.xelem.Area;
+import nl.fountain.xelem.XSerializer;
+import nl.fountain.xelem.excel.Row;
+import nl.fountain.xelem.excel.Workbook;
+import nl.fountain.xelem.excel.Worksheet;
+import nl.fountain.xelem.excel.ss.XLWorkbook;
+import nl.fountain.xelem.lex.DefaultExcelReaderListener;
+import nl.fountain.xelem.lex.ExcelReader;
+import nl.fountain.xelem.lex.ExcelReaderPool;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ *
+ */
+public class ExcelReaderPoolTest extends TestCase {
+
+    private static byte[][] docs;
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(ExcelReaderPoolTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        if (docs == null) {
+            docs = new byte[8][];
+            for (int i = 0; i < docs.length; i++) {
+                Workbook wb = new XLWorkbook();
+                Worksheet sheet = wb.addSheet("doc" + i);
+                for (int r = 1; r <= 50 + i; r++) {
+                    sheet.addCellAt(r, 1).setData(i * 1000 + r);
+                }
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                new XSerializer().serialize(wb, out);
+                docs[i] = out.toByteArray();
+            }
+        }
+    }
+
+    public void testConstructor() throws Exception {
+        ExcelReaderPool pool = new ExcelReaderPool(3);
+        assertEquals(3, pool.getIdleCount());
+        assertEquals(3, pool.getMaxIdle());
+        assertEquals(Runtime.getRuntime().availableProcessors(), 
+                new ExcelReaderPool().getMaxIdle());
+        try {
+            new ExcelReaderPool(0);
+            fail("should throw exception");
+        } catch (IllegalArgumentException e) {
+            //
+        }
+    }
+
+    public void testConcurrentReads() throws Exception {
+        final ExcelReaderPool pool = new ExcelReaderPool(2);
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int n = 0; n < 200; n++) {
+                final int i = n % docs.length;
+                results.add(executor.submit(new Callable<String>() {
+                    public String call() throws Exception {
+                        Workbook wb = pool.getWorkbook(
+                                new InputSource(new ByteArrayInputStream(docs[i])));
+                        Worksheet sheet = wb.getWorksheet("doc" + i);
+                        return sheet.getTable().rowCount() + " " 
+                        		+ sheet.getCellAt(50 + i, 1).intValue();
+                    }
+                }));
+            }
+            for (int n = 0; n < 200; n++) {
+                int i = n % docs.length;
+                assertEquals((50 + i) + " " + (i * 1000 + 50 + i), results.get(n).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(pool.getIdleCount() <= 2);
+    }
+
+    public void testReadWithListeners() throws Exception {
+        ExcelReaderPool pool = new ExcelReaderPool(1);
+        RowCounter counter = new RowCounter();
+        RowCounter other = new RowCounter();
+        pool.read(new InputSource(new ByteArrayInputStream(docs[3])), counter, other);
+        assertEquals(53, counter.rows);
+        assertEquals(53, other.rows);
+        ExcelReader reader = pool.borrow();
+        assertTrue(reader.getListeners().isEmpty());
+        pool.release(reader);
+    }
+
+    public void testReleaseResets() throws Exception {
+        ExcelReaderPool pool = new ExcelReaderPool(1);
+        ExcelReader reader = pool.borrow();
+        assertEquals(0, pool.getIdleCount());
+        reader.setReadArea(new Area("A1:A2"));
+        reader.setReuseRows(true);
+        reader.setStopAfterArea(true);
+        reader.setOrderedEvents(false);
+        reader.setPipelineCapacity(4);
+        reader.setColumnProjection(1);
+        reader.addExcelReaderListener(new RowCounter());
+        pool.release(reader);
+        assertEquals(1, pool.getIdleCount());
+
+        ExcelReader again = pool.borrow();
+        assertSame(reader, again);
+        assertFalse(again.hasReadArea());
+        assertFalse(again.isReuseRows());
+        assertFalse(again.isStopAfterArea());
+        assertTrue(again.isOrderedEvents());
+        assertEquals(1024, again.getPipelineCapacity());
+        assertNull(again.getColumnProjection());
+        assertTrue(again.getListeners().isEmpty());
+        RowCounter counter = new RowCounter();
+        again.addExcelReaderListener(counter);
+        again.read(new InputSource(new ByteArrayInputStream(docs[0])));
+        assertEquals(50, counter.rows);
+        pool.release(again);
+    }
+
+    public void testPoolGrowsAndShrinks() throws Exception {
+        ExcelReaderPool pool = new ExcelReaderPool(1);
+        ExcelReader first = pool.borrow();
+        ExcelReader second = pool.borrow();
+        assertNotSame(first, second);
+        pool.release(first);
+        pool.release(second);
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    public void testErrorReleasesReader() throws Exception {
+        ExcelReaderPool pool = new ExcelReaderPool(1);
+        try {
+            pool.getWorkbook(new InputSource(new ByteArrayInputStream("<broken".getBytes())));
+            fail("should throw exception");
+        } catch (SAXException e) {
+            //
+        }
+        assertEquals(1, pool.getIdleCount());
+        Workbook wb = pool.getWorkbook(new InputSource(new ByteArrayInputStream(docs[1])));
+        assertEquals(51, wb.getWorksheet("doc1").getTable().rowCount());
+    }
+
+    private static class RowCounter extends DefaultExcelReaderListener {
+
+        int rows;
+
+        public void setRow(int sheetIndex, String sheetName, Row row) {
+            rows++;
+        }
+
+    }
+
+}
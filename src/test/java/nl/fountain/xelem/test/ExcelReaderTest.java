@@ -11,6 +11,7 @@ import java.io.PipedReader;
 import java.io.PipedWriter;
 import java.io.PrintWriter;
 import java.io.Reader;
+import java.io.StringReader;
 import java.io.Writer;
 import java.util.Date;
 import java.util.Iterator;
@@ -508,6 +509,26 @@ public class ExcelReaderTest extends TestCase {
     }
     
     
+    public void testDecodeValues() throws Exception {
+        Workbook wb = new XLWorkbook();
+        Worksheet sheet = wb.addSheet();
+        sheet.addCell(1.25D);
+        sheet.addCell(new Date(1234567000L));
+        sheet.addCell("text");
+        String xml = new XSerializer().serializeToString(wb);
+        ExcelReader reader = new ExcelReader();
+        assertFalse(reader.isDecodeValues());
+        reader.setDecodeValues(true);
+        Row row = reader.getWorkbook(new InputSource(new StringReader(xml)))
+        		.getWorksheetAt(0).getRowAt(1);
+        Object number = row.getCellAt(1).getData();
+        assertEquals(new Double(1.25D), number);
+        assertSame(number, row.getCellAt(1).getData());
+        assertEquals(new Date(1234567000L), row.getCellAt(2).getData());
+        assertEquals("text", row.getCellAt(3).getData());
+        assertEquals(0.0D, row.getCellAt(3).doubleValue(), 0.0D);
+    }
+    
     public void testStream() throws Exception {       
         PipedReader inA = new PipedReader();
         PrintWriter outA = new PrintWriter(new PipedWriter(inA));
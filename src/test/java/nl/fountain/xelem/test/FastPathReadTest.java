@@ -0,0 +1,245 @@
+/*
+ * Created on 17-okt-2026
+ *
+ */
+package nl.fountain.xelem.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import nl.fountain.xelem.XSerializer;
+import nl.fountain.xelem.excel.Cell;
+import nl.fountain.xelem.excel.NamedRange;
+import nl.fountain.xelem.excel.Row;
+import nl.fountain.xelem.excel.Workbook;
+import nl.fountain.xelem.excel.Worksheet;
+import nl.fountain.xelem.excel.ss.XLWorkbook;
+import nl.fountain.xelem.lex.DefaultExcelReaderListener;
+import nl.fountain.xelem.lex.ExcelReader;
+import nl.fountain.xelem.lex.WorkbookListener;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXParseException;
+
+/**
+ *
+ */
+public class FastPathReadTest extends TestCase {
+
+    private static String xml;
+
+    private ExcelReader reader;
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(FastPathReadTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        reader = new ExcelReader();
+        if (xml == null) {
+            Workbook wb = new XLWorkbook("fast");
+            wb.getDocumentProperties().setTitle("caf\u00E9 \u20AC \uD83D\uDE00");
+            wb.addNamedRange("total", "=Sheet1!R1C1");
+            Worksheet sheet = wb.addSheet("first & <second>");
+            sheet.addCell("a & b < c > d \"e\" 'f'");
+            sheet.addCell(1.5);
+            sheet.addCell(new Date(123456000L));
+            sheet.addCell(true).addComment("a comment\nover two lines");
+            sheet.addCellAt(3, 2).setData(42);
+            sheet.addCellAt(3, 7).setFormula("=R1C2*2");
+            sheet.addCellAt(4, 1).setData("line one\r\nline two\ttab");
+            sheet.getRowAt(3).setHeight(20.0);
+            sheet.addColumnAt(2).setWidth(50);
+            sheet.setAutoFilter("R1C1:R3C1");
+            sheet.getWorksheetOptions().setSelected(true);
+            wb.addSheet("\u00FCber").addCell("\u65E5\u672C\u8A9E");
+            xml = new XSerializer().serializeToString(wb);
+        }
+    }
+
+    public void testSameEvents() throws Exception {
+        assertSameEvents(xml.getBytes("UTF-8"));
+    }
+
+    public void testSameWorkbook() throws Exception {
+        WorkbookListener expected = new WorkbookListener();
+        reader.addExcelReaderListener(expected);
+        reader.read(new InputSource(new ByteArrayInputStream(xml.getBytes("UTF-8"))));
+        reader.removeExcelReaderListener(expected);
+
+        WorkbookListener actual = new WorkbookListener();
+        reader.addExcelReaderListener(actual);
+        reader.read(ByteBuffer.wrap(xml.getBytes("UTF-8")));
+        XSerializer xs = new XSerializer();
+        assertEquals(xs.serializeToString(expected.getWorkbook()), 
+                xs.serializeToString(actual.getWorkbook()));
+    }
+
+    public void testMarkup() throws Exception {
+        String doc = "\uFEFF<?xml version=\"1.0\" encoding='utf-8' standalone=\"yes\"?>\r\n"
+            + "<!-- before -->\n<?mso-application progid=\"Excel.Sheet\"?>\n"
+            + "<Workbook xmlns=\"urn:schemas-microsoft-com:office:spreadsheet\"\n"
+            + "  xmlns:o=\"urn:schemas-microsoft-com:office:office\"\n"
+            + "  xmlns:ss='urn:schemas-microsoft-com:office:spreadsheet'>\n"
+            + " <o:DocumentProperties><o:Title>&#x41;&#66;&#x1F600;</o:Title></o:DocumentProperties>\n"
+            + " <Worksheet ss:Name=\"a&#9;b\r\nc\">\n  <!-- a comment -->\n  <Table>\n"
+            + "   <Row><Cell><Data ss:Type=\"String\"><![CDATA[x < y & z]]>&lt;&amp;</Data></Cell>\n"
+            + "    <Cell ss:Index=\"3\"><ss:Data ss:Type=\"String\" "
+            + "xmlns=\"http://www.w3.org/TR/REC-html40\"><B>bold</B> <Font html:Color=\"#FF0000\" "
+            + "xmlns:html=\"http://www.w3.org/TR/REC-html40\">red</Font></ss:Data></Cell>\n"
+            + "    <Cell><Data ss:Type=\"Number\">3.25</Data><Comment><ss:Data>note</ss:Data>"
+            + "</Comment></Cell></Row>\n"
+            + "   <Row ss:Index=\"5\"/>\n"
+            + "   <Row><Cell><Data ss:Type=\"String\">\u00E9\u00E8</Data></Cell></Row>\n"
+            + "  </Table>\n </Worksheet>\n</Workbook>\n<!-- after -->\n";
+        assertSameEvents(doc.getBytes("UTF-8"));
+    }
+
+    public void testFallback() throws Exception {
+        String doc = xml.replaceFirst("encoding=\"[^\"]*\"", "encoding=\"UTF-16\"");
+        assertTrue(doc.indexOf("UTF-16") > 0);
+        assertSameEvents(doc.getBytes("UTF-16"));
+
+        doc = xml.replaceFirst("encoding=\"[^\"]*\"", "encoding=\"ISO-8859-1\"");
+        assertSameEvents(doc.getBytes("ISO-8859-1"));
+
+        int index = xml.indexOf("<Workbook");
+        doc = xml.substring(0, index) + "<!DOCTYPE Workbook [<!ENTITY e \"entity\">]>" 
+            + xml.substring(index).replaceFirst("a &amp; b", "&e;");
+        assertSameEvents(doc.getBytes("UTF-8"));
+    }
+
+    public void testReadMapped() throws Exception {
+        File file = File.createTempFile("fast", ".xml");
+        try {
+            FileOutputStream out = new FileOutputStream(file);
+            out.write(xml.getBytes("UTF-8"));
+            out.close();
+            EventLog expected = new EventLog();
+            reader.addExcelReaderListener(expected);
+            reader.read(file.getPath());
+            reader.removeExcelReaderListener(expected);
+
+            EventLog actual = new EventLog();
+            reader.addExcelReaderListener(actual);
+            reader.readMapped(file);
+            assertEquals(expected.events, actual.events);
+            assertTrue(actual.events.contains("startWorkbook " 
+                    + expected.events.get(2).substring(14)));
+            assertTrue(expected.events.get(2).startsWith("startWorkbook file:"));
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testPositionUnchanged() throws Exception {
+        byte[] bytes = ("garbage" + xml).getBytes("UTF-8");
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.position(7);
+        EventLog log = new EventLog();
+        reader.addExcelReaderListener(log);
+        reader.read(buffer);
+        assertEquals(7, buffer.position());
+        assertEquals("endDocument", log.events.get(log.events.size() - 1));
+    }
+
+    public void testNotWellFormed() throws Exception {
+        assertParseError(xml.replaceFirst("a &amp; b", "&broken;"), "broken");
+        assertParseError(xml.replaceFirst("</ss:Worksheet>", "</ss:Table>"), "ss:Worksheet");
+        assertParseError(xml.substring(0, xml.length() - 20), null);
+        assertParseError(xml.replaceFirst("<Workbook", "<Workbook><x:Foo/"), null);
+        assertParseError(xml + "<Workbook/>", null);
+    }
+
+    public void testDuplicateAttributes() throws Exception {
+        assertParseError(xml.replaceFirst("<ss:Worksheet ", "<ss:Worksheet ss:Name=\"x\" "), 
+                "ss:Name");
+        assertParseError(xml.replaceFirst("<Workbook ", "<Workbook xmlns:o=\"x\" xmlns:o=\"y\" "), 
+                "xmlns:o");
+        assertParseError(xml.replaceFirst("<ss:Worksheet ", 
+                "<ss:Worksheet xmlns:s2=\"urn:schemas-microsoft-com:office:spreadsheet\" s2:Name=\"x\" "), 
+                "Name");
+    }
+
+    private void assertParseError(String doc, String message) throws Exception {
+        try {
+            reader.read(ByteBuffer.wrap(doc.getBytes("UTF-8")));
+            fail("should throw exception");
+        } catch (SAXParseException e) {
+            if (message != null) assertTrue(e.getMessage(), e.getMessage().indexOf(message) >= 0);
+            assertTrue(e.getLineNumber() > 0);
+        }
+    }
+
+    private void assertSameEvents(byte[] bytes) throws Exception {
+        EventLog expected = new EventLog();
+        reader.addExcelReaderListener(expected);
+        reader.read(new InputSource(new ByteArrayInputStream(bytes)));
+        reader.removeExcelReaderListener(expected);
+
+        EventLog actual = new EventLog();
+        reader.addExcelReaderListener(actual);
+        reader.read(ByteBuffer.wrap(bytes));
+        reader.removeExcelReaderListener(actual);
+        assertEquals(expected.events, actual.events);
+        assertTrue(actual.events.size() > 5);
+    }
+
+    private static class EventLog extends DefaultExcelReaderListener {
+
+        List<String> events = new ArrayList<String>();
+
+        public void startDocument() {
+            events.add("startDocument");
+        }
+
+        public void processingInstruction(String target, String data) {
+            events.add("pi " + target + " " + data);
+        }
+
+        public void startWorkbook(String systemID) {
+            events.add("startWorkbook " + systemID);
+        }
+
+        public void setDocumentProperties(nl.fountain.xelem.excel.DocumentProperties docProps) {
+            events.add("title " + docProps.getTitle());
+        }
+
+        public void setNamedRange(NamedRange namedRange) {
+            events.add("name " + namedRange.getName() + " " + namedRange.getRefersTo());
+        }
+
+        public void startWorksheet(int sheetIndex, Worksheet sheet) {
+            events.add(sheetIndex + " worksheet " + sheet.getName());
+        }
+
+        public void setRow(int sheetIndex, String sheetName, Row row) {
+            events.add(sheetIndex + " row " + row.getIndex() + " " + row.getHeight());
+        }
+
+        public void setCell(int sheetIndex, String sheetName, int rowIndex, Cell cell) {
+            events.add(sheetIndex + " cell " + rowIndex + ":" + cell.getIndex() + " "
+                    + cell.getXLDataType() + " [" + cell.getData$() + "] " + cell.getFormula()
+                    + " " + cell.getStyleID()
+                    + (cell.hasComment() ? " [" + cell.getComment().getData() + "]" : ""));
+        }
+
+        public void endWorksheet(int sheetIndex, String sheetName) {
+            events.add(sheetIndex + " end " + sheetName);
+        }
+
+        public void endDocument(Map<String, String> prefixMap) {
+            events.add("prefixes " + prefixMap);
+            events.add("endDocument");
+        }
+
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Created on 17-okt-2026
+ *
+ */
+package nl.fountain.xelem.test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.TimeZone;
+
+import junit.framework.TestCase;
+import nl.fountain.xelem.DateTimeCodec;
+import nl.fountain.xelem.JavaTimeCodec;
+
+/**
+ *
+ */
+public class JavaTimeCodecTest extends TestCase {
+
+    private JavaTimeCodec codec;
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(JavaTimeCodecTest.class);
+    }
+
+    protected void setUp() {
+        codec = new JavaTimeCodec(new DateTimeCodec(TimeZone.getTimeZone("Asia/Kolkata")));
+    }
+
+    public void testLocalDateTime() {
+        LocalDateTime ldt = LocalDateTime.of(2004, 9, 8, 12, 30, 15, 250000000);
+        assertEquals("2004-09-08T12:30:15.250", codec.format(ldt));
+        assertEquals(ldt, codec.parseLocalDateTime("2004-09-08T12:30:15.250"));
+        assertEquals(LocalDateTime.of(1500, 2, 28, 0, 0), 
+                codec.parseLocalDateTime("1500-02-28T00:00:00"));
+        assertEquals(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999000000), 
+                codec.parseLocalDateTime("1969-12-31T23:59:59.999"));
+        try {
+            codec.format(LocalDateTime.of(10000, 1, 1, 0, 0));
+            fail("should throw exception");
+        } catch (IllegalArgumentException e) {
+            //
+        }
+        try {
+            codec.parseLocalDateTime("2005-02-29T00:00:00");
+            fail("should throw exception");
+        } catch (IllegalArgumentException e) {
+            //
+        }
+    }
+
+    public void testInstant() {
+        assertEquals("1970-01-01T05:30:00.000", codec.format(Instant.ofEpochMilli(0L)));
+        assertEquals(Instant.ofEpochMilli(0L), codec.parseInstant("1970-01-01T05:30:00"));
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Created on 17-okt-2026
+ *
+ */
+package nl.fountain.xelem.test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import nl.fountain.xelem.NumberFormatter;
+import nl.fountain.xelem.XSerializer;
+import nl.fountain.xelem.excel.Worksheet;
+import nl.fountain.xelem.excel.ss.XLWorkbook;
+
+/**
+ * Measures the speed of formatting numbers. Not a unit test: run it's main-method.
+ * <P>
+ * Compares Double.toString, that was used by SSCell before, with the 
+ * NumberFormatter, for doubles with many digits and for integral values, 
+ * and times the serialization of a workbook with numeric cells.
+ */
+public class NumberFormatBenchmark {
+
+    private static final int VALUES = 1000000;
+    private static final int ROWS = 20000;
+    private static final int COLUMNS = 8;
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws Exception {
+        Random random = new Random(1);
+        double[] doubles = new double[VALUES];
+        double[] integrals = new double[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            doubles[i] = random.nextDouble() * 1000000;
+            integrals[i] = random.nextInt(1000000);
+        }
+        benchmark("doubles", doubles);
+        benchmark("integral doubles", integrals);
+        benchmarkSerializer(doubles);
+    }
+
+    private static void benchmark(String name, double[] values) {
+        char[] buffer = new char[NumberFormatter.MAX_LENGTH];
+        for (int run = 0; run < RUNS; run++) {
+            long length = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < values.length; i++) {
+                length += Double.toString(values[i]).length();
+            }
+            long toString = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < values.length; i++) {
+                length += NumberFormatter.format(values[i], buffer, 0);
+            }
+            long formatter = System.nanoTime() - start;
+            System.out.println("formatted " + values.length + " " + name 
+                    + ": Double.toString " + toString / 1000000 + " ms, NumberFormatter " 
+                    + formatter / 1000000 + " ms. (" + length + ")");
+        }
+    }
+
+    private static void benchmarkSerializer(double[] values) throws Exception {
+        XLWorkbook wb = new XLWorkbook("benchmark");
+        Worksheet sheet = wb.addSheet();
+        for (int r = 1; r <= ROWS; r++) {
+            for (int c = 1; c <= COLUMNS; c++) {
+                sheet.addCellAt(r, c).setData(values[r * COLUMNS + c]);
+            }
+        }
+        XSerializer xs = new XSerializer();
+        xs.setStreaming(true);
+        for (int run = 0; run < RUNS; run++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long start = System.nanoTime();
+            xs.serialize(wb, out);
+            long time = (System.nanoTime() - start) / 1000000;
+            System.out.println("serialized " + ROWS + " rows of " + COLUMNS 
+                    + " numeric cells in " + time + " ms.");
+        }
+    }
+
+}
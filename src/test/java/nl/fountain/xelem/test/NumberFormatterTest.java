@@ -0,0 +1,170 @@
+/*
+ * Created on 17-okt-2026
+ *
+ */
+package nl.fountain.xelem.test;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import nl.fountain.xelem.GIO;
+import nl.fountain.xelem.NumberFormatter;
+import nl.fountain.xelem.XLWriter;
+import nl.fountain.xelem.excel.Cell;
+import nl.fountain.xelem.excel.ss.SSCell;
+
+/**
+ *
+ */
+public class NumberFormatterTest extends TestCase {
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(NumberFormatterTest.class);
+    }
+
+    public void testLayout() {
+        assertEquals("0.0", NumberFormatter.toString(0.0D));
+        assertEquals("-0.0", NumberFormatter.toString(-0.0D));
+        assertEquals("1.0", NumberFormatter.toString(1.0D));
+        assertEquals("-3.0", NumberFormatter.toString(-3.0D));
+        assertEquals("100.0", NumberFormatter.toString(100.0D));
+        assertEquals("1.5", NumberFormatter.toString(1.5D));
+        assertEquals("123456.789", NumberFormatter.toString(123456.789D));
+        assertEquals("9999999.0", NumberFormatter.toString(9999999.0D));
+        assertEquals("1.0E7", NumberFormatter.toString(1.0E7D));
+        assertEquals("0.001", NumberFormatter.toString(0.001D));
+        assertEquals("9.9E-4", NumberFormatter.toString(0.00099D));
+        assertEquals("1.0E-5", NumberFormatter.toString(0.00001D));
+        assertEquals("1.0E23", NumberFormatter.toString(1.0E23D));
+        assertEquals("4.9E-324", NumberFormatter.toString(Double.MIN_VALUE));
+        assertEquals("1.7976931348623157E308", NumberFormatter.toString(Double.MAX_VALUE));
+        assertEquals("-2.2250738585072014E-308", NumberFormatter.toString(-Double.MIN_NORMAL));
+        assertEquals(NumberFormatter.MAX_LENGTH, 
+                NumberFormatter.toString(-Double.MIN_NORMAL).length());
+        assertEquals("NaN", NumberFormatter.toString(Double.NaN));
+        assertEquals("Infinity", NumberFormatter.toString(Double.POSITIVE_INFINITY));
+        assertEquals("-Infinity", NumberFormatter.toString(Double.NEGATIVE_INFINITY));
+        
+        assertEquals("0.1", NumberFormatter.toString(0.1F));
+        assertEquals("1.0E10", NumberFormatter.toString(1.0E10F));
+        assertEquals("1.6777216E7", NumberFormatter.toString(16777216F));
+        assertEquals("1.4E-45", NumberFormatter.toString(Float.MIN_VALUE));
+        assertEquals("3.4028235E38", NumberFormatter.toString(Float.MAX_VALUE));
+        assertEquals("-Infinity", NumberFormatter.toString(Float.NEGATIVE_INFINITY));
+    }
+
+    public void testLong() {
+        long[] values = {0L, 1L, -1L, 9L, 10L, -99L, 1234567890123L, 
+                -1000000000000000000L, Long.MAX_VALUE, Long.MIN_VALUE};
+        char[] buffer = new char[NumberFormatter.MAX_LENGTH + 1];
+        for (int i = 0; i < values.length; i++) {
+            int end = NumberFormatter.format(values[i], buffer, 1);
+            assertEquals(Long.toString(values[i]), new String(buffer, 1, end - 1));
+        }
+    }
+
+    public void testSameLayoutAsToString() {
+        // these are written with the shortest digits by Double.toString too
+        Random random = new Random(7);
+        for (int i = 0; i < 100000; i++) {
+            double d = random.nextInt(2000000) / 1000.0D;
+            assertEquals(Double.toString(d), NumberFormatter.toString(d));
+            d = random.nextInt() * 1.0E-9D;
+            assertEquals(Double.toString(d), NumberFormatter.toString(d));
+        }
+    }
+
+    public void testRoundTripDouble() {
+        Random random = new Random(17);
+        char[] buffer = new char[NumberFormatter.MAX_LENGTH];
+        for (int i = 0; i < 200000; i++) {
+            double d = Double.longBitsToDouble(random.nextLong());
+            if (Double.isNaN(d) || Double.isInfinite(d)) continue;
+            int end = NumberFormatter.format(d, buffer, 0);
+            String s = new String(buffer, 0, end);
+            assertEquals(s, d, Double.parseDouble(s), 0.0D);
+            if (i % 20 == 0) {
+                assertShortest(d, s);
+            }
+        }
+        double[] edges = {Double.MIN_NORMAL, Math.nextUp(Double.MIN_NORMAL), 
+                Math.nextAfter(Double.MIN_NORMAL, 0.0D), 9007199254740992.0D, 
+                9007199254740994.0D, 4503599627370497.0D, 1.0E22D, 1.0E-300D, 
+                Math.nextUp(1.0D), Math.nextAfter(1.0D, 0.0D), 2.0E-323D, 1.0E-322D};
+        for (int i = 0; i < edges.length; i++) {
+            String s = NumberFormatter.toString(edges[i]);
+            assertEquals(s, edges[i], Double.parseDouble(s), 0.0D);
+            assertShortest(edges[i], s);
+        }
+    }
+
+    public void testRoundTripFloat() {
+        Random random = new Random(23);
+        for (int i = 0; i < 200000; i++) {
+            float f = Float.intBitsToFloat(random.nextInt());
+            if (Float.isNaN(f) || Float.isInfinite(f)) continue;
+            String s = NumberFormatter.toString(f);
+            assertEquals(s, f, Float.parseFloat(s), 0.0F);
+            // never longer than Float.toString
+            assertTrue(s + " " + f, s.length() <= Float.toString(f).length());
+        }
+    }
+
+    public void testXLWriter() throws Exception {
+        StringWriter sw = new StringWriter();
+        XLWriter out = new XLWriter(sw);
+        out.startElement("n");
+        out.attribute("d", 0.1D);
+        out.text(1.0E23D);
+        out.text(" ");
+        out.text(2.5F);
+        out.text(" ");
+        out.text(Long.MIN_VALUE);
+        out.endElement();
+        out.flush();
+        assertEquals("<n d=\"0.1\">1.0E23 2.5 -9223372036854775808</n>", sw.toString().trim());
+    }
+
+    public void testSSCell() throws Exception {
+        Cell cell = new SSCell();
+        cell.setData(1.0E23D);
+        assertEquals("1.0E23", cell.getData$());
+        assertEquals(1.0E23D, cell.doubleValue(), 0.0D);
+        cell.setData(0.1F);
+        assertEquals("0.1", cell.getData$());
+        cell.setData(Double.POSITIVE_INFINITY);
+        assertEquals("String", cell.getXLDataType());
+        assertEquals("Infinity", cell.getData$());
+        assertTrue(Double.isInfinite(cell.doubleValue()));
+        
+        StringWriter sw = new StringWriter();
+        XLWriter out = new XLWriter(sw);
+        cell.setData(-0.25D);
+        cell.write(out, new GIO());
+        out.flush();
+        assertTrue(sw.toString(), 
+                sw.toString().indexOf("<Data ss:Type=\"Number\">-0.25</Data>") > 0);
+    }
+
+    // no shorter decimal gives d, and no other decimal of the same length is closer
+    private void assertShortest(double d, String s) {
+        BigDecimal exact = new BigDecimal(d);
+        BigDecimal decimal = new BigDecimal(s);
+        int digits = decimal.stripTrailingZeros().precision();
+        if (d != 0.0D && Math.abs(d) >= Double.MIN_NORMAL && digits > 1) {
+            MathContext shorter = new MathContext(digits - 1, RoundingMode.FLOOR);
+            assertTrue(s, exact.round(shorter).doubleValue() != d);
+            shorter = new MathContext(digits - 1, RoundingMode.CEILING);
+            assertTrue(s, exact.round(shorter).doubleValue() != d);
+        }
+        BigDecimal nearest = exact.round(new MathContext(digits, RoundingMode.HALF_EVEN));
+        if (nearest.doubleValue() == d) {
+            assertEquals(s, 0, nearest.compareTo(decimal));
+        }
+    }
+
+}
@@ -0,0 +1,224 @@
+/*
+ * Created on 17-okt-2026
+ *
+ */
+package nl.fountain.xelem.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+import nl.fountain.xelem.XSerializer;
+import nl.fountain.xelem.excel.Cell;
+import nl.fountain.xelem.excel.Column;
+import nl.fountain.xelem.excel.NamedRange;
+import nl.fountain.xelem.excel.Row;
+import nl.fountain.xelem.excel.Table;
+import nl.fountain.xelem.excel.Workbook;
+import nl.fountain.xelem.excel.Worksheet;
+import nl.fountain.xelem.excel.WorksheetOptions;
+import nl.fountain.xelem.excel.ss.XLWorkbook;
+import nl.fountain.xelem.lex.DefaultExcelReaderListener;
+import nl.fountain.xelem.lex.ExcelReader;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ *
+ */
+public class ParallelReadTest extends TestCase {
+
+    private static byte[] xml;
+
+    private ExcelReader reader;
+    private ExecutorService executor;
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(ParallelReadTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        reader = new ExcelReader();
+        executor = Executors.newFixedThreadPool(3);
+        if (xml == null) {
+            Workbook wb = new XLWorkbook();
+            wb.addNamedRange("wbrange", "=Sheet1!R1C1");
+            for (int i = 0; i < 6; i++) {
+                Worksheet sheet = wb.addSheet("Sheet" + i);
+                sheet.addNamedRange("range" + i, "=R1C1:R2C2");
+                sheet.getTable().addColumn().setWidth(20 + i);
+                for (int r = 1; r <= 30; r++) {
+                    sheet.addCellAt(r, 1).setData("sheet " + i + " <row> " + r);
+                    sheet.addCellAt(r, 2).setData(r * i);
+                }
+                sheet.getCellAt(1, 1).addComment("comment " + i);
+                sheet.getWorksheetOptions().setSelected(i == 2);
+            }
+            wb.addSheet("empty");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new XSerializer().serialize(wb, out);
+            xml = out.toByteArray();
+        }
+    }
+
+    protected void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    public void testOrderedEvents() throws Exception {
+        List<String> expected = readEvents(xml);
+        reader.setReadExecutor(executor);
+        assertTrue(reader.isOrderedEvents());
+        List<String> actual = readEvents(xml);
+        assertEquals(expected, actual);
+        assertTrue(actual.size() > 200);
+    }
+
+    public void testGetWorkbook() throws Exception {
+        Workbook expected = reader.getWorkbook(new InputSource(new ByteArrayInputStream(xml)));
+        Map<String, String> prefixMap = new HashMap<String, String>(reader.getPrefixMap());
+        reader.setReadExecutor(executor);
+        reader.setOrderedEvents(false);
+        Workbook actual = reader.getWorkbook(new InputSource(new ByteArrayInputStream(xml)));
+        assertFalse(reader.isOrderedEvents());
+        assertEquals(expected.getSheetNames(), actual.getSheetNames());
+        assertEquals(expected.getNamedRanges().keySet(), actual.getNamedRanges().keySet());
+        for (String name : expected.getSheetNames()) {
+            Worksheet sheet = expected.getWorksheet(name);
+            Worksheet actualSheet = actual.getWorksheet(name);
+            assertEquals(sheet.getNamedRanges().keySet(), actualSheet.getNamedRanges().keySet());
+            assertEquals(sheet.getTable().rowCount(), actualSheet.getTable().rowCount());
+            for (int r = 1; r <= sheet.getTable().maxRowIndex(); r++) {
+                for (int c = 1; c <= 2; c++) {
+                    assertEquals(sheet.getCellAt(r, c).getData$(), 
+                            actualSheet.getCellAt(r, c).getData$());
+                }
+            }
+        }
+        assertEquals(prefixMap, reader.getPrefixMap());
+    }
+
+    public void testUnorderedEvents() throws Exception {
+        List<String> expected = readEvents(xml);
+        reader.setReadExecutor(executor);
+        reader.setOrderedEvents(false);
+        List<String> actual = readEvents(xml);
+        assertEquals(expected.size(), actual.size());
+        // the events of each worksheet are in order
+        for (int i = 0; i < 7; i++) {
+            assertEquals(eventsOfSheet(expected, i), eventsOfSheet(actual, i));
+        }
+        assertEquals(expected.get(0), actual.get(0));
+        assertEquals(expected.get(expected.size() - 1), actual.get(actual.size() - 1));
+    }
+
+    public void testError() throws Exception {
+        String doc = new String(xml, "UTF-8");
+        int index = doc.indexOf("sheet 4 &lt;row&gt; 7");
+        byte[] broken = (doc.substring(0, index) + "&broken;" + doc.substring(index))
+                .getBytes("UTF-8");
+        reader.setReadExecutor(executor);
+        EventLog log = new EventLog();
+        reader.addExcelReaderListener(log);
+        try {
+            reader.read(new InputSource(new ByteArrayInputStream(broken)));
+            fail("should throw exception");
+        } catch (SAXException e) {
+            assertTrue(e.getMessage().indexOf("broken") >= 0);
+        }
+        // the worksheets before the broken one were delivered
+        assertFalse(eventsOfSheet(log.events, 3).isEmpty());
+        assertTrue(eventsOfSheet(log.events, 4).isEmpty());
+    }
+
+    public void testSequentialFallback() throws Exception {
+        String doc = new String(xml, "UTF-8");
+        int index = doc.indexOf("<Workbook");
+        byte[] withDoctype = (doc.substring(0, index) + "<!DOCTYPE Workbook>\n" 
+                + doc.substring(index)).getBytes("UTF-8");
+        List<String> expected = readEvents(withDoctype);
+        reader.setReadExecutor(executor);
+        reader.setOrderedEvents(false);
+        assertEquals(expected, readEvents(withDoctype));
+    }
+
+    private List<String> readEvents(byte[] bytes) throws Exception {
+        EventLog log = new EventLog();
+        reader.addExcelReaderListener(log);
+        reader.read(new InputSource(new ByteArrayInputStream(bytes)));
+        reader.removeExcelReaderListener(log);
+        return log.events;
+    }
+
+    private List<String> eventsOfSheet(List<String> events, int sheetIndex) {
+        List<String> sheetEvents = new ArrayList<String>();
+        for (String event : events) {
+            if (event.startsWith(sheetIndex + " ")) {
+                sheetEvents.add(event);
+            }
+        }
+        return sheetEvents;
+    }
+
+    private static class EventLog extends DefaultExcelReaderListener {
+
+        List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+        public void startDocument() {
+            events.add("startDocument");
+        }
+
+        public void setNamedRange(NamedRange namedRange) {
+            events.add("namedRange " + namedRange.getName());
+        }
+
+        public void startWorksheet(int sheetIndex, Worksheet sheet) {
+            events.add(sheetIndex + " startWorksheet " + sheet.getName());
+        }
+
+        public void setNamedRange(int sheetIndex, String sheetName, NamedRange namedRange) {
+            events.add(sheetIndex + " namedRange " + sheetName + " " + namedRange.getName());
+        }
+
+        public void startTable(int sheetIndex, String sheetName, Table table) {
+            events.add(sheetIndex + " startTable " + sheetName);
+        }
+
+        public void setColumn(int sheetIndex, String sheetName, Column column) {
+            events.add(sheetIndex + " column " + sheetName + " " + column.getWidth());
+        }
+
+        public void setRow(int sheetIndex, String sheetName, Row row) {
+            events.add(sheetIndex + " row " + sheetName + " " + row.getIndex());
+        }
+
+        public void setCell(int sheetIndex, String sheetName, int rowIndex, Cell cell) {
+            events.add(sheetIndex + " cell " + sheetName + " " + rowIndex + " " 
+                    + cell.getIndex() + " " + cell.getData$());
+        }
+
+        public void setWorksheetOptions(int sheetIndex, String sheetName,
+                WorksheetOptions wsOptions) {
+            events.add(sheetIndex + " options " + sheetName);
+        }
+
+        public void endWorksheet(int sheetIndex, String sheetName) {
+            events.add(sheetIndex + " endWorksheet " + sheetName);
+        }
+
+        public void endDocument(Map<String, String> prefixMap) {
+            events.add("endDocument " + new TreeMap<String, String>(prefixMap));
+        }
+
+    }
+
+}
@@ -0,0 +1,229 @@
+/*
+ * Created on 17-okt-2026
+ *
+ */
+package nl.fountain.xelem.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+import nl.fountain.xelem.XSerializer;
+import nl.fountain.xelem.excel.Cell;
+import nl.fountain.xelem.excel.Row;
+import nl.fountain.xelem.excel.Workbook;
+import nl.fountain.xelem.excel.Worksheet;
+import nl.fountain.xelem.excel.ss.XLWorkbook;
+import nl.fountain.xelem.lex.DefaultCellValueListener;
+import nl.fountain.xelem.lex.DefaultExcelReaderListener;
+import nl.fountain.xelem.lex.ExcelReader;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ *
+ */
+public class PipelinedReadTest extends TestCase {
+
+    private static byte[] xml;
+
+    private ExcelReader reader;
+    private ExecutorService executor;
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(PipelinedReadTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        reader = new ExcelReader();
+        executor = Executors.newFixedThreadPool(3);
+        if (xml == null) {
+            Workbook wb = new XLWorkbook();
+            for (int i = 0; i < 3; i++) {
+                Worksheet sheet = wb.addSheet("Sheet" + i);
+                for (int r = 1; r <= 200; r++) {
+                    sheet.addCellAt(r, 1).setData("sheet " + i + " row " + r);
+                    sheet.addCellAt(r, 2).setData(r);
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new XSerializer().serialize(wb, out);
+            xml = out.toByteArray();
+        }
+    }
+
+    protected void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    public void testSameEvents() throws Exception {
+        EventLog expected = new EventLog();
+        reader.addExcelReaderListener(expected);
+        read(xml);
+        reader.removeExcelReaderListener(expected);
+
+        EventLog actual = new EventLog();
+        reader.addExcelReaderListener(actual);
+        reader.setPipelineExecutor(executor);
+        reader.setPipelineCapacity(3);
+        assertEquals(3, reader.getPipelineCapacity());
+        read(xml);
+        assertEquals(expected.events, actual.events);
+        assertEquals(1 + 3 * 3 * 200 + 1, actual.events.size());
+        // listeners run on the calling thread
+        assertEquals(Thread.currentThread(), actual.thread);
+        assertEquals(1, reader.getListeners().size());
+        assertSame(actual, reader.getListeners().get(0));
+
+        // with worksheets read in parallel
+        actual.events.clear();
+        reader.setReadExecutor(executor);
+        reader.setOrderedEvents(false);
+        read(xml);
+        assertEquals(expected.events, actual.events);
+        assertFalse(reader.isOrderedEvents());
+    }
+
+    public void testCellValues() throws Exception {
+        final double[] sum = new double[1];
+        reader.addCellValueListener(new DefaultCellValueListener() {
+            public void onNumber(int sheetIndex, int rowIndex, int columnIndex, double value) {
+                sum[0] += value;
+            }
+        });
+        reader.setPipelineExecutor(executor);
+        read(xml);
+        assertEquals(3 * 200 * 201 / 2, sum[0], 0.0D);
+        assertEquals(1, reader.getCellValueListeners().size());
+    }
+
+    public void testGetWorkbook() throws Exception {
+        reader.setPipelineExecutor(executor);
+        reader.setReuseRows(true);
+        Workbook wb = reader.getWorkbook(new InputSource(new ByteArrayInputStream(xml)));
+        assertEquals(3, wb.getSheetNames().size());
+        assertEquals("sheet 2 row 200", wb.getWorksheet("Sheet2").getCellAt(200, 1).getData$());
+        assertTrue(reader.getListeners().isEmpty());
+        assertTrue(reader.isReuseRows());
+    }
+
+    public void testParseError() throws Exception {
+        String doc = new String(xml, "UTF-8");
+        int index = doc.indexOf("sheet 1 row 7");
+        byte[] broken = (doc.substring(0, index) + "&broken;" + doc.substring(index))
+                .getBytes("UTF-8");
+        EventLog log = new EventLog();
+        reader.addExcelReaderListener(log);
+        reader.setPipelineExecutor(executor);
+        try {
+            read(broken);
+            fail("should throw exception");
+        } catch (SAXException e) {
+            assertTrue(e.getMessage().indexOf("broken") >= 0);
+        }
+        // the events before the error were delivered
+        assertTrue(log.events.contains("1 cell 6:2"));
+        assertSame(log, reader.getListeners().get(0));
+    }
+
+    public void testListenerError() throws Exception {
+        EventLog log = new EventLog() {
+            public void setRow(int sheetIndex, String sheetName, Row row) {
+                super.setRow(sheetIndex, sheetName, row);
+                if (row.getIndex() == 3) throw new IllegalStateException("row 3");
+            }
+        };
+        reader.addExcelReaderListener(log);
+        reader.setPipelineExecutor(executor);
+        reader.setPipelineCapacity(8);
+        try {
+            read(xml);
+            fail("should throw exception");
+        } catch (IllegalStateException e) {
+            assertEquals("row 3", e.getMessage());
+        }
+        assertEquals("0 row 3", log.events.get(log.events.size() - 1));
+        assertSame(log, reader.getListeners().get(0));
+        // the reader can be used again
+        log.events.clear();
+        reader.removeExcelReaderListener(log);
+        EventLog next = new EventLog();
+        reader.addExcelReaderListener(next);
+        read(xml);
+        assertEquals("endDocument", next.events.get(next.events.size() - 1));
+    }
+
+    public void testCancel() throws Exception {
+        EventLog log = new EventLog() {
+            public void setCell(int sheetIndex, String sheetName, int rowIndex, Cell cell) {
+                super.setCell(sheetIndex, sheetName, rowIndex, cell);
+                if (rowIndex == 5 && cell.getIndex() == 2) reader.cancelRead();
+            }
+        };
+        reader.addExcelReaderListener(log);
+        reader.setPipelineExecutor(executor);
+        reader.setPipelineCapacity(16);
+        read(xml);
+        assertEquals("0 cell 5:2", log.events.get(log.events.size() - 1));
+        // no effect if no read is in progress
+        reader.cancelRead();
+        log.events.clear();
+        read(xml);
+        assertEquals("0 cell 5:2", log.events.get(log.events.size() - 1));
+    }
+
+    public void testCallerRuns() throws Exception {
+        EventLog log = new EventLog();
+        reader.addExcelReaderListener(log);
+        reader.setPipelineExecutor(new Executor() {
+            public void execute(Runnable command) {
+                command.run();
+            }
+        });
+        reader.setPipelineCapacity(3);
+        try {
+            read(xml);
+            fail("should throw exception");
+        } catch (IllegalStateException e) {
+            //
+        }
+        assertTrue(log.events.isEmpty());
+        assertSame(log, reader.getListeners().get(0));
+    }
+
+    private void read(byte[] bytes) throws Exception {
+        reader.read(new InputSource(new ByteArrayInputStream(bytes)));
+    }
+
+    private static class EventLog extends DefaultExcelReaderListener {
+
+        List<String> events = new ArrayList<String>();
+        Thread thread;
+
+        public void startDocument() {
+            events.add("startDocument");
+            thread = Thread.currentThread();
+        }
+
+        public void setRow(int sheetIndex, String sheetName, Row row) {
+            events.add(sheetIndex + " row " + row.getIndex());
+        }
+
+        public void setCell(int sheetIndex, String sheetName, int rowIndex, Cell cell) {
+            events.add(sheetIndex + " cell " + rowIndex + ":" + cell.getIndex());
+        }
+
+        public void endDocument(Map<String, String> prefixMap) {
+            events.add("endDocument");
+        }
+
+    }
+
+}
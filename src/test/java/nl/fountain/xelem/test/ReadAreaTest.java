@@ -0,0 +1,147 @@
+/*
+ * Created on 17-okt-2026
+ *
+ */
+package nl.fountain.xelem.test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import nl.fountain.xelem.Area;
+import nl.fountain.xelem.XSerializer;
+import nl.fountain.xelem.excel.Cell;
+import nl.fountain.xelem.excel.Row;
+import nl.fountain.xelem.excel.Workbook;
+import nl.fountain.xelem.excel.Worksheet;
+import nl.fountain.xelem.excel.ss.XLWorkbook;
+import nl.fountain.xelem.lex.DefaultExcelReaderListener;
+import nl.fountain.xelem.lex.ExcelReader;
+import nl.fountain.xelem.lex.RowIterator;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ *
+ */
+public class ReadAreaTest extends TestCase {
+
+    private static String xml;
+
+    private ExcelReader reader;
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(ReadAreaTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        reader = new ExcelReader();
+        if (xml == null) {
+            Workbook wb = new XLWorkbook();
+            for (int s = 0; s < 2; s++) {
+                Worksheet sheet = wb.addSheet();
+                for (int r = 1; r <= 40; r += (r % 3) + 1) {
+                    for (int c = 1; c <= 12; c += (c % 2) + 1) {
+                        Cell cell = sheet.addCellAt(r, c);
+                        cell.setData(s + ":" + r + ":" + c);
+                        if (c == 3) cell.addComment("comment " + r);
+                    }
+                }
+            }
+            xml = new XSerializer().serializeToString(wb);
+        }
+    }
+
+    public void testSameAsFiltered() throws Exception {
+        Area area = new Area("C5:H21");
+        AreaLog all = new AreaLog(area);
+        reader.addExcelReaderListener(all);
+        reader.read(new InputSource(new StringReader(xml)));
+
+        reader.clearExcelReaderListeners();
+        AreaLog log = new AreaLog(null);
+        reader.addExcelReaderListener(log);
+        reader.setReadArea(area);
+        reader.read(new InputSource(new StringReader(xml)));
+        assertEquals(all.events, log.events);
+        assertTrue(log.events.contains("end 1"));
+        assertTrue(log.events.size() > 20);
+    }
+
+    public void testStopAfterArea() throws Exception {
+        // the document is broken after row 21 of the first sheet
+        String broken = xml.substring(0, xml.indexOf(">0:22:")) + "<<<";
+        reader.setReadArea(new Area("A1:L20"));
+        AreaLog log = new AreaLog(null);
+        reader.addExcelReaderListener(log);
+        try {
+            reader.read(new InputSource(new StringReader(broken)));
+            fail("should throw exception");
+        } catch (SAXException e) {
+            //
+        }
+        assertFalse(reader.isStopAfterArea());
+        reader.setStopAfterArea(true);
+        assertTrue(reader.isStopAfterArea());
+        log.events.clear();
+        reader.read(new InputSource(new StringReader(broken)));
+        assertEquals("end 0", log.events.get(log.events.size() - 2));
+        assertEquals("endDocument", log.events.get(log.events.size() - 1));
+        assertEquals("0:19:11", log.events.get(log.events.size() - 3));
+    }
+
+    public void testStopAfterLastSheet() throws Exception {
+        reader.setStopAfterArea(true);
+        reader.setReadArea(new Area("A1:L60"));
+        AreaLog log = new AreaLog(null);
+        reader.addExcelReaderListener(log);
+        reader.read(new InputSource(new StringReader(xml)));
+        assertTrue(log.events.contains("end 1"));
+        assertEquals("endDocument", log.events.get(log.events.size() - 1));
+    }
+
+    public void testRowIterator() throws Exception {
+        String broken = xml.substring(0, xml.indexOf(">0:22:")) + "<<<";
+        reader.setReadArea(new Area("B1:B20"));
+        RowIterator iter = reader.openRows(new InputSource(new StringReader(broken)), null);
+        int count = 0;
+        while (iter.hasNext()) {
+            Row row = iter.next();
+            assertEquals(0, row.size());
+            count++;
+        }
+        assertEquals(13, count);
+    }
+
+    private static class AreaLog extends DefaultExcelReaderListener {
+
+        List<String> events = new ArrayList<String>();
+        private Area area;
+
+        AreaLog(Area area) {
+            this.area = area;
+        }
+
+        public void setCell(int sheetIndex, String sheetName, int rowIndex, Cell cell) {
+            if (area == null || area.isWithinArea(rowIndex, cell.getIndex())) {
+                events.add(cell.getData$());
+                if (cell.hasComment()) {
+                    events.add(cell.getComment().getData());
+                }
+            }
+        }
+
+        public void endWorksheet(int sheetIndex, String sheetName) {
+            events.add("end " + sheetIndex);
+        }
+
+        public void endDocument(Map<String, String> prefixMap) {
+            events.add("endDocument");
+        }
+
+    }
+
+}
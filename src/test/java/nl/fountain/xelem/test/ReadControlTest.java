@@ -0,0 +1,274 @@
+/*
+ * Created on 17-okt-2026
+ *
+ */
+package nl.fountain.xelem.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+import nl.fountain.xelem.Area;
+import nl.fountain.xelem.XSerializer;
+import nl.fountain.xelem.excel.Row;
+import nl.fountain.xelem.excel.Workbook;
+import nl.fountain.xelem.excel.Worksheet;
+import nl.fountain.xelem.excel.ss.XLWorkbook;
+import nl.fountain.xelem.lex.DefaultCellValueListener;
+import nl.fountain.xelem.lex.DefaultExcelReaderListener;
+import nl.fountain.xelem.lex.ExcelReader;
+import nl.fountain.xelem.lex.ReadControl;
+
+import org.xml.sax.InputSource;
+
+/**
+ *
+ */
+public class ReadControlTest extends TestCase {
+
+    private static byte[] xml;
+
+    private ExcelReader reader;
+    private ReadControl control;
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(ReadControlTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        reader = new ExcelReader();
+        control = new ReadControl();
+        reader.setReadControl(control);
+        assertSame(control, reader.getReadControl());
+        if (xml == null) {
+            Workbook wb = new XLWorkbook();
+            for (int i = 0; i < 3; i++) {
+                Worksheet sheet = wb.addSheet("Sheet" + i);
+                for (int r = 1; r <= 200; r++) {
+                    sheet.addCellAt(r, 1).setData(r);
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new XSerializer().serialize(wb, out);
+            xml = out.toByteArray();
+        }
+    }
+
+    public void testNotTruncated() throws Exception {
+        EventLog log = new EventLog();
+        reader.addExcelReaderListener(log);
+        read(xml);
+        assertFalse(control.isTruncated());
+        assertEquals(ReadControl.NOT_STOPPED, control.getReason());
+        assertEquals(600, control.getRowCount());
+        assertEquals(xml.length, control.getBytesRead());
+        assertEquals("endDocument false", log.events.get(log.events.size() - 1));
+
+        // the end of the read area is not a truncation
+        reader.setReadArea(new Area("A1:A5"));
+        reader.setStopAfterArea(true);
+        read(xml);
+        assertFalse(control.isTruncated());
+        assertEquals(5, control.getRowCount());
+    }
+
+    public void testRowLimit() throws Exception {
+        control.setRowLimit(5);
+        assertEquals(5, control.getRowLimit());
+        EventLog log = new EventLog();
+        reader.addExcelReaderListener(log);
+        read(xml);
+        assertTrue(control.isTruncated());
+        assertEquals(ReadControl.ROW_LIMIT, control.getReason());
+        assertEquals(5, control.getRowCount());
+        List<String> expected = new ArrayList<String>();
+        for (int r = 1; r <= 5; r++) {
+            expected.add("0 row " + r);
+        }
+        expected.add("0 endWorksheet true");
+        expected.add("endDocument true");
+        assertEquals(expected, log.events);
+
+        // the next read starts afresh
+        control.setRowLimit(Long.MAX_VALUE);
+        log.events.clear();
+        read(xml);
+        assertFalse(control.isTruncated());
+        assertEquals(600 + 3 + 1, log.events.size());
+        try {
+            control.setRowLimit(0);
+            fail("should throw exception");
+        } catch (IllegalArgumentException e) {
+            //
+        }
+    }
+
+    public void testRowLimitOfAllRows() throws Exception {
+        control.setRowLimit(600);
+        EventLog log = new EventLog();
+        reader.addExcelReaderListener(log);
+        read(xml);
+        assertFalse(control.isTruncated());
+        assertEquals(ReadControl.NOT_STOPPED, control.getReason());
+        assertEquals(600, control.getRowCount());
+        assertEquals("endDocument false", log.events.get(log.events.size() - 1));
+
+        // the limit is reached at the end of a worksheet
+        control.setRowLimit(200);
+        log.events.clear();
+        read(xml);
+        assertTrue(control.isTruncated());
+        assertEquals(ReadControl.ROW_LIMIT, control.getReason());
+        assertEquals(200, control.getRowCount());
+        assertTrue(log.events.contains("0 endWorksheet false"));
+        assertFalse(log.events.contains("1 row 1"));
+    }
+
+    public void testRowLimitWithValues() throws Exception {
+        control.setRowLimit(210);
+        final int[] count = new int[1];
+        reader.addCellValueListener(new DefaultCellValueListener() {
+            public void onNumber(int sheetIndex, int rowIndex, int columnIndex, double value) {
+                count[0]++;
+            }
+        });
+        read(xml);
+        assertEquals(210, count[0]);
+        assertEquals(ReadControl.ROW_LIMIT, control.getReason());
+    }
+
+    public void testStop() throws Exception {
+        EventLog log = new EventLog() {
+            public void setRow(int sheetIndex, String sheetName, Row row) {
+                super.setRow(sheetIndex, sheetName, row);
+                if (sheetIndex == 1 && row.getIndex() == 3) control.stop();
+            }
+        };
+        reader.addExcelReaderListener(log);
+        read(xml);
+        assertEquals(ReadControl.STOPPED, control.getReason());
+        assertEquals(203, control.getRowCount());
+        assertEquals("1 row 3", log.events.get(log.events.size() - 3));
+        assertEquals("1 endWorksheet true", log.events.get(log.events.size() - 2));
+
+        // stopped until reset
+        log.events.clear();
+        read(xml);
+        assertEquals(ReadControl.STOPPED, control.getReason());
+        assertEquals("0 endWorksheet true", log.events.get(0));
+        control.reset();
+        reader.removeExcelReaderListener(log);
+        EventLog next = new EventLog();
+        reader.addExcelReaderListener(next);
+        read(xml);
+        assertFalse(control.isTruncated());
+        assertEquals("endDocument false", next.events.get(next.events.size() - 1));
+    }
+
+    public void testDeadline() throws Exception {
+        control.setDeadline(System.currentTimeMillis() - 1);
+        read(xml);
+        assertEquals(ReadControl.DEADLINE, control.getReason());
+        assertEquals(0, control.getRowCount());
+        control.setTimeout(60000);
+        assertTrue(control.getDeadline() > System.currentTimeMillis());
+        read(xml);
+        assertFalse(control.isTruncated());
+    }
+
+    public void testByteLimit() throws Exception {
+        control.setByteLimit(xml.length / 2);
+        assertEquals(xml.length / 2, control.getByteLimit());
+        read(xml);
+        assertEquals(ReadControl.BYTE_LIMIT, control.getReason());
+        assertTrue(control.getBytesRead() >= xml.length / 2);
+        assertTrue(control.getRowCount() < 600);
+
+        reader.read(ByteBuffer.wrap(xml));
+        assertEquals(ReadControl.BYTE_LIMIT, control.getReason());
+        assertTrue(control.getBytesRead() >= xml.length / 2);
+        assertTrue(control.getBytesRead() < xml.length / 2 + 200);
+    }
+
+    public void testUnboundedInput() throws Exception {
+        control.setRowLimit(10);
+        EndlessStream in = new EndlessStream();
+        EventLog log = new EventLog();
+        reader.addExcelReaderListener(log);
+        reader.read(new InputSource(in));
+        assertEquals(10, control.getRowCount());
+        assertTrue(in.closed);
+        assertEquals("endDocument true", log.events.get(log.events.size() - 1));
+    }
+
+    private void read(byte[] bytes) throws Exception {
+        reader.read(new InputSource(new ByteArrayInputStream(bytes)));
+    }
+
+    // a workbook with a worksheet that never ends
+    private static class EndlessStream extends InputStream {
+
+        private byte[] head;
+        private byte[] row;
+        private int pos;
+        private boolean closed;
+
+        EndlessStream() throws IOException {
+            head = ("<?xml version=\"1.0\"?><Workbook "
+                    + "xmlns=\"urn:schemas-microsoft-com:office:spreadsheet\" "
+                    + "xmlns:ss=\"urn:schemas-microsoft-com:office:spreadsheet\">"
+                    + "<Worksheet ss:Name=\"endless\"><Table>").getBytes("UTF-8");
+            row = "<Row><Cell><Data ss:Type=\"Number\">1</Data></Cell></Row>\n"
+                    .getBytes("UTF-8");
+        }
+
+        public int read() throws IOException {
+            if (closed) throw new IOException("closed");
+            int b;
+            if (pos < head.length) {
+                b = head[pos];
+            } else {
+                b = row[(pos - head.length) % row.length];
+            }
+            pos++;
+            return b;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException {
+            for (int i = 0; i < len; i++) {
+                b[off + i] = (byte) read();
+            }
+            return len;
+        }
+
+        public void close() {
+            closed = true;
+        }
+
+    }
+
+    private class EventLog extends DefaultExcelReaderListener {
+
+        List<String> events = new ArrayList<String>();
+
+        public void setRow(int sheetIndex, String sheetName, Row row) {
+            events.add(sheetIndex + " row " + row.getIndex());
+        }
+
+        public void endWorksheet(int sheetIndex, String sheetName) {
+            events.add(sheetIndex + " endWorksheet " + control.isTruncated());
+        }
+
+        public void endDocument(Map<String, String> prefixMap) {
+            events.add("endDocument " + control.isTruncated());
+        }
+
+    }
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Created on 17-okt-2026
+ *
+ */
+package nl.fountain.xelem.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+import nl.fountain.xelem.XSerializer;
+import nl.fountain.xelem.excel.Cell;
+import nl.fountain.xelem.excel.Workbook;
+import nl.fountain.xelem.excel.Worksheet;
+import nl.fountain.xelem.excel.ss.SSCell;
+import nl.fountain.xelem.excel.ss.XLWorkbook;
+import nl.fountain.xelem.lex.DefaultCellValueListener;
+import nl.fountain.xelem.lex.ExcelReader;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Measures the speed of reading. Not a unit test: run it's main-method.
+ * <P>
+ * Compares the binding of attributes by the setAttributes-method of SSCell
+ * with the reflective binding that was used before, and times the
+ * ExcelReader on a generated workbook, building a Workbook and 
+ * with a CellValueListener only. The SAXParser is compared with the 
+ * tokenizer that reads a ByteBuffer.
+ */
+public class ReaderBenchmark {
+
+    private static final int ROWS = 20000;
+    private static final int COLUMNS = 8;
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws Exception {
+        benchmarkAttributeBinding();
+        byte[] xml = createWorkbook();
+        benchmarkReader(xml);
+        benchmarkCellValues(xml);
+        benchmarkByteBuffer(xml);
+    }
+
+    private static void benchmarkAttributeBinding() throws Exception {
+        AttributesImpl attrs = new AttributesImpl();
+        attrs.addAttribute(SSCell.XMLNS_SS, "Index", "ss:Index", "CDATA", "3");
+        attrs.addAttribute(SSCell.XMLNS_SS, "StyleID", "ss:StyleID", "CDATA", "s1");
+        attrs.addAttribute(SSCell.XMLNS_SS, "MergeAcross", "ss:MergeAcross", "CDATA", "2");
+        attrs.addAttribute(SSCell.XMLNS_SS, "Formula", "ss:Formula", "CDATA", "=R1C1");
+        int n = 200000;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                bindReflective(new SSCell(), attrs);
+            }
+            long reflective = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                new SSCell().setAttributes(attrs);
+            }
+            long dispatch = System.nanoTime() - start;
+            System.out.println("attribute binding of " + n + " cells: reflective "
+                    + reflective / 1000000 + " ms, dispatch "
+                    + dispatch / 1000000 + " ms.");
+        }
+    }
+
+    // the binding as it was done by SSCell before
+    private static void bindReflective(Object xle, AttributesImpl attrs) {
+        for (int i = 0; i < attrs.getLength(); i++) {
+            try {
+                Method method = xle.getClass().getDeclaredMethod(
+                        "set" + attrs.getLocalName(i), new Class[] {String.class});
+                method.setAccessible(true);
+                method.invoke(xle, new Object[] {attrs.getValue(i)});
+            } catch (NoSuchMethodException e) {
+                // no big deal
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static void benchmarkReader(byte[] xml) throws Exception {
+        ExcelReader reader = new ExcelReader();
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            reader.getWorkbook(new InputSource(new ByteArrayInputStream(xml)));
+            long time = (System.nanoTime() - start) / 1000000;
+            System.out.println("read " + ROWS + " rows of " + COLUMNS + " cells in "
+                    + time + " ms.");
+        }
+    }
+
+    private static void benchmarkCellValues(byte[] xml) throws Exception {
+        ExcelReader reader = new ExcelReader();
+        final double[] sum = new double[1];
+        reader.addCellValueListener(new DefaultCellValueListener() {
+            public void onNumber(int sheetIndex, int rowIndex, int columnIndex, double value) {
+                sum[0] += value;
+            }
+        });
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            reader.read(new InputSource(new ByteArrayInputStream(xml)));
+            long time = (System.nanoTime() - start) / 1000000;
+            System.out.println("summed " + ROWS + " rows of " + COLUMNS + " cells in "
+                    + time + " ms with a CellValueListener.");
+        }
+    }
+
+    private static void benchmarkByteBuffer(byte[] xml) throws Exception {
+        ExcelReader reader = new ExcelReader();
+        final int[] count = new int[1];
+        reader.addCellValueListener(new DefaultCellValueListener() {
+            public void onNumber(int sheetIndex, int rowIndex, int columnIndex, double value) {
+                count[0]++;
+            }
+            public void onText(int sheetIndex, int rowIndex, int columnIndex, CharSequence text) {
+                count[0]++;
+            }
+        });
+        ByteBuffer buffer = ByteBuffer.allocateDirect(xml.length);
+        buffer.put(xml).flip();
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            reader.read(new InputSource(new ByteArrayInputStream(xml)));
+            long sax = System.nanoTime() - start;
+            start = System.nanoTime();
+            reader.read(buffer);
+            long tokenizer = System.nanoTime() - start;
+            System.out.println("values of " + ROWS + " rows of " + COLUMNS + " cells: SAXParser "
+                    + sax / 1000000 + " ms, ByteBuffer " + tokenizer / 1000000 + " ms.");
+        }
+    }
+
+    private static byte[] createWorkbook() throws Exception {
+        Workbook wb = new XLWorkbook("benchmark");
+        Worksheet sheet = wb.addSheet();
+        for (int r = 1; r <= ROWS; r++) {
+            for (int c = 1; c <= COLUMNS; c++) {
+                Cell cell = sheet.addCellAt(r, c);
+                if (c % 2 == 0) {
+                    cell.setData(r * 1.5D);
+                } else {
+                    cell.setData("text " + c);
+                }
+                cell.setStyleID("s" + c);
+            }
+        }
+        XSerializer xs = new XSerializer();
+        xs.setStreaming(true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        xs.serialize(wb, out);
+        return out.toByteArray();
+    }
+
+}
@@ -0,0 +1,178 @@
+/*
+ * Created on 17-okt-2026
+ *
+ */
+package nl.fountain.xelem.test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import junit.framework.TestCase;
+import nl.fountain.xelem.XSerializer;
+import nl.fountain.xelem.excel.Cell;
+import nl.fountain.xelem.excel.Row;
+import nl.fountain.xelem.excel.Workbook;
+import nl.fountain.xelem.excel.Worksheet;
+import nl.fountain.xelem.excel.ss.SSCell;
+import nl.fountain.xelem.excel.ss.SSRow;
+import nl.fountain.xelem.excel.ss.XLWorkbook;
+import nl.fountain.xelem.lex.DefaultExcelReaderListener;
+import nl.fountain.xelem.lex.ExcelReader;
+import nl.fountain.xelem.lex.WorkbookListener;
+
+import org.xml.sax.InputSource;
+
+/**
+ *
+ */
+public class ReuseRowsTest extends TestCase {
+
+    private static String xml;
+
+    private ExcelReader reader;
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(ReuseRowsTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        reader = new ExcelReader();
+        if (xml == null) {
+            Workbook wb = new XLWorkbook();
+            Worksheet sheet = wb.addSheet("first");
+            sheet.addCell("a").setStyleID("s1");
+            sheet.addCell(1.5).addComment("comment");
+            sheet.addCell(new Date(0L));
+            sheet.getRowAt(1).setHeight(30.0);
+            sheet.getRowAt(1).setHidden(true);
+            sheet.addCellAt(2, 5).setFormula("=R1C2");
+            sheet.addCellAt(2, 7).setData(true);
+            sheet.addCellAt(4, 1).setData("four");
+            sheet.addCellAt(4, 2).setData(4);
+            sheet.addCellAt(4, 3).setData(44);
+            sheet.addCellAt(4, 4).setData(444);
+            wb.addSheet("second").addCellAt(3, 3).setData("three");
+            xml = new XSerializer().serializeToString(wb);
+        }
+    }
+
+    public void testSameEvents() throws Exception {
+        RowLog log = new RowLog();
+        reader.addExcelReaderListener(log);
+        reader.read(new InputSource(new StringReader(xml)));
+        List<String> expected = log.events;
+        assertEquals(4, log.rows.size());
+        assertEquals(10, log.cells.size());
+
+        log = new RowLog();
+        reader.clearExcelReaderListeners();
+        reader.addExcelReaderListener(log);
+        assertFalse(reader.isReuseRows());
+        reader.setReuseRows(true);
+        assertTrue(reader.isReuseRows());
+        reader.read(new InputSource(new StringReader(xml)));
+        assertEquals(expected, log.events);
+        // one row, a cell for each position in a row
+        assertEquals(1, log.rows.size());
+        assertEquals(4, log.cells.size());
+    }
+
+    public void testWorkbookListener() throws Exception {
+        reader.setReuseRows(true);
+        reader.addExcelReaderListener(new WorkbookListener());
+        try {
+            reader.read(new InputSource(new StringReader(xml)));
+            fail("should throw exception");
+        } catch (IllegalStateException e) {
+            //
+        }
+        reader.clearExcelReaderListeners();
+        Workbook wb = reader.getWorkbook(new InputSource(new StringReader(xml)));
+        assertTrue(reader.isReuseRows());
+        Worksheet sheet = wb.getWorksheet("first");
+        assertNotSame(sheet.getRowAt(1), sheet.getRowAt(2));
+        assertEquals("four", sheet.getCellAt(4, 1).getData$());
+        assertEquals("a", sheet.getCellAt(1, 1).getData$());
+    }
+
+    public void testReset() throws Exception {
+        SSRow row = new SSRow();
+        row.setIndex(3);
+        row.setHeight(12.0);
+        row.setSpan(2);
+        row.setHidden(true);
+        row.setStyleID("s1");
+        row.addCellAt(2, new SSCell());
+        row.addCellAt(200, new SSCell());
+        row.reset();
+        assertEquals(0, row.size());
+        assertEquals(0, row.getIndex());
+        assertEquals(-1.0D, row.getHeight(), 0.0D);
+        assertEquals(0, row.getSpan());
+        assertFalse(row.isHidden());
+        assertNull(row.getStyleID());
+        assertEquals(0, row.maxCellIndex());
+        row.addCell("again");
+        assertEquals(1, row.maxCellIndex());
+
+        SSCell cell = new SSCell();
+        cell.setData(12.5);
+        cell.setFormula("=R1C1");
+        cell.setStyleID("s2");
+        cell.setHRef("http://www.fountain.nl");
+        cell.setMergeAcross(2);
+        cell.setMergeDown(3);
+        cell.addComment("comment");
+        cell.setIndex(6);
+        cell.reset();
+        assertEquals(Cell.DATATYPE_STRING, cell.getXLDataType());
+        assertEquals("", cell.getData$());
+        assertFalse(cell.hasData());
+        assertNull(cell.getFormula());
+        assertNull(cell.getStyleID());
+        assertNull(cell.getHRef());
+        assertEquals(0, cell.getMergeAcross());
+        assertEquals(0, cell.getMergeDown());
+        assertFalse(cell.hasComment());
+        assertEquals(0, cell.getIndex());
+    }
+
+    private static class RowLog extends DefaultExcelReaderListener {
+
+        List<String> events = new ArrayList<String>();
+        List<Row> rows = new ArrayList<Row>();
+        List<Cell> cells = new ArrayList<Cell>();
+
+        public void setRow(int sheetIndex, String sheetName, Row row) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(sheetIndex).append(" row ").append(row.getIndex())
+                    .append(" ").append(row.getHeight())
+                    .append(" ").append(row.isHidden())
+                    .append(" ").append(row.size());
+            for (Cell cell : row.getCells()) {
+                sb.append(" ").append(cell.getIndex()).append(":").append(cell.getData$());
+            }
+            events.add(sb.toString());
+            addIfAbsent(rows, row);
+        }
+
+        public void setCell(int sheetIndex, String sheetName, int rowIndex, Cell cell) {
+            events.add(sheetIndex + " cell " + rowIndex + " " + cell.getIndex() + " "
+                    + cell.getXLDataType() + " " + cell.getData$() + " "
+                    + cell.getStyleID() + " " + cell.getFormula() + " "
+                    + cell.hasComment() + " " + cell.hasData());
+            addIfAbsent(cells, cell);
+        }
+
+        private <T> void addIfAbsent(List<T> list, T element) {
+            for (T e : list) {
+                if (e == element) return;
+            }
+            list.add(element);
+        }
+
+    }
+
+}
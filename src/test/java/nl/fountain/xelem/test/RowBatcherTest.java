@@ -0,0 +1,155 @@
+/*
+ * Created on 17-okt-2026
+ *
+ */
+package nl.fountain.xelem.test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import nl.fountain.xelem.XSerializer;
+import nl.fountain.xelem.excel.Row;
+import nl.fountain.xelem.excel.Workbook;
+import nl.fountain.xelem.excel.Worksheet;
+import nl.fountain.xelem.excel.ss.SSRow;
+import nl.fountain.xelem.excel.ss.XLWorkbook;
+import nl.fountain.xelem.lex.DefaultExcelReaderListener;
+import nl.fountain.xelem.lex.ExcelReader;
+import nl.fountain.xelem.lex.RowBatchListener;
+import nl.fountain.xelem.lex.RowBatcher;
+
+import org.xml.sax.InputSource;
+
+/**
+ *
+ */
+public class RowBatcherTest extends TestCase {
+
+    private static String xml;
+
+    private ExcelReader reader;
+    private List<String> events;
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(RowBatcherTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        reader = new ExcelReader();
+        events = new ArrayList<String>();
+        if (xml == null) {
+            Workbook wb = new XLWorkbook();
+            Worksheet sheet = wb.addSheet("seven");
+            for (int r = 1; r <= 7; r++) {
+                sheet.addCellAt(r, 1).setData(r);
+                sheet.addCellAt(r, 2).setData("row " + r);
+            }
+            sheet = wb.addSheet("three");
+            for (int r = 1; r <= 3; r++) {
+                sheet.addCellAt(r, 1).setData(r);
+                sheet.addCellAt(r, 2).setData("row " + r);
+            }
+            wb.addSheet("empty");
+            xml = new XSerializer().serializeToString(wb);
+        }
+    }
+
+    public void testBatches() throws Exception {
+        RowBatcher batcher = new RowBatcher(3);
+        assertEquals(3, batcher.getMaxRows());
+        assertEquals(Integer.MAX_VALUE, batcher.getMaxCells());
+        batcher.addExcelReaderListener(new BatchLog());
+        reader.addExcelReaderListener(batcher);
+        read();
+        assertEquals("0 seven 1-3", events.get(0));
+        assertEquals("0 seven 4-6", events.get(1));
+        assertEquals("0 seven 7-7", events.get(2));
+        assertEquals("end seven", events.get(3));
+        assertEquals("1 three 1-3", events.get(4));
+        assertEquals("end three", events.get(5));
+        assertEquals("end empty", events.get(6));
+        assertEquals(7, events.size());
+    }
+
+    public void testMaxCells() throws Exception {
+        RowBatcher batcher = new RowBatcher(10, 4);
+        batcher.addExcelReaderListener(new BatchLog());
+        reader.addExcelReaderListener(batcher);
+        read();
+        assertEquals("0 seven 1-2", events.get(0));
+        assertEquals("0 seven 3-4", events.get(1));
+        assertEquals("0 seven 5-6", events.get(2));
+        assertEquals("0 seven 7-7", events.get(3));
+    }
+
+    public void testOtherListeners() throws Exception {
+        RowBatcher batcher = new RowBatcher(100);
+        batcher.addExcelReaderListener(new DefaultExcelReaderListener() {
+            public void setRow(int sheetIndex, String sheetName, Row row) {
+                events.add("row " + row.getIndex());
+            }
+        });
+        batcher.addExcelReaderListener(new BatchLog());
+        reader.addExcelReaderListener(batcher);
+        read();
+        assertEquals("row 1", events.get(0));
+        assertEquals("row 7", events.get(6));
+        assertEquals("0 seven 1-7", events.get(7));
+        assertEquals("end seven", events.get(8));
+    }
+
+    public void testNoSheetName() throws Exception {
+        RowBatcher batcher = new RowBatcher(3);
+        batcher.addExcelReaderListener(new BatchLog());
+        for (int r = 1; r <= 2; r++) {
+            SSRow row = new SSRow();
+            row.setIndex(r);
+            batcher.setRow(0, null, row);
+        }
+        batcher.endWorksheet(0, null);
+        assertEquals("0 null 1-2", events.get(0));
+        assertEquals("end null", events.get(1));
+        assertEquals(2, events.size());
+    }
+
+    public void testReuseRows() throws Exception {
+        reader.addExcelReaderListener(new RowBatcher(10));
+        reader.setReuseRows(true);
+        try {
+            read();
+            fail("should throw exception");
+        } catch (IllegalStateException e) {
+            //
+        }
+        try {
+            new RowBatcher(0);
+            fail("should throw exception");
+        } catch (IllegalArgumentException e) {
+            //
+        }
+    }
+
+    private void read() throws Exception {
+        reader.read(new InputSource(new StringReader(xml)));
+    }
+
+    private class BatchLog extends DefaultExcelReaderListener implements RowBatchListener {
+
+        public void setRows(int sheetIndex, String sheetName, List<Row> batch) {
+            events.add(sheetIndex + " " + sheetName + " " + batch.get(0).getIndex() 
+                    + "-" + batch.get(batch.size() - 1).getIndex());
+        }
+
+        public void setRow(int sheetIndex, String sheetName, Row row) {
+            fail("setRow should not be called");
+        }
+
+        public void endWorksheet(int sheetIndex, String sheetName) {
+            events.add("end " + sheetName);
+        }
+
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Created on 17-okt-2026
+ *
+ */
+package nl.fountain.xelem.test;
+
+import java.io.StringReader;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import junit.framework.TestCase;
+import nl.fountain.xelem.Area;
+import nl.fountain.xelem.XSerializer;
+import nl.fountain.xelem.excel.Cell;
+import nl.fountain.xelem.excel.Row;
+import nl.fountain.xelem.excel.Workbook;
+import nl.fountain.xelem.excel.Worksheet;
+import nl.fountain.xelem.excel.ss.XLWorkbook;
+import nl.fountain.xelem.lex.ExcelReader;
+import nl.fountain.xelem.lex.RowIterator;
+
+import org.xml.sax.InputSource;
+
+/**
+ *
+ */
+public class RowIteratorTest extends TestCase {
+
+    private static String xml;
+
+    private ExcelReader reader;
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(RowIteratorTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        reader = new ExcelReader();
+        if (xml == null) {
+            Workbook wb = new XLWorkbook();
+            wb.addSheet("first").addCell("first");
+            Worksheet sheet = wb.addSheet("second");
+            sheet.addCell("a & b");
+            sheet.addCell(1.5);
+            sheet.addCell(new Date(123456000L));
+            sheet.addCell(true).addComment("a comment");
+            sheet.addCellAt(3, 2).setData(42);
+            sheet.addCellAt(3, 7).setFormula("=R1C2*2");
+            sheet.getRowAt(3).setHeight(20.0);
+            sheet.addCellAt(8, 1).setData("last");
+            wb.addSheet("third").addCell("third");
+            xml = new XSerializer().serializeToString(wb);
+        }
+    }
+
+    public void testSameAsReader() throws Exception {
+        Worksheet sheet = reader.getWorkbook(new InputSource(new StringReader(xml)))
+                .getWorksheet("second");
+        RowIterator iter = reader.openRows(new InputSource(new StringReader(xml)), "second");
+        assertEquals(-1, iter.getSheetIndex());
+        Iterator<Row> expected = sheet.getTable().getRows().iterator();
+        while (expected.hasNext()) {
+            assertTrue(iter.hasNext());
+            assertRowEquals(expected.next(), iter.next());
+        }
+        assertFalse(iter.hasNext());
+        assertEquals(1, iter.getSheetIndex());
+        assertEquals("second", iter.getSheetName());
+        iter.close();
+    }
+
+    public void testReadArea() throws Exception {
+        reader.setReadArea(new Area("B3:G8"));
+        Worksheet sheet = reader.getWorkbook(new InputSource(new StringReader(xml)))
+                .getWorksheet("second");
+        RowIterator iter = reader.openRows(new InputSource(new StringReader(xml)), "second");
+        reader.clearReadArea();
+        Iterator<Row> expected = sheet.getTable().getRows().iterator();
+        int count = 0;
+        while (expected.hasNext()) {
+            Row row = iter.next();
+            assertRowEquals(expected.next(), row);
+            count++;
+        }
+        assertFalse(iter.hasNext());
+        assertEquals(2, count);
+    }
+
+    public void testFirstSheet() throws Exception {
+        RowIterator iter = reader.openRows(new InputSource(new StringReader(xml)), null);
+        assertEquals("first", iter.next().getCellAt(1).getData$());
+        assertEquals("first", iter.getSheetName());
+        assertEquals(0, iter.getSheetIndex());
+        assertFalse(iter.hasNext());
+        try {
+            iter.next();
+            fail("should throw exception");
+        } catch (NoSuchElementException e) {
+            //
+        }
+    }
+
+    public void testNoSuchSheet() throws Exception {
+        RowIterator iter = reader.openRows(new InputSource(new StringReader(xml)), "none");
+        assertFalse(iter.hasNext());
+        assertEquals(-1, iter.getSheetIndex());
+        iter.close();
+        iter.close();
+    }
+
+    public void testPullsOnlyWhatIsNeeded() throws Exception {
+        // the input is broken after the first worksheet
+        String broken = xml.substring(0, xml.indexOf("ss:Name=\"second\"")) + "<<<";
+        RowIterator iter = reader.openRows(new InputSource(new StringReader(broken)), null);
+        assertTrue(iter.hasNext());
+        iter.next();
+        assertFalse(iter.hasNext());
+
+        iter = reader.openRows(new InputSource(new StringReader(broken)), "third");
+        try {
+            iter.hasNext();
+            fail("should throw exception");
+        } catch (RuntimeException e) {
+            assertNotNull(e.getCause());
+        }
+        assertFalse(iter.hasNext());
+    }
+
+    private void assertRowEquals(Row expected, Row actual) {
+        assertEquals(expected.getIndex(), actual.getIndex());
+        assertEquals(expected.getHeight(), actual.getHeight(), 0.0D);
+        assertEquals(expected.size(), actual.size());
+        Iterator<Cell> cells = expected.getCells().iterator();
+        Iterator<Cell> actualCells = actual.getCells().iterator();
+        while (cells.hasNext()) {
+            Cell cell = cells.next();
+            Cell actualCell = actualCells.next();
+            assertEquals(cell.getIndex(), actualCell.getIndex());
+            assertEquals(cell.getXLDataType(), actualCell.getXLDataType());
+            assertEquals(cell.getData$(), actualCell.getData$());
+            assertEquals(cell.getFormula(), actualCell.getFormula());
+            assertEquals(cell.hasComment(), actualCell.hasComment());
+            if (cell.hasComment()) {
+                assertEquals(cell.getComment().getData(), actualCell.getComment().getData());
+            }
+        }
+    }
+
+}
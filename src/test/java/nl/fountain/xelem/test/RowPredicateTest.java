@@ -0,0 +1,168 @@
+/*
+ * Created on 17-okt-2026
+ *
+ */
+package nl.fountain.xelem.test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import nl.fountain.xelem.Area;
+import nl.fountain.xelem.XSerializer;
+import nl.fountain.xelem.excel.Cell;
+import nl.fountain.xelem.excel.Row;
+import nl.fountain.xelem.excel.Workbook;
+import nl.fountain.xelem.excel.Worksheet;
+import nl.fountain.xelem.excel.ss.XLWorkbook;
+import nl.fountain.xelem.lex.DefaultCellValueListener;
+import nl.fountain.xelem.lex.DefaultExcelReaderListener;
+import nl.fountain.xelem.lex.ExcelReader;
+import nl.fountain.xelem.lex.RowPredicate;
+
+import org.xml.sax.InputSource;
+
+/**
+ *
+ */
+public class RowPredicateTest extends TestCase {
+
+    private static String xml;
+
+    private ExcelReader reader;
+    private List<String> events;
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(RowPredicateTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        reader = new ExcelReader();
+        events = new ArrayList<String>();
+        if (xml == null) {
+            Workbook wb = new XLWorkbook();
+            Worksheet sheet = wb.addSheet("data");
+            for (int r = 1; r <= 6; r++) {
+                sheet.addCellAt(r, 1).setData("r" + r);
+                sheet.addCellAt(r, 2).setData(r * 10);
+                sheet.addCellAt(r, 3).setData(r % 2 == 0 ? "keep" : "drop");
+                sheet.addCellAt(r, 4).setData("r" + r + "c4");
+            }
+            xml = new XSerializer().serializeToString(wb);
+        }
+        reader.addExcelReaderListener(new DefaultExcelReaderListener() {
+            public void setRow(int sheetIndex, String sheetName, Row row) {
+                events.add("row " + row.getIndex() + " " + row.size());
+            }
+            public void setCell(int sheetIndex, String sheetName, int rowIndex, Cell cell) {
+                events.add(rowIndex + ":" + cell.getIndex());
+            }
+        });
+    }
+
+    public void testKeyColumn() throws Exception {
+        reader.setRowPredicate(new KeepPredicate(new int[] {3}));
+        read();
+        assertEquals(3 * 5, events.size());
+        assertEquals("2:1", events.get(0));
+        assertEquals("2:2", events.get(1));
+        assertEquals("2:3", events.get(2));
+        assertEquals("2:4", events.get(3));
+        assertEquals("row 2 4", events.get(4));
+        assertEquals("row 6 4", events.get(14));
+    }
+
+    public void testAllColumnsAreKeyColumns() throws Exception {
+        KeepPredicate predicate = new KeepPredicate(null);
+        reader.setRowPredicate(predicate);
+        read();
+        assertEquals(4, predicate.maxSize);
+        assertEquals(3 * 5, events.size());
+        assertEquals("row 4 4", events.get(9));
+    }
+
+    public void testColumnProjection() throws Exception {
+        reader.setColumnProjection(4, 2);
+        assertEquals(2, reader.getColumnProjection().length);
+        assertEquals(2, reader.getColumnProjection()[0]);
+        assertEquals(4, reader.getColumnProjection()[1]);
+        read();
+        assertEquals(6 * 3, events.size());
+        assertEquals("1:2", events.get(0));
+        assertEquals("1:4", events.get(1));
+        assertEquals("row 1 2", events.get(2));
+
+        reader.setColumnProjection();
+        assertNull(reader.getColumnProjection());
+        events.clear();
+        read();
+        assertEquals(6 * 5, events.size());
+    }
+
+    public void testProjectionWithKeyColumn() throws Exception {
+        KeepPredicate predicate = new KeepPredicate(new int[] {3});
+        reader.setRowPredicate(predicate);
+        reader.setColumnProjection(1);
+        reader.setReadArea(new Area("A1:C6"));
+        read();
+        // the key cell is read, but not delivered
+        assertEquals(2, predicate.maxSize);
+        assertEquals(3 * 2, events.size());
+        assertEquals("2:1", events.get(0));
+        assertEquals("row 2 1", events.get(1));
+    }
+
+    public void testWorkbook() throws Exception {
+        reader.setRowPredicate(new KeepPredicate(new int[] {3}));
+        Worksheet sheet = reader.getWorkbook(new InputSource(new StringReader(xml)))
+                .getWorksheet("data");
+        assertEquals(3, sheet.getTable().rowCount());
+        assertEquals("r4", sheet.getCellAt(4, 1).getData$());
+        assertFalse(sheet.getTable().hasRowAt(3));
+    }
+
+    public void testCellValueListener() throws Exception {
+        reader.clearExcelReaderListeners();
+        final double[] sum = new double[1];
+        reader.addCellValueListener(new DefaultCellValueListener() {
+            public void onNumber(int sheetIndex, int rowIndex, int columnIndex, double value) {
+                sum[0] += value;
+            }
+        });
+        reader.setRowPredicate(new KeepPredicate(new int[] {3}));
+        read();
+        assertEquals(20 + 40 + 60, sum[0], 0.0D);
+
+        reader.setRowPredicate(null);
+        reader.setColumnProjection(1);
+        sum[0] = 0;
+        read();
+        assertEquals(0, sum[0], 0.0D);
+    }
+
+    private void read() throws Exception {
+        reader.read(new InputSource(new StringReader(xml)));
+    }
+
+    private static class KeepPredicate implements RowPredicate {
+
+        private int[] keyColumns;
+        private int maxSize;
+
+        KeepPredicate(int[] keyColumns) {
+            this.keyColumns = keyColumns;
+        }
+
+        public int[] getKeyColumns() {
+            return keyColumns;
+        }
+
+        public boolean accept(int sheetIndex, String sheetName, Row row) {
+            maxSize = Math.max(maxSize, row.size());
+            return "keep".equals(row.getCellAt(3).getData$());
+        }
+
+    }
+
+}
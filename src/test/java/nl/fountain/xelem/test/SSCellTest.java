@@ -13,6 +13,8 @@ import nl.fountain.xelem.XLUtil;
 import nl.fountain.xelem.excel.Cell;
 import nl.fountain.xelem.excel.ss.SSCell;
 
+import org.xml.sax.helpers.AttributesImpl;
+
 /**
  *
  */
@@ -277,6 +279,49 @@ public class SSCellTest extends XLElementTest {
         assertEquals(cell.toString(), cell.getData());
     }
     
+    public void testTypedValues() {
+        Cell cell = new SSCell();
+        cell.setData(1.1F);
+        assertEquals("1.1", cell.getData$());
+        assertEquals(1.1D, cell.doubleValue(), 0.0D);
+        assertEquals(new Double(1.1D), cell.getData());
+        
+        cell.setData(new Long(Long.MIN_VALUE));
+        assertEquals("-9223372036854775808", cell.getData$());
+        assertEquals(-9.223372036854776E18, cell.doubleValue(), 0.0D);
+        
+        Long lang = null;
+        cell.setData(lang);
+        assertTrue(cell.hasError());
+        
+        cell.setData(true);
+        assertEquals(1, cell.intValue());
+        assertEquals("1", cell.getData$());
+        
+        cell.setData(new Date(123456789L));
+        assertEquals(0.0D, cell.doubleValue(), 0.0D);
+        assertFalse(cell.booleanValue());
+    }
+    
+    public void testDataFromText() {
+        Cell cell = new SSCell();
+        cell.setChildElement("Data", "12.50");
+        assertEquals("String", cell.getXLDataType());
+        assertEquals(12.5D, cell.doubleValue(), 0.0D);
+        assertEquals(12, cell.intValue());
+        assertEquals("12.50", cell.getData$());
+        assertEquals("12.50", cell.getData());
+        
+        cell.setChildElement("Data", "abc");
+        assertEquals(0.0D, cell.doubleValue(), 0.0D);
+        assertEquals(0, cell.intValue());
+        assertEquals("abc", cell.getData$());
+        
+        cell.setChildElement("Data", "1");
+        assertTrue(cell.booleanValue());
+        assertEquals(1.0D, cell.doubleValue(), 0.0D);
+    }
+    
     public void testIntValue() {
         Cell cell = new SSCell();
         assertEquals(0, cell.intValue());
@@ -315,5 +360,136 @@ public class SSCellTest extends XLElementTest {
         cell.setData("True");
         assertFalse(cell.booleanValue());
     }
+    
+    public void testLongValue() {
+        SSCell cell = new SSCell();
+        assertEquals(0L, cell.longValue());
+        cell.setData(new Long(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, cell.longValue());
+        cell.setData(-5.9D);
+        assertEquals(-5L, cell.longValue());
+        cell.setData(true);
+        assertEquals(1L, cell.longValue());
+        cell.setData("12345678901");
+        assertEquals(12345678901L, cell.longValue());
+        cell.setData("abc");
+        assertEquals(0L, cell.longValue());
+    }
+    
+    public void testCachedData() {
+        cell.setData(1.5D);
+        assertSame(cell.getData(), cell.getData());
+        cell.setData(2.5D);
+        assertEquals(new Double(2.5D), cell.getData());
+        
+        readData("Number", "12.50");
+        Object data = cell.getData();
+        assertEquals(new Double(12.5D), data);
+        assertSame(data, cell.getData());
+        assertEquals("12.50", cell.getData$());
+        
+        readData("Number", "abc");
+        try {
+            cell.getData();
+            fail("should throw exception");
+        } catch (NumberFormatException e) {
+            //
+        }
+        assertEquals(0.0D, cell.doubleValue(), 0.0D);
+        
+        readData("String", "12.50");
+        assertEquals("12.50", cell.getData());
+    }
+    
+    public void testDecode() {
+        readData("Number", "1e3");
+        cell.decode();
+        assertEquals(new Double(1000D), cell.getData());
+        assertSame(cell.getData(), cell.getData());
+        assertEquals(1000L, cell.longValue());
+        assertEquals(1000.0D, cell.doubleValue(), 0.0D);
+        assertEquals("1e3", cell.getData$());
+        
+        readData("DateTime", "2004-09-08T12:30:00.000");
+        cell.decode();
+        Date date = (Date) cell.getData();
+        assertEquals(XLUtil.parse("2004-09-08T12:30:00.000"), date);
+        assertNotSame(date, cell.getData());
+        assertEquals(0L, cell.longValue());
+        
+        readData("Number", "abc");
+        cell.decode();
+        assertEquals(0, cell.intValue());
+        assertEquals("abc", cell.getData$());
+    }
+    
+    public void testFloatValue() {
+        cell.setData(1.1F);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(1.1D, cell.doubleValue(), 0.0D);
+            assertEquals(1, cell.intValue());
+            assertEquals(1L, cell.longValue());
+        }
+        assertEquals(new Double(1.1D), cell.getData());
+        assertSame(cell.getData(), cell.getData());
+        assertEquals("1.1", cell.getData$());
+        cell.setData(2.5F);
+        assertEquals(2.5D, cell.doubleValue(), 0.0D);
+    }
+    
+    public void testConcurrentReads() throws Exception {
+        final SSCell[] cells = new SSCell[20000];
+        for (int i = 0; i < cells.length; i++) {
+            cell = new SSCell();
+            if (i % 2 == 0) {
+                readData("Number", i + ".25");
+            } else {
+                readData("DateTime", "2004-09-08T12:30:" + (i % 60 < 10 ? "0" : "") 
+                        + (i % 60) + ".000");
+            }
+            cells[i] = cell;
+        }
+        final long base = XLUtil.parse("2004-09-08T12:30:00.000").getTime();
+        final int[] errors = new int[1];
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < cells.length; i++) {
+                        boolean ok;
+                        if (i % 2 == 0) {
+                            ok = cells[i].doubleValue() == i + 0.25D 
+                            		&& ((Double) cells[i].getData()).doubleValue() == i + 0.25D;
+                        } else {
+                            ok = cells[i].doubleValue() == 0.0D 
+                            		&& ((Date) cells[i].getData()).getTime() 
+                            		== base + (i % 60) * 1000L;
+                        }
+                        if (!ok) {
+                            synchronized (errors) {
+                                errors[0]++;
+                            }
+                        }
+                    }
+                }
+            };
+        }
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].start();
+        }
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+        }
+        assertEquals(0, errors[0]);
+    }
+    
+    // the way the ExcelReader sets the data of a cell
+    private void readData(String type, String text) {
+        cell.reset();
+        AttributesImpl attrs = new AttributesImpl();
+        attrs.addAttribute(SSCell.XMLNS_SS, "Type", "ss:Type", "CDATA", type);
+        cell.setAttributes(attrs);
+        cell.setChildElement("Data", text);
+    }
 
 }
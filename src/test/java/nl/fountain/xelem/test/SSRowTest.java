@@ -4,7 +4,12 @@
  */
 package nl.fountain.xelem.test;
 
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
 
 import nl.fountain.xelem.GIO;
 import nl.fountain.xelem.excel.Cell;
@@ -148,6 +153,88 @@ public class SSRowTest extends XLElementTest {
        }
     }
     
+    public void testCellStorage() {
+        TreeMap<Integer, Cell> expected = new TreeMap<Integer, Cell>();
+        Random random = new Random(17);
+        for (int i = 0; i < 2000; i++) {
+            int index = 1 + random.nextInt(40);
+            int op = random.nextInt(4);
+            if (op == 0) {
+                assertSame(expected.remove(index), row.removeCellAt(index));
+            } else if (op == 1 && row.maxCellIndex() < 60) {
+                Cell cell = row.addCell();
+                expected.put(expected.isEmpty() ? 1 : expected.lastKey() + 1, cell);
+            } else {
+                Cell cell = new SSCell();
+                row.addCellAt(index, cell);
+                expected.put(index, cell);
+            }
+            assertEquals(expected.size(), row.size());
+            assertEquals(expected.isEmpty() ? 0 : expected.lastKey().intValue(), 
+                    row.maxCellIndex());
+            assertEquals(expected.containsKey(index), row.hasCellAt(index));
+            assertEquals(new ArrayList<Cell>(expected.values()), 
+                    new ArrayList<Cell>(row.getCells()));
+        }
+        assertEquals(expected, row.getCellMap());
+    }
+    
+    public void testCellIteratorIndexes() {
+        row.addCellAt(3);
+        row.addCell();
+        row.addCellAt(7);
+        row.addCellAt(1);
+        List<Integer> indexes = new ArrayList<Integer>();
+        Iterator<Cell> iter = row.cellIterator();
+        while (iter.hasNext()) {
+            indexes.add(iter.next().getIndex());
+        }
+        assertEquals("[0, 3, 0, 7]", indexes.toString());
+    }
+    
+    public void testGetCellsRemove() {
+        row.addCell();
+        Cell cell = row.addCell();
+        row.addCell();
+        Iterator<Cell> iter = row.getCells().iterator();
+        iter.next();
+        iter.remove();
+        assertSame(cell, iter.next());
+        assertEquals(2, row.size());
+        assertFalse(row.hasCellAt(1));
+        assertEquals(3, row.maxCellIndex());
+    }
+    
+    public void testCellMapView() {
+        row.addCell();
+        row.addCellAt(5);
+        TreeMap<Integer, Cell> map = row.getCellMap();
+        assertEquals(2, map.size());
+        Cell cell = new SSCell();
+        map.put(6, cell);
+        assertSame(cell, row.getCellAt(6));
+        assertEquals(6, row.maxCellIndex());
+        Cell cell7 = row.addCell();
+        assertSame(cell7, map.get(7));
+        assertSame(map, row.getCellMap());
+    }
+    
+    public void testCellMapDuringIteration() {
+        row.addCell();
+        row.addCell();
+        Iterator<Cell> iter = row.cellIterator();
+        iter.next();
+        row.getCellMap();
+        try {
+            iter.next();
+            fail("cells moved to the map");
+        } catch (ConcurrentModificationException e) {
+            assertEquals(2, row.size());
+        }
+        ((SSRow) row).reset();
+        assertEquals(0, row.size());
+    }
+    
     public void testAssemble() {
         row.setStyleID("foo");
         row.addCell().setStyleID("bar");
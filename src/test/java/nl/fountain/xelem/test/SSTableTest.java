@@ -190,6 +190,27 @@ public class SSTableTest extends XLElementTest {
         assertEquals(row3, r7);
     }
     
+    public void testColumnValues() {
+        assertEquals(0, ((SSTable) table).getDoubleValues(1).length);
+        table.addRowAt(1).addCell(1.5D);
+        table.addRowAt(2).addCell("2");
+        table.addRowAt(4).addCellAt(2).setData(7L);
+        table.addRowAt(5).addCell(true);
+        double[] doubles = ((SSTable) table).getDoubleValues(1);
+        assertEquals(5, doubles.length);
+        assertEquals(1.5D, doubles[0], 0.0D);
+        assertEquals(2.0D, doubles[1], 0.0D);
+        assertEquals(0.0D, doubles[2], 0.0D);
+        assertEquals(0.0D, doubles[3], 0.0D);
+        assertEquals(1.0D, doubles[4], 0.0D);
+        long[] longs = ((SSTable) table).getLongValues(2);
+        assertEquals(5, longs.length);
+        assertEquals(7L, longs[3]);
+        assertEquals(0L, longs[0]);
+        // missing cells are not added
+        assertFalse(table.getRowAt(1).hasCellAt(2));
+    }
+    
     public void testAssemble() {
         table.setStyleID("foo");
         table.addColumnAt(5).setStyleID("col");
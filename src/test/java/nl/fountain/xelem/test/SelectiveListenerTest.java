@@ -0,0 +1,197 @@
+/*
+ * Created on 17-okt-2026
+ *
+ */
+package nl.fountain.xelem.test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import nl.fountain.xelem.XSerializer;
+import nl.fountain.xelem.excel.AutoFilter;
+import nl.fountain.xelem.excel.Column;
+import nl.fountain.xelem.excel.DocumentProperties;
+import nl.fountain.xelem.excel.NamedRange;
+import nl.fountain.xelem.excel.Row;
+import nl.fountain.xelem.excel.Table;
+import nl.fountain.xelem.excel.Workbook;
+import nl.fountain.xelem.excel.Worksheet;
+import nl.fountain.xelem.excel.WorksheetOptions;
+import nl.fountain.xelem.excel.ss.XLWorkbook;
+import nl.fountain.xelem.lex.DefaultExcelReaderFilter;
+import nl.fountain.xelem.lex.DefaultExcelReaderListener;
+import nl.fountain.xelem.lex.ExcelReader;
+import nl.fountain.xelem.lex.RowPredicate;
+import nl.fountain.xelem.lex.SelectiveListener;
+
+import org.xml.sax.InputSource;
+
+/**
+ *
+ */
+public class SelectiveListenerTest extends TestCase {
+
+    private static String xml;
+
+    private ExcelReader reader;
+    private List<String> events;
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(SelectiveListenerTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        reader = new ExcelReader();
+        events = new ArrayList<String>();
+        if (xml == null) {
+            Workbook wb = new XLWorkbook();
+            wb.getDocumentProperties().setTitle("title");
+            wb.addNamedRange("wbrange", "=Sheet1!R1C1");
+            Worksheet sheet = wb.addSheet("Sheet1");
+            sheet.addNamedRange("range", "=R1C1:R2C2");
+            sheet.getTable().addColumn().setWidth(20);
+            sheet.setAutoFilter("R1C1:R3C1");
+            sheet.getWorksheetOptions().setSelected(true);
+            for (int r = 1; r <= 3; r++) {
+                sheet.addCellAt(r, 1).setData(r);
+            }
+            xml = new XSerializer().serializeToString(wb);
+        }
+    }
+
+    public void testAllEvents() throws Exception {
+        reader.addExcelReaderListener(new EventLog(SelectiveListener.ALL_EVENTS));
+        read();
+        assertEvents("docprops title", "namedRange wbrange", "namedRange range", 
+                "table", "column", "row 3", "options", "autoFilter");
+    }
+
+    public void testEventMask() throws Exception {
+        reader.addExcelReaderListener(new EventLog(
+                SelectiveListener.NAMED_RANGE | SelectiveListener.COLUMN));
+        read();
+        assertEvents("namedRange wbrange", "namedRange range", "column");
+        assertFalse(events.contains("docprops title"));
+        assertFalse(events.contains("table"));
+        assertFalse(events.contains("row 3"));
+        assertFalse(events.contains("options"));
+        assertFalse(events.contains("autoFilter"));
+        assertEquals("end Sheet1", events.get(events.size() - 1));
+    }
+
+    public void testOverriddenMethods() throws Exception {
+        final int[] asked = new int[1];
+        reader.setRowPredicate(new RowPredicate() {
+            public int[] getKeyColumns() {
+                return null;
+            }
+            public boolean accept(int sheetIndex, String sheetName, Row row) {
+                asked[0]++;
+                return true;
+            }
+        });
+        reader.addExcelReaderListener(new DefaultExcelReaderListener() {
+            public void endWorksheet(int sheetIndex, String sheetName) {
+                events.add("end " + sheetName);
+            }
+        });
+        read();
+        // no listener wants rows: rows were skipped
+        assertEquals(0, asked[0]);
+        assertEquals("end Sheet1", events.get(0));
+
+        reader.addExcelReaderListener(new DefaultExcelReaderListener() {
+            public void setRow(int sheetIndex, String sheetName, Row row) {
+                events.add("row " + row.getIndex());
+            }
+        });
+        read();
+        assertEquals(3, asked[0]);
+    }
+
+    public void testFilter() throws Exception {
+        DefaultExcelReaderFilter filter = new DefaultExcelReaderFilter();
+        filter.addExcelReaderListener(new EventLog(SelectiveListener.DOCUMENT_PROPERTIES));
+        reader.addExcelReaderListener(filter);
+        read();
+        assertEvents("docprops title");
+        assertFalse(events.contains("namedRange wbrange"));
+
+        events.clear();
+        filter = new DefaultExcelReaderFilter() {
+            public void setNamedRange(NamedRange namedRange) {
+                events.add("filtered " + namedRange.getName());
+            }
+        };
+        filter.addExcelReaderListener(new EventLog(0));
+        reader.clearExcelReaderListeners();
+        reader.addExcelReaderListener(filter);
+        read();
+        assertEvents("filtered wbrange");
+        assertFalse(events.contains("docprops title"));
+    }
+
+    private void read() throws Exception {
+        reader.read(new InputSource(new StringReader(xml)));
+    }
+
+    private void assertEvents(String... expected) {
+        for (int i = 0; i < expected.length; i++) {
+            assertTrue(expected[i], events.contains(expected[i]));
+        }
+    }
+
+    private class EventLog extends DefaultExcelReaderListener implements SelectiveListener {
+
+        private int mask;
+
+        EventLog(int mask) {
+            this.mask = mask;
+        }
+
+        public int getEventMask() {
+            return mask;
+        }
+
+        public void setDocumentProperties(DocumentProperties docProps) {
+            events.add("docprops " + docProps.getTitle());
+        }
+
+        public void setNamedRange(NamedRange namedRange) {
+            events.add("namedRange " + namedRange.getName());
+        }
+
+        public void setNamedRange(int sheetIndex, String sheetName, NamedRange namedRange) {
+            events.add("namedRange " + namedRange.getName());
+        }
+
+        public void startTable(int sheetIndex, String sheetName, Table table) {
+            events.add("table");
+        }
+
+        public void setColumn(int sheetIndex, String sheetName, Column column) {
+            events.add("column");
+        }
+
+        public void setRow(int sheetIndex, String sheetName, Row row) {
+            events.add("row " + row.getIndex());
+        }
+
+        public void setWorksheetOptions(int sheetIndex, String sheetName,
+                WorksheetOptions wsOptions) {
+            events.add("options");
+        }
+
+        public void setAutoFilter(int sheetIndex, String sheetName, AutoFilter autoFilter) {
+            events.add("autoFilter");
+        }
+
+        public void endWorksheet(int sheetIndex, String sheetName) {
+            events.add("end " + sheetName);
+        }
+
+    }
+
+}
@@ -0,0 +1,241 @@
+/*
+ * Created on 17-okt-2026
+ *
+ */
+package nl.fountain.xelem.test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import nl.fountain.xelem.Area;
+import nl.fountain.xelem.XSerializer;
+import nl.fountain.xelem.excel.Cell;
+import nl.fountain.xelem.excel.Row;
+import nl.fountain.xelem.excel.Workbook;
+import nl.fountain.xelem.excel.Worksheet;
+import nl.fountain.xelem.excel.ss.XLWorkbook;
+import nl.fountain.xelem.lex.DefaultExcelReaderListener;
+import nl.fountain.xelem.lex.ExcelReader;
+import nl.fountain.xelem.lex.SheetIndex;
+
+/**
+ *
+ */
+public class SheetIndexTest extends TestCase {
+
+    private File file;
+    private ExcelReader reader;
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(SheetIndexTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        reader = new ExcelReader();
+        Workbook wb = new XLWorkbook();
+        wb.addSheet("first").addCell("first");
+        Worksheet sheet = wb.addSheet("data & more");
+        sheet.getTable().addColumn().setWidth(30);
+        for (int r = 1; r <= 1000; r++) {
+            // leave gaps, so that rows have an index
+            if (r % 7 == 0) continue;
+            sheet.addCellAt(r, 1).setData("row " + r);
+            sheet.addCellAt(r, 3).setData(r);
+        }
+        sheet.getWorksheetOptions().setSelected(true);
+        wb.addSheet("last").addCell("last");
+        file = File.createTempFile("sheetindex", ".xml");
+        new XSerializer().serialize(wb, file);
+    }
+
+    protected void tearDown() throws Exception {
+        SheetIndex.getSidecar(file).delete();
+        file.delete();
+    }
+
+    public void testRowRange() throws Exception {
+        SheetIndex index = SheetIndex.create(file, 50);
+        assertEquals(50, index.getRowInterval());
+        assertEquals("data & more", index.getSheetNames().get(1));
+        reader.setReadArea("data & more", new Area("A500:C510"));
+        List<String> expected = readAll("data & more");
+        List<String> actual = readIndexed(index, "data & more");
+        assertEquals(expected, actual);
+        assertEquals("start 1 data & more", actual.get(0));
+        assertEquals("cell 500:1 row 500", actual.get(1));
+        assertEquals("cell 500:3 500", actual.get(2));
+        assertEquals("row 1 500", actual.get(3));
+        assertEquals("end 1 data & more", actual.get(actual.size() - 1));
+
+        reader.setReadArea("data & more", new Area("A1:C3"));
+        assertEquals(readAll("data & more"), readIndexed(index, "data & more"));
+        reader.setReadArea("data & more", new Area("A995:C2000"));
+        assertEquals(readAll("data & more"), readIndexed(index, "data & more"));
+    }
+
+    public void testWholeSheet() throws Exception {
+        SheetIndex index = SheetIndex.create(file, 1);
+        assertEquals(readAll("data & more"), readIndexed(index, "data & more"));
+        assertEquals(readAll("last"), readIndexed(index, "last"));
+        assertEquals(readAll("first"), readIndexed(index, "first"));
+    }
+
+    public void testSidecar() throws Exception {
+        File sidecar = SheetIndex.getSidecar(file);
+        assertFalse(sidecar.exists());
+        SheetIndex index = SheetIndex.load(file, 100);
+        assertTrue(sidecar.exists());
+        assertTrue(sidecar.length() < 400);
+        SheetIndex loaded = SheetIndex.load(file, 10);
+        assertEquals(100, loaded.getRowInterval());
+        assertEquals(index.getSheetNames(), loaded.getSheetNames());
+        reader.setReadArea("data & more", new Area("A600:C700"));
+        assertEquals(readIndexed(index, "data & more"), readIndexed(loaded, "data & more"));
+
+        // the file changes
+        FileOutputStream out = new FileOutputStream(file, true);
+        out.write(' ');
+        out.close();
+        assertFalse(loaded.isCurrent(file));
+        try {
+            readIndexed(loaded, "data & more");
+            fail("should throw exception");
+        } catch (IllegalArgumentException e) {
+            //
+        }
+        assertEquals(10, SheetIndex.load(file, 10).getRowInterval());
+    }
+
+    public void testNoSuchSheet() throws Exception {
+        try {
+            readIndexed(SheetIndex.create(file, 10), "none");
+            fail("should throw exception");
+        } catch (IllegalArgumentException e) {
+            //
+        }
+    }
+
+    public void testDefaultNamespace() throws Exception {
+        // as written by Excel: elements in the default namespace
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\"?>\n")
+        	.append("<Workbook xmlns=\"urn:schemas-microsoft-com:office:spreadsheet\"\n")
+        	.append(" xmlns:o=\"urn:schemas-microsoft-com:office:office\"\n")
+        	.append(" xmlns:x=\"urn:schemas-microsoft-com:office:excel\"\n")
+        	.append(" xmlns:ss=\"urn:schemas-microsoft-com:office:spreadsheet\">\n")
+        	.append(" <Worksheet ss:Name=\"Sheet1\">\n  <Table>\n");
+        int[] rows = {1, 2, 3, 10, 11, 20, 21, 22, 40};
+        for (int i = 0; i < rows.length; i++) {
+            sb.append("   <Row");
+            if (i > 0 && rows[i] != rows[i - 1] + 1) {
+                sb.append(" ss:Index=\"").append(rows[i]).append("\"");
+            }
+            sb.append("><Cell><Data ss:Type=\"Number\">").append(rows[i])
+            	.append("</Data></Cell></Row>\n");
+        }
+        sb.append("  </Table>\n </Worksheet>\n")
+        	.append(" <Worksheet>\n  <Table>\n   <Row><Cell><Data ss:Type=\"String\">")
+        	.append("unnamed</Data></Cell></Row>\n  </Table>\n </Worksheet>\n")
+        	.append("</Workbook>\n");
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(sb.toString().getBytes("UTF-8"));
+        out.close();
+        
+        SheetIndex index = SheetIndex.load(file, 2);
+        assertEquals("Sheet1", index.getSheetNames().get(0));
+        assertNull(index.getSheetNames().get(1));
+        assertEquals(index.getSheetNames(), SheetIndex.load(file, 2).getSheetNames());
+        reader.setReadArea("Sheet1", new Area("A10:A21"));
+        List<String> actual = readIndexed(index, "Sheet1");
+        assertEquals(readAll("Sheet1"), actual);
+        assertEquals("cell 10:1 10", actual.get(1));
+        assertEquals("cell 21:1 21", actual.get(actual.size() - 3));
+        reader.clearReadArea();
+        index = SheetIndex.create(file, 1);
+        assertEquals(readAll("Sheet1"), readIndexed(index, "Sheet1"));
+        try {
+            readIndexed(index, "Sheet2");
+            fail("should throw exception");
+        } catch (IllegalArgumentException e) {
+            //
+        }
+    }
+
+    public void testCData() throws Exception {
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(("<?xml version=\"1.0\"?>\n"
+        	+ "<Workbook xmlns=\"urn:schemas-microsoft-com:office:spreadsheet\"\n"
+        	+ " xmlns:ss=\"urn:schemas-microsoft-com:office:spreadsheet\">\n"
+        	+ " <!-- a comment -->\n"
+        	+ " <Worksheet ss:Name=\"Sheet1\">\n  <Table>\n"
+        	+ "   <Row><Cell><Data ss:Type=\"String\"><![CDATA[x<y]]></Data></Cell></Row>\n"
+        	+ "   <Row><Cell><Data ss:Type=\"String\"><![CDATA[<Row>]]></Data></Cell></Row>\n"
+        	+ "  </Table>\n </Worksheet>\n</Workbook>\n").getBytes("UTF-8"));
+        out.close();
+        SheetIndex index = SheetIndex.create(file, 1);
+        List<String> actual = readIndexed(index, "Sheet1");
+        assertEquals(readAll("Sheet1"), actual);
+        assertTrue(actual.contains("cell 1:1 x<y"));
+        assertTrue(actual.contains("cell 2:1 <Row>"));
+    }
+
+    public void testDoctype() throws Exception {
+        FileOutputStream out = new FileOutputStream(file);
+        out.write("<?xml version=\"1.0\"?><!DOCTYPE Workbook><Workbook/>".getBytes("UTF-8"));
+        out.close();
+        try {
+            SheetIndex.create(file, 10);
+            fail("should throw exception");
+        } catch (IOException e) {
+            //
+        }
+    }
+
+    private List<String> readAll(String sheetName) throws Exception {
+        EventLog log = new EventLog();
+        reader.addExcelReaderListener(log);
+        reader.selectSheet(sheetName);
+        reader.read(file.getPath());
+        reader.clearSheetSelection();
+        reader.removeExcelReaderListener(log);
+        return log.events;
+    }
+
+    private List<String> readIndexed(SheetIndex index, String sheetName) throws Exception {
+        EventLog log = new EventLog();
+        reader.addExcelReaderListener(log);
+        try {
+            reader.read(file, index, sheetName);
+        } finally {
+            reader.removeExcelReaderListener(log);
+        }
+        return log.events;
+    }
+
+    private static class EventLog extends DefaultExcelReaderListener {
+
+        List<String> events = new ArrayList<String>();
+
+        public void startWorksheet(int sheetIndex, Worksheet sheet) {
+            events.add("start " + sheetIndex + " " + sheet.getName());
+        }
+
+        public void setRow(int sheetIndex, String sheetName, Row row) {
+            events.add("row " + sheetIndex + " " + row.getIndex());
+        }
+
+        public void setCell(int sheetIndex, String sheetName, int rowIndex, Cell cell) {
+            events.add("cell " + rowIndex + ":" + cell.getIndex() + " " + cell.getData$());
+        }
+
+        public void endWorksheet(int sheetIndex, String sheetName) {
+            events.add("end " + sheetIndex + " " + sheetName);
+        }
+
+    }
+
+}
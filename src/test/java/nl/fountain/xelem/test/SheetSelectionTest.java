@@ -0,0 +1,196 @@
+/*
+ * Created on 17-okt-2026
+ *
+ */
+package nl.fountain.xelem.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+import nl.fountain.xelem.Area;
+import nl.fountain.xelem.XSerializer;
+import nl.fountain.xelem.excel.Cell;
+import nl.fountain.xelem.excel.NamedRange;
+import nl.fountain.xelem.excel.Workbook;
+import nl.fountain.xelem.excel.Worksheet;
+import nl.fountain.xelem.excel.ss.XLWorkbook;
+import nl.fountain.xelem.lex.DefaultExcelReaderListener;
+import nl.fountain.xelem.lex.ExcelReader;
+import nl.fountain.xelem.lex.RowIterator;
+import nl.fountain.xelem.lex.SheetSelector;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ *
+ */
+public class SheetSelectionTest extends TestCase {
+
+    private static String xml;
+
+    private ExcelReader reader;
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(SheetSelectionTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        reader = new ExcelReader();
+        if (xml == null) {
+            Workbook wb = new XLWorkbook();
+            for (int s = 0; s < 5; s++) {
+                Worksheet sheet = wb.addSheet("sheet" + s);
+                sheet.addNamedRange("range" + s, "=R1C1");
+                for (int r = 1; r <= 5; r++) {
+                    for (int c = 1; c <= 5; c++) {
+                        sheet.addCellAt(r, c).setData(s + ":" + r + ":" + c);
+                    }
+                }
+            }
+            xml = new XSerializer().serializeToString(wb);
+        }
+    }
+
+    public void testSelectByName() throws Exception {
+        reader.selectSheet("sheet2");
+        assertTrue(reader.isSheetSelected(2, "sheet2"));
+        assertFalse(reader.isSheetSelected(1, "sheet1"));
+        SheetLog log = read(xml);
+        assertEquals("2 start sheet2", log.events.get(0));
+        assertEquals("2 range2", log.events.get(1));
+        assertEquals("2 cell 2:1:1", log.events.get(2));
+        assertEquals("2 end sheet2", log.events.get(log.events.size() - 2));
+        assertEquals("endDocument", log.events.get(log.events.size() - 1));
+        assertEquals(28 + 1, log.events.size());
+
+        reader.clearSheetSelection();
+        assertEquals(5 * 28 + 1, read(xml).events.size());
+    }
+
+    public void testSheetAreas() throws Exception {
+        reader.selectSheet(1);
+        reader.selectSheet("sheet3");
+        reader.setReadArea(new Area("A1:A1"));
+        reader.setReadArea("sheet3", new Area("B2:C3"));
+        assertEquals("B2:C3", reader.getReadArea("sheet3").getA1Reference());
+        assertEquals("A1:A1", reader.getReadArea("sheet1").getA1Reference());
+        SheetLog log = read(xml);
+        List<String> expected = new ArrayList<String>();
+        expected.add("1 start sheet1");
+        expected.add("1 range1");
+        expected.add("1 cell 1:1:1");
+        expected.add("1 end sheet1");
+        expected.add("3 start sheet3");
+        expected.add("3 range3");
+        expected.add("3 cell 3:2:2");
+        expected.add("3 cell 3:2:3");
+        expected.add("3 cell 3:3:2");
+        expected.add("3 cell 3:3:3");
+        expected.add("3 end sheet3");
+        expected.add("endDocument");
+        assertEquals(expected, log.events);
+
+        RowIterator iter = reader.openRows(new InputSource(new StringReader(xml)), "sheet3");
+        assertEquals(2, iter.next().getIndex());
+        iter.close();
+
+        reader.clearReadArea();
+        assertNull(reader.getReadArea("sheet3"));
+    }
+
+    public void testSelector() throws Exception {
+        reader.addSheetSelector(new SheetSelector() {
+            public boolean isSelected(int sheetIndex, String sheetName) {
+                return sheetIndex % 2 == 0;
+            }
+        });
+        Workbook wb = reader.getWorkbook(new InputSource(new StringReader(xml)));
+        assertEquals(3, wb.getWorksheets().size());
+        assertEquals("sheet0", wb.getWorksheetAt(0).getName());
+        assertEquals("sheet4", wb.getWorksheetAt(2).getName());
+        assertEquals("4:5:5", wb.getWorksheetAt(2).getCellAt(5, 5).getData$());
+    }
+
+    public void testStopAfterLastSelected() throws Exception {
+        // the document is broken after the third worksheet
+        String broken = xml.substring(0, xml.indexOf("ss:Name=\"sheet3\"")) + "<<<";
+        reader.selectSheet("sheet2");
+        reader.selectSheet(0);
+        SheetLog log = read(broken);
+        assertEquals("endDocument", log.events.get(log.events.size() - 1));
+        assertEquals(2 * 28 + 1, log.events.size());
+
+        reader.addSheetSelector(new SheetSelector() {
+            public boolean isSelected(int sheetIndex, String sheetName) {
+                return false;
+            }
+        });
+        try {
+            read(broken);
+            fail("should throw exception");
+        } catch (SAXException e) {
+            //
+        }
+    }
+
+    public void testParallel() throws Exception {
+        reader.selectSheet("sheet1");
+        reader.selectSheet(3);
+        reader.setReadArea("sheet3", new Area("C3:E5"));
+        List<String> expected = read(xml).events;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            reader.setReadExecutor(executor);
+            assertEquals(expected, read(xml).events);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private SheetLog read(String doc) throws Exception {
+        SheetLog log = new SheetLog();
+        reader.addExcelReaderListener(log);
+        try {
+            reader.read(new InputSource(new ByteArrayInputStream(doc.getBytes("UTF-8"))));
+        } finally {
+            reader.removeExcelReaderListener(log);
+        }
+        return log;
+    }
+
+    private static class SheetLog extends DefaultExcelReaderListener {
+
+        List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+        public void startWorksheet(int sheetIndex, Worksheet sheet) {
+            events.add(sheetIndex + " start " + sheet.getName());
+        }
+
+        public void setNamedRange(int sheetIndex, String sheetName,
+                NamedRange namedRange) {
+            events.add(sheetIndex + " " + namedRange.getName());
+        }
+
+        public void setCell(int sheetIndex, String sheetName, int rowIndex, Cell cell) {
+            events.add(sheetIndex + " cell " + cell.getData$());
+        }
+
+        public void endWorksheet(int sheetIndex, String sheetName) {
+            events.add(sheetIndex + " end " + sheetName);
+        }
+
+        public void endDocument(Map<String, String> prefixMap) {
+            events.add("endDocument");
+        }
+
+    }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Created on 17-okt-2026
+ *
+ */
+package nl.fountain.xelem.test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+import nl.fountain.xelem.XSerializer;
+import nl.fountain.xelem.XelemException;
+import nl.fountain.xelem.excel.DuplicateNameException;
+import nl.fountain.xelem.excel.Row;
+import nl.fountain.xelem.excel.Worksheet;
+import nl.fountain.xelem.excel.ss.SSRow;
+import nl.fountain.xelem.excel.ss.StreamingWorkbookWriter;
+import nl.fountain.xelem.excel.ss.XLWorkbook;
+
+/**
+ *
+ */
+public class StreamingWorkbookWriterTest extends TestCase {
+    
+    private StringWriter sw;
+    private StreamingWorkbookWriter sww;
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(StreamingWorkbookWriterTest.class);
+    }
+    
+    protected void setUp() {
+        sw = new StringWriter();
+        sww = new StreamingWorkbookWriter(sw);
+    }
+    
+    public void testSameAsWorkbook() throws IOException, XelemException {
+        XLWorkbook wb = new XLWorkbook();
+        wb.getDocumentProperties().setAuthor("someone");
+        wb.addNamedRange("global", "=data!R1C1:R10C1");
+        Worksheet sheet = wb.addSheet("data");
+        sheet.getTable().addColumn().setWidth(100);
+        sheet.getTable().setStyleID("sHeader");
+        for (int i = 1; i <= 10; i++) {
+            Row row = sheet.getTable().addRowAt(i == 10 ? 12 : i);
+            row.addCell("row " + i);
+            row.addCell(i, "sNum");
+        }
+        sheet.getWorksheetOptions().setZoom(80);
+        wb.addSheet("empty");
+        
+        sww.getWorkbook().getDocumentProperties().setAuthor("someone");
+        sww.getWorkbook().addNamedRange("global", "=data!R1C1:R10C1");
+        sww.declareStyle("sHeader");
+        sww.declareStyle("sNum");
+        Worksheet streamed = sww.beginSheet("data");
+        streamed.getTable().addColumn().setWidth(100);
+        streamed.getTable().setStyleID("sHeader");
+        for (int i = 1; i <= 10; i++) {
+            Row row = new SSRow();
+            row.addCell("row " + i);
+            row.addCell(i, "sNum");
+            if (i == 10) {
+                sww.writeRowAt(12, row);
+            } else {
+                sww.writeRow(row);
+            }
+        }
+        assertEquals(12, sww.getRowIndex());
+        assertEquals(0, streamed.getTable().rowCount());
+        streamed.getWorksheetOptions().setZoom(80);
+        sww.beginSheet("empty");
+        sww.finish();
+        
+        XSerializer xs = new XSerializer();
+        xs.setStreaming(true);
+        assertEquals(xs.serializeToString(wb), sw.toString());
+        assertEquals(wb.getWarnings().size(), sww.getWarnings().size());
+    }
+    
+    public void testEmptyWorkbook() throws IOException, XelemException {
+        sww.declareStyle("sNum");
+        sww.finish();
+        XLWorkbook wb = new XLWorkbook();
+        wb.addSheet().addCell(1, "sNum").setData("");
+        XSerializer xs = new XSerializer();
+        xs.setStreaming(true);
+        String expected = xs.serializeToString(wb);
+        assertTrue(sw.toString().indexOf("<ss:Worksheet ss:Name=\"Sheet1\"") > 0);
+        assertEquals(expected.substring(0, expected.indexOf("<ss:Worksheet")), 
+                sw.toString().substring(0, sw.toString().indexOf("<ss:Worksheet")));
+    }
+    
+    public void testRowOrder() throws IOException {
+        try {
+            sww.writeRow(new SSRow());
+            fail("should throw IllegalStateException");
+        } catch (IllegalStateException e) {
+            //
+        }
+        sww.beginSheet("a");
+        sww.writeRowAt(5, new SSRow());
+        try {
+            sww.writeRowAt(5, new SSRow());
+            fail("should throw IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            //
+        }
+        sww.writeRow(new SSRow());
+        assertEquals(6, sww.getRowIndex());
+    }
+    
+    public void testInvalidIndexWritesNothing() throws IOException {
+        Worksheet sheet = sww.beginSheet("a");
+        sheet.getTable().addRowAt(3).addCell("in table");
+        try {
+            sww.writeRowAt(3, new SSRow());
+            fail("should throw IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            //
+        }
+        try {
+            sww.writeRowAt(Worksheet.lastRow + 1, new SSRow());
+            fail("should throw IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            //
+        }
+        assertTrue(sw.toString().indexOf("Table") < 0);
+        // the table can still be changed
+        sheet.getTable().setStyleID("sNum");
+        Row row = new SSRow();
+        row.addCell("streamed");
+        sww.writeRow(row);
+        assertEquals(4, sww.getRowIndex());
+        sww.finish();
+        assertTrue(sw.toString().indexOf("ss:StyleID=\"sNum\"") > 0);
+    }
+    
+    public void testRowNotChanged() throws IOException {
+        sww.beginSheet("a");
+        Row row = new SSRow();
+        row.addCell("x");
+        sww.writeRowAt(5, row);
+        assertEquals(0, row.getIndex());
+        row = new SSRow();
+        row.setIndex(42);
+        sww.writeRow(row);
+        assertEquals(42, row.getIndex());
+        sww.finish();
+        String xml = sw.toString();
+        assertTrue(xml.indexOf("ss:Index=\"5\"") > 0);
+        assertTrue(xml.indexOf("ss:Index=\"42\"") < 0);
+    }
+    
+    public void testDeclareStyleTooLate() throws IOException {
+        sww.beginSheet("a");
+        try {
+            sww.declareStyle("sNum");
+            fail("should throw IllegalStateException");
+        } catch (IllegalStateException e) {
+            //
+        }
+    }
+    
+    public void testDuplicateSheetName() throws IOException {
+        sww.beginSheet("a");
+        sww.endSheet();
+        try {
+            sww.beginSheet("a");
+            fail("should throw DuplicateNameException");
+        } catch (DuplicateNameException e) {
+            //
+        }
+    }
+    
+    public void testUndeclaredStyle() throws IOException {
+        sww.declareStyle("sNum");
+        sww.beginSheet("a");
+        Row row = new SSRow();
+        row.addCell("x", "undeclared");
+        sww.writeRow(row);
+        sww.finish();
+        int count = 0;
+        for (String warning : sww.getWarnings()) {
+            if (warning.indexOf("'undeclared' was used") > 0) count++;
+        }
+        assertEquals(1, count);
+    }
+    
+    public void testManyRows() throws IOException {
+        StreamingWorkbookWriter nullWriter = new StreamingWorkbookWriter(
+                new OutputStream() {
+                    public void write(int b) {}
+                    public void write(byte[] b, int off, int len) {}
+                });
+        nullWriter.declareStyle("sNum");
+        Worksheet sheet = nullWriter.beginSheet("many");
+        for (int i = 0; i < 60000; i++) {
+            Row row = new SSRow();
+            row.addCell(i);
+            row.addCell("text");
+            nullWriter.writeRow(row);
+        }
+        nullWriter.finish();
+        assertEquals(60000, nullWriter.getRowIndex());
+        assertFalse(sheet.getTable().hasChildren());
+    }
+
+}
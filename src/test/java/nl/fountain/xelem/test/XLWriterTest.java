@@ -0,0 +1,165 @@
+/*
+ * Created on 17-okt-2026
+ *
+ */
+package nl.fountain.xelem.test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+import nl.fountain.xelem.XLWriter;
+
+/**
+ *
+ */
+public class XLWriterTest extends TestCase {
+    
+    private static final String NL = System.getProperty("line.separator");
+    
+    private StringWriter sw;
+    private XLWriter out;
+
+    public static void main(String[] args) {
+        junit.textui.TestRunner.run(XLWriterTest.class);
+    }
+    
+    protected void setUp() {
+        sw = new StringWriter();
+        out = new XLWriter(sw);
+    }
+    
+    public void testStartDocument() throws IOException {
+        out.startDocument();
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>" 
+                + NL, sw.toString());
+        
+        sw = new StringWriter();
+        out = new XLWriter(sw, "US-ASCII");
+        out.startDocument();
+        assertEquals("<?xml version=\"1.0\" encoding=\"US-ASCII\" standalone=\"no\"?>" 
+                + NL, sw.toString());
+    }
+    
+    public void testEmptyElement() throws IOException {
+        out.startElement("ss", "Row");
+        out.endElement();
+        out.endDocument();
+        assertEquals("<ss:Row/>" + NL, sw.toString());
+    }
+    
+    public void testAttributeOrder() throws IOException {
+        out.startElement("ss:Cell");
+        out.attribute("ss:StyleID", "s1");
+        out.attribute("ss:Index", 3);
+        out.attribute("ss:Formula", "=R1C1");
+        out.endElement();
+        out.endDocument();
+        assertEquals("<ss:Cell ss:Formula=\"=R1C1\" ss:Index=\"3\" ss:StyleID=\"s1\"/>" 
+                + NL, sw.toString());
+    }
+    
+    public void testAttributeWithoutStartTag() throws IOException {
+        out.startElement("ss:Cell");
+        out.text("x");
+        try {
+            out.attribute("ss:Index", 3);
+            fail("should throw IllegalStateException");
+        } catch (IllegalStateException e) {
+            //
+        }
+    }
+    
+    public void testIndentation() throws IOException {
+        out.startElement("Workbook");
+        out.comment("a comment");
+        out.startElement("ss:Worksheet");
+        out.element("Data", "text");
+        out.endElement();
+        out.endElement();
+        out.endDocument();
+        assertEquals("<Workbook>" + NL
+                + "    <!--a comment-->" + NL
+                + "    <ss:Worksheet>" + NL
+                + "        <Data>text</Data>" + NL
+                + "    </ss:Worksheet>" + NL
+                + "</Workbook>" + NL, sw.toString());
+    }
+    
+    public void testFragment() throws IOException {
+        out.startElement("Workbook");
+        XLWriter first = out.newFragment();
+        XLWriter second = out.newFragment();
+        second.startElement("ss:Worksheet");
+        second.element("Data", "two");
+        second.endElement();
+        first.comment("a comment");
+        first.startElement("ss:Worksheet");
+        first.element("Data", "one");
+        first.endElement();
+        out.appendFragment(first);
+        out.appendFragment(second);
+        out.endElement();
+        out.endDocument();
+        assertEquals("<Workbook>" + NL
+                + "    <!--a comment-->" + NL
+                + "    <ss:Worksheet>" + NL
+                + "        <Data>one</Data>" + NL
+                + "    </ss:Worksheet>" + NL
+                + "    <ss:Worksheet>" + NL
+                + "        <Data>two</Data>" + NL
+                + "    </ss:Worksheet>" + NL
+                + "</Workbook>" + NL, sw.toString());
+    }
+    
+    public void testIncompleteFragment() throws IOException {
+        out.startElement("Workbook");
+        XLWriter fragment = out.newFragment();
+        fragment.startElement("ss:Worksheet");
+        try {
+            out.appendFragment(fragment);
+            fail("should throw exception");
+        } catch (IllegalArgumentException e) {
+            //
+        }
+        fragment.endElement();
+        try {
+            fragment.endElement();
+            fail("should throw exception");
+        } catch (IllegalStateException e) {
+            //
+        }
+        try {
+            out.appendFragment(out);
+            fail("should throw exception");
+        } catch (IllegalArgumentException e) {
+            //
+        }
+    }
+    
+    public void testEscaping() throws IOException {
+        out.startElement("Data");
+        out.attribute("a", "<&>\"\n\t'");
+        out.text("<&>\"\r\u0001'");
+        out.endElement();
+        assertEquals("<Data a=\"&lt;&amp;&gt;&quot;&#10;&#9;'\">&lt;&amp;&gt;\"&#13;&#1;'</Data>",
+                sw.toString());
+    }
+    
+    public void testEncoding() throws IOException {
+        out = new XLWriter(sw, "US-ASCII");
+        out.element("Data", "Financi\u00EBn \uD83D\uDE00");
+        assertEquals("<Data>Financi&#235;n &#128512;</Data>", sw.toString());
+        
+        sw = new StringWriter();
+        out = new XLWriter(sw);
+        out.element("Data", "Financi\u00EBn");
+        assertEquals("<Data>Financi\u00EBn</Data>", sw.toString());
+    }
+    
+    public void testComment() throws IOException {
+        out.comment("double--dash-");
+        assertEquals("<!--double- -dash- -->", sw.toString());
+    }
+
+}
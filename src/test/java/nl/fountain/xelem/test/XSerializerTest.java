@@ -4,10 +4,21 @@
  */
 package nl.fountain.xelem.test;
 
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import junit.framework.TestCase;
+import nl.fountain.xelem.GIO;
+import nl.fountain.xelem.XLWriter;
 import nl.fountain.xelem.XSerializer;
 import nl.fountain.xelem.XelemException;
+import nl.fountain.xelem.excel.Cell;
 import nl.fountain.xelem.excel.Workbook;
+import nl.fountain.xelem.excel.Worksheet;
+import nl.fountain.xelem.excel.ss.SSWorksheet;
 import nl.fountain.xelem.excel.ss.XLWorkbook;
 
 
@@ -50,4 +61,133 @@ public class XSerializerTest extends TestCase {
         xs.serialize(wb);
     }
 
+    public void testStreaming() throws XelemException {
+        XSerializer xs = new XSerializer();
+        assertFalse(xs.isStreaming());
+        xs.setStreaming(true);
+        assertTrue(xs.isStreaming());
+        String xml = xs.serializeToString(wb);
+        assertTrue(xml.startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\""));
+        assertTrue(xml.indexOf("<?mso-application progid=\"Excel.Sheet\"?>") > 0);
+        assertTrue(xml.indexOf("<ss:Worksheet ss:Name=\"Sheet1\"") > 0);
+    }
+    
+    public void testStreamingEqualsTransform() throws XelemException {
+        // indentation of the platform's transformer differs before Java 9
+        if (System.getProperty("java.specification.version").startsWith("1.")) return;
+        
+        fillWorkbook();
+        compare(null);
+        compare(XSerializer.US_ASCII);
+    }
+    
+    public void testStreamingEqualsTransformEmpty() throws XelemException {
+        if (System.getProperty("java.specification.version").startsWith("1.")) return;
+        
+        compare(null);
+    }
+    
+    public void testStreamingParallel() throws XelemException {
+        fillWorkbook();
+        for (int i = 0; i < 10; i++) {
+            Worksheet sheet = wb.addSheet("sheet " + i);
+            for (int r = 1; r <= 100; r++) {
+                sheet.addCellAt(r, 1).setData(r * i);
+                sheet.addCellAt(r, 2).setData("row " + r);
+                sheet.getCellAt(r, 2).setStyleID("s" + i);
+            }
+        }
+        XSerializer xs = new XSerializer();
+        xs.setStreaming(true);
+        xs.serializeToString(wb);
+        // warnings of loading the factory are only reported once
+        String sequential = xs.serializeToString(wb);
+        int warnings = ((XLWorkbook) wb).getWarnings().size();
+        
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ((XLWorkbook) wb).setWriteExecutor(executor);
+            assertSame(executor, ((XLWorkbook) wb).getWriteExecutor());
+            for (int i = 0; i < 5; i++) {
+                assertEquals(sequential, xs.serializeToString(wb));
+            }
+            assertEquals(warnings, ((XLWorkbook) wb).getWarnings().size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    public void testStreamingParallelException() throws XelemException {
+        wb.addSheet("good").addCell("good");
+        wb.addSheet(new SSWorksheet("bad") {
+            public void write(XLWriter out, GIO gio) {
+                throw new IllegalStateException("bad sheet");
+            }
+        });
+        wb.addSheet("also good").addCell("also good");
+        XSerializer xs = new XSerializer();
+        xs.setStreaming(true);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            ((XLWorkbook) wb).setWriteExecutor(executor);
+            xs.serializeToString(wb);
+            fail("should throw exception");
+        } catch (IllegalStateException e) {
+            assertEquals("bad sheet", e.getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    private void compare(String encoding) throws XelemException {
+        XSerializer xsDom = encoding == null ? 
+                new XSerializer() : new XSerializer(encoding);
+        XSerializer xsStream = encoding == null ? 
+                new XSerializer() : new XSerializer(encoding);
+        xsStream.setStreaming(true);
+        
+        assertEquals(xsDom.serializeToString(wb), xsStream.serializeToString(wb));
+        
+        ByteArrayOutputStream outDom = new ByteArrayOutputStream();
+        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        xsDom.serialize(wb, outDom);
+        xsStream.serialize(wb, outStream);
+        assertTrue(Arrays.equals(outDom.toByteArray(), outStream.toByteArray()));
+    }
+    
+    private void fillWorkbook() {
+        wb.getDocumentProperties().setTitle("a<b & \"c\"");
+        wb.addElementComment("a comment on the workbook");
+        wb.addElementComment("double--dash-");
+        wb.getExcelWorkbook().setWindowHeight(1000);
+        wb.addNamedRange("global", "=Sheet1!R1C1");
+        
+        Worksheet sheet = wb.addSheet("first sheet");
+        sheet.addElementComment("a comment on the sheet");
+        sheet.getWorksheetOptions().setSelected(true);
+        sheet.addCell("x<y>&'\"\n\tz\r", "sStr");
+        sheet.addCell(3.5, "sNum");
+        sheet.addCell(new Date(0));
+        sheet.addCell("");
+        sheet.addCell("BV Financi\u00EBn \uD83D\uDE00 \u0001");
+        Cell cell = sheet.addCellAt(3, 5);
+        cell.setData(true);
+        cell.setFormula("=A1&\"x\"\n<\t");
+        cell.addComment("a comment").setAuthor("someone");
+        cell.addElementComment("a comment on the cell");
+        sheet.addNamedRange("local", "=R1C1");
+        sheet.getTable().setStyleID("sHeader");
+        sheet.getTable().addColumnAt(4).setWidth(20);
+        sheet.getTable().getRowAt(3).setHeight(12.5);
+        sheet.setAutoFilter("R1C1:R3C3");
+        
+        Worksheet sheet2 = wb.addSheet();
+        sheet2.getWorksheetOptions().setSelected(true);
+        sheet2.getWorksheetOptions().freezePanesAt(2, 1);
+        sheet2.getWorksheetOptions().setActiveCell(3, 3);
+        sheet2.addCell(42);
+        
+        wb.addSheet("empty");
+    }
+
 }